@@ -0,0 +1,127 @@
+package ca.ualberta.odobot.semanticflow.navmodel;
+
+import ca.ualberta.odobot.mind2web.*;
+import ca.ualberta.odobot.semanticflow.navmodel.nodes.NavNode;
+import org.neo4j.driver.Query;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares inserting Mind2Web traces into the nav model one event at a time (what
+ * {@link Mind2WebService#buildNavModel(Trace)} does) against a {@link NavModelBatch}.
+ *
+ * Runs against an embedded {@link GraphDB}, accessed through its bolt connector just like the services do. The
+ * database is wiped before every invocation, so each invocation measures ingesting the same set of traces into an
+ * empty nav model.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NavModelIngestionBenchmark {
+
+    private static final String [] WEBSITES = {"amazon", "united", "yelp"};
+
+    @Param({"200"})
+    int traces;
+
+    @Param({"10"})
+    int operationsPerTrace;
+
+    //Number of distinct elements per website, smaller values mean more traces share nodes.
+    @Param({"40"})
+    int elementsPerWebsite;
+
+    @Param({"500"})
+    int batchSize;
+
+    GraphDB graphDB;
+    Neo4JUtils neo4j;
+    List<Trace> traceList;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        graphDB = new GraphDB(Files.createTempDirectory("nav-model-benchmark").toString(), "neo4j");
+        neo4j = new Neo4JUtils("bolt://localhost:7687", "neo4j", "odobotdb");
+
+        Random random = new Random(42);
+        traceList = new ArrayList<>();
+        for(int t = 0; t < traces; t++){
+            String website = WEBSITES[t % WEBSITES.length];
+            Trace trace = new Trace().setWebsite(website).setAnnotationId("trace-" + t);
+
+            trace.add(new Start());
+            for(int o = 0; o < operationsPerTrace; o++){
+                int element = random.nextInt(elementsPerWebsite);
+                Operation op = element % 4 == 0 ? new Type() : new Click();
+                op.setActionId("action-" + t + "-" + o);
+                op.setTargetElementXpath("/html/body/div[" + (element + 1) + "]");
+                op.setRawHTML(page(website));
+                trace.add(op);
+            }
+            trace.add(new End());
+
+            traceList.add(trace);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void clear(){
+        neo4j.write(new Query("MATCH (n) DETACH DELETE n"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        neo4j.write(new Query("MATCH (n) DETACH DELETE n"));
+    }
+
+    @Benchmark
+    public void perEvent(){
+        for(Trace trace: traceList){
+            for(Operation op: trace){
+                if(op instanceof Click){
+                    neo4j.processClick((Click) op, trace.getWebsite());
+                }
+                if(op instanceof Type){
+                    neo4j.processType((Type) op, trace.getWebsite());
+                }
+                if(op instanceof Start){
+                    neo4j.processStart(trace.getWebsite(), trace.getAnnotationId());
+                }
+                if(op instanceof End){
+                    neo4j.processEnd(trace.getWebsite(), trace.getAnnotationId());
+                }
+            }
+
+            for(int i = 0; i < trace.size() - 1; i++){
+                NavNode a = neo4j.resolveNavNode(trace.get(i), trace.getWebsite());
+                NavNode b = neo4j.resolveNavNode(trace.get(i + 1), trace.getWebsite());
+                neo4j.bind(a, b);
+            }
+        }
+    }
+
+    @Benchmark
+    public long batched(){
+        NavModelBatch batch = neo4j.batch(batchSize);
+        traceList.forEach(batch::addTrace);
+        batch.close();
+        return batch.getTotalEvents();
+    }
+
+    private String page(String website){
+        StringBuilder sb = new StringBuilder("<html><body>");
+        for(int i = 0; i < elementsPerWebsite; i++){
+            sb.append("<div>").append(website).append(" element ").append(i).append("</div>");
+        }
+        return sb.append("</body></html>").toString();
+    }
+
+}
@@ -0,0 +1,157 @@
+package ca.ualberta.odobot.semanticflow.ranking.terms.impl;
+
+import ca.ualberta.odobot.semanticflow.mappers.impl.ClickEventMapper;
+import ca.ualberta.odobot.semanticflow.model.ClickEvent;
+import io.vertx.core.json.JsonObject;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares computing the distances needed to rank the terms of a click event with a single breadth first search from
+ * the target element ({@link ElementIndex}) against the Dijkstra search with nested distance maps that
+ * {@link DistanceToTarget} used to do.
+ *
+ * Uses the click event fixture of DistanceToTargetRankingStrategyTest. If the fixture is not available, a synthetic
+ * page with a similar structure (navigation, a large table, and a form holding the target) is used instead.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DistanceToTargetBenchmark {
+
+    @Param({"src/test/resources/interactionEventExample.json"})
+    String fixture;
+
+    //Rows in the synthetic page, only used if the fixture is missing.
+    @Param({"300"})
+    int syntheticRows;
+
+    Document document;
+    Element target;
+
+    //The elements matching each term extracted for the target, as ranked by DistanceToTarget.
+    List<Elements> matches;
+
+    @Setup
+    public void setup() throws IOException {
+        Path path = Path.of(fixture);
+        if(Files.exists(path)){
+            ClickEvent event = new ClickEventMapper().map(new JsonObject(Files.readString(path)));
+            document = event.getDomSnapshot();
+            target = event.getTargetElement();
+        }else{
+            document = Jsoup.parse(syntheticPage(syntheticRows));
+            target = document.selectXpath("/html/body/div[2]/form/div/button").first();
+        }
+
+        matches = new ArrayList<>();
+        for(String term: DistanceToTarget.getTopNLogicalTextRegions(target, 10)){
+            Elements elements = DistanceToTarget.MatchingFunction.OWN_TEXT.getFunction().apply(document.body(), term);
+            if(!elements.isEmpty()){
+                matches.add(elements);
+            }
+        }
+    }
+
+    @Benchmark
+    public void singleBfs(Blackhole blackhole){
+        ElementIndex index = new ElementIndex(document);
+        int [] distances = index.distancesFrom(index.indexOf(target));
+        for(Elements elements: matches){
+            int min = Integer.MAX_VALUE;
+            for(Element match: elements){
+                min = Math.min(min, distances[index.indexOf(match)]);
+            }
+            blackhole.consume(min);
+        }
+    }
+
+    @Benchmark
+    public void dijkstraWithNestedMaps(Blackhole blackhole){
+        Map<Element, Map<Element, Integer>> cache = new HashMap<>();
+        for(Elements elements: matches){
+            int min = Integer.MAX_VALUE;
+            for(Element match: elements){
+                Map<Element, Integer> cached = cache.get(target);
+                Integer distance = cached == null ? null : cached.get(match);
+                if(distance == null){
+                    distance = dijkstra(cache, document, target, match);
+                }
+                min = Math.min(min, distance);
+            }
+            blackhole.consume(min);
+        }
+    }
+
+    /**
+     * The pre-BFS implementation, caching every distance found from the source in both directions.
+     */
+    private static Integer dijkstra(Map<Element, Map<Element, Integer>> cache, Document document, Element src, Element tgt){
+        Elements vertices = document.getAllElements();
+        Map<Element, Integer> dist = new HashMap<>();
+        vertices.forEach(v->dist.put(v, Integer.MAX_VALUE-1));
+        dist.put(src, 0);
+
+        PriorityQueue<Element> q = new PriorityQueue<>(vertices.size(), Comparator.comparingInt(dist::get));
+        vertices.forEach(q::add);
+
+        while (!q.isEmpty()){
+            Element u = q.poll();
+
+            if(u.equals(tgt)){
+                dist.entrySet().stream()
+                        .filter(entry->entry.getValue() < Integer.MAX_VALUE - 1)
+                        .forEach(entry->{
+                            cache.computeIfAbsent(src, k->new HashMap<>()).put(entry.getKey(), entry.getValue());
+                            cache.computeIfAbsent(entry.getKey(), k->new HashMap<>()).put(src, entry.getValue());
+                        });
+                return dist.get(u);
+            }
+
+            List<Element> neighbours = new ArrayList<>(u.children());
+            if(u.hasParent()){
+                neighbours.add(u.parent());
+            }
+            for(Element v: neighbours){
+                int alt = dist.get(u) + 1;
+                if(alt < dist.get(v)){
+                    dist.put(v, alt);
+                    q.remove(v);
+                    q.add(v);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String syntheticPage(int rows){
+        StringBuilder html = new StringBuilder("<html><body><div id='nav'><ul>");
+        for(int i = 0; i < 200; i++){
+            html.append("<li><a href='#'>Menu item ").append(i).append("</a></li>");
+        }
+        html.append("</ul></div><div id='main'><table>");
+        for(int r = 0; r < rows; r++){
+            html.append("<tr>");
+            for(int c = 0; c < 5; c++){
+                html.append("<td><span>Cell text r").append(r).append(" c").append(c).append("</span></td>");
+            }
+            html.append("</tr>");
+        }
+        html.append("</table><form><div><label>Course name</label><input/><button>Save changes</button>")
+                .append("<p>Some help text here</p><p>Another paragraph</p></div></form></div></body></html>");
+        return html.toString();
+    }
+}
@@ -0,0 +1,121 @@
+package ca.ualberta.odobot.tpg;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares bid throughput of the compiled {@link Program} interpreter against decoding the
+ * {@link Instruction} bitsets on every execution, which is what {@link Program#run(double[])} used to do.
+ *
+ * Each invocation bids every program over every exemplar, ie: one "generation" worth of bids for a single team.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProgramBidBenchmark {
+
+    private static final int REGISTERS = 8;
+
+    @Param({"24", "96"})
+    int maxProgramSize;
+
+    @Param({"1000"})
+    int exemplars;
+
+    @Param({"256"})
+    int featureVectorSize;
+
+    @Param({"16"})
+    int programs;
+
+    List<Program> bidPrograms;
+    double [][] featureVectors;
+
+    @Setup
+    public void setup(){
+        TPGAlgorithm.RNG = new Random(42);
+
+        bidPrograms = new ArrayList<>();
+        for(int i = 0; i < programs; i++){
+            bidPrograms.add(new Program(REGISTERS, maxProgramSize, true));
+        }
+
+        Random random = new Random(7);
+        featureVectors = new double[exemplars][featureVectorSize];
+        for(double [] featureVector: featureVectors){
+            for(int i = 0; i < featureVector.length; i++){
+                featureVector[i] = random.nextDouble();
+            }
+        }
+    }
+
+    @Benchmark
+    public void compiled(Blackhole blackhole){
+        for(double [] featureVector: featureVectors){
+            for(Program program: bidPrograms){
+                blackhole.consume(1 / ( 1 + Math.exp( -program.run(featureVector)[0] ) ));
+            }
+        }
+    }
+
+    @Benchmark
+    public void decodedPerExecution(Blackhole blackhole){
+        for(double [] featureVector: featureVectors){
+            for(Program program: bidPrograms){
+                blackhole.consume(1 / ( 1 + Math.exp( -decodeAndRun(program, featureVector)[0] ) ));
+            }
+        }
+    }
+
+    /**
+     * The pre-compilation interpreter, decoding every instruction's bitset on each execution.
+     */
+    private static double [] decodeAndRun(Program program, double [] inputFeatures){
+        double [] registers = program.registers;
+        int registerCount = program.registerCount;
+
+        for(Instruction instruction: program.program){
+            int mode = (int)(instruction.getModeRegister().getLongValue() % Instruction.MODE_COUNT);
+            int operation = (int)(instruction.getOperationRegister().getLongValue() % Instruction.OPERATION_COUNT);
+            int destinationRegister = (int) instruction.getDestinationRegister().getLongValue() % registerCount;
+
+            double sourceValue;
+            if(mode == Instruction.mode0_VALUE){
+                sourceValue = registers[ (int) instruction.getSourceRegister().getLongValue() % registerCount ];
+            }else if(mode == Instruction.mode1_VALUE){
+                sourceValue = inputFeatures[ (int) (instruction.getSourceRegister().getLongValue() % inputFeatures.length) ];
+            }else{
+                sourceValue = TPGAlgorithm.memory.read( (int) (instruction.getSourceRegister().getLongValue()) );
+            }
+
+            if( operation == Instruction.SUM_VALUE )
+                registers[destinationRegister] += sourceValue;
+            else if( operation == Instruction.DIFF_VALUE )
+                registers[destinationRegister] -= sourceValue;
+            else if( operation == Instruction.PROD_VALUE )
+                registers[destinationRegister] *= 2;
+            else if( operation == Instruction.DIV_VALUE )
+                registers[destinationRegister] /= 2;
+            else if( operation == Instruction.COND_VALUE ){
+                if( registers[destinationRegister] < sourceValue )
+                    registers[destinationRegister] *= -1;
+            }
+            else if( operation == Instruction.WRIT_VALUE )
+                TPGAlgorithm.memory.write(registers);
+
+            if( Double.isInfinite(registers[destinationRegister]) || Double.isNaN(registers[destinationRegister]) )
+                registers[destinationRegister] = 0;
+        }
+
+        return registers;
+    }
+
+}
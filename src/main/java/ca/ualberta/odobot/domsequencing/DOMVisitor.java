@@ -1,12 +1,10 @@
 package ca.ualberta.odobot.domsequencing;
 
 import org.jsoup.nodes.Element;
-import org.jsoup.nodes.Node;
-import org.jsoup.select.NodeVisitor;
 
 import java.util.*;
 
-public class DOMVisitor implements NodeVisitor {
+public class DOMVisitor extends XPathVisitor {
 
     List<String> texts = new ArrayList<>();
     DOMSequence sequence = new DOMSequence();
@@ -15,22 +13,17 @@ public class DOMVisitor implements NodeVisitor {
     DirectlyFollowsManifest directlyFollowsManifest = new DirectlyFollowsManifest();
 
     @Override
-    public void head(Node node, int depth) {
-        if(node instanceof Element){
-            Element element = (Element) node;
-            sequence.add(new DOMSegment(element.tagName(), element.className(), XPath.getXPath(element)));
-            cssManifest.catalogElement(element);
-        }
+    protected void head(Element element, String xpath) {
+        sequence.add(new DOMSegment(element.tagName(), element.className(), xpath));
+        cssManifest.catalogElement(element);
     }
 
-    public void tail(Node node, int depth){
+    @Override
+    protected void tail(Element element, String xpath){
         //Tabulate which classes appear in child elements of parent classes
         //I think this needs to be done in the 'tail' method to avoid double counting.
         //But I may be wrong about that, TODO - reason this out please, we need to be confident.
-        if(node instanceof Element){
-            Element element = (Element) node;
-            directlyFollowsManifest.catalogElement(element);
-        }
+        directlyFollowsManifest.catalogElement(element);
     }
 
     public DOMSequence getSequence(){
@@ -35,13 +35,13 @@ public class XPath {
                  */
 
 
-                if(sibling.nodeName() == element.nodeName()){
+                if(sibling.nodeName().equals(element.nodeName())){
                     ++index;
                 }
             }
 
             for (Element sibling = element.nextElementSibling(); sibling != null && !hasFollowingSiblings; sibling = sibling.nextElementSibling()){
-                if(sibling.nodeName() == element.nodeName()){
+                if(sibling.nodeName().equals(element.nodeName())){
                     hasFollowingSiblings = true;
                 }
             }
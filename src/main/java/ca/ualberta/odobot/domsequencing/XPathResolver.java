@@ -0,0 +1,244 @@
+package ca.ualberta.odobot.domsequencing;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves absolute xpaths of the form produced by {@link XPath#getXPath(Element)}, eg: '/html/body/div[2]/ul/li[3]',
+ * by walking the JSoup tree directly.
+ *
+ * {@link Element#selectXpath(String)} converts the whole document to W3C DOM and runs a general XPath engine on every
+ * call. Here each xpath is parsed once into an array of steps (a tag name and an optional position) and the steps are
+ * matched against element children. Xpaths using anything else (axes, wildcards, attributes, functions, etc.) are
+ * handed to {@link Element#selectXpath(String)}, so results are always the same as selectXpath's.
+ */
+public class XPathResolver {
+
+    private static final Pattern SIMPLE_XPATH = Pattern.compile("(/[A-Za-z_][A-Za-z0-9_.\\-]*(\\[[1-9][0-9]{0,8}])?)+");
+
+    //Parsed steps are kept for this many distinct xpaths, after which the cache starts over.
+    private static final int MAX_CACHED_XPATHS = 50000;
+
+    //Marks xpaths that aren't simple absolute xpaths in the step cache.
+    private static final Step[] NOT_SIMPLE = new Step[0];
+
+    private static final Map<String, Step[]> stepCache = new ConcurrentHashMap<>();
+
+    /**
+     * One step of an absolute xpath, eg: 'div[2]'.
+     *
+     * @param tag the tag name of the child elements to match.
+     * @param position the 1-based position among children with that tag, or 0 to match all of them.
+     */
+    private record Step(String tag, int position){
+
+        /**
+         * Adds the children of the parent matching this step to the result, in document order.
+         */
+        void match(Element parent, List<Element> result){
+            int count = 0;
+            for(int i = 0; i < parent.childrenSize(); i++){
+                Element child = parent.child(i);
+                if(!child.tagName().equals(tag)){
+                    continue;
+                }
+
+                if(position == 0){
+                    result.add(child);
+                }else if(++count == position){
+                    result.add(child);
+                    return;
+                }
+            }
+        }
+
+        String text(){
+            return position == 0? tag: tag + "[" + position + "]";
+        }
+    }
+
+    /**
+     * A node in the trie of steps built by {@link #compile(Collection)}.
+     */
+    private static class StepNode{
+        final Step step;
+        final Map<String, StepNode> children = new LinkedHashMap<>();
+
+        //The xpaths ending at this node.
+        final List<String> xpaths = new ArrayList<>();
+
+        StepNode(Step step){
+            this.step = step;
+        }
+    }
+
+    /**
+     * @param document
+     * @param xpath
+     * @return the elements of the document matching the xpath, in document order.
+     */
+    public static Elements select(Document document, String xpath){
+        Step[] steps = steps(xpath);
+        if(steps == NOT_SIMPLE){
+            return document.selectXpath(xpath);
+        }
+
+        List<Element> current = List.of(document);
+        for(Step step: steps){
+            List<Element> next = new ArrayList<>();
+            for(Element parent: current){
+                step.match(parent, next);
+            }
+            if(next.isEmpty()){
+                return new Elements();
+            }
+            current = next;
+        }
+
+        return new Elements(current);
+    }
+
+    /**
+     * Resolves many xpaths against the same document. The xpaths are merged into a trie of steps, so elements matching a
+     * prefix shared by several xpaths (eg: '/html/body/div[2]') are only looked up once.
+     *
+     * @param document
+     * @param xpaths
+     * @return the elements matching each distinct xpath, keyed by xpath, in the order the xpaths were given.
+     */
+    public static Map<String, Elements> selectAll(Document document, Collection<String> xpaths){
+        return compile(xpaths).selectAll(document);
+    }
+
+    /**
+     * Builds the trie of steps used by {@link #selectAll(Document, Collection)} once, so that the same xpaths can be
+     * resolved against many documents.
+     *
+     * @param xpaths
+     * @return
+     */
+    public static CompiledXPaths compile(Collection<String> xpaths){
+        return new CompiledXPaths(xpaths);
+    }
+
+    /**
+     * A set of xpaths merged into a trie of steps. Once built it is never modified, and can be shared between threads.
+     */
+    public static final class CompiledXPaths{
+
+        private final List<String> xpaths;
+
+        private final StepNode root = new StepNode(null);
+
+        //Distinct xpaths in the order they were given, along with whether they are resolved through the trie.
+        private final Map<String, Boolean> distinct = new LinkedHashMap<>();
+
+        private CompiledXPaths(Collection<String> xpaths){
+            this.xpaths = List.copyOf(xpaths);
+
+            for(String xpath: this.xpaths){
+                if(distinct.containsKey(xpath)){
+                    continue;
+                }
+
+                Step[] steps = steps(xpath);
+                distinct.put(xpath, steps != NOT_SIMPLE);
+                if(steps == NOT_SIMPLE){
+                    continue;
+                }
+
+                StepNode node = root;
+                for(Step step: steps){
+                    node = node.children.computeIfAbsent(step.text(), key->new StepNode(step));
+                }
+                node.xpaths.add(xpath);
+            }
+        }
+
+        /**
+         * @return the compiled xpaths, as given, including duplicates.
+         */
+        public List<String> getXpaths() {
+            return xpaths;
+        }
+
+        /**
+         * @param document
+         * @return the elements matching each distinct xpath, keyed by xpath, in the order the xpaths were given.
+         */
+        public Map<String, Elements> selectAll(Document document){
+            Map<String, Elements> result = new LinkedHashMap<>();
+            distinct.forEach((xpath, simple)->result.put(xpath, simple? null: document.selectXpath(xpath)));
+
+            resolve(root, List.of(document), result);
+
+            return result;
+        }
+    }
+
+    private static void resolve(StepNode node, List<Element> matches, Map<String, Elements> result){
+        for(String xpath: node.xpaths){
+            result.put(xpath, new Elements(matches));
+        }
+
+        for(StepNode child: node.children.values()){
+            List<Element> childMatches = new ArrayList<>();
+            for(Element parent: matches){
+                child.step.match(parent, childMatches);
+            }
+            resolve(child, childMatches, result);
+        }
+    }
+
+    /**
+     * @param xpath
+     * @return the parsed steps of the xpath, or {@link #NOT_SIMPLE} if it isn't a simple absolute xpath.
+     */
+    private static Step[] steps(String xpath){
+        if(xpath == null){
+            return NOT_SIMPLE;
+        }
+
+        Step[] steps = stepCache.get(xpath);
+        if(steps != null){
+            return steps;
+        }
+
+        steps = parse(xpath);
+
+        if(stepCache.size() >= MAX_CACHED_XPATHS){
+            stepCache.clear();
+        }
+        stepCache.put(xpath, steps);
+
+        return steps;
+    }
+
+    private static Step[] parse(String xpath){
+        if(!SIMPLE_XPATH.matcher(xpath).matches()){
+            return NOT_SIMPLE;
+        }
+
+        String [] parts = xpath.substring(1).split("/");
+        Step[] steps = new Step[parts.length];
+        for(int i = 0; i < parts.length; i++){
+            String part = parts[i];
+            int bracket = part.indexOf('[');
+            steps[i] = bracket == -1?
+                    new Step(part, 0):
+                    new Step(part.substring(0, bracket), Integer.parseInt(part.substring(bracket + 1, part.length() - 1)));
+        }
+
+        return steps;
+    }
+
+}
@@ -0,0 +1,118 @@
+package ca.ualberta.odobot.domsequencing;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.select.NodeVisitor;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link NodeVisitor} that hands every element to its subclass along with the element's xpath, as produced by
+ * {@link XPath#getXPath(Element)}.
+ *
+ * Rather than walking back up to the root for every element, the visitor keeps the xpaths of the elements on the
+ * current path, and for each of them, how many element children of each tag it has and how many it has visited so
+ * far. Xpaths for a whole document are then computed in a single pass.
+ */
+public abstract class XPathVisitor implements NodeVisitor {
+
+    private static final String ROOT_TAG = "#root";
+
+    /**
+     * An element on the current path.
+     */
+    private static class Frame{
+
+        final Element element;
+
+        //The xpath of the element, children's xpaths are built from it.
+        final String xpath;
+
+        //Number of element children by tag name, computed when the first child is visited.
+        Map<String, Integer> totals;
+
+        //Number of element children visited so far by tag name.
+        Map<String, Integer> seen;
+
+        Frame(Element element, String xpath){
+            this.element = element;
+            this.xpath = xpath;
+        }
+
+        /**
+         * @return the position suffix ("[n]" or "") for the next child with the given tag.
+         */
+        String nextPosition(String tag){
+            if(totals == null){
+                totals = new HashMap<>();
+                seen = new HashMap<>();
+                for(Element child: element.children()){
+                    totals.merge(child.nodeName(), 1, Integer::sum);
+                }
+            }
+
+            int index = seen.merge(tag, 1, Integer::sum) - 1;
+            boolean hasFollowingSiblings = totals.getOrDefault(tag, 0) > index + 1;
+
+            return (index != 0 || hasFollowingSiblings)? ("[" + (index + 1) + "]") : "";
+        }
+    }
+
+    private final Deque<Frame> path = new ArrayDeque<>();
+
+    /**
+     * Called when an element is first visited.
+     * @param element
+     * @param xpath the element's xpath, null for the JSoup root element.
+     */
+    protected abstract void head(Element element, String xpath);
+
+    /**
+     * Called when all of an element's children have been visited.
+     * @param element
+     * @param xpath the element's xpath, null for the JSoup root element.
+     */
+    protected void tail(Element element, String xpath){}
+
+    @Override
+    public final void head(Node node, int depth) {
+        if(node instanceof Element element){
+            Frame frame = enter(element);
+            path.push(frame);
+            head(element, reported(frame));
+        }
+    }
+
+    @Override
+    public final void tail(Node node, int depth) {
+        if(node instanceof Element element){
+            Frame frame = path.pop();
+            tail(element, reported(frame));
+        }
+    }
+
+    private Frame enter(Element element){
+        if(element.tagName().equals(ROOT_TAG)){
+            //The JSoup root doesn't appear in xpaths.
+            return new Frame(element, "");
+        }
+
+        Frame parent = path.peek();
+        if(parent == null || parent.element != element.parent()){
+            //The traversal started below the root, compute this element's xpath the long way.
+            String xpath = XPath.getXPath(element);
+            return new Frame(element, xpath);
+        }
+
+        String tagName = element.tagName();
+        return new Frame(element, parent.xpath + "/" + tagName + parent.nextPosition(element.nodeName()));
+    }
+
+    private static String reported(Frame frame){
+        return frame.xpath.isEmpty() ? null : frame.xpath;
+    }
+
+}
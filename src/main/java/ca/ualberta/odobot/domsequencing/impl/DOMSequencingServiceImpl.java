@@ -1,11 +1,11 @@
 package ca.ualberta.odobot.domsequencing.impl;
 
 import ca.ualberta.odobot.domsequencing.*;
+import ca.ualberta.odobot.semanticflow.extraction.terms.AnnotationService;
 import ca.ualberta.odobot.semanticflow.extraction.terms.annotators.EnglishWordAnnotator;
 import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.pipeline.CoreDocument;
-import edu.stanford.nlp.pipeline.StanfordCoreNLP;
 import io.vertx.core.Future;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
@@ -41,17 +41,7 @@ public class DOMSequencingServiceImpl implements DOMSequencingService {
     Map<String, Integer> entityMap = new HashMap<>();
     Map<String,Integer> actionMap = new HashMap<>();
 
-    StanfordCoreNLP pipeline = null;
-
-    public DOMSequencingServiceImpl(){
-        Properties properties = new Properties();
-        properties.setProperty("englishWords.wordnetHome", "C:\\Program Files (x86)\\WordNet\\2.1");
-        properties.setProperty("customAnnotatorClass.englishWords", "ca.ualberta.odobot.semanticflow.extraction.terms.annotators.EnglishWordAnnotator");
-        properties.setProperty("annotators", "tokenize,ssplit,pos,lemma,englishWords");
-        properties.setProperty("tokenize.options", "splitHyphenated=true");
-
-        pipeline = new StanfordCoreNLP(properties);
-    }
+    AnnotationService annotationService = AnnotationService.splitHyphenated();
 
 
     public Future<List<String>> getTexts(String html){
@@ -129,7 +119,7 @@ public class DOMSequencingServiceImpl implements DOMSequencingService {
             input = input.replace("_", " ");
 
             CoreDocument document = new CoreDocument(classString);
-            pipeline.annotate(document);
+            annotationService.annotate(document);
 
             for(CoreLabel tok: document.annotation().get(CoreAnnotations.TokensAnnotation.class)){
                 if(tok.get(EnglishWordAnnotator.class)){
@@ -153,7 +143,7 @@ public class DOMSequencingServiceImpl implements DOMSequencingService {
 
         //Process the body
         CoreDocument document = new CoreDocument(nlpInput);
-        pipeline.annotate(document);
+        annotationService.annotate(document);
 
         for(CoreLabel tok: document.annotation().get(CoreAnnotations.TokensAnnotation.class)){
             if(tok.get(EnglishWordAnnotator.class)){
@@ -5,6 +5,7 @@ import ca.ualberta.odobot.guidance.OnlineEventProcessor;
 import ca.ualberta.odobot.guidance.WebSocketConnection;
 import ca.ualberta.odobot.guidance.execution.ExecutionParameter;
 import ca.ualberta.odobot.guidance.execution.ExecutionRequest;
+import ca.ualberta.odobot.semanticflow.navmodel.PathSearchOptions;
 import ca.ualberta.odobot.taskplanner.TaskPlannerService;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
@@ -150,6 +151,7 @@ public class EvaluateTask implements Runnable{
                         executionRequest.setId(UUID.fromString(definedTask.getString("id")));
                         executionRequest.setUserLocation(definedTask.getString("userLocation"));
                         executionRequest.setType(ExecutionRequest.Type.NL);
+                        executionRequest.setPathSearchOptions(PathSearchOptions.fromJson(task.getJsonObject("pathSearch")));
 
                         JsonArray targets = definedTask.getJsonArray("targets");
                         executionRequest.setTargets(targets.stream()
@@ -173,6 +175,7 @@ public class EvaluateTask implements Runnable{
             executionRequest.setTarget(UUID.fromString(task.getString("target")));
             executionRequest.setUserLocation(task.getString("userLocation"));
             executionRequest.setType(ExecutionRequest.Type.PREDEFINED);
+            executionRequest.setPathSearchOptions(PathSearchOptions.fromJson(task.getJsonObject("pathSearch")));
 
             JsonArray parameters = task.getJsonArray("parameters");
             executionRequest.setParameters(parameters.stream()
@@ -3,6 +3,8 @@ package ca.ualberta.odobot.extractors;
 import ca.ualberta.odobot.semanticflow.model.Timeline;
 import ca.ualberta.odobot.semanticflow.model.TimelineEntity;
 
+import java.util.List;
+
 public interface SemanticArtifactExtractor<T extends TimelineEntity> {
 
     /**
@@ -13,6 +15,16 @@ public interface SemanticArtifactExtractor<T extends TimelineEntity> {
 
     Object extract(T entity, int index, Timeline timeline);
 
+    /**
+     * Called with all the entities of a timeline this extractor applies to, before {@link #extract(TimelineEntity, int, Timeline)}
+     * is called on each of them. Extractors that can do part of their work for many entities at once, like NLP
+     * annotation, do it here.
+     *
+     * @param entities
+     * @param timeline
+     */
+    default void prepare(List<T> entities, Timeline timeline){}
+
 
 
 }
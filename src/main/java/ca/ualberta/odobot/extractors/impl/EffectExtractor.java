@@ -53,4 +53,11 @@ public class EffectExtractor implements SemanticArtifactExtractor<Effect> {
         return terms.stream().collect(JsonArray::new, JsonArray::add, JsonArray::addAll);
 
     }
+
+    @Override
+    public void prepare(List<Effect> entities, Timeline timeline) {
+        List<DomEffect> domEffects = new ArrayList<>();
+        entities.forEach(effect->iteratorFunction.apply(effect).forEachRemaining(domEffects::add));
+        new BasicStanfordNLPStrategy().extractTerms(domEffects, sourceFunction.getFunction());
+    }
 }
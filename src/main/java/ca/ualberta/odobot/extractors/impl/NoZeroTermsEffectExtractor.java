@@ -13,6 +13,7 @@ import io.vertx.core.json.JsonArray;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Like {@link SimpleEffectTermsExtractor} but doesn't return 0 terms if nothing was made visible during the effect. Returns a single empty string term instead.
@@ -41,4 +42,12 @@ public class NoZeroTermsEffectExtractor implements SemanticArtifactExtractor<Eff
         }
         return allTerms.stream().collect(JsonArray::new, JsonArray::add, JsonArray::addAll);
     }
+
+    @Override
+    public void prepare(List<Effect> entities, Timeline timeline) {
+        List<DomEffect> domEffects = entities.stream()
+                .flatMap(effect->effect.domEffectMadeVisible().stream())
+                .collect(Collectors.toList());
+        new BasicStanfordNLPStrategy().extractTerms(domEffects, SourceFunctions.TARGET_ELEMENT_TEXT.getFunction());
+    }
 }
@@ -4,18 +4,19 @@ import ca.ualberta.odobot.extractors.SemanticArtifactExtractor;
 import ca.ualberta.odobot.semanticflow.model.Timeline;
 import ca.ualberta.odobot.semanticflow.model.TimelineEntity;
 
+import java.util.List;
 import java.util.regex.Pattern;
 
 /**
  * An artifact extractor that wraps around an existing extractor and removes any
  * numeric characters in the extracted String. Wrapped extractor must return a String.
  */
-public class NumericFreeExtractor implements SemanticArtifactExtractor {
+public class NumericFreeExtractor<T extends TimelineEntity> implements SemanticArtifactExtractor<T> {
 
 
-    private SemanticArtifactExtractor extractor;
+    private SemanticArtifactExtractor<T> extractor;
 
-    public NumericFreeExtractor( SemanticArtifactExtractor extractor){
+    public NumericFreeExtractor( SemanticArtifactExtractor<T> extractor){
         this.extractor = extractor;
     }
 
@@ -25,7 +26,12 @@ public class NumericFreeExtractor implements SemanticArtifactExtractor {
     }
 
     @Override
-    public Object extract(TimelineEntity entity, int index, Timeline timeline) {
+    public void prepare(List<T> entities, Timeline timeline) {
+        extractor.prepare(entities, timeline);
+    }
+
+    @Override
+    public Object extract(T entity, int index, Timeline timeline) {
         String result = (String)extractor.extract(entity, index, timeline);
         return  result.replaceAll("[0-9]+", "*");
     }
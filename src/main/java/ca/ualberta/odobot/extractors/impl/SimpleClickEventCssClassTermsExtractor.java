@@ -8,6 +8,8 @@ import ca.ualberta.odobot.semanticflow.model.Timeline;
 import ca.ualberta.odobot.semanticflow.ranking.terms.impl.NoRanking;
 import io.vertx.core.json.JsonArray;
 
+import java.util.List;
+
 public class SimpleClickEventCssClassTermsExtractor implements SemanticArtifactExtractor<ClickEvent> {
     @Override
     public String artifactName() {
@@ -21,4 +23,9 @@ public class SimpleClickEventCssClassTermsExtractor implements SemanticArtifactE
         return new NoRanking().getTerms(entity, strategy, SourceFunctions.TARGET_ELEMENT_CSS_CLASSES.getFunction())
                 .stream().collect(JsonArray::new, JsonArray::add, JsonArray::addAll);
     }
+
+    @Override
+    public void prepare(List<ClickEvent> entities, Timeline timeline) {
+        new BasicStanfordNLPStrategy().extractTerms(entities, SourceFunctions.TARGET_ELEMENT_CSS_CLASSES.getFunction());
+    }
 }
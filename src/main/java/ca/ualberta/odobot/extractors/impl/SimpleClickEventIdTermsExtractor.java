@@ -8,6 +8,8 @@ import ca.ualberta.odobot.semanticflow.model.Timeline;
 import ca.ualberta.odobot.semanticflow.ranking.terms.impl.NoRanking;
 import io.vertx.core.json.JsonArray;
 
+import java.util.List;
+
 public class SimpleClickEventIdTermsExtractor implements SemanticArtifactExtractor<ClickEvent> {
     @Override
     public String artifactName() {
@@ -22,4 +24,9 @@ public class SimpleClickEventIdTermsExtractor implements SemanticArtifactExtract
                 .collect(JsonArray::new, JsonArray::add, JsonArray::addAll);
 
     }
+
+    @Override
+    public void prepare(List<ClickEvent> entities, Timeline timeline) {
+        new BasicStanfordNLPStrategy().extractTerms(entities, SourceFunctions.TARGET_ELEMENT_ID.getFunction());
+    }
 }
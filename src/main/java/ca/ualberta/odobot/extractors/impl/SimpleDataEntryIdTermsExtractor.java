@@ -8,6 +8,9 @@ import ca.ualberta.odobot.semanticflow.model.Timeline;
 import ca.ualberta.odobot.semanticflow.ranking.terms.impl.NoRanking;
 import io.vertx.core.json.JsonArray;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 public class SimpleDataEntryIdTermsExtractor implements SemanticArtifactExtractor<DataEntry> {
     @Override
     public String artifactName() {
@@ -21,4 +24,9 @@ public class SimpleDataEntryIdTermsExtractor implements SemanticArtifactExtracto
         return new NoRanking().getTerms(entity.lastChange(), strategy, SourceFunctions.TARGET_ELEMENT_ID.getFunction())
                 .stream().collect(JsonArray::new, JsonArray::add, JsonArray::addAll);
     }
+
+    @Override
+    public void prepare(List<DataEntry> entities, Timeline timeline) {
+        new BasicStanfordNLPStrategy().extractTerms(entities.stream().map(DataEntry::lastChange).collect(Collectors.toList()), SourceFunctions.TARGET_ELEMENT_ID.getFunction());
+    }
 }
@@ -13,6 +13,7 @@ import io.vertx.core.json.JsonArray;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class SimpleEffectTermsExtractor implements SemanticArtifactExtractor<Effect> {
     @Override
@@ -34,4 +35,12 @@ public class SimpleEffectTermsExtractor implements SemanticArtifactExtractor<Eff
         }
         return allTerms.stream().collect(JsonArray::new, JsonArray::add, JsonArray::addAll);
     }
+
+    @Override
+    public void prepare(List<Effect> entities, Timeline timeline) {
+        List<DomEffect> domEffects = entities.stream()
+                .flatMap(effect->effect.domEffectMadeVisible().stream())
+                .collect(Collectors.toList());
+        new BasicStanfordNLPStrategy().extractTerms(domEffects, SourceFunctions.TARGET_ELEMENT_TEXT.getFunction());
+    }
 }
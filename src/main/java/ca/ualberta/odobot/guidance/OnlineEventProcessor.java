@@ -1,6 +1,7 @@
 package ca.ualberta.odobot.guidance;
 
 import ca.ualberta.odobot.semanticflow.mappers.JsonMapper;
+import ca.ualberta.odobot.semanticflow.mappers.SnapshotInterner;
 import ca.ualberta.odobot.semanticflow.mappers.impl.LogUIClickEventMapper;
 import ca.ualberta.odobot.semanticflow.mappers.impl.LogUIDomEffectMapper;
 import ca.ualberta.odobot.semanticflow.mappers.impl.LogUIInputChangeMapper;
@@ -72,6 +73,12 @@ public class OnlineEventProcessor {
     public OnlineEventProcessor(){
         clearRawEvents();
         line.addListener(this::notify);
+
+        //Share identical DOM snapshots between the entities of the timeline.
+        SnapshotInterner snapshots = new SnapshotInterner();
+        clickEventMapper.setSnapshotInterner(snapshots);
+        domEffectMapper.setSnapshotInterner(snapshots);
+        inputChangeMapper.setSnapshotInterner(snapshots);
     }
 
     /**
@@ -152,7 +152,7 @@ public class RequestManager {
 
                 tx = LogPreprocessor.graphDB.db.beginTx();
 
-                navPaths = LogPreprocessor.pathsConstructor.construct(tx, src.toString(), objectParameters, inputParameters, apiCalls);
+                navPaths = LogPreprocessor.pathsConstructor.construct(tx, src.toString(), objectParameters, inputParameters, apiCalls, request.getPathSearchOptions());
 
                 //First collect together our parameter mappings, we'll need this to generate semantically meaningful natural language descriptions of the different paths.
                 JsonArray parameters = request.getParameters().stream().map(ExecutionParameter::toJson).collect(JsonArray::new, JsonArray::add, JsonArray::addAll);
@@ -256,7 +256,7 @@ public class RequestManager {
 
                 tx = LogPreprocessor.graphDB.db.beginTx();
 
-                navPaths = LogPreprocessor.pathsConstructor.construct(tx, src,tgt, request.getParameters());
+                navPaths = LogPreprocessor.pathsConstructor.construct(tx, src,tgt, request.getParameters(), request.getPathSearchOptions());
 
                 log.info("Found {} execution paths", navPaths.size());
 
@@ -591,7 +591,7 @@ public class RequestManager {
 
                     tx.close(); //Close the previous graphdb transaction.
                     tx = LogPreprocessor.graphDB.db.beginTx();
-                    navPaths = LogPreprocessor.pathsConstructor.construct(tx, updatedStartingNode.get().toString(), request.getObjectParameters(), request.getInputParameters(), request.getApiCalls());
+                    navPaths = LogPreprocessor.pathsConstructor.construct(tx, updatedStartingNode.get().toString(), request.getObjectParameters(), request.getInputParameters(), request.getApiCalls(), request.getPathSearchOptions());
                     request.addRecomputation();
 
                     log.info("Found {} paths after recomputation", navPaths.size());
@@ -3,6 +3,7 @@ package ca.ualberta.odobot.guidance.connectionmanagers;
 import ca.ualberta.odobot.guidance.OdoClient;
 import ca.ualberta.odobot.guidance.execution.ExecutionParameter;
 import ca.ualberta.odobot.guidance.execution.ExecutionRequest;
+import ca.ualberta.odobot.semanticflow.navmodel.PathSearchOptions;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import org.slf4j.Logger;
@@ -48,6 +49,7 @@ public class ControlConnectionManager extends AbstractConnectionManager implemen
                 executionRequest.setId(UUID.fromString(message.getString("id")));
                 executionRequest.setTarget(UUID.fromString(message.getString("target")));
                 executionRequest.setUserLocation(message.getString("userLocation"));
+                executionRequest.setPathSearchOptions(PathSearchOptions.fromJson(message.getJsonObject("pathSearch")));
 
                 JsonArray parameters = message.getJsonArray("parameters");
                 executionRequest.setParameters(parameters.stream()
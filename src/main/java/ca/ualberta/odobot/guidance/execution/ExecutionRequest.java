@@ -1,6 +1,7 @@
 package ca.ualberta.odobot.guidance.execution;
 
 import ca.ualberta.odobot.logpreprocessor.LogPreprocessor;
+import ca.ualberta.odobot.semanticflow.navmodel.PathSearchOptions;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.graphdb.Result;
@@ -42,6 +43,8 @@ public class ExecutionRequest {
     private String targetMethod;
     private String targetPath;
 
+    private PathSearchOptions pathSearchOptions = new PathSearchOptions();
+
     public String getTaskDescription() {
         return taskDescription;
     }
@@ -73,7 +76,7 @@ public class ExecutionRequest {
 
         //Fetch identifying properties of the target node.
         try(Transaction tx = LogPreprocessor.graphDB.db.beginTx();
-            Result result = tx.execute("match (n:APINode) where n.id = '%s' return n limit 1".formatted(target.toString()));
+            Result result = tx.execute("MATCH (n:APINode:NavNode {id:$id}) RETURN n LIMIT 1", Map.of("id", target.toString()));
             ResourceIterator<Node> resultIt = result.columnAs("n");
         ){
             Node _targetNode = resultIt.next();
@@ -214,6 +217,16 @@ public class ExecutionRequest {
         this.visitedNodes = visitedNodes;
         return this;
     }
-}
 
+    public PathSearchOptions getPathSearchOptions() {
+        if(pathSearchOptions == null){
+            pathSearchOptions = new PathSearchOptions();
+        }
+        return pathSearchOptions;
+    }
 
+    public ExecutionRequest setPathSearchOptions(PathSearchOptions pathSearchOptions) {
+        this.pathSearchOptions = pathSearchOptions;
+        return this;
+    }
+}
@@ -259,6 +259,9 @@ public class LogPreprocessor extends AbstractVerticle {
             api.route().method(HttpMethod.GET).path("/collapseTest").handler(this::testingCollapse);
             api.route().method(HttpMethod.GET).path("/postLocationMergerTest").handler(this::testingPostLocationEffectMerger);
             api.route().method(HttpMethod.GET).path("/schemaAnnotation").handler(this::schemaAnnotation);
+            api.route().method(HttpMethod.GET).path("/navmodel/paths/metrics").handler(this::navPathMetrics);
+            api.route().method(HttpMethod.GET).path("/navmodel/localizer/metrics").handler(this::localizerMetrics);
+            api.route().method(HttpMethod.POST).path("/navmodel/localizer/refresh").handler(this::refreshLocalizer);
 
 
             //Mount handlers to main router
@@ -374,6 +377,8 @@ public class LogPreprocessor extends AbstractVerticle {
             if(rc.get("todo") != null && ((List<String>)rc.get("todo")).size()> 0){
                 rc.reroute(HttpMethod.GET, API_PATH_PREFIX.substring(0,API_PATH_PREFIX.length()-2) + "/preprocessing/pipelines/" + pipeline.slug() + "/construct/navmodel");
             }else{
+                //The nav model has changed, rebuild the snapshot used for path construction.
+                pathsConstructor.rebuildSnapshot();
                 rc.response().setStatusCode(200).end("done");
             }
         });
@@ -619,6 +624,25 @@ public class LogPreprocessor extends AbstractVerticle {
 
     }
 
+    private void navPathMetrics(RoutingContext rc){
+        rc.response().setStatusCode(200).putHeader("Content-Type", "application/json").end(pathsConstructor.getMetrics().encodePrettily());
+    }
+
+    private void localizerMetrics(RoutingContext rc){
+        rc.response().setStatusCode(200).putHeader("Content-Type", "application/json").end(localizer.getMetrics().encodePrettily());
+    }
+
+    /**
+     * The localizer keeps its indices up to date as the nav model changes, this forces a full rebuild.
+     */
+    private void refreshLocalizer(RoutingContext rc){
+        vertx.getDelegate().executeBlocking(()->{
+            localizer.refreshIndices();
+            return localizer.getMetrics();
+        }).onSuccess(metrics->rc.response().setStatusCode(200).putHeader("Content-Type", "application/json").end(metrics.encodePrettily()))
+          .onFailure(rc::fail);
+    }
+
     private void schemaAnnotation(RoutingContext rc){
 
         /**
@@ -36,7 +36,7 @@ public class EffectOverhaulPipeline  extends EnhancedEmbeddingPipeline implement
         extractorMultimap.put(Effect.class, removedCssTerms);
         extractorMultimap.put(Effect.class, addedIdTerms);
         extractorMultimap.put(Effect.class, removedIdTerms);
-        extractorMultimap.put(Effect.class, new NumericFreeExtractor(new EffectBaseURIExtractor()));
+        extractorMultimap.put(Effect.class, new NumericFreeExtractor<>(new EffectBaseURIExtractor()));
         extractorMultimap.put(Effect.class, new NextIdExtractor());
         extractorMultimap.put(Effect.class, addedTagTerms);
         extractorMultimap.put(Effect.class, removedTagTerms);
@@ -53,6 +53,7 @@ public class MinimalPipeline extends SimplePreprocessingPipeline{
          * Go through each timeline entity and get all matching extractors for that entity's class.
          * Then apply each extractor to the entity and add it's output to the entity's semantic artifacts.
          */
+        prepareExtractors(timeline);
         ListIterator<TimelineEntity> it = timeline.listIterator();
 
         while (it.hasNext()){
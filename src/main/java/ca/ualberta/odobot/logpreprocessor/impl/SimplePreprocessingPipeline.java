@@ -60,19 +60,19 @@ public class SimplePreprocessingPipeline extends AbstractPreprocessingPipeline i
         extractorMultimap.put(ClickEvent.class, new SimpleClickEventTermsExtractor());
         extractorMultimap.put(ClickEvent.class, new SimpleClickEventIdTermsExtractor());
         extractorMultimap.put(ClickEvent.class, new SimpleClickEventCssClassTermsExtractor());
-        extractorMultimap.put(ClickEvent.class, new NumericFreeExtractor(new ClickEventBaseURIExtractor()));
+        extractorMultimap.put(ClickEvent.class, new NumericFreeExtractor<>(new ClickEventBaseURIExtractor()));
         extractorMultimap.put(ClickEvent.class, new NextIdExtractor());
         extractorMultimap.put(Effect.class, new NoZeroTermsEffectExtractor());
         extractorMultimap.put(Effect.class, effectCssTermsExtractor);
         extractorMultimap.put(Effect.class, effectIdTermsExtractor);
         extractorMultimap.put(Effect.class, effectTagExtractor);
-        extractorMultimap.put(Effect.class, new NumericFreeExtractor(new EffectBaseURIExtractor()));
+        extractorMultimap.put(Effect.class, new NumericFreeExtractor<>(new EffectBaseURIExtractor()));
         extractorMultimap.put(Effect.class, new NextIdExtractor());
         extractorMultimap.put(DataEntry.class, new SimpleDataEntryTermsExtractor());
         extractorMultimap.put(DataEntry.class, new SimpleDataEntryCssClassTermsExtractor());
         extractorMultimap.put(DataEntry.class, new SimpleDataEntryIdTermsExtractor());
         extractorMultimap.put(DataEntry.class, new LocalizedDataEntryTermsExtractor());
-        extractorMultimap.put(DataEntry.class, new NumericFreeExtractor(new DataEntryBaseURIExtractor()));
+        extractorMultimap.put(DataEntry.class, new NumericFreeExtractor<>(new DataEntryBaseURIExtractor()));
         extractorMultimap.put(DataEntry.class, new NextIdExtractor());
 
     }
@@ -110,6 +110,7 @@ public class SimplePreprocessingPipeline extends AbstractPreprocessingPipeline i
          * Go through each timeline entity and get all matching extractors for that entity's class.
          * Then apply each extractor to the entity and add it's output to the entity's semantic artifacts.
          */
+        prepareExtractors(timeline);
         ListIterator<TimelineEntity> it = timeline.listIterator();
         List<String> symbolsRemoved = new ArrayList<>(); //Keep track of the kinds of entities that are being discarded.
         while (it.hasNext()){
@@ -320,6 +321,39 @@ public class SimplePreprocessingPipeline extends AbstractPreprocessingPipeline i
 
     }
 
+    /**
+     * Hands each extractor all the entities of the timeline it applies to, so that work that can be batched across
+     * entities (eg: NLP annotation) is done before the per entity extraction loop.
+     * See {@link SemanticArtifactExtractor#prepare(List, Timeline)}.
+     *
+     * @param timeline
+     */
+    protected void prepareExtractors(Timeline timeline){
+        extractorMultimap.asMap().forEach((entityClass, extractors)->{
+            List<TimelineEntity> entities = timeline.stream()
+                    .filter(entity->entity.getClass().equals(entityClass))
+                    .collect(Collectors.toList());
+
+            if(entities.isEmpty()){
+                return;
+            }
+
+            for(SemanticArtifactExtractor<?> extractor: extractors){
+                try{
+                    prepare(extractor, entities, timeline);
+                }catch (Exception e){
+                    log.error(e.getMessage(), e);
+                }
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends TimelineEntity> void prepare(SemanticArtifactExtractor<T> extractor, List<TimelineEntity> entities, Timeline timeline){
+        //Extractors are registered under the class of the entities they apply to, and the entities were filtered on that class.
+        extractor.prepare((List<T>) entities, timeline);
+    }
+
     /**
      * Captures training materials from timelines, these are later converted into training exemplars by {@link #makeTrainingExemplars(List)}.
      *
@@ -398,6 +432,7 @@ public class SimplePreprocessingPipeline extends AbstractPreprocessingPipeline i
                          * Go through each timeline entity and get all matching extractors for that entity's class.
                          * Then apply each extractor to the entity and add it's output to the entity's semantic artifacts.
                          */
+                        prepareExtractors(timeline);
                         ListIterator<TimelineEntity> it = timeline.listIterator();
                         while (it.hasNext()){
                             TimelineEntity entity = it.next();
@@ -1,5 +1,6 @@
 package ca.ualberta.odobot.mind2web;
 
+import ca.ualberta.odobot.domsequencing.XPathResolver;
 import ca.ualberta.odobot.semanticflow.navmodel.DynamicXPath;
 import io.vertx.core.json.JsonArray;
 import org.jsoup.nodes.Document;
@@ -11,6 +12,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 public class DocumentTainter {
@@ -24,12 +26,15 @@ public class DocumentTainter {
 
     public static Document taintWithDynamicXpaths(Document document, List<DynamicXPath> dxpaths){
 
-        dxpaths.forEach(dxpath->taintDynamicXpath(document, dxpath));
+        //Resolve all the prefixes in one pass over the document.
+        Map<String, Elements> prefixElements = XPathResolver.selectAll(document, dxpaths.stream().map(DynamicXPath::getPrefix).collect(Collectors.toList()));
+
+        dxpaths.forEach(dxpath->taintDynamicXpath(document, dxpath, prefixElements.get(dxpath.getPrefix())));
 
         return document;
     }
 
-    private static Document taintDynamicXpath(Document document, DynamicXPath dxpath){
+    private static Document taintDynamicXpath(Document document, DynamicXPath dxpath, Elements prefixElements){
 
         /**
          * Steps:
@@ -38,8 +43,6 @@ public class DocumentTainter {
          *  3) taint descendants
           */
 
-        Elements prefixElements = document.selectXpath(dxpath.getPrefix());
-
         /**
          * There are situations in which the xpath corresponding to the dxpath prefix will return multiple elements.
          * See notes under thoughts 2024 -> 'October 30th - State Abstraction v1 Showtime' -> 'One Xpath multiple results investigation'
@@ -115,14 +118,25 @@ public class DocumentTainter {
 
     public static Document taint(Document document, List<String> xpaths){
 
-        xpaths.forEach(xpath->taintXpath(document, xpath));
+        //Resolve all the xpaths in one pass over the document.
+        Map<String, Elements> resolved = XPathResolver.selectAll(document, xpaths);
+
+        xpaths.forEach(xpath->taintXpath(document, resolved.get(xpath)));
 
         return document;
     }
 
-    private static Document taintXpath(Document document, String xpath){
+    /**
+     * Same as {@link #taint(Document, List)}, for xpaths that have already been compiled, eg: by {@link WebsiteXpathCache}.
+     */
+    public static Document taint(Document document, XPathResolver.CompiledXPaths xpaths){
+
+        xpaths.selectAll(document).values().forEach(elements->taintXpath(document, elements));
+
+        return document;
+    }
 
-        Elements elements = document.selectXpath(xpath);
+    private static Document taintXpath(Document document, Elements elements){
 
         if(elements.size() >= 1){
             //Taint the element itself,
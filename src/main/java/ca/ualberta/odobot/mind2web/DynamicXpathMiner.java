@@ -1,5 +1,6 @@
 package ca.ualberta.odobot.mind2web;
 
+import ca.ualberta.odobot.domsequencing.XPathResolver;
 import ca.ualberta.odobot.semanticflow.navmodel.DynamicXPath;
 import ca.ualberta.odobot.sqlite.SqliteService;
 import org.jsoup.nodes.Document;
@@ -27,8 +28,20 @@ public class DynamicXpathMiner {
 
         Set<DynamicXPath> dynamicXPaths = new HashSet<>();
 
-        for(String xpath: xpaths){
-            Optional<DynamicXPath> dynamicXPath = searchForDynamicXpathNear(document, xpath);
+        /**
+         * Trim the ending slash off the xpaths to the elements if one exists.
+         *
+         * This allows us to later use lastIndexOf("/") with subString() to compute the xpath of any parent leading to the element @ xpath.
+         */
+        List<String> trimmed = xpaths.stream()
+                .map(xpath->xpath.endsWith("/")?xpath.substring(0, xpath.length()-1):xpath)
+                .collect(Collectors.toList());
+
+        //Resolve all the xpaths in one pass over the document.
+        Map<String, Elements> resolved = XPathResolver.selectAll(document, trimmed);
+
+        for(String xpath: trimmed){
+            Optional<DynamicXPath> dynamicXPath = searchForDynamicXpathNear(resolved.get(xpath), xpath);
             if(dynamicXPath.isPresent()){
                 dynamicXPaths.add(dynamicXPath.get());
             }
@@ -37,25 +50,19 @@ public class DynamicXpathMiner {
         return dynamicXPaths;
     }
 
-    private static Optional<DynamicXPath> searchForDynamicXpathNear(Document document, String xpath){
-
-        /**
-         * Trim the ending slash off the xpath to the element if one exists.
-         *
-         * This allows us to later use lastIndexOf("/") with subString() to compute the xpath of any parent leading to the element @ xpath.
-         */
-        if(xpath.endsWith("/")){
-            xpath = xpath.substring(0, xpath.length()-1);
-        }
+    /**
+     * @param _elements the elements of the document matching the xpath.
+     * @param xpath the xpath to the element, without a trailing slash.
+     */
+    private static Optional<DynamicXPath> searchForDynamicXpathNear(Elements _elements, String xpath){
 
         // handle case where element is not found.
-        Elements _elements = document.selectXpath(xpath);
         if(_elements.size() == 0){
             //log.debug("Xpath {} did not resolve to any element in document. ", xpath);
             return Optional.empty();
         }
 
-        Element target = document.selectXpath(xpath).get(0);
+        Element target = _elements.get(0);
 
         Optional<DynamicXPath>  dynamicXPath = extractDynamicXpathAtElement(target, xpath);
 
@@ -1,13 +1,16 @@
 package ca.ualberta.odobot.mind2web;
 
+import ca.ualberta.odobot.domsequencing.XPathResolver;
 import ca.ualberta.odobot.semanticflow.navmodel.DynamicXPath;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 public class ElementHarvester {
@@ -15,24 +18,27 @@ public class ElementHarvester {
     private static final Logger log = LoggerFactory.getLogger(ElementHarvester.class);
 
     public static List<Element> getElementsByXpaths(Document document, List<String> xpaths){
+        Map<String, Elements> resolved = XPathResolver.selectAll(document, xpaths);
         return xpaths.stream()
-                .map(xpath->getElementsByXpath(document, xpath))
+                .map(resolved::get)
                 .collect(ArrayList::new, (list,o)->list.addAll(o), ArrayList::addAll);
     }
 
-    private static List<Element> getElementsByXpath(Document document, String xpath){
-        return document.selectXpath(xpath).stream().collect(Collectors.toList());
+    /**
+     * Same as {@link #getElementsByXpaths(Document, List)}, for xpaths that have already been compiled, eg: by {@link WebsiteXpathCache}.
+     */
+    public static List<Element> getElementsByXpaths(Document document, XPathResolver.CompiledXPaths xpaths){
+        Map<String, Elements> resolved = xpaths.selectAll(document);
+        return xpaths.getXpaths().stream()
+                .map(resolved::get)
+                .collect(ArrayList::new, (list,o)->list.addAll(o), ArrayList::addAll);
     }
 
     public static List<Element> getElementsByDynamicXpaths(Document document, List<DynamicXPath> dynamicXPaths){
-        return dynamicXPaths.stream()
-                .map(dxpath->getElementsByDynamicXpath(document, dxpath))
+        List<String> prefixes = dynamicXPaths.stream().map(DynamicXPath::getPrefix).collect(Collectors.toList());
+        Map<String, Elements> resolved = XPathResolver.selectAll(document, prefixes);
+        return prefixes.stream()
+                .map(resolved::get)
                 .collect(ArrayList::new, (list,o)->list.addAll(o), ArrayList::addAll);
     }
-
-    private static List<Element> getElementsByDynamicXpath(Document document, DynamicXPath dynamicXPath){
-
-        return document.selectXpath(dynamicXPath.getPrefix()).stream().collect(Collectors.toList());
-
-    }
 }
@@ -1,8 +1,10 @@
 package ca.ualberta.odobot.mind2web;
 
 import ca.ualberta.odobot.common.HttpServiceVerticle;
+import ca.ualberta.odobot.domsequencing.XPathResolver;
 import ca.ualberta.odobot.logpreprocessor.LogPreprocessor;
 import ca.ualberta.odobot.semanticflow.navmodel.DynamicXPath;
+import ca.ualberta.odobot.semanticflow.navmodel.NavModelBatch;
 import ca.ualberta.odobot.semanticflow.navmodel.NavPath;
 import ca.ualberta.odobot.semanticflow.navmodel.Neo4JUtils;
 import ca.ualberta.odobot.semanticflow.navmodel.nodes.EndNode;
@@ -108,6 +110,11 @@ public class Mind2WebService extends HttpServiceVerticle {
 
     Set<DynamicXPath> dynamicXPaths = new HashSet<>();
 
+    /**
+     * Xpaths and dynamic xpaths used for state abstraction, by website.
+     */
+    WebsiteXpathCache xpathCache;
+
     public static SqliteService sqliteService;
 
 
@@ -175,6 +182,8 @@ public class Mind2WebService extends HttpServiceVerticle {
 
         neo4j = new Neo4JUtils("bolt://localhost:7687", "neo4j", "odobotdb");
 
+        xpathCache = new WebsiteXpathCache(website->neo4j.getXpathsForWebsite(website), sqliteService::loadDynamicXpaths);
+
         return Completable.complete();
     }
 
@@ -444,8 +453,8 @@ public class Mind2WebService extends HttpServiceVerticle {
         }
 
         //Retrieve xpaths from the navmodel for this website and save them to the routing context.
-        List<String> xpaths = neo4j.getXpathsForWebsite(website);
-        rc.put("xpaths", xpaths);
+        XPathResolver.CompiledXPaths xpaths = xpathCache.getXpaths(website);
+        rc.put("xpaths", xpaths.getXpaths());
 
         Document document;
         if (rc.get("document") != null){
@@ -461,7 +470,7 @@ public class Mind2WebService extends HttpServiceVerticle {
         //Taint elements with the xpaths
         if((rc.get("candidates") != null && ((JsonArray)rc.get("candidates")).size() == 0) || rc.get("candidates") == null){
             //Only use xpaths if candidates size is zero, or candidates are undefined
-            DocumentTainter.taint(document, (List<String>)rc.get("xpaths"));
+            DocumentTainter.taint(document, xpaths);
         }
 
 
@@ -650,16 +659,11 @@ public class Mind2WebService extends HttpServiceVerticle {
             website = rc.queryParam("website").get(0);
         }
 
-        List<String> xpaths = neo4j.getXpathsForWebsite(website);
+        XPathResolver.CompiledXPaths xpaths = xpathCache.getXpaths(website);
 
-        rc.put("xpaths", xpaths);
-
-        sqliteService.loadDynamicXpaths(website).onSuccess(dxpaths->{
-            List<DynamicXPath> _dxpaths = dxpaths.stream()
-                    .map(o->(JsonObject)o)
-                    .map(DynamicXPath::fromJson)
-                    .collect(Collectors.toList());
+        rc.put("xpaths", xpaths.getXpaths());
 
+        xpathCache.getDynamicXpaths(website).onSuccess(_dxpaths->{
 
             rc.put("dxpaths", _dxpaths);
 
@@ -939,8 +943,14 @@ public class Mind2WebService extends HttpServiceVerticle {
 
             log.info("Constructing nav model from traces!");
 
+            int batchSize = rc.queryParam("batchSize").isEmpty() ? Neo4JUtils.DEFAULT_BATCH_SIZE : Integer.parseInt(rc.queryParam("batchSize").get(0));
+
             vertx.executeBlocking(blocking->{
-                traces.stream().forEach(this::buildNavModel);
+                try(NavModelBatch batch = neo4j.batch(batchSize)){
+                    traces.forEach(batch::addTrace);
+                }finally {
+                    traces.stream().map(Trace::getWebsite).distinct().forEach(xpathCache::invalidate);
+                }
                 log.info("Trace construction complete. ");
                 blocking.complete(traces);
             }).subscribe(_traces->{
@@ -964,6 +974,15 @@ public class Mind2WebService extends HttpServiceVerticle {
 
 
     public void buildNavModel(Trace trace){
+        try{
+            insertTrace(trace);
+        }finally {
+            //Even a partially inserted trace changes the model for its website.
+            xpathCache.invalidate(trace.getWebsite());
+        }
+    }
+
+    private void insertTrace(Trace trace){
 
         log.info("Inserting trace {} into nav model. ", trace.getAnnotationId());
 
@@ -1053,6 +1072,9 @@ public class Mind2WebService extends HttpServiceVerticle {
                 ).onComplete(done->{
                     log.info("Extracted {} dynamic xpaths", dynamicXPaths.size());
 
+                    //Mined dynamic xpaths are saved for their website, so cached ones are now stale.
+                    tasks.stream().map(o->((JsonObject)o).getString("website")).distinct().forEach(xpathCache::invalidate);
+
                     String nextFile = rc.get("currentFile");
                     if(nextFile != null){
                         rc.reroute(HttpMethod.POST, getFullMineDynamicXpathRoutePath());
@@ -0,0 +1,119 @@
+package ca.ualberta.odobot.mind2web;
+
+import ca.ualberta.odobot.domsequencing.XPathResolver;
+import ca.ualberta.odobot.semanticflow.navmodel.DynamicXPath;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Per website cache of the xpaths in the nav model (compiled with {@link XPathResolver#compile(java.util.Collection)})
+ * and of the website's dynamic xpaths, used by the state abstraction routes of {@link Mind2WebService}.
+ *
+ * The model for a website only changes during model construction and dynamic xpath mining, which call
+ * {@link #invalidate(String)} for the websites they touch.
+ *
+ * Xpaths are loaded outside of the map's compute methods, as loading queries neo4j. Concurrent requests for a website
+ * share a single load.
+ */
+public class WebsiteXpathCache {
+
+    private static final Logger log = LoggerFactory.getLogger(WebsiteXpathCache.class);
+
+    private final Function<String, List<String>> xpathLoader;
+
+    private final Function<String, Future<JsonArray>> dynamicXpathLoader;
+
+    private final Map<String, CompletableFuture<XPathResolver.CompiledXPaths>> xpaths = new ConcurrentHashMap<>();
+
+    private final Map<String, Future<List<DynamicXPath>>> dynamicXpaths = new ConcurrentHashMap<>();
+
+    /**
+     * @param xpathLoader returns the xpaths of the nav model for a website, eg: {@link ca.ualberta.odobot.semanticflow.navmodel.Neo4JUtils#getXpathsForWebsite(String)}.
+     * @param dynamicXpathLoader returns the dynamic xpaths of a website in json form, eg: {@link ca.ualberta.odobot.sqlite.SqliteService#loadDynamicXpaths(String)}.
+     */
+    public WebsiteXpathCache(Function<String, List<String>> xpathLoader, Function<String, Future<JsonArray>> dynamicXpathLoader){
+        this.xpathLoader = xpathLoader;
+        this.dynamicXpathLoader = dynamicXpathLoader;
+    }
+
+    /**
+     * @param website
+     * @return the compiled xpaths of the nav model for the website. Failed loads are not cached.
+     */
+    public XPathResolver.CompiledXPaths getXpaths(String website){
+        CompletableFuture<XPathResolver.CompiledXPaths> loading = new CompletableFuture<>();
+        CompletableFuture<XPathResolver.CompiledXPaths> cached = xpaths.putIfAbsent(website, loading);
+
+        if(cached == null){
+            try{
+                List<String> result = xpathLoader.apply(website);
+                log.info("Cached {} xpaths for {}", result.size(), website);
+                loading.complete(XPathResolver.compile(result));
+            }catch (RuntimeException | Error e){
+                xpaths.remove(website, loading);
+                loading.completeExceptionally(e);
+                throw e;
+            }
+            cached = loading;
+        }
+
+        try{
+            return cached.join();
+        }catch (CompletionException e){
+            //Another request's load failed, rethrow its exception.
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    /**
+     * @param website
+     * @return the dynamic xpaths of the website. Failed loads are not cached.
+     */
+    public Future<List<DynamicXPath>> getDynamicXpaths(String website){
+        Future<List<DynamicXPath>> result = dynamicXpaths.computeIfAbsent(website, key->
+                dynamicXpathLoader.apply(key).map(json->json.stream()
+                        .map(o->(JsonObject)o)
+                        .map(DynamicXPath::fromJson)
+                        .collect(Collectors.toUnmodifiableList())
+                ));
+
+        result.onFailure(err->dynamicXpaths.remove(website, result));
+
+        return result;
+    }
+
+    /**
+     * Drops everything cached for the website, the next request reloads it. If the website is not known, everything
+     * is dropped.
+     *
+     * @param website
+     */
+    public void invalidate(String website){
+        if(website == null){
+            invalidateAll();
+            return;
+        }
+
+        xpaths.remove(website);
+        dynamicXpaths.remove(website);
+        log.debug("Invalidated cached xpaths for {}", website);
+    }
+
+    public void invalidateAll(){
+        xpaths.clear();
+        dynamicXpaths.clear();
+        log.debug("Invalidated all cached xpaths");
+    }
+
+}
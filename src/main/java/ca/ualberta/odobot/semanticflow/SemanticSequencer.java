@@ -4,6 +4,7 @@ import ca.ualberta.odobot.semanticflow.exceptions.InvalidSessionId;
 import ca.ualberta.odobot.semanticflow.exceptions.InvalidTimestamp;
 import ca.ualberta.odobot.semanticflow.exceptions.MissingSessionId;
 import ca.ualberta.odobot.semanticflow.exceptions.MissingTimestamp;
+import ca.ualberta.odobot.semanticflow.mappers.SnapshotInterner;
 import ca.ualberta.odobot.semanticflow.mappers.impl.ClickEventMapper;
 import ca.ualberta.odobot.semanticflow.mappers.impl.DomEffectMapper;
 import ca.ualberta.odobot.semanticflow.mappers.impl.InputChangeMapper;
@@ -82,6 +83,12 @@ public class SemanticSequencer {
     public Timeline parse(List<JsonObject> events){
         line = new Timeline();
 
+        //Identical DOM snapshots within the timeline are parsed and held once.
+        SnapshotInterner snapshots = new SnapshotInterner();
+        domEffectMapper.setSnapshotInterner(snapshots);
+        clickEventMapper.setSnapshotInterner(snapshots);
+        inputChangeMapper.setSnapshotInterner(snapshots);
+
         log.info("Expected events:");
         for (int i=0; i<events.size(); i++){
             JsonObject event = events.get(i);
@@ -108,6 +115,8 @@ public class SemanticSequencer {
         //TODO -only for training exemplar extraction
         //line.pruneNonPrecedingClickEvents();
 
+        snapshots.printStats();
+
         return line;
     }
 
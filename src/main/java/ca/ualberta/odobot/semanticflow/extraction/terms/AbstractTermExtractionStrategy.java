@@ -2,10 +2,7 @@ package ca.ualberta.odobot.semanticflow.extraction.terms;
 
 import ca.ualberta.odobot.semanticflow.extraction.terms.annotators.EnglishWordAnnotator;
 import ca.ualberta.odobot.semanticflow.model.AbstractArtifact;
-import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
-import edu.stanford.nlp.pipeline.CoreDocument;
-import edu.stanford.nlp.pipeline.StanfordCoreNLP;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,27 +19,8 @@ public abstract class AbstractTermExtractionStrategy implements TermExtractionSt
      */
     protected boolean allowDuplicates = true;
 
-    static StanfordCoreNLP pipeline = null;
-
-    public AbstractTermExtractionStrategy(){
-        if(pipeline == null){
-            Properties properties = new Properties();
-            properties.setProperty("englishWords.wordnetHome", "C:\\Program Files (x86)\\WordNet\\2.1");
-            properties.setProperty("customAnnotatorClass.englishWords", "ca.ualberta.odobot.semanticflow.extraction.terms.annotators.EnglishWordAnnotator");
-            properties.setProperty("annotators", "tokenize,ssplit,pos,lemma,englishWords");
-
-            /**
-             * For more information on options check the following links:
-             * https://stanfordnlp.github.io/CoreNLP/tokenize.html
-             * https://nlp.stanford.edu/nlp/javadoc/javanlp/edu/stanford/nlp/process/PTBTokenizer.html
-             */
-            properties.setProperty("tokenize.options", "splitHyphenated=true");
-
-            pipeline = new StanfordCoreNLP(properties);
-        }
-
-
-    }
+    //Shared by all term extraction strategies, see AnnotationService.
+    private static final AnnotationService annotationService = AnnotationService.splitHyphenated();
 
 
     public void allowDuplicates(boolean allowDuplicates) {
@@ -71,26 +49,66 @@ public abstract class AbstractTermExtractionStrategy implements TermExtractionSt
         return extractTerms(sourceText.apply(artifact));
     }
 
-    protected List<CoreLabel> tokenize(String input){
-        List<CoreLabel> result = new ArrayList<>();
+    /**
+     * Batch version of {@link #extractTerms(String)}, all the inputs are annotated together, see {@link AnnotationService#tokens(List)}.
+     *
+     * @param inputs
+     * @return the terms of each input, in order.
+     */
+    public List<List<CoreLabel>> extractTerms(List<String> inputs){
+        List<String> toTokenize = inputs.stream()
+                .filter(input->!input.isBlank())
+                .map(AbstractTermExtractionStrategy::prepareInput)
+                .collect(Collectors.toList());
 
-        input = input.replaceAll("_", " "); //Replace underscores with spaces
+        Iterator<List<CoreLabel>> tokenized = annotationService.tokens(toTokenize).iterator();
+
+        List<List<CoreLabel>> results = new ArrayList<>(inputs.size());
+        for(String input: inputs){
+            if(input.isBlank()){
+                results.add(List.of());
+                continue;
+            }
+            List<CoreLabel> result = checkAnnotated(tokenized.next());
+            results.add(allowDuplicates? result:removeDuplicates(result));
+        }
+
+        return results;
+    }
+
+    /**
+     * Batch version of {@link #extractTerms(AbstractArtifact, Function)}.
+     *
+     * @param artifacts
+     * @param sourceText
+     * @return the terms of each artifact, in order.
+     */
+    public <T extends AbstractArtifact> List<List<CoreLabel>> extractTerms(List<T> artifacts, Function<? super T, String> sourceText){
+        return extractTerms(artifacts.stream().map(sourceText).collect(Collectors.toList()));
+    }
+
+    protected List<CoreLabel> tokenize(String input){
+        input = prepareInput(input);
 
         log.debug("Tokenizing: {}", input);
 
-        CoreDocument document = new CoreDocument(input);
-        pipeline.annotate(document);
-        for(CoreLabel tok: document.annotation().get(CoreAnnotations.TokensAnnotation.class)){
+        return checkAnnotated(annotationService.tokens(input));
+    }
+
+    private static String prepareInput(String input){
+        return input.replaceAll("_", " "); //Replace underscores with spaces
+    }
+
+    private static List<CoreLabel> checkAnnotated(List<CoreLabel> tokens){
+        for(CoreLabel tok: tokens){
             //log.info("{} {} isEnglishWord: {}",tok.word(), tok.tag(), tok.get(EnglishWordAnnotator.class));
             if(!tok.containsKey(EnglishWordAnnotator.class) || tok.get(EnglishWordAnnotator.class) == null ){
                 throw new RuntimeException("Missing englishWord Annotation!");
 
             }
-
-            result.add(tok);
         }
 
-        return result;
+        return tokens;
     }
 
 
@@ -0,0 +1,87 @@
+package ca.ualberta.odobot.semanticflow.extraction.terms;
+
+import edu.stanford.nlp.ling.CoreLabel;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded, least recently used cache of the tokens (with their POS tags, lemmas and englishWords annotations) that
+ * an {@link AnnotationService} produced for a piece of text.
+ *
+ * Term support scoring annotates the same short strings (table names, url paths, click event terms) over and over,
+ * so most lookups are hits.
+ */
+public class AnnotationCache {
+
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    private final Map<String, List<CoreLabel>> entries;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public AnnotationCache(){
+        this(DEFAULT_CAPACITY);
+    }
+
+    public AnnotationCache(int capacity){
+        this.entries = new LinkedHashMap<>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<CoreLabel>> eldest) {
+                if(size() > capacity){
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param text
+     * @return the cached tokens for the text, or null if it hasn't been annotated yet. The returned labels are shared,
+     * and must not be modified.
+     */
+    public synchronized List<CoreLabel> get(String text){
+        List<CoreLabel> result = entries.get(text);
+        if(result == null){
+            misses++;
+        }else{
+            hits++;
+        }
+        return result;
+    }
+
+    public synchronized void put(String text, List<CoreLabel> tokens){
+        entries.put(text, List.copyOf(tokens));
+    }
+
+    public synchronized void clear(){
+        entries.clear();
+    }
+
+    public synchronized int size(){
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized double hitRatio(){
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / (double) lookups;
+    }
+
+}
@@ -0,0 +1,244 @@
+package ca.ualberta.odobot.semanticflow.extraction.terms;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.AnnotatorImplementations;
+import edu.stanford.nlp.pipeline.AnnotatorPool;
+import edu.stanford.nlp.pipeline.CoreDocument;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import edu.stanford.nlp.util.Lazy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Process-wide access to the tokenize,ssplit,pos,lemma,englishWords CoreNLP pipeline used for term extraction and
+ * term support analysis.
+ *
+ * Building a pipeline loads the POS tagger model, so pipelines are built lazily, at most {@link #MAX_PIPELINES} per
+ * configuration, and then reused. Each pipeline is handed to one thread at a time and has its own annotator instances,
+ * while the WordNet dictionary behind the englishWords annotator is shared by all of them (see
+ * {@link ca.ualberta.odobot.semanticflow.extraction.terms.annotators.EnglishWordAnnotator}).
+ *
+ * The exception is {@link #tokens(List)}, which hands its pipeline to CoreNLP's multi-threaded annotate. The pipeline's
+ * annotators, including the englishWords annotator and its shared dictionary, are then used by several threads at
+ * once. The threads used by batch annotation across both configurations are limited to {@link #MAX_BATCH_THREADS}.
+ */
+public class AnnotationService {
+
+    private static final Logger log = LoggerFactory.getLogger(AnnotationService.class);
+
+    public static final String WORDNET_HOME = "C:\\Program Files (x86)\\WordNet\\2.1";
+
+    private static final int MAX_PIPELINES = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 4));
+
+    private static final int MAX_BATCH_THREADS = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 8));
+
+    //One permit per thread used by batch annotation, shared by all configurations.
+    private static final Semaphore batchThreads = new Semaphore(MAX_BATCH_THREADS, true);
+
+    private static final AnnotationService standard = new AnnotationService("standard", false);
+    private static final AnnotationService splitHyphenated = new AnnotationService("splitHyphenated", true);
+
+    /**
+     * @return the service for the pipeline with default tokenizer options.
+     */
+    public static AnnotationService standard(){
+        return standard;
+    }
+
+    /**
+     * @return the service for the pipeline whose tokenizer splits hyphenated words.
+     */
+    public static AnnotationService splitHyphenated(){
+        return splitHyphenated;
+    }
+
+    private final String name;
+    private final Properties properties;
+
+    private final LinkedBlockingQueue<StanfordCoreNLP> idle = new LinkedBlockingQueue<>();
+    private final AtomicInteger created = new AtomicInteger(0);
+
+    private final AnnotationCache cache = new AnnotationCache();
+
+    private AnnotationService(String name, boolean splitHyphenated){
+        this.name = name;
+
+        properties = new Properties();
+        properties.setProperty("englishWords.wordnetHome", WORDNET_HOME);
+        properties.setProperty("customAnnotatorClass.englishWords", "ca.ualberta.odobot.semanticflow.extraction.terms.annotators.EnglishWordAnnotator");
+        properties.setProperty("annotators", "tokenize,ssplit,pos,lemma,englishWords");
+
+        if(splitHyphenated){
+            /**
+             * For more information on options check the following links:
+             * https://stanfordnlp.github.io/CoreNLP/tokenize.html
+             * https://nlp.stanford.edu/nlp/javadoc/javanlp/edu/stanford/nlp/process/PTBTokenizer.html
+             */
+            properties.setProperty("tokenize.options", "splitHyphenated=true");
+        }
+    }
+
+    /**
+     * @param text
+     * @return an annotated document for the text.
+     */
+    public CoreDocument annotate(String text){
+        CoreDocument document = new CoreDocument(text);
+        annotate(document);
+        return document;
+    }
+
+    /**
+     * Tokens are cached by text (see {@link AnnotationCache}), only text that hasn't been seen recently is annotated.
+     *
+     * @param text
+     * @return the annotated tokens of the text, these are copies that the caller is free to modify.
+     */
+    public List<CoreLabel> tokens(String text){
+        List<CoreLabel> tokens = cache.get(text);
+        if(tokens == null){
+            tokens = annotate(text).annotation().get(CoreAnnotations.TokensAnnotation.class);
+            cache.put(text, tokens);
+        }
+
+        return copy(tokens);
+    }
+
+    /**
+     * Batch version of {@link #tokens(String)}. Texts that aren't cached are annotated together with CoreNLP's
+     * multi-threaded annotate, which runs the annotators of a single pipeline on several threads at once. Blocks until
+     * the threads it needs are available, so that concurrent batches use at most {@link #MAX_BATCH_THREADS} threads in
+     * total.
+     *
+     * @param texts
+     * @return the annotated tokens of each text, in order. These are copies that the caller is free to modify.
+     */
+    public List<List<CoreLabel>> tokens(List<String> texts){
+        Map<String, List<CoreLabel>> resolved = new HashMap<>();
+        List<Annotation> missing = new ArrayList<>();
+        for(String text: texts){
+            if(resolved.containsKey(text)){
+                continue;
+            }
+            List<CoreLabel> tokens = cache.get(text);
+            resolved.put(text, tokens);
+            if(tokens == null){
+                missing.add(new Annotation(text));
+            }
+        }
+
+        if(!missing.isEmpty()){
+            int threads = Math.min(MAX_BATCH_THREADS, missing.size());
+            log.debug("Annotating {} {} texts with {} threads", missing.size(), name, threads);
+            batchThreads.acquireUninterruptibly(threads);
+            try{
+                withPipeline(pipeline->{
+                    pipeline.annotate(missing, threads);
+                    return null;
+                });
+            }finally {
+                batchThreads.release(threads);
+            }
+
+            for(Annotation annotation: missing){
+                List<CoreLabel> tokens = annotation.get(CoreAnnotations.TokensAnnotation.class);
+                cache.put(annotation.get(CoreAnnotations.TextAnnotation.class), tokens);
+                resolved.put(annotation.get(CoreAnnotations.TextAnnotation.class), tokens);
+            }
+        }
+
+        List<List<CoreLabel>> result = new ArrayList<>(texts.size());
+        for(String text: texts){
+            result.add(copy(resolved.get(text)));
+        }
+        return result;
+    }
+
+    public AnnotationCache getCache() {
+        return cache;
+    }
+
+    public void printCacheStats(){
+        log.info("{} annotation cache size: {} hits: {} misses: {} evictions: {} hit ratio: {}", name, cache.size(), cache.getHits(), cache.getMisses(), cache.getEvictions(), String.format("%.3f", cache.hitRatio()));
+    }
+
+    public void annotate(CoreDocument document){
+        withPipeline(pipeline->{
+            pipeline.annotate(document);
+            return null;
+        });
+    }
+
+    /**
+     * Runs the given function with exclusive use of a pipeline, blocking until one is available.
+     */
+    public <T> T withPipeline(Function<StanfordCoreNLP, T> function){
+        StanfordCoreNLP pipeline = acquire();
+        try{
+            return function.apply(pipeline);
+        }finally {
+            idle.add(pipeline);
+        }
+    }
+
+    private static List<CoreLabel> copy(List<CoreLabel> tokens){
+        List<CoreLabel> result = new ArrayList<>(tokens.size());
+        for(CoreLabel token: tokens){
+            result.add(new CoreLabel(token));
+        }
+        return result;
+    }
+
+    private StanfordCoreNLP acquire(){
+        StanfordCoreNLP pipeline = idle.poll();
+        if(pipeline != null){
+            return pipeline;
+        }
+
+        if(created.getAndIncrement() < MAX_PIPELINES){
+            try{
+                log.info("Creating {} annotation pipeline {}/{}", name, created.get(), MAX_PIPELINES);
+                return new StanfordCoreNLP(properties, true, annotatorPool());
+            }catch (RuntimeException e){
+                created.decrementAndGet();
+                throw e;
+            }
+        }
+        created.decrementAndGet();
+
+        try{
+            return idle.take();
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a " + name + " annotation pipeline", e);
+        }
+    }
+
+    /**
+     * CoreNLP's default annotator pool is global and hands every pipeline with the same properties the same annotator
+     * instances. Registering the annotators in a private pool gives each pipeline its own.
+     */
+    private AnnotatorPool annotatorPool(){
+        AnnotatorImplementations implementations = new AnnotatorImplementations();
+        AnnotatorPool pool = new AnnotatorPool();
+        pool.register("tokenize", properties, Lazy.cache(()->implementations.tokenizer(properties)));
+        pool.register("ssplit", properties, Lazy.cache(()->implementations.wordToSentences(properties)));
+        pool.register("pos", properties, Lazy.cache(()->implementations.posTagger(properties)));
+        pool.register("lemma", properties, Lazy.cache(()->implementations.morpha(properties, false)));
+        pool.register("englishWords", properties, Lazy.cache(()->implementations.custom(properties, "englishWords")));
+        return pool;
+    }
+
+}
@@ -19,8 +19,10 @@ import java.io.IOException;
 import java.net.URL;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class EnglishWordAnnotator implements Annotator, CoreAnnotation<Boolean> {
 
@@ -34,26 +36,35 @@ public class EnglishWordAnnotator implements Annotator, CoreAnnotation<Boolean>
     public static Set<String> ADVERB = Set.of("RB", "RBR", "RBS");
     public static Set<String> VERB = Set.of("VB","VBD","VBG", "VBN", "VBP", "VBZ");
 
+    //WordNet dictionaries by wordnet home, loaded once and shared by all annotator instances.
+    private static final Map<String, IRAMDictionary> dictionaries = new ConcurrentHashMap<>();
+
     private IRAMDictionary dictionary = null;
 
     public EnglishWordAnnotator(String name, Properties properties){
-        //Init and load wordnet into memory
-        try{
-            String wordnetHome = properties.getProperty("englishWords.wordnetHome");
+        String wordnetHome = properties.getProperty("englishWords.wordnetHome");
+        dictionary = dictionaries.computeIfAbsent(wordnetHome, EnglishWordAnnotator::loadDictionary);
+    }
 
+    /**
+     * Init and load wordnet into memory
+     * @param wordnetHome
+     * @return the loaded dictionary, or null if it could not be loaded.
+     */
+    private static IRAMDictionary loadDictionary(String wordnetHome){
+        try{
             String path = wordnetHome + File.separator + "dict";
             URL url = new URL("file", null, path);
 
-            dictionary = new RAMDictionary(url, ILoadPolicy.IMMEDIATE_LOAD);
+            IRAMDictionary dictionary = new RAMDictionary(url, ILoadPolicy.IMMEDIATE_LOAD);
             dictionary.open();
-
+            return dictionary;
 
         }catch (IOException ioe){
             log.error("Error initializing English Word Annotator");
             log.error(ioe.getMessage(), ioe);
+            return null;
         }
-
-
     }
 
 
@@ -1,6 +1,7 @@
 package ca.ualberta.odobot.semanticflow.mappers;
 
 import ca.ualberta.odobot.semanticflow.model.AbstractArtifact;
+import ca.ualberta.odobot.semanticflow.model.DomSnapshot;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import org.jsoup.Jsoup;
@@ -20,6 +21,9 @@ public abstract class JsonMapper<T extends AbstractArtifact> {
 
     private static final String DOM_FIELD = "eventDetails_domSnapshot";
 
+    //Shares identical DOM snapshots between mapped artifacts, if set.
+    private SnapshotInterner snapshotInterner = null;
+
     /**
      * @param event the JsonObject containing a semantic artifact of a particular type.
      * @return the semantic artifact encoded in the JsonObject
@@ -27,9 +31,26 @@ public abstract class JsonMapper<T extends AbstractArtifact> {
     public abstract T map(JsonObject event);
 
 
-    protected Document getDOMSnapshot(JsonObject event){
+    /**
+     * Sets the interner used to share DOM snapshots between the artifacts produced by this mapper. Mappers building the
+     * same timeline should share an interner.
+     * @param snapshotInterner the interner to use, or null to give every artifact its own snapshot.
+     */
+    public void setSnapshotInterner(SnapshotInterner snapshotInterner) {
+        this.snapshotInterner = snapshotInterner;
+    }
+
+    protected DomSnapshot getDOMSnapshot(JsonObject event){
         JsonObject domSnapshot = new JsonObject(event.getString(DOM_FIELD));
-        return Jsoup.parse(domSnapshot.getString("outerHTML"));
+        return snapshot(domSnapshot.getString("outerHTML"));
+    }
+
+    /**
+     * @param html the outer HTML of a DOM snapshot.
+     * @return a lazily parsed snapshot of the HTML, shared with other artifacts if an interner is set.
+     */
+    protected DomSnapshot snapshot(String html){
+        return snapshotInterner == null ? DomSnapshot.lazy(html) : snapshotInterner.intern(html);
     }
 
     protected Element extractElement(String html){
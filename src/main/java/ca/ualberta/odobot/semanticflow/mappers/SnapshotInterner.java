@@ -0,0 +1,63 @@
+package ca.ualberta.odobot.semanticflow.mappers;
+
+import ca.ualberta.odobot.semanticflow.model.DomSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Shares {@link DomSnapshot}s between the artifacts of a timeline. Consecutive events frequently carry byte-identical
+ * DOM snapshots, interning them by a hash of their HTML means each distinct snapshot is parsed (lazily) and held in
+ * memory once.
+ *
+ * Meant to live as long as the timeline being built, see {@link JsonMapper#setSnapshotInterner(SnapshotInterner)}.
+ */
+public class SnapshotInterner {
+    private static final Logger log = LoggerFactory.getLogger(SnapshotInterner.class);
+
+    private final Map<String, DomSnapshot> snapshots = new HashMap<>();
+
+    private long requests = 0;
+
+    /**
+     * @param html the outer HTML of a DOM snapshot.
+     * @return the snapshot previously interned for the same HTML, or a new lazy snapshot.
+     */
+    public synchronized DomSnapshot intern(String html){
+        requests++;
+        String key = contentKey(html);
+        return snapshots.computeIfAbsent(key, k->DomSnapshot.lazy(k, html));
+    }
+
+    public synchronized int size(){
+        return snapshots.size();
+    }
+
+    public synchronized long parsed(){
+        return snapshots.values().stream().filter(DomSnapshot::isParsed).count();
+    }
+
+    public synchronized void clear(){
+        snapshots.clear();
+        requests = 0;
+    }
+
+    public synchronized void printStats(){
+        log.info("SnapshotInterner requests: {} distinct snapshots: {} parsed: {}", requests, snapshots.size(), parsed());
+    }
+
+    private static String contentKey(String html){
+        try{
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(html.getBytes(StandardCharsets.UTF_8)));
+        }catch (NoSuchAlgorithmException e){
+            throw new IllegalStateException(e);
+        }
+    }
+}
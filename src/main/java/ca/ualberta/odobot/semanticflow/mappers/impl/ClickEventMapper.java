@@ -35,7 +35,6 @@ public class ClickEventMapper extends JsonMapper<ClickEvent> {
         result.setTag(element.getString(ELEMENT_TAG_FIELD));
         result.setBaseURI(element.getString(ELEMENT_BASEURI_FIELD));
         result.setHtmlId(element.getString(ELEMENT_ID_FIELD));
-        result.setTriggerElement(getDOMSnapshot(event).selectXpath(result.getXpath()).first());
         result.setType(InteractionType.CLICK);
 
         return result;
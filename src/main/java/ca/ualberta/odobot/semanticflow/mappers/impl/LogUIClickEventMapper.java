@@ -4,7 +4,6 @@ import ca.ualberta.odobot.semanticflow.mappers.JsonMapper;
 import ca.ualberta.odobot.semanticflow.model.ClickEvent;
 import ca.ualberta.odobot.semanticflow.model.InteractionType;
 import io.vertx.core.json.JsonObject;
-import org.jsoup.Jsoup;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,12 +21,11 @@ public class LogUIClickEventMapper extends JsonMapper<ClickEvent> {
 
 
         ClickEvent result = new ClickEvent();
-        result.setDomSnapshot(Jsoup.parse(domData.getString("outerHTML")));
+        result.setDomSnapshot(snapshot(domData.getString("outerHTML")));
         result.setXpath(elementData.getString("xpath"));
         result.setTag(elementData.getString("localName"));
         result.setBaseURI(elementData.getString("baseURI"));
         result.setHtmlId(elementData.getString("id"));
-        result.setTriggerElement(result.getDomSnapshot().selectXpath(result.getXpath()).first());
         result.setType(InteractionType.CLICK);
 
         return result;
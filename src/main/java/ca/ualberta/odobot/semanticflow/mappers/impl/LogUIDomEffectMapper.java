@@ -4,7 +4,6 @@ import ca.ualberta.odobot.semanticflow.mappers.JsonMapper;
 import ca.ualberta.odobot.semanticflow.model.DomEffect;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
-import org.jsoup.Jsoup;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,7 +19,7 @@ public class LogUIDomEffectMapper extends JsonMapper<DomEffect> {
         JsonObject node = firstNode(event);
 
         DomEffect result = new DomEffect();
-        result.setDomSnapshot(Jsoup.parse(domData.getString("outerHTML")));
+        result.setDomSnapshot(snapshot(domData.getString("outerHTML")));
         result.setXpath(node.getString("xpath"));
         result.setEffectElement(extractElement(node.getString("outerHTML")));
         result.setTag(node.getString("localName"));
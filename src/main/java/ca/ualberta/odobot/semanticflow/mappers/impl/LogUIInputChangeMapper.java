@@ -7,7 +7,6 @@ import ca.ualberta.odobot.semanticflow.model.RadioButtonEvent;
 import ca.ualberta.odobot.semanticflow.model.TinymceEvent;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Element;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -75,7 +74,7 @@ public class LogUIInputChangeMapper extends JsonMapper<InputChange> {
             result.setValue(getMetadataValue("fieldValue", metadata));
         }
 
-        result.setDomSnapshot(Jsoup.parse(domData.getString("outerHTML")));
+        result.setDomSnapshot(snapshot(domData.getString("outerHTML")));
         result.setXpath(eventDetails.getString("xpath"));
         result.setTag(elementData.getString("localName"));
         result.setBaseURI(elementData.getString("baseURI"));
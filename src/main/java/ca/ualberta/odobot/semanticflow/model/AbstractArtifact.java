@@ -20,7 +20,7 @@ public abstract class AbstractArtifact {
 
     protected ZonedDateTime timestamp;
     protected String xpath;
-    protected Document domSnapshot;
+    protected DomSnapshot domSnapshot;
     protected UUID id = UUID.randomUUID();
     private String htmlId; //HTML id if provided
     private String tag;
@@ -71,11 +71,19 @@ public abstract class AbstractArtifact {
 
     }
 
+    /**
+     * @return the DOM snapshot of this artifact, parsed on first access. Snapshots may be shared between artifacts and
+     * should not be modified.
+     */
     public Document getDomSnapshot() {
-        return domSnapshot;
+        return domSnapshot == null ? null : domSnapshot.get();
     }
 
     public void setDomSnapshot(Document domSnapshot) {
+        this.domSnapshot = domSnapshot == null ? null : DomSnapshot.of(domSnapshot);
+    }
+
+    public void setDomSnapshot(DomSnapshot domSnapshot) {
         this.domSnapshot = domSnapshot;
     }
 
@@ -112,6 +120,6 @@ public abstract class AbstractArtifact {
     }
 
     public Element getTargetElement(){
-        return domSnapshot.selectXpath(getXpath()).first();
+        return getDomSnapshot().selectXpath(getXpath()).first();
     }
 }
@@ -74,7 +74,14 @@ public class ClickEvent extends AbstractArtifact implements TimelineEntity {
         this.type = type;
     }
 
+    /**
+     * @return the element that was clicked. Unless set explicitly, it is resolved from the DOM snapshot on first
+     * access, so the snapshot is only parsed when needed.
+     */
     public Element getTriggerElement() {
+        if(triggerElement == null && domSnapshot != null && getXpath() != null){
+            triggerElement = getDomSnapshot().selectXpath(getXpath()).first();
+        }
         return triggerElement;
     }
 
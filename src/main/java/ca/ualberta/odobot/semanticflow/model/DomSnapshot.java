@@ -0,0 +1,77 @@
+package ca.ualberta.odobot.semanticflow.model;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+/**
+ * A handle on the DOM snapshot of an artifact. The snapshot's HTML is only parsed the first time the {@link Document}
+ * is requested, so artifacts whose snapshot is never looked at (for example, entities pruned from a timeline) never
+ * pay for parsing it.
+ *
+ * Snapshots can be shared between artifacts, see {@link ca.ualberta.odobot.semanticflow.mappers.SnapshotInterner}.
+ * The parsed document must therefore be treated as read only, clone it before modifying it.
+ */
+public class DomSnapshot {
+
+    //Hash of the snapshot's HTML, null if the snapshot was created from an already parsed document.
+    private final String contentKey;
+
+    //The HTML to parse, released once parsed.
+    private volatile String html;
+
+    private volatile Document document;
+
+    private DomSnapshot(String contentKey, String html, Document document){
+        this.contentKey = contentKey;
+        this.html = html;
+        this.document = document;
+    }
+
+    /**
+     * @param html the outer HTML of the snapshot.
+     * @return a snapshot that parses the HTML on first access.
+     */
+    public static DomSnapshot lazy(String html){
+        return lazy(null, html);
+    }
+
+    /**
+     * @param contentKey a hash of the HTML.
+     * @param html the outer HTML of the snapshot.
+     * @return a snapshot that parses the HTML on first access.
+     */
+    public static DomSnapshot lazy(String contentKey, String html){
+        return new DomSnapshot(contentKey, html, null);
+    }
+
+    /**
+     * @param document an already parsed document.
+     * @return a snapshot wrapping the document.
+     */
+    public static DomSnapshot of(Document document){
+        return new DomSnapshot(null, null, document);
+    }
+
+    public Document get(){
+        Document result = document;
+        if(result == null){
+            synchronized (this){
+                result = document;
+                if(result == null){
+                    result = Jsoup.parse(html);
+                    document = result;
+                    html = null;
+                }
+            }
+        }
+        return result;
+    }
+
+    public boolean isParsed(){
+        return document != null;
+    }
+
+    public String getContentKey() {
+        return contentKey;
+    }
+}
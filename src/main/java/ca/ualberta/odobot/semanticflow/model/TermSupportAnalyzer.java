@@ -1,10 +1,8 @@
 package ca.ualberta.odobot.semanticflow.model;
 
+import ca.ualberta.odobot.semanticflow.extraction.terms.AnnotationService;
 import ca.ualberta.odobot.semanticflow.extraction.terms.annotators.EnglishWordAnnotator;
-import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
-import edu.stanford.nlp.pipeline.CoreDocument;
-import edu.stanford.nlp.pipeline.StanfordCoreNLP;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import org.slf4j.Logger;
@@ -28,7 +26,7 @@ public class TermSupportAnalyzer {
 
     private ClickEvent nearestPreceedingClickEvent;
 
-    private StanfordCoreNLP nlpPipeline;
+    private final AnnotationService annotationService = AnnotationService.standard();
 
     //Contains details about how support was computed for audit/debugging/analysis purposes. NOTE: is updated on every getTermSupport()
     private JsonArray supportDetailsHistory = new JsonArray();
@@ -60,15 +58,6 @@ public class TermSupportAnalyzer {
 
     }
 
-    public TermSupportAnalyzer(){
-        Properties properties = new Properties();
-        properties.setProperty("englishWords.wordnetHome", "C:\\Program Files (x86)\\WordNet\\2.1");
-        properties.setProperty("customAnnotatorClass.englishWords", "ca.ualberta.odobot.semanticflow.extraction.terms.annotators.EnglishWordAnnotator");
-        properties.setProperty("annotators", "tokenize,ssplit,pos,lemma,englishWords");
-
-        this.nlpPipeline = new StanfordCoreNLP(properties);
-    }
-
     public void resetSupportDetailsHistory(){
         supportDetailsHistory = new JsonArray();
     }
@@ -295,17 +284,19 @@ public class TermSupportAnalyzer {
                     LinkedHashMap<String, Double> supportMap = new LinkedHashMap<>();
                     lemmatizedTerms.forEach(t->supportMap.put(t, 0.0));
 
+                    //Annotate each click event term once, rather than once per lemmatized input term.
+                    List<List<CoreLabel>> textTermTokens = textTerms.stream()
+                            .map(o->annotationService.tokens((String)o))
+                            .collect(Collectors.toList());
+
                     for(String lemmatizedTerm: lemmatizedTerms){
 
-                        ListIterator<String> textTermIterator = textTerms.stream().map(o->(String)o).collect(Collectors.toList()).listIterator();
+                        ListIterator<List<CoreLabel>> textTermIterator = textTermTokens.listIterator();
 
                         while (textTermIterator.hasNext()){
                             int index = textTermIterator.nextIndex();
-                            String textTermEntry = textTermIterator.next();
 
-                            CoreDocument textTermDocument = new CoreDocument(textTermEntry);
-                            nlpPipeline.annotate(textTermDocument);
-                            for(CoreLabel textTermToken: textTermDocument.annotation().get(CoreAnnotations.TokensAnnotation.class)){
+                            for(CoreLabel textTermToken: textTermIterator.next()){
                                 if(textTermToken.get(EnglishWordAnnotator.class) && textTermToken.lemma().toLowerCase().equals(lemmatizedTerm)){
                                     double currSupport = supportMap.getOrDefault(lemmatizedTerm, 0.0);
 
@@ -360,11 +351,7 @@ public class TermSupportAnalyzer {
 
     private double getSupport2(List<String> ngram, String target){
 
-        CoreDocument document = new CoreDocument(target);
-        nlpPipeline.annotate(document);
-
-
-        List<CoreLabel> targetLabels = document.annotation().get(CoreAnnotations.TokensAnnotation.class);
+        List<CoreLabel> targetLabels = annotationService.tokens(target);
         Iterator<CoreLabel> targetIterator = targetLabels.iterator();
         Iterator<String> ngramIterator = ngram.iterator();
 
@@ -410,11 +397,10 @@ public class TermSupportAnalyzer {
         LinkedHashMap<String, Integer> frequencyMap = new LinkedHashMap<>();
         lemmatizedTerms.forEach(term->frequencyMap.put(term, 0));
 
-        CoreDocument document = new CoreDocument(targetRegion);
-        nlpPipeline.annotate(document);
+        List<CoreLabel> tokens = annotationService.tokens(targetRegion);
 
         for(String lemmatizedTerm: lemmatizedTerms){
-            for(CoreLabel token: document.annotation().get(CoreAnnotations.TokensAnnotation.class)){
+            for(CoreLabel token: tokens){
                 if(lemmatizedTerm.equals(token.lemma().toLowerCase())){
                     int count = frequencyMap.getOrDefault(lemmatizedTerm, 0);
                     frequencyMap.put(lemmatizedTerm, ++count);
@@ -433,9 +419,7 @@ public class TermSupportAnalyzer {
     private List<String> computeLemmatizedTermTokens(String term){
         term = term.replaceAll("_", " ");
         List<String> result = new ArrayList<>();
-        CoreDocument document = new CoreDocument(term);
-        nlpPipeline.annotate(document);
-        for(CoreLabel token: document.annotation().get(CoreAnnotations.TokensAnnotation.class)){
+        for(CoreLabel token: annotationService.tokens(term)){
             result.add(token.lemma());
         }
 
@@ -446,9 +430,7 @@ public class TermSupportAnalyzer {
         List<String> result = new ArrayList<>();
 
         ngram.forEach(s->{
-            CoreDocument document = new CoreDocument(s);
-            nlpPipeline.annotate(document);
-            for(CoreLabel token: document.annotation().get(CoreAnnotations.TokensAnnotation.class)){
+            for(CoreLabel token: annotationService.tokens(s)){
                 result.add(token.lemma().toLowerCase());
             }
         });
@@ -1,5 +1,6 @@
 package ca.ualberta.odobot.semanticflow.model.semantictrace.strategy;
 
+import ca.ualberta.odobot.semanticflow.extraction.terms.AnnotationService;
 import ca.ualberta.odobot.semanticflow.model.*;
 import ca.ualberta.odobot.semanticflow.model.semantictrace.SemanticLabel;
 import ca.ualberta.odobot.semanticflow.model.semantictrace.SemanticTrace;
@@ -39,6 +40,9 @@ public class AlphaStrategy extends AbstractStrategy implements SemanticTraceCons
 
         List<Future> semanticLabelFutures = new ArrayList<>();
 
+        //Audit log windows for every network event in the timeline are fetched together once the loop is done.
+        AuditLogBatch auditLogs = new AuditLogBatch(sqliteService, 500);
+
         while (dbOpsIterator.hasNext()){
             try{
                 //Get the timeline entity
@@ -72,7 +76,7 @@ public class AlphaStrategy extends AbstractStrategy implements SemanticTraceCons
                          */
 
                         Future<Optional<SemanticLabel>> labelFuture =
-                                sqliteService.selectLogs(networkEvent.getMillisecondTimestamp(), 500).<Optional<SemanticLabel>>compose(databaseOperations->{
+                                auditLogs.select(networkEvent.getMillisecondTimestamp()).<Optional<SemanticLabel>>compose(databaseOperations->{
 
                                             /**
                                              * databaseOperations here is going to be a JsonArray of DbLogEntries in JsonObject forms.
@@ -188,6 +192,8 @@ public class AlphaStrategy extends AbstractStrategy implements SemanticTraceCons
             }
         }
 
+        auditLogs.resolve();
+
         if(semanticLabelFutures.size() > 0){
             CompositeFuture.all(semanticLabelFutures)
                     .onSuccess(results->{
@@ -199,6 +205,8 @@ public class AlphaStrategy extends AbstractStrategy implements SemanticTraceCons
                         trace.setConstructionStrategy(name());
                         trace.setSourceIndex(timeline.getAnnotations().getString("flight-name"));
 
+                        AnnotationService.standard().printCacheStats();
+
                         promise.complete(trace);
                     });
 
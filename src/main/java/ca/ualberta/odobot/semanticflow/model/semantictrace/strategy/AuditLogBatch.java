@@ -0,0 +1,68 @@
+package ca.ualberta.odobot.semanticflow.model.semantictrace.strategy;
+
+import ca.ualberta.odobot.sqlite.SqliteService;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonArray;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the audit log windows needed while constructing a semantic trace, and fetches them all with a single
+ * {@link SqliteService#selectLogsForTimestamps(List, long)} call rather than one {@link SqliteService#selectLogs(long, long)}
+ * per network event.
+ *
+ * Futures returned by {@link #select(long)} complete once {@link #resolve()} is called.
+ */
+public class AuditLogBatch {
+
+    private final SqliteService sqliteService;
+
+    private final long range;
+
+    private final List<Long> timestamps = new ArrayList<>();
+    private final List<Promise<JsonArray>> promises = new ArrayList<>();
+
+    /**
+     * @param sqliteService
+     * @param range the number of milliseconds before and after each timestamp from which to select audit logs.
+     */
+    public AuditLogBatch(SqliteService sqliteService, long range){
+        this.sqliteService = sqliteService;
+        this.range = range;
+    }
+
+    /**
+     * @param timestampMilli
+     * @return the audit logs around the timestamp, in the same form as {@link SqliteService#selectLogs(long, long)}.
+     */
+    public Future<JsonArray> select(long timestampMilli){
+        Promise<JsonArray> promise = Promise.promise();
+        timestamps.add(timestampMilli);
+        promises.add(promise);
+        return promise.future();
+    }
+
+    /**
+     * Fetches the audit logs for all the timestamps selected so far.
+     */
+    public void resolve(){
+        if(timestamps.isEmpty()){
+            return;
+        }
+
+        List<Long> _timestamps = List.copyOf(timestamps);
+        List<Promise<JsonArray>> _promises = List.copyOf(promises);
+        timestamps.clear();
+        promises.clear();
+
+        sqliteService.selectLogsForTimestamps(_timestamps, range)
+                .onSuccess(windows->{
+                    for(int i = 0; i < _promises.size(); i++){
+                        _promises.get(i).complete(windows.getJsonArray(i));
+                    }
+                })
+                .onFailure(err->_promises.forEach(promise->promise.fail(err)));
+    }
+}
@@ -1,5 +1,6 @@
 package ca.ualberta.odobot.semanticflow.model.semantictrace.strategy;
 
+import ca.ualberta.odobot.semanticflow.extraction.terms.AnnotationService;
 import ca.ualberta.odobot.semanticflow.model.*;
 import ca.ualberta.odobot.semanticflow.model.semantictrace.SemanticLabel;
 import ca.ualberta.odobot.semanticflow.model.semantictrace.SemanticTrace;
@@ -44,6 +45,9 @@ public class BaseStrategy extends AbstractStrategy implements SemanticTraceConst
 
         List<Future> semanticLabelFutures = new ArrayList<>();
 
+        //Audit log windows for every network event in the timeline are fetched together once the loop is done.
+        AuditLogBatch auditLogs = new AuditLogBatch(sqliteService, 500);
+
         while (dbOpsIterator.hasNext()){
             try{
                 //Get the timeline entity
@@ -77,7 +81,7 @@ public class BaseStrategy extends AbstractStrategy implements SemanticTraceConst
                          */
 
                         Future<Optional<SemanticLabel>> labelFuture =
-                                sqliteService.selectLogs(networkEvent.getMillisecondTimestamp(), 500).<Optional<SemanticLabel>>compose(databaseOperations->{
+                                auditLogs.select(networkEvent.getMillisecondTimestamp()).<Optional<SemanticLabel>>compose(databaseOperations->{
 
                                     /**
                                      * databaseOperations here is going to be a JsonArray of DbLogEntries in JsonObject forms.
@@ -143,6 +147,8 @@ public class BaseStrategy extends AbstractStrategy implements SemanticTraceConst
             }
         }
 
+        auditLogs.resolve();
+
         if(semanticLabelFutures.size() > 0){
             CompositeFuture.all(semanticLabelFutures)
                     .onSuccess(results->{
@@ -154,6 +160,8 @@ public class BaseStrategy extends AbstractStrategy implements SemanticTraceConst
                         trace.setConstructionStrategy(name());
                         trace.setSourceIndex(timeline.getAnnotations().getString("flight-name"));
 
+                        AnnotationService.standard().printCacheStats();
+
                         promise.complete(trace);
                     });
 
@@ -16,58 +16,199 @@ public class CollapsingTraversal {
 
     private final GraphDatabaseService db;
 
+    private static final RelationshipType NEXT = RelationshipType.withName("NEXT");
+
+    public static final int DEFAULT_COLLAPSES_PER_TRANSACTION = 50;
+
+    private final int collapsesPerTransaction;
+
     public CollapsingTraversal(GraphDB graphDB){
+        this(graphDB, DEFAULT_COLLAPSES_PER_TRANSACTION);
+    }
+
+    public CollapsingTraversal(GraphDB graphDB, int collapsesPerTransaction){
         this.db = graphDB.db;
+        this.collapsesPerTransaction = collapsesPerTransaction;
     }
 
 
+    /**
+     * Collapses patterns in the nav model until no more can be found.
+     *
+     * A collapse can only start at a node with more than one outgoing relationship, so those nodes make up the initial
+     * worklist. Each node is searched once; after a collapse is applied only the nodes whose traversals could reach the
+     * modified part of the graph (see {@link #affectedStartingNodes(Node)}) are put back on the worklist.
+     *
+     * Up to collapsesPerTransaction collapses are applied per transaction. Collapses within a transaction never share
+     * nodes, a collapse overlapping one already applied in the current transaction is searched for again in the next one.
+     *
+     * @return the collapses that were applied.
+     */
     public List<Collapse> doCollapsePass(){
         List<Collapse> collapses = new ArrayList<>();
-        Collapse collapse = null;
-
-        do{
-            Set<Node> output = new HashSet<>();
 
-            try(
-                    Transaction tx  = db.beginTx();
-                    Result result = tx.execute("MATCH (n)-->() with n, count(*) as degree where degree > 1 return n;");
-                    ResourceIterator<Node> nodes = result.columnAs("n");
-            ){
+        //Element ids of nodes to search for collapsable patterns.
+        Deque<String> worklist = new ArrayDeque<>();
+        Set<String> queued = new HashSet<>();
+
+        try(
+                Transaction tx  = db.beginTx();
+                Result result = tx.execute("MATCH (n)-->() WITH n, count(*) AS degree WHERE degree > 1 RETURN elementId(n) AS id");
+                ResourceIterator<String> ids = result.columnAs("id");
+        ){
+            ids.forEachRemaining(id->{
+                if(queued.add(id)){
+                    worklist.add(id);
+                }
+            });
+        }
 
-                while (nodes.hasNext()){
-                    Node node = nodes.next();
-                    output.add(node);
+        log.info("{} candidate starting nodes for collapsable patterns.", worklist.size());
+
+        long start = System.nanoTime();
+
+        while (!worklist.isEmpty()){
+
+            long txStart = System.nanoTime();
+            int applied = 0;
+
+            //Nodes involved in collapses applied during this transaction.
+            Set<String> touched = new HashSet<>();
+            //Nodes whose collapse overlapped with another one in this transaction.
+            List<String> deferred = new ArrayList<>();
+
+            try(Transaction tx = db.beginTx()){
+
+                while (!worklist.isEmpty() && applied < collapsesPerTransaction){
+                    String elementId = worklist.poll();
+                    queued.remove(elementId);
+
+                    Node node;
+                    try{
+                        node = tx.getNodeByElementId(elementId);
+                    }catch (NotFoundException e){
+                        //Removed by an earlier collapse.
+                        continue;
+                    }
+
+                    if(node.getDegree(Direction.OUTGOING) < 2){
+                        continue;
+                    }
+
+                    log.info("Searching for collapsable patterns with traversal starting from {}", elementId);
+                    Collapse collapse = findCollapse(tx, node);
+                    if(collapse == null){
+                        continue;
+                    }
+
+                    if(collapse.instances().get(0).size() < 3){
+                        //Nothing between the anchors to collapse, only parallel edges. Applying it would add yet another
+                        //parallel edge between the anchors, which would then be found and applied again, forever.
+                        log.info("Ignoring collapse without nodes between its anchors starting from {}", elementId);
+                        continue;
+                    }
+
+                    Set<String> footprint = footprint(collapse);
+                    if(!Collections.disjoint(footprint, touched)){
+                        deferred.add(elementId);
+                        continue;
+                    }
+                    touched.addAll(footprint);
+
+                    applyCollapse(tx, collapse);
+                    collapses.add(collapse);
+                    applied++;
+
+                    //Revisit the nodes whose traversals pass through the modified part of the graph.
+                    Set<Node> affected = affectedStartingNodes(tx.getNodeByElementId(collapse.startingAnchor().elementId));
+                    affected.addAll(affectedStartingNodes(tx.getNodeByElementId(collapse.endingAnchor().elementId)));
+                    affected.forEach(n->{
+                        if(queued.add(n.getElementId())){
+                            worklist.add(n.getElementId());
+                        }
+                    });
                 }
 
+                tx.commit();
+            }
 
-                 collapse = output.stream()
-                        .peek(node->log.info("Searching for collapsable patterns with traversal starting from {}", node.getElementId()))
-                        .map(node->this.findCollapse(tx, node))
-                        .filter(Objects::nonNull)
-                        .findAny()
-                        .orElse(null)
-                        ;
+            deferred.forEach(id->{
+                if(queued.add(id)){
+                    worklist.addFirst(id);
+                }
+            });
 
+            if(applied > 0){
+                long elapsed = System.nanoTime() - txStart;
+                log.info("Applied {} collapses in {}ms [{} collapses/sec], {} nodes left to search.", applied, elapsed / 1_000_000, perSecond(applied, elapsed), worklist.size());
+            }
+        }
 
+        long elapsed = System.nanoTime() - start;
+        log.info("Collapse pass complete: {} collapses in {}ms [{} collapses/sec]", collapses.size(), elapsed / 1_000_000, perSecond(collapses.size(), elapsed));
 
-                if(collapse == null){
-                    log.info("No collapsable patterns found!");
-                    break;
-                }
+        return collapses;
 
-                applyCollapse(tx, collapse);
+    }
 
-                collapses.add(collapse);
+    private static long perSecond(long count, long nanos){
+        return nanos == 0 ? 0 : count * 1_000_000_000L / nanos;
+    }
 
-                tx.commit(); //Commit and finish the transaction.
+    /**
+     * @return the element ids of the anchors and collapsed nodes of a collapse.
+     */
+    private Set<String> footprint(Collapse collapse){
+        Set<String> result = new HashSet<>();
+        result.add(collapse.startingAnchor().elementId);
+        result.add(collapse.endingAnchor().elementId);
+        collapse.instances().forEach(instance->instance.forEach(element->result.add(element.elementId)));
+        return result;
+    }
 
+    /**
+     * Finds the nodes from which a traversal could find a collapsable pattern involving the given anchor.
+     *
+     * Patterns only pass through nodes with at most one incoming and one outgoing NEXT edge, and start at nodes with
+     * several outgoing relationships (see {@link CollapsingEvaluator}). So walking backwards from the anchor through
+     * such pass-through nodes finds every node that could start a pattern reaching the anchor.
+     *
+     * @param anchor
+     * @return the nodes with several outgoing relationships that are the anchor or lead to it.
+     */
+    private Set<Node> affectedStartingNodes(Node anchor){
+        Set<Node> result = new HashSet<>();
+        Set<Node> visited = new HashSet<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(anchor);
+        visited.add(anchor);
+
+        while (!stack.isEmpty()){
+            Node node = stack.pop();
+            boolean isAnchor = node.equals(anchor);
+            if(node.getDegree(Direction.OUTGOING) > 1){
+                result.add(node);
             }
 
-        }while (collapse != null);
+            if(!isAnchor && node.getDegree(NEXT, Direction.OUTGOING) > 1){
+                continue;
+            }
 
+            if(!isAnchor && node.getDegree(NEXT, Direction.INCOMING) > 1){
+                continue;
+            }
 
-        return collapses;
+            try(ResourceIterable<Relationship> incoming = node.getRelationships(Direction.INCOMING, NEXT)){
+                for(Relationship relationship: incoming){
+                    Node previous = relationship.getStartNode();
+                    if(visited.add(previous)){
+                        stack.push(previous);
+                    }
+                }
+            }
+        }
 
+        return result;
     }
 
     private void applyCollapse(Transaction tx, Collapse collapse){
@@ -104,8 +245,11 @@ public class CollapsingTraversal {
             nodeSet.forEach(n->sb.append(String.format("%s", n.getElementId())));
             log.info("Collapsing [{}] into a single node {}!", sb.toString(), collapsedNode.id().toString());
 
-            //Delete the nodes in the node set.
-            nodeSet.forEach(node ->tx.execute("MATCH (n) WHERE elementId(n) = '%s' detach delete n".formatted(node.getElementId())));
+            //Delete the nodes in the node set, along with their relationships.
+            nodeSet.forEach(node ->{
+                node.getRelationships().forEach(Relationship::delete);
+                node.delete();
+            });
 
             //Create the collapsed node
             Node replacement = collapsedNode.createNode(tx);
@@ -113,29 +257,15 @@ public class CollapsingTraversal {
             collapsedNodes.add(replacement);
         }
 
-        //Link the replacement nodes together in the appropriate order.
-        ListIterator<Node> it = collapsedNodes.listIterator();
-        String query = "MATCH (n), (m) WHERE elementId(n) = '%s' AND elementId(m) = '%s' CREATE (n)-[:NEXT]->(m) ;";
-        Node lastNode = null;
-        while (it.hasNext()){
-
-            Node curr = it.next();
-
-            log.info("index: {}", it.previousIndex());
-
-            if(it.previousIndex() == 0){ //If this is the first collapsed node, create an edge from the anchor
-                tx.execute(query.formatted(startingAnchor.getElementId(), curr.getElementId()));
-            }else{
-                //Otherwise create an edge from the last node to the current node.
-                tx.execute(query.formatted(lastNode.getElementId(), curr.getElementId()));
-            }
-
+        //Link the replacement nodes together in the appropriate order, starting from the starting anchor.
+        Node lastNode = startingAnchor;
+        for(Node curr: collapsedNodes){
+            lastNode.createRelationshipTo(curr, NEXT);
             lastNode = curr;
         }
 
         //Create an edge from the last node to the end anchor.
-        tx.execute(query.formatted(lastNode.getElementId(), endingAnchor.getElementId()));
-
+        lastNode.createRelationshipTo(endingAnchor, NEXT);
 
     }
 
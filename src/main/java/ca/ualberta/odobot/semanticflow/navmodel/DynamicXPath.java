@@ -139,19 +139,22 @@ public class DynamicXPath {
      * @return
      */
     public boolean matches(String sampleXPath){
-        log.info("SampleXPath: {}", sampleXPath);
-        log.info("Prefix: {}", prefix);
-        log.info("SuffixPattern: {}", suffixPattern.pattern());
-        log.info("Dynamic: {}", dynamicTag);
-
-        log.info("startsWith: {}",sampleXPath.startsWith(prefix) );
-        log.info("endsWith: {}", sampleXPath.endsWith(suffix));
-        log.info("matchesSuffixPattern: {}", suffixPattern.asPredicate().test(sampleXPath));
-        log.info("matchesDynamicTag: {}", matchesDynamicTag(sampleXPath));
+        //Called for every candidate when localizing, so only log when debugging.
+        if(log.isDebugEnabled()){
+            log.debug("SampleXPath: {}", sampleXPath);
+            log.debug("Prefix: {}", prefix);
+            log.debug("SuffixPattern: {}", suffixPattern.pattern());
+            log.debug("Dynamic: {}", dynamicTag);
+
+            log.debug("startsWith: {}",sampleXPath.startsWith(prefix) );
+            log.debug("endsWith: {}", suffix != null && sampleXPath.endsWith(suffix));
+            log.debug("matchesSuffixPattern: {}", suffixPattern.matcher(sampleXPath).find());
+            log.debug("matchesDynamicTag: {}", matchesDynamicTag(sampleXPath));
+        }
 
         //NOTE: Check dynamic tag AFTER prefix and suffix, as dynamic tag extraction assumes prefix and suffix match.
         return sampleXPath.startsWith(prefix) && //Prefix matches
-                (suffixPattern.asPredicate().test(sampleXPath) || (sampleXPath.equals(prefix + "/" + dynamicTag) )) && //Suffix matches
+                (suffixPattern.matcher(sampleXPath).find() || (sampleXPath.equals(prefix + "/" + dynamicTag) )) && //Suffix matches
                 matchesDynamicTag(sampleXPath); //Dynamic tag matches
 
 
@@ -195,8 +198,8 @@ public class DynamicXPath {
 
     private boolean matchesDynamicTag(String sampleXPath){
         try{
-            log.info("matchesDynamicTag Logic");
-            log.info("[1]{}", sampleXPath);
+            log.debug("matchesDynamicTag Logic");
+            log.debug("[1]{}", sampleXPath);
 
             var matcher = suffixPattern.matcher(sampleXPath);
             String sampleDynamicTagString = null;
@@ -208,17 +211,22 @@ public class DynamicXPath {
                 sampleDynamicTagString = sampleXPath.substring(sampleXPath.lastIndexOf("/")+1);
             }
 
-            log.info("[2]{}", sampleDynamicTagString);
+            log.debug("[2]{}", sampleDynamicTagString);
 //            sampleDynamicTagString = sampleDynamicTagString.substring(sampleDynamicTagString.length()-suffix.length());
 //            log.info("[3]{}", sampleDynamicTagString);
             String sampleTag = NavPath.extractTag(sampleDynamicTagString);
-            log.info("extractedTag: {}", sampleTag);
+            log.debug("extractedTag: {}", sampleTag);
             return this.dynamicTag.equals(sampleTag);
 
 
         }catch (StringIndexOutOfBoundsException e){
             log.error(e.getMessage(), e);
 
+            return false;
+        }catch (IllegalStateException e){
+            //No tag could be extracted from the sample, which is common when localizing and simply means no match.
+            log.debug("No dynamic tag in {}", sampleXPath);
+
             return false;
         }
     }
@@ -0,0 +1,249 @@
+package ca.ualberta.odobot.semanticflow.navmodel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Resolves xpaths to the ids of the collapsed nodes whose {@link DynamicXPath} they match.
+ *
+ * Dynamic xpaths are stored in a trie keyed on the segments of their prefix, so looking up an xpath only considers the
+ * dynamic xpaths whose prefix is a leading sequence of the xpath's segments. Below a prefix, dynamic xpaths are grouped
+ * by dynamic tag, and the suffix patterns of each group are compiled into a single pattern which rejects xpaths that
+ * match none of them before any dynamic xpath is tested individually.
+ *
+ * Compared to testing every dynamic xpath with {@link DynamicXPath#matches(String)}, which is how xpaths were
+ * localized before, a prefix must end on a segment boundary of the xpath ('/html/body/div' no longer matches xpaths
+ * under '/html/body/div[2]'), and when several dynamic xpaths match, the one with the longest prefix is used rather
+ * than any of them.
+ *
+ * Not thread safe, see {@link Localizer}.
+ */
+public class DynamicXPathIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(DynamicXPathIndex.class);
+
+    private record Entry(DynamicXPath dynamicXPath, UUID nodeId){}
+
+    /**
+     * The dynamic xpaths sharing a prefix and dynamic tag.
+     */
+    private static class Leaf{
+
+        final List<Entry> entries = new ArrayList<>();
+
+        //Matches if any suffix pattern of the entries matches, compiled lazily. Null if it has to be (re)compiled.
+        Pattern suffixes;
+
+        //True if the entries' suffix patterns could not be combined, in which case every entry is tested.
+        boolean uncombinable = false;
+
+        void invalidate(){
+            suffixes = null;
+            uncombinable = false;
+        }
+
+        /**
+         * @return false if none of the entries can match the xpath.
+         */
+        boolean mayMatch(String xpath, String prefix, String tag){
+            if(xpath.length() == prefix.length() + 1 + tag.length() && xpath.endsWith(tag)){
+                //xpath is prefix + "/" + tag, which DynamicXPath#matches accepts without a suffix.
+                return true;
+            }
+
+            if(suffixes == null && !uncombinable){
+                compile();
+            }
+
+            return uncombinable || suffixes.matcher(xpath).find();
+        }
+
+        private void compile(){
+            StringBuilder sb = new StringBuilder();
+            Iterator<Entry> it = entries.iterator();
+            while (it.hasNext()){
+                sb.append("(?:");
+                sb.append(it.next().dynamicXPath().getSuffixPattern().pattern());
+                sb.append(")");
+                if(it.hasNext()){
+                    sb.append("|");
+                }
+            }
+
+            try{
+                suffixes = Pattern.compile(sb.toString());
+            }catch (PatternSyntaxException e){
+                log.warn("Could not combine suffix patterns: {}", e.getMessage());
+                uncombinable = true;
+            }
+        }
+    }
+
+    private static class TrieNode {
+
+        final Map<String, TrieNode> children = new HashMap<>();
+
+        //Dynamic xpaths whose prefix ends at this node, by dynamic tag.
+        final Map<String, Leaf> leaves = new HashMap<>();
+
+        boolean isEmpty(){
+            return children.isEmpty() && leaves.isEmpty();
+        }
+    }
+
+    private static final Pattern TAG = Pattern.compile("[a-zA-Z]+");
+
+    private final TrieNode root = new TrieNode();
+
+    private int size = 0;
+
+    /**
+     * Adds a dynamic xpath to the index, replacing any existing equal dynamic xpath.
+     * @param dynamicXPath
+     * @param nodeId the id of the node the dynamic xpath resolves to.
+     */
+    public void put(DynamicXPath dynamicXPath, UUID nodeId){
+        if(dynamicXPath == null || dynamicXPath.getPrefix() == null || dynamicXPath.getDynamicTag() == null || dynamicXPath.getSuffixPattern() == null){
+            log.warn("Cannot index incomplete dynamic xpath {} for node {}", dynamicXPath, nodeId);
+            return;
+        }
+
+        TrieNode node = root;
+        for(String segment: segments(dynamicXPath.getPrefix())){
+            node = node.children.computeIfAbsent(segment, s->new TrieNode());
+        }
+
+        Leaf leaf = node.leaves.computeIfAbsent(dynamicXPath.getDynamicTag(), t->new Leaf());
+        leaf.entries.removeIf(entry->{
+            if(entry.dynamicXPath().equals(dynamicXPath)){
+                size--;
+                return true;
+            }
+            return false;
+        });
+        leaf.entries.add(new Entry(dynamicXPath, nodeId));
+        leaf.invalidate();
+        size++;
+    }
+
+    /**
+     * Removes a dynamic xpath from the index, if it still resolves to the given node.
+     * @param dynamicXPath
+     * @param nodeId the id of the node the dynamic xpath was indexed for.
+     * @return true if the dynamic xpath was in the index.
+     */
+    public boolean remove(DynamicXPath dynamicXPath, UUID nodeId){
+        if(dynamicXPath == null || dynamicXPath.getPrefix() == null){
+            return false;
+        }
+
+        String [] segments = segments(dynamicXPath.getPrefix());
+        TrieNode [] trail = new TrieNode[segments.length + 1];
+        trail[0] = root;
+        for(int i = 0; i < segments.length; i++){
+            trail[i+1] = trail[i].children.get(segments[i]);
+            if(trail[i+1] == null){
+                return false;
+            }
+        }
+
+        TrieNode node = trail[segments.length];
+        Leaf leaf = node.leaves.get(dynamicXPath.getDynamicTag());
+        if(leaf == null || !leaf.entries.removeIf(entry->entry.nodeId().equals(nodeId) && entry.dynamicXPath().equals(dynamicXPath))){
+            return false;
+        }
+        size--;
+        leaf.invalidate();
+
+        //Prune the branch if nothing is left under it.
+        if(leaf.entries.isEmpty()){
+            node.leaves.remove(dynamicXPath.getDynamicTag());
+        }
+        for(int i = segments.length; i > 0 && trail[i].isEmpty(); i--){
+            trail[i-1].children.remove(segments[i-1]);
+        }
+
+        return true;
+    }
+
+    /**
+     * Finds the node whose dynamic xpath matches an xpath. When several dynamic xpaths match, the one with the longest
+     * prefix is used.
+     *
+     * @param xpath the xpath to localize.
+     * @return the id of the matching node, if any.
+     */
+    public Optional<UUID> find(String xpath){
+        if(xpath == null || size == 0){
+            return Optional.empty();
+        }
+
+        String [] segments = segments(xpath);
+
+        //Collect the trie nodes along the xpath, deepest last.
+        TrieNode [] trail = new TrieNode[segments.length];
+        int depth = 0;
+        TrieNode node = root;
+        while (node != null && depth < segments.length){
+            trail[depth] = node;
+            node = node.children.get(segments[depth]);
+            depth++;
+        }
+
+        //trail[i] is the node for the prefix made of the first i segments, the dynamic tag is then segment i.
+        for(int i = depth - 1; i >= 0; i--){
+            TrieNode candidate = trail[i];
+            if(candidate.leaves.isEmpty()){
+                continue;
+            }
+
+            String tag = extractTag(segments[i]);
+            Leaf leaf = tag == null ? null : candidate.leaves.get(tag);
+            if(leaf == null){
+                continue;
+            }
+
+            String prefix = leaf.entries.get(0).dynamicXPath().getPrefix();
+            if(!leaf.mayMatch(xpath, prefix, tag)){
+                continue;
+            }
+
+            for(Entry entry: leaf.entries){
+                if(entry.dynamicXPath().matches(xpath)){
+                    return Optional.of(entry.nodeId());
+                }
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public void clear(){
+        root.children.clear();
+        root.leaves.clear();
+        size = 0;
+    }
+
+    /**
+     * Splits an xpath into segments. The empty segment before the leading '/' is kept so that a prefix and the xpaths it
+     * is a prefix of split the same way.
+     */
+    private static String [] segments(String xpath){
+        return xpath.split("/", -1);
+    }
+
+    private static String extractTag(String segment){
+        Matcher matcher = TAG.matcher(segment);
+        return matcher.find() ? matcher.group() : null;
+    }
+
+}
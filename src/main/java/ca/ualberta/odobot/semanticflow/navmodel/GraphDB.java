@@ -10,6 +10,10 @@ import org.neo4j.configuration.helpers.SocketAddress;
 import org.neo4j.dbms.api.DatabaseManagementService;
 import org.neo4j.dbms.api.DatabaseManagementServiceBuilder;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventListener;
+import org.neo4j.graphdb.event.TransactionEventListenerAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,6 +23,10 @@ import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 
@@ -29,11 +37,25 @@ public class GraphDB {
 
     private static final Logger log = LoggerFactory.getLogger(GraphDB.class);
 
+    /**
+     * Label shared by every node of the navigation model (parameter nodes excepted), on top of its base label. Used to
+     * look nodes up by id through an index without knowing their base label.
+     */
+    public static final String NAV_NODE_LABEL = "NavNode";
+
+    private static final String NAV_NODE_ID_INDEX = "nav_node_id";
+
+    //Number of nodes to label per transaction when backfilling the nav node label.
+    private static final int BACKFILL_BATCH_SIZE = 10000;
+
     private final String databaseName;
     private final Path databaseDirectory;
     private DatabaseManagementService managementService;
     public GraphDatabaseService db;
 
+    //Incremented after every committed write to the database, whether made through the embedded api or bolt.
+    private final AtomicLong modelVersion = new AtomicLong();
+
 
     public GraphDB(String databaseDirectory, String databaseName) throws URISyntaxException, IOException {
         this.databaseDirectory = Path.of(databaseDirectory);
@@ -77,6 +99,16 @@ public class GraphDB {
 
             db = managementService.database(GraphDatabaseSettings.DEFAULT_DATABASE_NAME);
 
+            managementService.registerTransactionEventListener(GraphDatabaseSettings.DEFAULT_DATABASE_NAME, new TransactionEventListenerAdapter<>(){
+                @Override
+                public void afterCommit(TransactionData data, Object state, GraphDatabaseService databaseService) {
+                    modelVersion.incrementAndGet();
+                }
+            });
+
+            createIndexes();
+            reportIndexes();
+
 
             log.info("Embedded Neo4J started!");
         }catch (Exception e){
@@ -88,6 +120,108 @@ public class GraphDB {
     }
 
 
+    /**
+     * Nodes are mostly resolved by id, often without a label (ex: "MATCH (a {id:$id})"), which means scanning every node
+     * in the database. This labels all nav model nodes with {@link #NAV_NODE_LABEL} and backs that label's id with a
+     * uniqueness constraint, so id lookups become index seeks.
+     */
+    private void createIndexes(){
+
+        //Label nav model nodes created before the label was introduced. Nodes have been labeled on create since the id
+        //index was introduced, so this only needs to run once, on databases that don't have the index yet.
+        boolean indexed = db.executeTransactionally("SHOW INDEXES YIELD name WHERE name = $name RETURN count(*) AS found",
+                Map.of("name", NAV_NODE_ID_INDEX), result->(long)result.next().get("found") > 0);
+
+        if(!indexed){
+            backfillNavNodeLabel();
+        }
+
+        try{
+            db.executeTransactionally("CREATE CONSTRAINT %s IF NOT EXISTS FOR (n:%s) REQUIRE n.id IS UNIQUE".formatted(NAV_NODE_ID_INDEX, NAV_NODE_LABEL));
+        }catch (Exception e){
+            //Existing models may contain duplicate ids, in which case fall back to a regular index.
+            log.warn("Could not create uniqueness constraint on {}.id, falling back to a non-unique index: {}", NAV_NODE_LABEL, e.getMessage());
+            db.executeTransactionally("CREATE INDEX %s IF NOT EXISTS FOR (n:%s) ON (n.id)".formatted(NAV_NODE_ID_INDEX, NAV_NODE_LABEL));
+        }
+
+        db.executeTransactionally("CREATE INDEX input_parameter_id IF NOT EXISTS FOR (n:InputParameter) ON (n.id)");
+        db.executeTransactionally("CREATE INDEX schema_parameter_id IF NOT EXISTS FOR (n:SchemaParameter) ON (n.id)");
+
+        try(Transaction tx = db.beginTx()){
+            tx.schema().awaitIndexesOnline(5, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Labels nav model nodes created before {@link #NAV_NODE_LABEL} was introduced. Done in chunks to keep transactions
+     * small on large models.
+     */
+    private void backfillNavNodeLabel(){
+        var backfillStmt = """
+                MATCH (n) WHERE n.id IS NOT NULL AND NOT n:%s AND NOT n:InputParameter AND NOT n:SchemaParameter
+                WITH n LIMIT $limit
+                SET n:%s
+                RETURN count(n) AS labeled
+                """.formatted(NAV_NODE_LABEL, NAV_NODE_LABEL);
+
+        long labeled = 0;
+        long batch;
+        do{
+            batch = db.executeTransactionally(backfillStmt, Map.of("limit", BACKFILL_BATCH_SIZE), result->(long)result.next().get("labeled"));
+            labeled += batch;
+        }while (batch > 0);
+
+        if(labeled > 0){
+            log.info("Added {} label to {} existing nodes", NAV_NODE_LABEL, labeled);
+        }
+    }
+
+    /**
+     * The model version changes whenever data is written to the database, so anything derived from the nav model
+     * (see {@link NavPathsConstructor}) can tell whether it is out of date by comparing versions.
+     * @return the current version of the nav model.
+     */
+    public long getModelVersion(){
+        return modelVersion.get();
+    }
+
+    /**
+     * Registers a listener on the transactions of the nav model database, whether made through the embedded api or bolt.
+     * @param listener
+     */
+    public void registerTransactionEventListener(TransactionEventListener<?> listener){
+        managementService.registerTransactionEventListener(GraphDatabaseSettings.DEFAULT_DATABASE_NAME, listener);
+    }
+
+    /**
+     * Shuts down the embedded database, along with its bolt connector.
+     */
+    public void shutdown(){
+        managementService.shutdown();
+    }
+
+    /**
+     * Logs the indexes that exist in the database.
+     */
+    private void reportIndexes(){
+        db.executeTransactionally("SHOW INDEXES YIELD name, type, entityType, labelsOrTypes, properties, state, owningConstraint", Map.of(), result->{
+            log.info("Neo4J indexes:");
+            while (result.hasNext()){
+                Map<String,Object> index = result.next();
+                log.info("\t{} [{}] on {} {}{} - {}{}",
+                        index.get("name"),
+                        index.get("type"),
+                        index.get("entityType"),
+                        Objects.toString(index.get("labelsOrTypes"), ""),
+                        Objects.toString(index.get("properties"), ""),
+                        index.get("state"),
+                        index.get("owningConstraint") != null ? " (constraint)" : ""
+                );
+            }
+            return null;
+        });
+    }
+
     private static void copyApocJarToPluginDir(Path parentDir, Path pluginDir) throws IOException {
         Files.find(parentDir, 1, (p,a)->p.getFileName().toString().startsWith("apoc-"))
                 .forEach(p->{
@@ -5,23 +5,41 @@ import ca.ualberta.odobot.semanticflow.model.ApplicationLocationChange;
 import ca.ualberta.odobot.semanticflow.model.ClickEvent;
 import ca.ualberta.odobot.semanticflow.model.DataEntry;
 import ca.ualberta.odobot.semanticflow.model.NetworkEvent;
+import io.vertx.core.json.JsonObject;
 import org.neo4j.graphdb.*;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventListenerAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
-import java.util.UUID;
+import java.util.*;
 import java.util.function.Consumer;
 
 
+/**
+ * Resolves user events to nav model nodes.
+ *
+ * The indices are built from the whole nav model on creation and by {@link #refreshIndices()}. In between, changes made
+ * to the nav model (by {@link Neo4JUtils} over bolt, or through the embedded api, ex: {@link CollapsingTraversal}) are
+ * picked up by a transaction listener and applied to the indices as they are committed. Changes committed while the
+ * indices are being rebuilt are also replayed over the rebuilt indices.
+ */
 public class Localizer {
 
     private static final Logger log = LoggerFactory.getLogger(Localizer.class);
 
+    private static final Label CLICK_NODE = Label.label("ClickNode");
+    private static final Label DATA_ENTRY_NODE = Label.label("DataEntryNode");
+    private static final Label COLLAPSED_CLICK_NODE = Label.label("CollapsedClickNode");
+    private static final Label COLLAPSED_DATA_ENTRY_NODE = Label.label("CollapsedDataEntryNode");
+    private static final Label LOCATION_NODE = Label.label("LocationNode");
+    private static final Label API_NODE = Label.label("APINode");
+
+    //Properties the indices are built from, changes to other properties do not affect the indices.
+    private static final Set<String> INDEXED_PROPERTIES = Set.of("id", "xpath", "xpaths", "path", "method");
+
     private GraphDatabaseService db;
 
     private Map<String, UUID> networkRequestIndex = new HashMap<>();
@@ -32,110 +50,307 @@ public class Localizer {
     private Map<String, UUID> locationIndex = new HashMap<>();
 
     /**
-     * Index for resolving DynamicXPaths to node ids. These will map to Collapsed nodes of some type.
+     * Index for resolving xpaths to node ids through DynamicXPaths. These will map to Collapsed nodes of some type.
      */
-    private Map<DynamicXPath, UUID> dynamicXPathLocationIndex = new HashMap<>();
+    private DynamicXPathIndex dynamicXPathLocationIndex = new DynamicXPathIndex();
 
     /**
      * Index for resolving xpaths to node ids. These will map to non-Collapsed nodes of some type.
      */
     private Map<String, UUID> xPathLocationIndex = new HashMap<>();
 
+    /**
+     * The index entry of every indexed node, by element id. Used to remove the entry of a node when it is deleted or changed.
+     */
+    private Map<String, IndexEntry> indexedNodes = new HashMap<>();
+
+    /**
+     * Changes applied while the indices are being rebuilt, in the order they were applied. The scan rebuilding the indices
+     * may or may not see them, so they are replayed once the rebuilt indices are in place. Null when not rebuilding.
+     */
+    private List<IndexChange> changesDuringRefresh = null;
+
+    //Only one rebuild at a time.
+    private final Object refreshLock = new Object();
+
+    private long changesApplied = 0;
+
+    private long lastRefresh = 0;
+
     public Localizer(GraphDB graphDB){
         this.db = graphDB.db;
+
+        //Listen before building the indices, changes committed while they are being built are replayed over them.
+        graphDB.registerTransactionEventListener(new IndexMaintainer());
         refreshIndices();
     }
 
+    /**
+     * Rebuilds all indices from the nav model. Changes committed while the nav model is being scanned are replayed over the
+     * rebuilt indices before they are used, so none are lost.
+     */
     public void refreshIndices(){
-        xPathLocationIndex = buildXpathLocationIndex();
-        dynamicXPathLocationIndex = buildDynamicXPathLocationIndex();
-        locationIndex = buildLocationIndex();
-        networkRequestIndex = buildNetworkEventIndex();
+        synchronized (refreshLock){
+            try{
+                rebuildIndices();
+            }finally {
+                //Stop buffering changes if the rebuild failed.
+                synchronized (this){
+                    changesDuringRefresh = null;
+                }
+            }
+        }
     }
 
-    private Map<DynamicXPath, UUID> buildDynamicXPathLocationIndex(){
-
-        Map<DynamicXPath, UUID> index = new HashMap<>();
+    private void rebuildIndices(){
 
-        executeNodesQuery("match (n) where n:CollapsedClickNode or n:CollapsedDataEntryNode return n;", "n",
-                (node)->{
+        long start = System.currentTimeMillis();
 
-                    //For debugging
-                    log.info("Node:");
-                    node.getLabels().forEach(label->log.info("\t{}", label.name()));
-                    node.getAllProperties().forEach((key,value)->log.info("\t{}:{}", key, value.toString()));
+        synchronized (this){
+            changesDuringRefresh = new ArrayList<>();
+        }
 
-                    DynamicXPathIndexEntry entry = buildDynamicXPathIndexEntry(node);
-                    index.put(entry.dynamicXPath(), entry.nodeId());
+        Map<String, IndexEntry> entries = new HashMap<>();
+        executeNodesQuery("match (n) where n:ClickNode OR n:DataEntryNode OR n:CollapsedClickNode OR n:CollapsedDataEntryNode OR n:LocationNode OR n:APINode return n;", "n",
+                node->{
+                    IndexEntry entry = tryBuildIndexEntry(node);
+                    if(entry != null){
+                        entries.put(node.getElementId(), entry);
+                    }
                 });
 
-        return index;
+        synchronized (this){
+            xPathLocationIndex = new HashMap<>();
+            dynamicXPathLocationIndex = new DynamicXPathIndex();
+            locationIndex = new HashMap<>();
+            networkRequestIndex = new HashMap<>();
+            indexedNodes = entries;
 
-    }
+            entries.values().forEach(this::index);
 
-    private Map<String, UUID> buildNetworkEventIndex(){
-        Map<String, UUID> index = new HashMap<>();
-        executeNodesQuery("match (n:APINode) return n;", "n", node->{
-            String method = (String)node.getProperty("method");
-            String path = (String)node.getProperty("path");
+            //Changes are the state of a node after a commit, so replaying one the scan already saw is harmless.
+            List<IndexChange> replay = changesDuringRefresh;
+            changesDuringRefresh = null;
+            replay.forEach(this::apply);
+            log.info("Replayed {} changes committed during the rebuild", replay.size());
 
-            index.put(method+"-"+path, UUID.fromString((String)node.getProperty("id")));
-        });
+            lastRefresh = System.currentTimeMillis();
+        }
 
-        return index;
+        log.info("Localizer indices rebuilt in {}ms: {}", System.currentTimeMillis() - start, getMetrics().encode());
     }
 
-    private Map<String, UUID> buildLocationIndex(){
-        Map<String, UUID> index = new HashMap<>();
-        executeNodesQuery("match (n:LocationNode) return n;", "n", node->{
-            StringKeyIndexEntry entry = buildLocationIndexEntry(node);
-            index.put(entry.key(), entry.nodeId());
-        });
-        return index;
+    public synchronized JsonObject getMetrics(){
+        return new JsonObject()
+                .put("xpaths", xPathLocationIndex.size())
+                .put("dynamicXPaths", dynamicXPathLocationIndex.size())
+                .put("locations", locationIndex.size())
+                .put("networkEvents", networkRequestIndex.size())
+                .put("changesApplied", changesApplied)
+                .put("lastRefresh", lastRefresh);
     }
 
+    private enum IndexType{
+        XPATH, DYNAMIC_XPATH, LOCATION, NETWORK_EVENT
+    }
 
-    private Map<String, UUID> buildXpathLocationIndex(){
-        Map<String,UUID> index = new HashMap<>();
+    /**
+     * @param type the index the entry belongs to.
+     * @param key the key of the entry, null for dynamic xpath entries.
+     * @param dynamicXPath the dynamic xpath of the entry, null for other entries.
+     * @param nodeId
+     */
+    private record IndexEntry(IndexType type, String key, DynamicXPath dynamicXPath, UUID nodeId){};
+
+    /**
+     * @param node
+     * @return the index entry for the node, or null if the node does not belong in any index.
+     */
+    private IndexEntry buildIndexEntry(Node node){
+        if(!node.hasProperty("id")){
+            return null;
+        }
 
-        executeNodesQuery("match (n) where (n:ClickNode OR n:DataEntryNode) AND NOT n:CollapsedClickNode AND NOT n:CollapsedDataEntryNode return n;", "n",
-                (node)->{
-                    StringKeyIndexEntry entry = buildXpathIndexEntry(node);
-                    index.put(entry.key(), entry.nodeId());
-        });
+        if(node.hasLabel(COLLAPSED_CLICK_NODE) || node.hasLabel(COLLAPSED_DATA_ENTRY_NODE)){
+            return buildDynamicXPathIndexEntry(node);
+        }
 
-        return index;
-    }
+        if(node.hasLabel(CLICK_NODE) || node.hasLabel(DATA_ENTRY_NODE)){
+            return buildXpathIndexEntry(node);
+        }
 
+        if(node.hasLabel(LOCATION_NODE)){
+            return buildLocationIndexEntry(node);
+        }
+
+        if(node.hasLabel(API_NODE)){
+            return buildNetworkEventIndexEntry(node);
+        }
+
+        return null;
+    }
 
-    private record DynamicXPathIndexEntry(DynamicXPath dynamicXPath, UUID nodeId){};
+    private IndexEntry tryBuildIndexEntry(Node node){
+        try{
+            return buildIndexEntry(node);
+        }catch (RuntimeException e){
+            log.warn("Cannot index node {}: {}", node.getElementId(), e.getMessage());
+            return null;
+        }
+    }
 
-    private DynamicXPathIndexEntry buildDynamicXPathIndexEntry(Node node){
+    private IndexEntry buildDynamicXPathIndexEntry(Node node){
         String [] xpaths = (String[]) node.getProperty("xpaths");
         DynamicXPath dynamicXPath = NavPath.findDynamicXPath(xpaths);
 
-        return new DynamicXPathIndexEntry(
+        return new IndexEntry(
+                IndexType.DYNAMIC_XPATH,
+                null,
                 dynamicXPath,
                 UUID.fromString((String)node.getProperty("id"))
         );
     }
 
-    private record StringKeyIndexEntry(String key, UUID nodeId){};
-
-    private StringKeyIndexEntry buildXpathIndexEntry(Node node){
-        return new StringKeyIndexEntry(
+    private IndexEntry buildXpathIndexEntry(Node node){
+        return new IndexEntry(
+                IndexType.XPATH,
                 (String)node.getProperty("xpath"),
+                null,
                 UUID.fromString((String)node.getProperty("id"))
         );
     }
 
-    private StringKeyIndexEntry buildLocationIndexEntry(Node node){
-        return new StringKeyIndexEntry(
+    private IndexEntry buildLocationIndexEntry(Node node){
+        return new IndexEntry(
+                IndexType.LOCATION,
                 (String)node.getProperty("path"),
+                null,
                 UUID.fromString((String)node.getProperty("id"))
         );
     }
 
+    private IndexEntry buildNetworkEventIndexEntry(Node node){
+        String method = (String)node.getProperty("method");
+        String path = (String)node.getProperty("path");
+
+        return new IndexEntry(
+                IndexType.NETWORK_EVENT,
+                method+"-"+path,
+                null,
+                UUID.fromString((String)node.getProperty("id"))
+        );
+    }
+
+    private void index(IndexEntry entry){
+        switch (entry.type()){
+            case XPATH -> xPathLocationIndex.put(entry.key(), entry.nodeId());
+            case DYNAMIC_XPATH -> dynamicXPathLocationIndex.put(entry.dynamicXPath(), entry.nodeId());
+            case LOCATION -> locationIndex.put(entry.key(), entry.nodeId());
+            case NETWORK_EVENT -> networkRequestIndex.put(entry.key(), entry.nodeId());
+        }
+    }
+
+    /**
+     * Removes an entry from its index, unless its key has since been taken over by another node.
+     */
+    private void unindex(IndexEntry entry){
+        switch (entry.type()){
+            case XPATH -> xPathLocationIndex.remove(entry.key(), entry.nodeId());
+            case DYNAMIC_XPATH -> dynamicXPathLocationIndex.remove(entry.dynamicXPath(), entry.nodeId());
+            case LOCATION -> locationIndex.remove(entry.key(), entry.nodeId());
+            case NETWORK_EVENT -> networkRequestIndex.remove(entry.key(), entry.nodeId());
+        }
+    }
+
+    /**
+     * A change to the indices.
+     * @param elementId the element id of the changed node.
+     * @param entry the index entry of the node after the change, or null if the node was deleted or no longer belongs in an index.
+     */
+    private record IndexChange(String elementId, IndexEntry entry){}
+
+    private synchronized void applyChanges(List<IndexChange> changes){
+        changes.forEach(this::apply);
+        changesApplied += changes.size();
+
+        if(changesDuringRefresh != null){
+            changesDuringRefresh.addAll(changes);
+        }
+    }
+
+    private void apply(IndexChange change){
+        IndexEntry previous = change.entry() == null ?
+                indexedNodes.remove(change.elementId()):
+                indexedNodes.put(change.elementId(), change.entry());
+
+        if(previous != null){
+            unindex(previous);
+        }
+
+        if(change.entry() != null){
+            index(change.entry());
+        }
+    }
+
+    /**
+     * Computes index changes from the nodes touched by a transaction while it can still be read, and applies them once
+     * the transaction has committed.
+     */
+    private class IndexMaintainer extends TransactionEventListenerAdapter<List<IndexChange>>{
+
+        @Override
+        public List<IndexChange> beforeCommit(TransactionData data, Transaction transaction, GraphDatabaseService databaseService) {
+            //Never fail the transaction over the indices, they can always be rebuilt with refreshIndices().
+            try{
+                return computeChanges(data);
+            }catch (Exception e){
+                log.error("Could not compute localizer index changes, indices may be out of date until refreshed.");
+                log.error(e.getMessage(), e);
+                return null;
+            }
+        }
+
+        @Override
+        public void afterCommit(TransactionData data, List<IndexChange> changes, GraphDatabaseService databaseService) {
+            if(changes != null && !changes.isEmpty()){
+                applyChanges(changes);
+            }
+        }
+
+        private List<IndexChange> computeChanges(TransactionData data){
+            Set<String> deleted = new HashSet<>();
+            data.deletedNodes().forEach(node->deleted.add(node.getElementId()));
+
+            //Nodes whose index entry may have changed, by element id.
+            Map<String, Node> changed = new LinkedHashMap<>();
+            Consumer<Node> touch = node->{
+                if(!deleted.contains(node.getElementId())){
+                    changed.putIfAbsent(node.getElementId(), node);
+                }
+            };
+
+            data.createdNodes().forEach(touch);
+            data.assignedLabels().forEach(entry->touch.accept(entry.node()));
+            data.removedLabels().forEach(entry->touch.accept(entry.node()));
+            data.assignedNodeProperties().forEach(entry->{
+                if(INDEXED_PROPERTIES.contains(entry.key())){
+                    touch.accept(entry.entity());
+                }
+            });
+            data.removedNodeProperties().forEach(entry->{
+                if(INDEXED_PROPERTIES.contains(entry.key())){
+                    touch.accept(entry.entity());
+                }
+            });
+
+            List<IndexChange> changes = new ArrayList<>(deleted.size() + changed.size());
+            deleted.forEach(elementId->changes.add(new IndexChange(elementId, null)));
+            changed.forEach((elementId, node)->changes.add(new IndexChange(elementId, tryBuildIndexEntry(node))));
+
+            return changes;
+        }
+    }
+
 
     /**
      * Helper method for executing queries that return single sets of nodes.
@@ -158,13 +373,9 @@ public class Localizer {
         }
     }
 
-    public Optional<UUID> findNodeByNetworkEvent(NetworkEvent networkEvent){
+    public synchronized Optional<UUID> findNodeByNetworkEvent(NetworkEvent networkEvent){
         String key = networkEvent.getMethod() + "-" + networkEvent.getPath();
-        Optional<UUID> result = networkRequestIndex.entrySet().stream()
-                .filter(entry->entry.getKey().equals(key))
-                .map(Map.Entry::getValue)
-                .findAny();
-        return result;
+        return Optional.ofNullable(networkRequestIndex.get(key));
     }
 
     public Optional<UUID> findNodeByLocationChange(ApplicationLocationChange locationChange){
@@ -211,21 +422,18 @@ public class Localizer {
         return findNodeIdByXPath(xpath);
     }
 
-    private Optional<UUID> findNodeByLocation(String location){
+    private synchronized Optional<UUID> findNodeByLocation(String location){
         //Look for a match in the location index
-        Optional<UUID> result = locationIndex.entrySet().stream()
-                .filter(entry->entry.getKey().equals(location))
-                .map(Map.Entry::getValue)
-                .findAny();
-        return result;
+        return Optional.ofNullable(locationIndex.get(location));
     }
 
-    private Optional<UUID> findNodeIdByXPath(String xpath){
+    private synchronized Optional<UUID> findNodeIdByXPath(String xpath){
+        if(xpath == null){
+            return Optional.empty();
+        }
+
         //Look for a match in the dynamic xpath location index
-        Optional<UUID> result =  dynamicXPathLocationIndex.entrySet().stream()
-                .filter(entry->entry.getKey().matches(xpath))
-                .map(Map.Entry::getValue)
-                .findAny();
+        Optional<UUID> result =  dynamicXPathLocationIndex.find(xpath);
 
         //If one is found return it.
         if(result.isPresent()){
@@ -0,0 +1,673 @@
+package ca.ualberta.odobot.semanticflow.navmodel;
+
+import org.neo4j.graphdb.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable, in-memory copy of the NEXT graph of the navigation model in compressed sparse row (CSR) form.
+ *
+ * Nodes are numbered 0..size()-1. The outgoing NEXT edges of node i are the edges offsets[i] (inclusive) to
+ * offsets[i+1] (exclusive), edge e leading to node targets[e]. Node types and parameter information needed during
+ * path construction are kept in bitsets, so searching the model only touches primitive arrays.
+ *
+ * Searches produce {@link Walk}s, which are only turned into neo4j {@link Path}s (see {@link #toPath(Transaction, Walk)})
+ * for the results that are actually returned to callers.
+ *
+ * A snapshot does not follow changes made to the database after it was built, it must be rebuilt instead.
+ */
+public class NavGraphSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(NavGraphSnapshot.class);
+
+    private static final RelationshipType NEXT = RelationshipType.withName("NEXT");
+    private static final RelationshipType PARAM = RelationshipType.withName("PARAM");
+
+    /**
+     * A path through the snapshot: a starting node followed by the edges taken from it.
+     */
+    public record Walk(int start, int [] edges){
+
+        public int length(){
+            return edges.length;
+        }
+    }
+
+    //Nav model ids and neo4j element ids of every node.
+    private final String [] ids;
+    private final String [] nodeElementIds;
+    private final Map<String, Integer> index;
+
+    private final int [] offsets;
+    private final int [] targets;
+    private final String [] edgeElementIds;
+
+    private final BitSet apiNodes;
+    private final BitSet dataEntryNodes;
+    private final BitSet collapsedClickNodes;
+    //Nodes with an outgoing PARAM relationship
+    private final BitSet parameterNodes;
+
+    private NavGraphSnapshot(String [] ids, String [] nodeElementIds, int [] offsets, int [] targets, String [] edgeElementIds,
+                             BitSet apiNodes, BitSet dataEntryNodes, BitSet collapsedClickNodes, BitSet parameterNodes){
+        this.ids = ids;
+        this.nodeElementIds = nodeElementIds;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.edgeElementIds = edgeElementIds;
+        this.apiNodes = apiNodes;
+        this.dataEntryNodes = dataEntryNodes;
+        this.collapsedClickNodes = collapsedClickNodes;
+        this.parameterNodes = parameterNodes;
+
+        this.index = new HashMap<>(ids.length * 2);
+        for(int i = 0; i < ids.length; i++){
+            index.put(ids[i], i);
+        }
+    }
+
+    /**
+     * Reads every nav node and NEXT edge from the database in a single read transaction.
+     * @param db
+     * @return the snapshot of the current navigation model.
+     */
+    public static NavGraphSnapshot build(GraphDatabaseService db){
+
+        long start = System.currentTimeMillis();
+
+        try(Transaction tx = db.beginTx()){
+
+            List<String> ids = new ArrayList<>();
+            List<String> nodeElementIds = new ArrayList<>();
+            Map<String, Integer> byElementId = new HashMap<>();
+
+            BitSet apiNodes = new BitSet();
+            BitSet dataEntryNodes = new BitSet();
+            BitSet collapsedClickNodes = new BitSet();
+            BitSet parameterNodes = new BitSet();
+
+            try(ResourceIterator<Node> it = tx.findNodes(Label.label(GraphDB.NAV_NODE_LABEL))){
+                while (it.hasNext()){
+                    Node node = it.next();
+                    Object id = node.getProperty("id", null);
+                    if(id == null){
+                        continue;
+                    }
+
+                    int i = ids.size();
+                    ids.add(id.toString());
+                    nodeElementIds.add(node.getElementId());
+                    byElementId.put(node.getElementId(), i);
+
+                    if(node.hasLabel(Label.label("APINode"))){
+                        apiNodes.set(i);
+                    }
+                    if(node.hasLabel(Label.label("DataEntryNode"))){
+                        dataEntryNodes.set(i);
+                    }
+                    if(node.hasLabel(Label.label("CollapsedClickNode"))){
+                        collapsedClickNodes.set(i);
+                    }
+                    if(node.hasRelationship(Direction.OUTGOING, PARAM)){
+                        parameterNodes.set(i);
+                    }
+                }
+            }
+
+            //Edges are laid out in the order neo4j returns them, so searches expand nodes the same way a traversal would.
+            int [] offsets = new int[ids.size() + 1];
+            List<Integer> targets = new ArrayList<>();
+            List<String> edgeElementIds = new ArrayList<>();
+
+            for(int i = 0; i < ids.size(); i++){
+                offsets[i] = targets.size();
+                Node node = tx.getNodeByElementId(nodeElementIds.get(i));
+                try(ResourceIterable<Relationship> relationships = node.getRelationships(Direction.OUTGOING, NEXT)){
+                    for(Relationship relationship: relationships){
+                        Integer target = byElementId.get(relationship.getEndNode().getElementId());
+                        if(target == null){
+                            continue;
+                        }
+                        targets.add(target);
+                        edgeElementIds.add(relationship.getElementId());
+                    }
+                }
+            }
+            offsets[ids.size()] = targets.size();
+
+            NavGraphSnapshot snapshot = new NavGraphSnapshot(
+                    ids.toArray(String[]::new),
+                    nodeElementIds.toArray(String[]::new),
+                    offsets,
+                    targets.stream().mapToInt(Integer::intValue).toArray(),
+                    edgeElementIds.toArray(String[]::new),
+                    apiNodes, dataEntryNodes, collapsedClickNodes, parameterNodes
+            );
+
+            log.info("Built nav graph snapshot with {} nodes and {} NEXT edges in {}ms", snapshot.size(), snapshot.edgeCount(), System.currentTimeMillis() - start);
+
+            return snapshot;
+        }
+    }
+
+    public int size(){
+        return ids.length;
+    }
+
+    public int edgeCount(){
+        return targets.length;
+    }
+
+    /**
+     * @param id nav model id of a node.
+     * @return the snapshot index of the node, or -1 if the node is not in the snapshot.
+     */
+    public int indexOf(String id){
+        return index.getOrDefault(id, -1);
+    }
+
+    public String id(int node){
+        return ids[node];
+    }
+
+    public boolean isAPINode(int node){
+        return apiNodes.get(node);
+    }
+
+    /**
+     * @return the nav model ids of the nodes along a walk, in order.
+     */
+    public List<String> ids(Walk walk){
+        List<String> result = new ArrayList<>(walk.length() + 1);
+        for(int i = 0; i <= walk.length(); i++){
+            result.add(ids[nodeAt(walk, i)]);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the paths from src to tgt that do not visit a node twice, or visit tgt before reaching it, shortest first.
+     *
+     * By default every such path is enumerated breadth first, which is equivalent to a breadth first NODE_PATH
+     * traversal using {@link NavPathsEvaluator}, stopping once maxPaths have been found and not extending paths past
+     * maxDepth. In k shortest paths mode only the k shortest paths are computed.
+     */
+    public List<Walk> paths(int src, int tgt, PathSearchOptions options){
+        return paths(src, tgt, Set.of(), options);
+    }
+
+    /**
+     * Like {@link #paths(int, int, PathSearchOptions)}, but only finds paths that do not go through any of the excluded
+     * nodes. Excluded nodes are skipped during the search, so paths through them do not count towards maxPaths or
+     * kShortestPaths.
+     *
+     * @param src
+     * @param tgt
+     * @param excludedNodeIds ids of the nodes the paths may not visit.
+     * @param options
+     */
+    public List<Walk> paths(int src, int tgt, Set<String> excludedNodeIds, PathSearchOptions options){
+        BitSet target = new BitSet(size());
+        target.set(tgt);
+
+        BitSet excluded = toBitSet(excludedNodeIds);
+
+        if(options.isKShortest()){
+            return kShortestPaths(src, target, excluded, options);
+        }
+
+        List<Walk> result = new ArrayList<>();
+
+        PathTree tree = new PathTree(src);
+        for(int b = 0; b < tree.size && !options.isFull(result.size()); b++){
+            int node = tree.node(b);
+            if(excluded.get(node)){
+                continue;
+            }
+            if(node == tgt){
+                result.add(tree.walk(b));
+                continue;
+            }
+            if(options.canExpand(tree.depth[b])){
+                tree.expand(b);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return a shortest path from src to tgt, or null if tgt cannot be reached from src.
+     */
+    public Walk shortestPath(int src, int tgt){
+        BitSet target = new BitSet(size());
+        target.set(tgt);
+        return shortestPath(src, target, new BitSet(), new BitSet(), 0);
+    }
+
+    /**
+     * Breadth first search for the closest target node. Target nodes are never passed through.
+     *
+     * @param src
+     * @param targetNodes
+     * @param blockedNodes nodes that may not be visited.
+     * @param blockedEdges edges that may not be taken.
+     * @param maxDepth the maximum length of the path, 0 for no limit.
+     * @return a shortest path from src to one of the target nodes, or null if none can be reached.
+     */
+    private Walk shortestPath(int src, BitSet targetNodes, BitSet blockedNodes, BitSet blockedEdges, int maxDepth){
+        if(targetNodes.get(src)){
+            return new Walk(src, new int[0]);
+        }
+
+        //Remember the edge through which each node was first reached.
+        int [] via = new int[size()];
+        int [] depth = new int[size()];
+        BitSet visited = new BitSet(size());
+        visited.set(src);
+
+        int [] queue = new int[size()];
+        int head = 0, tail = 0;
+        queue[tail++] = src;
+
+        while (head < tail){
+            int node = queue[head++];
+            if(maxDepth > 0 && depth[node] >= maxDepth){
+                continue;
+            }
+            for(int e = offsets[node]; e < offsets[node + 1]; e++){
+                int next = targets[e];
+                if(visited.get(next) || blockedNodes.get(next) || blockedEdges.get(e)){
+                    continue;
+                }
+                visited.set(next);
+                via[next] = e;
+                depth[next] = depth[node] + 1;
+                if(targetNodes.get(next)){
+                    return walkTo(src, next, via);
+                }
+                queue[tail++] = next;
+            }
+        }
+
+        return null;
+    }
+
+    private Walk walkTo(int src, int tgt, int [] via){
+        Deque<Integer> edges = new ArrayDeque<>();
+        int node = tgt;
+        while (node != src){
+            int e = via[node];
+            edges.push(e);
+            node = source(e);
+        }
+        return new Walk(src, edges.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    //Source node of an edge, binary search over the offsets.
+    private int source(int edge){
+        int lo = 0, hi = size() - 1;
+        while (lo < hi){
+            int mid = (lo + hi + 1) >>> 1;
+            if(offsets[mid] <= edge){
+                lo = mid;
+            }else{
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    //Node at the given position of a walk.
+    private int nodeAt(Walk walk, int position){
+        return position == 0 ? walk.start() : targets[walk.edges()[position - 1]];
+    }
+
+    /**
+     * Yen's algorithm: computes the k shortest simple paths from src to any of the target nodes, shortest first.
+     * Every path after the first is found by deviating from one of the previously found paths at some node (the spur
+     * node), searching for the shortest path from there that does not reuse the edges taken from that node by paths
+     * sharing the same prefix (the root path), nor revisit the nodes of the root path.
+     *
+     * @param src
+     * @param targetNodes
+     * @param blockedNodes nodes that may not appear on any path.
+     * @param options kShortestPaths and maxDepth are used.
+     */
+    private List<Walk> kShortestPaths(int src, BitSet targetNodes, BitSet blockedNodes, PathSearchOptions options){
+        List<Walk> result = new ArrayList<>();
+
+        if(blockedNodes.get(src)){
+            return result;
+        }
+
+        Walk first = shortestPath(src, targetNodes, blockedNodes, new BitSet(), options.getMaxDepth());
+        if(first == null){
+            return result;
+        }
+        result.add(first);
+
+        //Candidate paths, shortest (then oldest) first.
+        record Candidate(Walk walk, long seq){}
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(Comparator.comparingInt((Candidate c)->c.walk().length()).thenComparingLong(Candidate::seq));
+        Set<List<Integer>> seen = new HashSet<>();
+        seen.add(edgeList(first));
+        long seq = 0;
+
+        while (result.size() < options.getKShortestPaths()){
+            Walk previous = result.get(result.size() - 1);
+
+            for(int i = 0; i < previous.length(); i++){
+                int spurNode = nodeAt(previous, i);
+                int [] root = Arrays.copyOf(previous.edges(), i);
+
+                BitSet blockedEdges = new BitSet(edgeCount());
+                for(Walk walk: result){
+                    if(walk.length() > i && Arrays.equals(walk.edges(), 0, i, root, 0, i)){
+                        blockedEdges.set(walk.edges()[i]);
+                    }
+                }
+
+                BitSet blocked = (BitSet) blockedNodes.clone();
+                for(int j = 0; j < i; j++){
+                    blocked.set(nodeAt(previous, j));
+                }
+
+                Walk spur = shortestPath(spurNode, targetNodes, blocked, blockedEdges, options.getMaxDepth() > 0 ? options.getMaxDepth() - i : 0);
+                if(spur == null){
+                    continue;
+                }
+
+                int [] edges = Arrays.copyOf(root, i + spur.length());
+                System.arraycopy(spur.edges(), 0, edges, i, spur.length());
+                Walk candidate = new Walk(src, edges);
+                if(seen.add(edgeList(candidate))){
+                    candidates.add(new Candidate(candidate, seq++));
+                }
+            }
+
+            if(candidates.isEmpty()){
+                break;
+            }
+            result.add(candidates.poll().walk());
+        }
+
+        return result;
+    }
+
+    private static List<Integer> edgeList(Walk walk){
+        return Arrays.stream(walk.edges()).boxed().collect(Collectors.toList());
+    }
+
+    /**
+     * Parameter constrained search used for task planning. Follows the same rules as
+     * {@link ca.ualberta.odobot.taskplanner.TaskPlanningEvaluatorForSingleTargets}:
+     * <ul>
+     *     <li>Paths reaching a DataEntryNode that is not one of the input parameters are pruned.</li>
+     *     <li>Paths reaching one of the target API nodes are collected and not expanded further.</li>
+     *     <li>Paths reaching a CollapsedClickNode with a PARAM relationship that is not one of the object parameters are pruned.</li>
+     *     <li>Once more than 10 paths to a target have been found, no further paths are expanded.</li>
+     * </ul>
+     * In k shortest paths mode the pruned nodes are excluded from the graph and the k shortest paths to any of the
+     * target API nodes are computed instead.
+     *
+     * The collected paths are then ranked like {@link ca.ualberta.odobot.taskplanner.TaskPlanningEvaluatorForSingleTargets#getPaths()}:
+     * only those going through the fewest API nodes are kept, sorted by the number of input parameters they visit, descending.
+     *
+     * @param src
+     * @param objectParameters
+     * @param inputParameters
+     * @param apiCalls ids of the candidate target API nodes.
+     * @param options
+     * @return
+     */
+    public List<Walk> taskPaths(int src, Set<String> objectParameters, Set<String> inputParameters, Set<String> apiCalls, PathSearchOptions options){
+
+        BitSet inputs = toBitSet(inputParameters);
+        BitSet objects = toBitSet(objectParameters);
+        BitSet targetAPIs = toBitSet(apiCalls);
+        targetAPIs.and(apiNodes);
+
+        List<Walk> result = new ArrayList<>();
+
+        if(options.isKShortest()){
+            BitSet pruned = (BitSet) dataEntryNodes.clone();
+            pruned.andNot(inputs);
+            BitSet unreferencedObjects = (BitSet) collapsedClickNodes.clone();
+            unreferencedObjects.and(parameterNodes);
+            unreferencedObjects.andNot(objects);
+            pruned.or(unreferencedObjects);
+
+            result = kShortestPaths(src, targetAPIs, pruned, options);
+        }else{
+            PathTree tree = new PathTree(src);
+            for(int b = 0; b < tree.size && !options.isFull(result.size()); b++){
+                int node = tree.node(b);
+
+                if(dataEntryNodes.get(node) && !inputs.get(node)){
+                    continue;
+                }
+
+                if(targetAPIs.get(node)){
+                    result.add(tree.walk(b));
+                    continue;
+                }
+
+                if(collapsedClickNodes.get(node) && parameterNodes.get(node) && !objects.get(node)){
+                    continue;
+                }
+
+                if(result.size() > 10 || !options.canExpand(tree.depth[b])){
+                    continue;
+                }
+
+                tree.expand(b);
+            }
+        }
+
+        if(result.isEmpty()){
+            return result;
+        }
+
+        int [] apiCount = new int[result.size()];
+        int [] inputCount = new int[result.size()];
+        int minAPICount = Integer.MAX_VALUE;
+        for(int i = 0; i < result.size(); i++){
+            apiCount[i] = count(result.get(i), apiNodes);
+            inputCount[i] = count(result.get(i), inputs);
+            minAPICount = Math.min(minAPICount, apiCount[i]);
+        }
+
+        final int min = minAPICount;
+        final List<Walk> found = result;
+        return IntStream.range(0, found.size())
+                .filter(i->apiCount[i] == min)
+                .boxed()
+                .sorted(Comparator.comparingInt((Integer i)->inputCount[i]).reversed())
+                .map(found::get)
+                .collect(Collectors.toList());
+    }
+
+    private BitSet toBitSet(Set<String> nodeIds){
+        BitSet result = new BitSet(size());
+        nodeIds.forEach(id->{
+            int i = indexOf(id);
+            if(i != -1){
+                result.set(i);
+            }
+        });
+        return result;
+    }
+
+    //Number of distinct nodes of the walk in the given set.
+    private int count(Walk walk, BitSet nodes){
+        BitSet seen = new BitSet();
+        if(nodes.get(walk.start())){
+            seen.set(walk.start());
+        }
+        for(int e: walk.edges()){
+            if(nodes.get(targets[e])){
+                seen.set(targets[e]);
+            }
+        }
+        return seen.cardinality();
+    }
+
+    /**
+     * Looks up the nodes and relationships of a walk in the database.
+     * @param tx
+     * @param walk
+     * @return the neo4j path corresponding with the walk.
+     */
+    public Path toPath(Transaction tx, Walk walk){
+        List<Node> nodes = new ArrayList<>(walk.length() + 1);
+        List<Relationship> relationships = new ArrayList<>(walk.length());
+
+        nodes.add(tx.getNodeByElementId(nodeElementIds[walk.start()]));
+        for(int e: walk.edges()){
+            relationships.add(tx.getRelationshipByElementId(edgeElementIds[e]));
+            nodes.add(tx.getNodeByElementId(nodeElementIds[targets[e]]));
+        }
+
+        return new SnapshotPath(nodes, relationships);
+    }
+
+    /**
+     * The tree of paths explored by a breadth first search where a node may not appear twice on the same path.
+     * Each branch records its parent branch and the edge taken from it, branches are numbered in the order they are
+     * created, which is also the order a breadth first search visits them in.
+     */
+    private class PathTree{
+
+        int [] parent = new int[64];
+        int [] edge = new int[64];
+        int [] depth = new int[64];
+        int size = 0;
+
+        final int root;
+
+        PathTree(int root){
+            this.root = root;
+            add(-1, -1);
+        }
+
+        int node(int branch){
+            return edge[branch] == -1 ? root : targets[edge[branch]];
+        }
+
+        void expand(int branch){
+            int node = node(branch);
+            for(int e = offsets[node]; e < offsets[node + 1]; e++){
+                if(!onPath(branch, targets[e])){
+                    add(branch, e);
+                }
+            }
+        }
+
+        boolean onPath(int branch, int node){
+            for(int b = branch; b != -1; b = parent[b]){
+                if(node(b) == node){
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void add(int parentBranch, int e){
+            if(size == parent.length){
+                parent = Arrays.copyOf(parent, size * 2);
+                edge = Arrays.copyOf(edge, size * 2);
+                depth = Arrays.copyOf(depth, size * 2);
+            }
+            parent[size] = parentBranch;
+            edge[size] = e;
+            depth[size] = parentBranch == -1 ? 0 : depth[parentBranch] + 1;
+            size++;
+        }
+
+        Walk walk(int branch){
+            int [] edges = new int[depth[branch]];
+            for(int b = branch, i = edges.length - 1; i >= 0; b = parent[b], i--){
+                edges[i] = edge[b];
+            }
+            return new Walk(root, edges);
+        }
+    }
+
+    private static class SnapshotPath implements Path{
+
+        private final List<Node> nodes;
+        private final List<Relationship> relationships;
+
+        SnapshotPath(List<Node> nodes, List<Relationship> relationships){
+            this.nodes = nodes;
+            this.relationships = relationships;
+        }
+
+        @Override
+        public Node startNode() {
+            return nodes.get(0);
+        }
+
+        @Override
+        public Node endNode() {
+            return nodes.get(nodes.size() - 1);
+        }
+
+        @Override
+        public Relationship lastRelationship() {
+            return relationships.isEmpty() ? null : relationships.get(relationships.size() - 1);
+        }
+
+        @Override
+        public Iterable<Relationship> relationships() {
+            return Collections.unmodifiableList(relationships);
+        }
+
+        @Override
+        public Iterable<Relationship> reverseRelationships() {
+            List<Relationship> result = new ArrayList<>(relationships);
+            Collections.reverse(result);
+            return result;
+        }
+
+        @Override
+        public Iterable<Node> nodes() {
+            return Collections.unmodifiableList(nodes);
+        }
+
+        @Override
+        public Iterable<Node> reverseNodes() {
+            List<Node> result = new ArrayList<>(nodes);
+            Collections.reverse(result);
+            return result;
+        }
+
+        @Override
+        public int length() {
+            return relationships.size();
+        }
+
+        @Override
+        public Iterator<Entity> iterator() {
+            List<Entity> result = new ArrayList<>(nodes.size() + relationships.size());
+            for(int i = 0; i < nodes.size(); i++){
+                result.add(nodes.get(i));
+                if(i < relationships.size()){
+                    result.add(relationships.get(i));
+                }
+            }
+            return result.iterator();
+        }
+
+        @Override
+        public String toString() {
+            return nodes.stream().map(n->String.valueOf(n.getProperty("id", n.getElementId()))).collect(Collectors.joining("->", "(", ")"));
+        }
+    }
+
+}
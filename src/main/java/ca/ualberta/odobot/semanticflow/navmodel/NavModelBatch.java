@@ -0,0 +1,242 @@
+package ca.ualberta.odobot.semanticflow.navmodel;
+
+import ca.ualberta.odobot.mind2web.*;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Query;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.SessionConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.neo4j.driver.Values.parameters;
+
+/**
+ * Accumulates nav model node and NEXT edge operations for whole traces and writes them to neo4j in bulk.
+ *
+ * Processing a trace through {@link Neo4JUtils#processClick(Click, String)}, {@link Neo4JUtils#bind}
+ * and friends costs a lookup query, a MERGE transaction per event and two more lookups plus a transaction per edge.
+ * Instead, a batch collects the operations of every trace added to it, and once batchSize events are pending writes
+ * them all in a single transaction using one parameterized UNWIND statement per node label and one for all edges.
+ *
+ * The resulting graph is the same as the one produced by the per-event methods: nodes are merged on the same
+ * properties, existing nodes get the new event ids appended to their instances, and NEXT edges are merged between
+ * consecutive operations of a trace.
+ *
+ * Batches are not thread safe. Closing a batch flushes any pending operations.
+ */
+public class NavModelBatch implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(NavModelBatch.class);
+
+    /**
+     * Identifies a nav node by its label and the property values it is merged on.
+     */
+    private record NodeKey(String label, Map<String,Object> match){}
+
+    private record Edge(NodeKey from, NodeKey to){}
+
+    private static final String EDGE_STATEMENT = "UNWIND $rows AS row " +
+            "MATCH (a:NavNode {id:row.a}) " +
+            "MATCH (b:NavNode {id:row.b}) " +
+            "MERGE (a)-[:NEXT]->(b)";
+
+    private final Driver driver;
+    private final String databaseName;
+    private final int batchSize;
+
+    //Pending node operations, and the event ids to add to each node's instances.
+    private final Map<NodeKey, Set<String>> pendingNodes = new LinkedHashMap<>();
+    private final Set<Edge> pendingEdges = new LinkedHashSet<>();
+    private int pendingEvents = 0;
+
+    private long totalEvents = 0;
+    private long totalNanos = 0;
+
+    NavModelBatch(Driver driver, String databaseName, int batchSize){
+        if(batchSize < 1){
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.driver = driver;
+        this.databaseName = databaseName;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Adds the nodes of a Mind2Web trace and the NEXT edges between its consecutive operations to the batch.
+     * Equivalent to {@link ca.ualberta.odobot.mind2web.Mind2WebService#buildNavModel(Trace)}.
+     * @param trace
+     */
+    public void addTrace(Trace trace){
+
+        if(trace.size() < 2){
+            log.info("Trace size: {}", trace.size());
+            throw new RuntimeException("Trace is too small to model!");
+        }
+
+        List<NodeKey> keys = new ArrayList<>(trace.size());
+        for(Operation op: trace){
+            NodeKey key = nodeKey(op, trace.getWebsite());
+            if(key == null){
+                log.warn("Unrecognized Mind2Web event type!");
+                keys.add(null);
+                continue;
+            }
+
+            //EventId for start and end nodes are populated with the trace annotationId, see Mind2WebService#buildNavModel
+            String eventId = op instanceof Start || op instanceof End ? trace.getAnnotationId() : op.getActionId();
+            pendingNodes.computeIfAbsent(key, k->new LinkedHashSet<>()).add(eventId);
+            keys.add(key);
+            pendingEvents++;
+        }
+
+        for(int i = 0; i < keys.size() - 1; i++){
+            if(keys.get(i) != null && keys.get(i + 1) != null){
+                pendingEdges.add(new Edge(keys.get(i), keys.get(i + 1)));
+            }
+        }
+
+        if(pendingEvents >= batchSize){
+            flush();
+        }
+    }
+
+    /**
+     * Writes all pending operations to the database in a single transaction.
+     */
+    public void flush(){
+        if(pendingNodes.isEmpty() && pendingEdges.isEmpty()){
+            return;
+        }
+
+        long start = System.nanoTime();
+
+        try(var session = driver.session(SessionConfig.forDatabase(databaseName))){
+            session.executeWriteWithoutResult(tx->{
+
+                //Ids of the nodes written by this flush, used to match edge endpoints. Every edge endpoint is a pending
+                //node, see addTrace.
+                Map<NodeKey, String> nodeIds = new HashMap<>();
+
+                //Merge nodes, grouped by label and matching properties so each group can share one statement.
+                Map<String, List<NodeKey>> nodeGroups = pendingNodes.keySet().stream()
+                        .collect(Collectors.groupingBy(NavModelBatch::nodeStatement, LinkedHashMap::new, Collectors.toList()));
+
+                nodeGroups.forEach((stmt, keys)->{
+                    List<Map<String,Object>> rows = new ArrayList<>(keys.size());
+                    for(int i = 0; i < keys.size(); i++){
+                        NodeKey key = keys.get(i);
+                        Map<String,Object> row = new HashMap<>();
+                        row.put("key", i);
+                        row.put("id", UUID.randomUUID().toString());
+                        row.put("match", key.match());
+                        row.put("instances", new ArrayList<>(pendingNodes.get(key)));
+                        rows.add(row);
+                    }
+
+                    List<Record> records = tx.run(new Query(stmt, parameters("rows", rows))).list();
+                    records.forEach(record->nodeIds.put(keys.get(record.get("key").asInt()), record.get("id").asString()));
+                });
+
+                //Merge edges, endpoints are matched through the nav node id index.
+                List<Map<String,Object>> rows = pendingEdges.stream()
+                        .map(edge->Map.<String,Object>of("a", nodeIds.get(edge.from()), "b", nodeIds.get(edge.to())))
+                        .collect(Collectors.toList());
+
+                tx.run(new Query(EDGE_STATEMENT, parameters("rows", rows)));
+            });
+        }
+
+        long elapsed = System.nanoTime() - start;
+        totalEvents += pendingEvents;
+        totalNanos += elapsed;
+
+        log.info("Flushed {} events ({} nodes, {} edges) in {}ms [{} events/sec]",
+                pendingEvents, pendingNodes.size(), pendingEdges.size(), elapsed / 1_000_000, eventsPerSecond(pendingEvents, elapsed));
+
+        pendingNodes.clear();
+        pendingEdges.clear();
+        pendingEvents = 0;
+    }
+
+    /**
+     * @return the number of events written to the database by this batch so far.
+     */
+    public long getTotalEvents(){
+        return totalEvents;
+    }
+
+    @Override
+    public void close(){
+        flush();
+        log.info("Nav model ingestion complete: {} events in {}ms [{} events/sec]", totalEvents, totalNanos / 1_000_000, eventsPerSecond(totalEvents, totalNanos));
+    }
+
+    private static long eventsPerSecond(long events, long nanos){
+        return nanos == 0 ? 0 : events * 1_000_000_000L / nanos;
+    }
+
+    /**
+     * Produces the key a Mind2Web operation's nav node is merged on, mirroring the lookups done by
+     * {@link Neo4JUtils#resolveNavNode(Operation, String)}.
+     */
+    private static NodeKey nodeKey(Operation op, String website){
+        Map<String,Object> match = new LinkedHashMap<>();
+
+        if(op instanceof Click){
+            match.put("xpath", op.getTargetElementXpath());
+            match.put("text", op.targetElement().ownText());
+            match.put("website", website);
+            return new NodeKey("ClickNode", match);
+        }
+
+        if(op instanceof Type){
+            match.put("xpath", op.getTargetElementXpath());
+            match.put("website", website);
+            return new NodeKey("DataEntryNode", match);
+        }
+
+        if(op instanceof SelectOption){
+            match.put("xpath", op.getTargetElementXpath());
+            match.put("website", website);
+            return new NodeKey("SelectOptionNode", match);
+        }
+
+        if(op instanceof Start){
+            match.put("website", website);
+            return new NodeKey("StartNode", match);
+        }
+
+        if(op instanceof End){
+            match.put("website", website);
+            return new NodeKey("EndNode", match);
+        }
+
+        return null;
+    }
+
+    /**
+     * For example: a ClickNode key produces
+     * <pre>
+     * UNWIND $rows AS row
+     * MERGE (n:ClickNode {xpath:row.match.xpath, text:row.match.text, website:row.match.website})
+     * ON CREATE SET n += row.match, n.id = row.id, n.instances = row.instances, n:NavNode
+     * ON MATCH SET n.instances = coalesce(n.instances, []) + [i IN row.instances WHERE NOT i IN coalesce(n.instances, [])]
+     * RETURN row.key AS key, n.id AS id
+     * </pre>
+     */
+    private static String nodeStatement(NodeKey key){
+        String props = key.match().keySet().stream()
+                .map(prop->prop + ":row.match." + prop)
+                .collect(Collectors.joining(", ", "{", "}"));
+
+        return "UNWIND $rows AS row " +
+                "MERGE (n:" + key.label() + " " + props + ") " +
+                "ON CREATE SET n += row.match, n.id = row.id, n.instances = row.instances, n:NavNode " +
+                "ON MATCH SET n.instances = coalesce(n.instances, []) + [i IN row.instances WHERE NOT i IN coalesce(n.instances, [])] " +
+                "RETURN row.key AS key, n.id AS id";
+    }
+
+}
@@ -90,6 +90,16 @@ public class NavPath {
         return this.parameters;
     }
 
+    /**
+     * Sets this path's parameters when they are already known, see {@link #computeParameters(Map)}.
+     * @param parameters
+     * @param parameterMap
+     */
+    public void setParameters(Set<String> parameters, Map<String,String> parameterMap){
+        globalParameterMap = parameterMap;
+        this.parameters = new HashSet<>(parameters);
+    }
+
     public Set<String> getParameters(){
         return parameters;
     }
@@ -492,22 +502,21 @@ public class NavPath {
         return matcher.group();
     }
 
+    /**
+     * @return a query for the nodes of this path and the relationships between them, it takes the ids of the nodes as
+     * its 'ids' parameter, see {@link #makeCypherParametersForNodes()}.
+     */
     public String makeCypherQueryForNodes(){
+        return "MATCH (n:NavNode)-[r]-(m:NavNode) WHERE n.id IN $ids AND m.id IN $ids RETURN n,m,r;";
+    }
 
-        StringBuilder sbIds =  new StringBuilder();
-        sbIds.append("[");
-        Iterator<Node> it = getPath().nodes().iterator();
-        while (it.hasNext()){
-            Node node = it.next();
-            sbIds.append("\"%s\"".formatted(node.getProperty("id")));
-            if(it.hasNext()){
-                sbIds.append(",");
-            }
-        }
-        sbIds.append("]");
-
-
-        return "MATCH (n)-[r]-(m) WHERE n.id IN %s AND m.id IN %s RETURN n,m,r;".formatted(sbIds.toString(), sbIds.toString());
+    /**
+     * @return the parameters of {@link #makeCypherQueryForNodes()} for this path.
+     */
+    public Map<String,Object> makeCypherParametersForNodes(){
+        List<String> ids = new ArrayList<>();
+        getPath().nodes().forEach(node->ids.add((String)node.getProperty("id")));
+        return Map.of("ids", ids);
     }
 
     public static void saveNavPath(String filename, NavPath path){
@@ -527,6 +536,8 @@ public class NavPath {
             });
 
             sb.append("\n\n");
+            //Set the query parameter before running the query in the neo4j browser.
+            sb.append(":param ids => %s\n".formatted(new JsonArray((List<?>)path.makeCypherParametersForNodes().get("ids")).encode()));
             sb.append(path.makeCypherQueryForNodes());
 
             bw.write(sb.toString());
@@ -0,0 +1,120 @@
+package ca.ualberta.odobot.semanticflow.navmodel;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded, least recently used cache of the paths computed by {@link NavPathsConstructor}.
+ *
+ * Paths are cached as {@link NavGraphSnapshot.Walk}s rather than {@link NavPath}s, since nav paths hold on to nodes
+ * of the transaction they were built in, and keep track of execution progress. Every entry belongs to the
+ * nav model version it was computed against, looking up a different version clears the cache.
+ */
+public class NavPathCache {
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * Identifies a path construction request.
+     * @param type the kind of search performed.
+     * @param start id of the starting node.
+     * @param target id of the target node, if any.
+     * @param parameters the parameter sets of the request, ex: expected parameters, or object/input parameters and api calls.
+     * @param options
+     */
+    public record Key(String type, String start, String target, List<Set<String>> parameters, PathSearchOptions options){
+
+        public Key{
+            parameters = parameters.stream().map(Set::copyOf).toList();
+            options = options.copy();
+        }
+    }
+
+    /**
+     * @param walks the paths found, in order.
+     * @param parameters the parameters of each path, or null if they were not computed.
+     */
+    public record Entry(List<NavGraphSnapshot.Walk> walks, List<Set<String>> parameters){}
+
+    private final Map<Key, Entry> entries;
+
+    private long version = -1;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long invalidations = 0;
+
+    public NavPathCache(){
+        this(DEFAULT_CAPACITY);
+    }
+
+    public NavPathCache(int capacity){
+        this.entries = new LinkedHashMap<>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if(size() > capacity){
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param key
+     * @param version the current nav model version.
+     * @return the cached entry, or null if the paths for this key have not been computed for this version of the model.
+     */
+    public synchronized Entry get(Key key, long version){
+        checkVersion(version);
+
+        Entry result = entries.get(key);
+        if(result == null){
+            misses++;
+        }else{
+            hits++;
+        }
+        return result;
+    }
+
+    public synchronized void put(Key key, long version, Entry entry){
+        checkVersion(version);
+        entries.put(key, entry);
+    }
+
+    public synchronized void clear(){
+        entries.clear();
+    }
+
+    private void checkVersion(long version){
+        if(this.version != version){
+            if(!entries.isEmpty()){
+                invalidations++;
+            }
+            entries.clear();
+            this.version = version;
+        }
+    }
+
+    public synchronized double hitRate(){
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double)hits/(double)total;
+    }
+
+    public synchronized JsonObject toJson(){
+        return new JsonObject()
+                .put("size", entries.size())
+                .put("modelVersion", version)
+                .put("hits", hits)
+                .put("misses", misses)
+                .put("hitRate", hitRate())
+                .put("evictions", evictions)
+                .put("invalidations", invalidations);
+    }
+}
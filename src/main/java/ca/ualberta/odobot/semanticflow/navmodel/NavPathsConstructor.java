@@ -5,19 +5,34 @@ import ca.ualberta.odobot.logpreprocessor.LogPreprocessor;
 import ca.ualberta.odobot.sqlite.SqliteService;
 import ca.ualberta.odobot.taskplanner.TaskPlanningEvaluator;
 import ca.ualberta.odobot.taskplanner.TaskPlanningEvaluatorForSingleTargets;
+import io.vertx.core.json.JsonObject;
 import org.neo4j.graphdb.*;
 import org.neo4j.graphdb.traversal.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 
 public class NavPathsConstructor {
 
     private static final Logger log = LoggerFactory.getLogger(NavPathsConstructor.class);
-    //private final GraphDatabaseService db;
+
+    private final GraphDB graphDB;
+
+    private record VersionedSnapshot(NavGraphSnapshot snapshot, long version){}
+
+    /**
+     * In-memory copy of the NEXT graph that path construction runs against, along with the nav model version it was
+     * built from. Built lazily, and rebuilt once the nav model version changes.
+     */
+    private volatile VersionedSnapshot snapshot;
+
+    private long snapshotBuilds = 0;
+
+    private final NavPathCache cache = new NavPathCache();
 
     /**
      * Map of [NodeId][ParameterNodeId]
@@ -27,7 +42,7 @@ public class NavPathsConstructor {
     private SqliteService sqliteService;
 
     public NavPathsConstructor(GraphDB graphDB, SqliteService sqliteService){
-        //this.db = graphDB.db;
+        this.graphDB = graphDB;
         this.sqliteService = sqliteService;
 
         //Populate the global parameter map.
@@ -36,9 +51,107 @@ public class NavPathsConstructor {
 
     }
 
+    /**
+     * @return the current snapshot of the nav model, building it if necessary. Null if this constructor was created without a {@link GraphDB}.
+     */
+    public NavGraphSnapshot getSnapshot(){
+        VersionedSnapshot result = versionedSnapshot();
+        return result == null ? null : result.snapshot();
+    }
+
+    private VersionedSnapshot versionedSnapshot(){
+        if(graphDB == null){
+            return null;
+        }
+
+        VersionedSnapshot result = snapshot;
+        if(result == null || result.version() != graphDB.getModelVersion()){
+            synchronized (this){
+                result = snapshot;
+                //Read the version before building, so writes made during the build cause another rebuild.
+                long version = graphDB.getModelVersion();
+                if(result == null || result.version() != version){
+                    result = new VersionedSnapshot(NavGraphSnapshot.build(graphDB.db), version);
+                    snapshot = result;
+                    snapshotBuilds++;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drops the current snapshot, the next path construction will rebuild it. Changes to the nav model are picked up
+     * through {@link GraphDB#getModelVersion()}, so this is only needed to force a rebuild.
+     */
+    public void invalidateSnapshot(){
+        snapshot = null;
+    }
+
+    /**
+     * Rebuilds the snapshot immediately, rather than on the next path construction.
+     */
+    public void rebuildSnapshot(){
+        invalidateSnapshot();
+        getSnapshot();
+    }
+
+    /**
+     * @return path cache statistics, along with information about the current snapshot.
+     */
+    public JsonObject getMetrics(){
+        JsonObject result = new JsonObject().put("cache", cache.toJson());
+
+        VersionedSnapshot current = snapshot;
+        synchronized (this){
+            result.put("snapshotBuilds", snapshotBuilds);
+        }
+        if(graphDB != null){
+            result.put("modelVersion", graphDB.getModelVersion());
+        }
+        if(current != null){
+            result.put("snapshot", new JsonObject()
+                    .put("version", current.version())
+                    .put("nodes", current.snapshot().size())
+                    .put("edges", current.snapshot().edgeCount())
+            );
+        }
+        return result;
+    }
+
+    /**
+     * Returns the paths for a request from the cache, computing and caching them first if necessary.
+     * Cached paths are materialized in the given transaction.
+     */
+    private List<NavPath> cachedPaths(Transaction tx, VersionedSnapshot snapshot, NavPathCache.Key key, Function<NavGraphSnapshot, NavPathCache.Entry> compute){
+        NavPathCache.Entry entry = cache.get(key, snapshot.version());
+        if(entry == null){
+            entry = compute.apply(snapshot.snapshot());
+            cache.put(key, snapshot.version(), entry);
+        }
+
+        List<NavPath> paths = toNavPaths(tx, snapshot.snapshot(), entry.walks());
+        if(entry.parameters() != null){
+            for(int i = 0; i < paths.size(); i++){
+                paths.get(i).setParameters(entry.parameters().get(i), globalParameterMap);
+            }
+        }
+        return paths;
+    }
+
+    private List<NavPath> toNavPaths(Transaction tx, NavGraphSnapshot snapshot, List<NavGraphSnapshot.Walk> walks){
+        List<NavPath> paths = new ArrayList<>(walks.size());
+        walks.forEach(walk->{
+            NavPath navPath = new NavPath();
+            navPath.setPath(snapshot.toPath(tx, walk));
+            paths.add(navPath);
+        });
+        return paths;
+    }
+
     private Node fetchNodeById(Transaction tx, String id){
         try(
-            Result result = tx.execute("match (n) where n.id = '%s' return n limit 1;".formatted(id));
+            Result result = tx.execute("MATCH (n:NavNode {id:$id}) RETURN n LIMIT 1;", Map.of("id", id));
             ResourceIterator<Node> it = result.columnAs("n");
         ){
             if(!it.hasNext()){
@@ -49,19 +162,20 @@ public class NavPathsConstructor {
         }
     }
 
+    public List<NavPath> construct(Transaction tx, UUID src, UUID tgt, List<ExecutionParameter> parameters){
+        return construct(tx, src, tgt, parameters, new PathSearchOptions());
+    }
+
     /**
-     * Like {@link #construct(Transaction, UUID, UUID)} but takes into consideration execution parameters.
+     * Like {@link #construct(Transaction, UUID, UUID, PathSearchOptions)} but takes into consideration execution parameters.
      * @param tx
      * @param src
      * @param tgt
      * @param parameters
+     * @param options
      * @return
      */
-    public List<NavPath> construct(Transaction tx, UUID src, UUID tgt, List<ExecutionParameter> parameters){
-        List<NavPath> paths = construct(tx, src, tgt);
-
-        //Compute each paths' list of parameters.
-        paths.forEach(path->path.computeParameters(this.globalParameterMap));
+    public List<NavPath> construct(Transaction tx, UUID src, UUID tgt, List<ExecutionParameter> parameters, PathSearchOptions options){
 
         Set<String> expectedParameters = parameters.stream()
                 .map(ExecutionParameter::getNodeId)
@@ -72,19 +186,41 @@ public class NavPathsConstructor {
         Set<String> otherParameters = globalParameterMap.values().stream().collect(Collectors.toSet());
         otherParameters.removeAll(expectedParameters);
 
+        //Paths may not go through nodes bound to other parameters. These are excluded during the search, so that paths
+        //going through them do not use up the path limits.
+        Set<String> excludedNodes = globalParameterMap.entrySet().stream()
+                .filter(entry->otherParameters.contains(entry.getValue()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+
+        VersionedSnapshot snapshot = versionedSnapshot();
+        if(snapshot != null && snapshot.snapshot().indexOf(src.toString()) != -1 && snapshot.snapshot().indexOf(tgt.toString()) != -1){
+            NavPathCache.Key key = new NavPathCache.Key("parameterized", src.toString(), tgt.toString(), List.of(expectedParameters), options);
+
+            //Rank the paths using the snapshot, so that only the ones we return have to be looked up in the database.
+            List<NavPath> paths = cachedPaths(tx, snapshot, key, s->{
+                List<NavGraphSnapshot.Walk> walks = s.paths(s.indexOf(src.toString()), s.indexOf(tgt.toString()), excludedNodes, options);
+
+                Map<NavGraphSnapshot.Walk, Set<String>> walkParameters = new LinkedHashMap<>();
+                walks.forEach(walk->walkParameters.put(walk, s.ids(walk).stream()
+                        .map(globalParameterMap::get)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet())));
+
+                int maxSatisfiedParameters = walkParameters.values().stream().mapToInt(Set::size).max().orElse(0);
+                walkParameters.values().removeIf(walkParams->walkParams.size() != maxSatisfiedParameters);
 
-        //Prune all paths which include other parameters besides those that are expected.
-        paths = paths.stream()
-                .filter(path->{
-                    for(String p: otherParameters){
-                        if(path.getParameters().contains(p)){
-                            return false;
-                        }
-                    }
-                    return true;
-                })
-                .collect(Collectors.toList());
-        ;
+                return new NavPathCache.Entry(new ArrayList<>(walkParameters.keySet()), new ArrayList<>(walkParameters.values()));
+            });
+
+            NavPath.printNavPaths(paths, 3);
+            return paths;
+        }
+
+        List<NavPath> paths = traverse(tx, src, tgt, excludedNodes, options);
+
+        //Compute each paths' list of parameters.
+        paths.forEach(path->path.computeParameters(this.globalParameterMap));
 
         //Determine which paths satisfy the maximum number of parameters and return those.
         int maxSatisfiedParameters = paths.stream().map(NavPath::getParameters).mapToInt(Set::size).max().getAsInt();
@@ -94,11 +230,33 @@ public class NavPathsConstructor {
     }
 
     public List<NavPath> construct(Transaction tx, UUID src, UUID tgt){
+        return construct(tx, src, tgt, new PathSearchOptions());
+    }
+
+    public List<NavPath> construct(Transaction tx, UUID src, UUID tgt, PathSearchOptions options){
+
+        VersionedSnapshot snapshot = versionedSnapshot();
+        if(snapshot != null && snapshot.snapshot().indexOf(src.toString()) != -1 && snapshot.snapshot().indexOf(tgt.toString()) != -1){
+            //Paths are produced shortest first, so they are already sorted by length.
+            List<NavPath> paths = cachedPaths(tx, snapshot, new NavPathCache.Key("paths", src.toString(), tgt.toString(), List.of(), options),
+                    s->new NavPathCache.Entry(s.paths(s.indexOf(src.toString()), s.indexOf(tgt.toString()), options), null));
+            NavPath.printNavPaths(paths, 3);
+            return paths;
+        }
+
+        return traverse(tx, src, tgt, Set.of(), options);
+    }
+
+    /**
+     * Finds the paths from src to tgt by traversing the database, for when they cannot be found using the snapshot.
+     * @param excludedNodes ids of the nodes the paths may not go through.
+     */
+    private List<NavPath> traverse(Transaction tx, UUID src, UUID tgt, Set<String> excludedNodes, PathSearchOptions options){
 
         Node srcNode = fetchNodeById(tx, src.toString());
         Node tgtNode = fetchNodeById(tx, tgt.toString());
 
-        NavPathsEvaluator evaluator = new NavPathsEvaluator(tgtNode);
+        NavPathsEvaluator evaluator = new NavPathsEvaluator(tgtNode, options, excludedNodes);
 
         TraversalDescription traversal = tx.traversalDescription()
                 .breadthFirst()
@@ -148,15 +306,35 @@ public class NavPathsConstructor {
      * @return
      */
     public List<NavPath> construct(Transaction tx, String startingNodeId, Set<String> objectParameters, Set<String> inputParameters, Set<String> apiCalls ){
+        return construct(tx, startingNodeId, objectParameters, inputParameters, apiCalls, new PathSearchOptions());
+    }
 
-        Node srcNode = fetchNodeById(tx, startingNodeId);
+    /**
+     * For use in task query construction
+     * @param tx
+     * @param startingNodeId
+     * @param inputParameters
+     * @param objectParameters
+     * @param apiCalls
+     * @param options limits on the path search.
+     * @return
+     */
+    public List<NavPath> construct(Transaction tx, String startingNodeId, Set<String> objectParameters, Set<String> inputParameters, Set<String> apiCalls, PathSearchOptions options){
+
+        log.info("Path construction starting from node: {} [{}]", startingNodeId, options);
 
-        log.info("Path construction starting from node: {}", startingNodeId);
+        VersionedSnapshot snapshot = versionedSnapshot();
+        if(snapshot != null && snapshot.snapshot().indexOf(startingNodeId) != -1){
+            NavPathCache.Key key = new NavPathCache.Key("task", startingNodeId, null, List.of(objectParameters, inputParameters, apiCalls), options);
+            return cachedPaths(tx, snapshot, key, s->new NavPathCache.Entry(s.taskPaths(s.indexOf(startingNodeId), objectParameters, inputParameters, apiCalls, options), null));
+        }
+
+        Node srcNode = fetchNodeById(tx, startingNodeId);
 
         //Multi-target Evaluator
         //Evaluator evaluator = new TaskPlanningEvaluator(inputParameters, objectParameters, apiCalls);
         //Single Target Evaluator.
-        Evaluator evaluator =  new TaskPlanningEvaluatorForSingleTargets(inputParameters, objectParameters, apiCalls);
+        TaskPlanningEvaluatorForSingleTargets evaluator =  new TaskPlanningEvaluatorForSingleTargets(inputParameters, objectParameters, apiCalls, options);
 
 //        if(apiCalls.size() == 1){
 //            //Single target evaluator
@@ -179,11 +357,7 @@ public class NavPathsConstructor {
         }
 
         List<NavPath> paths = new ArrayList<>();
-        if(apiCalls.size() == 1){
-            it = ((TaskPlanningEvaluatorForSingleTargets)evaluator).getPaths().iterator();
-        }else{
-            it = ((TaskPlanningEvaluator)evaluator).getPaths().iterator();
-        }
+        it = evaluator.getPaths().iterator();
 
         while (it.hasNext()){
             NavPath navPath = new NavPath();
@@ -196,6 +370,13 @@ public class NavPathsConstructor {
 
     public List<NavPath> constructMind2Web(Transaction tx, UUID src, UUID tgt){
 
+        VersionedSnapshot snapshot = versionedSnapshot();
+        if(snapshot != null && snapshot.snapshot().indexOf(src.toString()) != -1 && snapshot.snapshot().indexOf(tgt.toString()) != -1){
+            PathSearchOptions options = new PathSearchOptions();
+            return cachedPaths(tx, snapshot, new NavPathCache.Key("paths", src.toString(), tgt.toString(), List.of(), options),
+                    s->new NavPathCache.Entry(s.paths(s.indexOf(src.toString()), s.indexOf(tgt.toString()), options), null));
+        }
+
         Node srcNode = fetchNodeById(tx, src.toString());
         Node tgtNode = fetchNodeById(tx, tgt.toString());
 
@@ -9,6 +9,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 public class NavPathsEvaluator implements Evaluator {
 
@@ -18,8 +19,23 @@ public class NavPathsEvaluator implements Evaluator {
 
     Node targetNode = null;
 
+    PathSearchOptions options;
+
+    //Ids of nodes that paths may not go through.
+    Set<String> excludedNodeIds;
+
     public NavPathsEvaluator(Node targetNode){
+        this(targetNode, new PathSearchOptions());
+    }
+
+    public NavPathsEvaluator(Node targetNode, PathSearchOptions options){
+        this(targetNode, options, Set.of());
+    }
+
+    public NavPathsEvaluator(Node targetNode, PathSearchOptions options, Set<String> excludedNodeIds){
         this.targetNode = targetNode;
+        this.options = options;
+        this.excludedNodeIds = excludedNodeIds;
     }
 
     @Override
@@ -31,11 +47,20 @@ public class NavPathsEvaluator implements Evaluator {
 
         log.info("CurrentId: {}, endId: {}", currentId, endId);
 
+        if(excludedNodeIds.contains(currentId)){
+            return Evaluation.EXCLUDE_AND_PRUNE;
+        }
+
         if(currentId.equals(endId)){
             _paths.add(path);
             return Evaluation.EXCLUDE_AND_PRUNE;
         }
 
+        //Stop extending paths once we've got enough of them, or they've become too long.
+        if(options.isFull(_paths.size()) || !options.canExpand(path.length())){
+            return Evaluation.EXCLUDE_AND_PRUNE;
+        }
+
         return Evaluation.INCLUDE_AND_CONTINUE;
     }
 }
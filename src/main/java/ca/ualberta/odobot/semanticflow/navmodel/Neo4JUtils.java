@@ -29,6 +29,8 @@ public class Neo4JUtils {
 
     private static final String databaseName = "neo4j";
 
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
     public HashMap<Effect, UUID> effectMap = new HashMap<>();
 
     public Neo4JUtils(String uri, String user, String password){
@@ -152,7 +154,7 @@ public class Neo4JUtils {
             props.put("id", locationNode.getId().toString());
             props.put("instances", locationNode.getInstances());
 
-            var stmt = "MERGE (n:LocationNode {path:$path}) ON CREATE SET n = $props ON MATCH SET n = $props RETURN n;";
+            var stmt = "MERGE (n:LocationNode {path:$path}) ON CREATE SET n = $props, n:NavNode ON MATCH SET n = $props RETURN n;";
             var query = new Query(stmt, parameters("path", locationNode.getPath(), "props", props));
 
             return query;
@@ -327,7 +329,7 @@ public class Neo4JUtils {
             props.put("id", apiNode.getId().toString());
             props.put("instances", apiNode.getInstances());
 
-            var stmt = "MERGE (n:APINode { path:$path, method:$method }) ON CREATE SET n = $props ON MATCH SET n = $props RETURN n;";
+            var stmt = "MERGE (n:APINode { path:$path, method:$method }) ON CREATE SET n = $props, n:NavNode ON MATCH SET n = $props RETURN n;";
             var query = new Query(stmt, parameters("path", apiNode.getPath(), "method", apiNode.getMethod() , "props", props));
 
             return query;
@@ -351,7 +353,7 @@ public class Neo4JUtils {
                 eventId,
                 DataEntryNode.class,
                 existingDataEntryNodeSupplier,
-                newDataEntryNodeSupplier(xpath, eventId, website),
+                newMind2WebDataEntryNodeSupplier(xpath, eventId, website),
                 processDataEntryNodeQueryFunction()
         );
     }
@@ -382,7 +384,7 @@ public class Neo4JUtils {
                 log.info("Updating existing RadioButtonNode");
 
                 //Update its instances
-                var stmt = "MATCH (n:RadioButtonNode {id:$id}) SET n.instances = $instances RETURN n";
+                var stmt = "MATCH (n:RadioButtonNode:NavNode {id:$id}) SET n.instances = $instances RETURN n";
                 var query = new Query(stmt, parameters("id",_existing.getId().toString(), "instances", node.getInstances()));
                 session.executeWrite(tx->{
                     tx.run(query);
@@ -403,7 +405,7 @@ public class Neo4JUtils {
                 props.put("radioGroup", node.getRadioGroup());
                 props.put("relatedElements", node.getButtonsAsStrings());
 
-                var stmt = "CREATE (n:RadioButtonNode) SET n = $props RETURN n;";
+                var stmt = "CREATE (n:RadioButtonNode:NavNode) SET n = $props RETURN n;";
                 var query = new Query(stmt, parameters( "props", props));
                 session.executeWrite(tx->{
                     tx.run(query);
@@ -663,13 +665,13 @@ public class Neo4JUtils {
             String[] stringProps = map.keySet().stream()
                     .filter(k->!k.equals("props")) //'props' should not be a property value, it is passed so we can use it in the parameters() call, and it represents node properties as a whole, but is not in fact a property 'props' with corresponding map value.
                     .toArray(String[]::new); //Convert matching properties to a string array for use with makeSimpleNodeQuerySegment
-            stmt = "MERGE "+ makeSimpleNodeQuerySegment("n", nodeLabel, stringProps) + " ON CREATE SET n = $props ON MATCH SET n = $props RETURN n;";
+            stmt = "MERGE "+ makeSimpleNodeQuerySegment("n", nodeLabel, stringProps) + " ON CREATE SET n = $props, n:NavNode ON MATCH SET n = $props RETURN n;";
             query = new Query(stmt, parameters(mapToKeysAndValues(map)));
         }else{
             String [] stringProps = map.keySet().stream()
                     .filter(k->!k.equals("props")) //'props' should not be a property value, it is passed so we can use it in the parameters() call.
                     .toArray(String[]::new); //Convert matching properties to a string array for use with makeSimpleNodeQuerySegment
-            stmt = "MERGE "+ makeSimpleNodeQuerySegment("n", nodeLabel, stringProps) + " ON CREATE SET n = $props ON MATCH SET n = $props RETURN n;";
+            stmt = "MERGE "+ makeSimpleNodeQuerySegment("n", nodeLabel, stringProps) + " ON CREATE SET n = $props, n:NavNode ON MATCH SET n = $props RETURN n;";
             query = new Query(stmt, parameters(keysAndValues));
         }
 
@@ -828,13 +830,13 @@ public class Neo4JUtils {
                 var stmt = "";
                 Query query = null;
                 if(finalWithBoth){
-                    stmt = "MATCH (a {id:$aId}), (b {id:$bId}) MERGE (a)-[:NEXT]->(e:EffectNode)-[:NEXT]->(b) ON CREATE SET e = $props ON MATCH SET e = $props RETURN e;";
+                    stmt = "MATCH (a:NavNode {id:$aId}), (b:NavNode {id:$bId}) MERGE (a)-[:NEXT]->(e:EffectNode)-[:NEXT]->(b) ON CREATE SET e = $props, e:NavNode ON MATCH SET e = $props RETURN e;";
                     query = new Query(stmt, parameters("aId", finalAnchor.getId().toString(), "bId", finalAnchor2.getId().toString(), "props", props));
                 }else{
                     if(finalWithSucessor){
-                        stmt = "MATCH (a {id:$id}) MERGE (e:EffectNode)-[:NEXT]->(a) ON CREATE SET e = $props ON MATCH SET e = $props RETURN e;";
+                        stmt = "MATCH (a:NavNode {id:$id}) MERGE (e:EffectNode)-[:NEXT]->(a) ON CREATE SET e = $props, e:NavNode ON MATCH SET e = $props RETURN e;";
                     }else{
-                        stmt = "MATCH (a {id:$id}) MERGE (a)-[:NEXT]->(e:EffectNode) ON CREATE SET e = $props ON MATCH SET e = $props RETURN e;";
+                        stmt = "MATCH (a:NavNode {id:$id}) MERGE (a)-[:NEXT]->(e:EffectNode) ON CREATE SET e = $props, e:NavNode ON MATCH SET e = $props RETURN e;";
                     }
                     query = new Query(stmt, parameters("id", finalAnchor.getId().toString(), "props", props));
                 }
@@ -964,7 +966,7 @@ public class Neo4JUtils {
 
     private EffectNode getEffectNodeById(String id){
         log.info("Resolving effect using id: {}", id);
-        var stmt = "MATCH (e:EffectNode {id:$id}) RETURN e;";
+        var stmt = "MATCH (e:EffectNode:NavNode {id:$id}) RETURN e;";
         var query = new Query(stmt, parameters("id", id));
 
         return readNode(query, EffectNode.class);
@@ -979,59 +981,59 @@ public class Neo4JUtils {
 
         var stmt = "";
         if(predecessor instanceof ClickNode){
-            stmt = "MATCH (a:ClickNode {id:$aId})-[:NEXT]->(e:EffectNode)";
+            stmt = "MATCH (a:ClickNode:NavNode {id:$aId})-[:NEXT]->(e:EffectNode)";
         }
 
         if(predecessor instanceof RadioButtonNode){
-            stmt = "MATCH (a:RadioButtonNode {id:$aId})-[:NEXT]->(e:EffectNode)";
+            stmt = "MATCH (a:RadioButtonNode:NavNode {id:$aId})-[:NEXT]->(e:EffectNode)";
         }
 
         if(predecessor instanceof CheckboxNode){
-            stmt = "MATCH (a:CheckboxNode {id:$aId})-[:NEXT]->(e:EffectNode)";
+            stmt = "MATCH (a:CheckboxNode:NavNode {id:$aId})-[:NEXT]->(e:EffectNode)";
         }
 
         if(predecessor instanceof DataEntryNode){
-            stmt = "MATCH (a:DataEntryNode {id:$aId})-[:NEXT]->(e:EffectNode)";
+            stmt = "MATCH (a:DataEntryNode:NavNode {id:$aId})-[:NEXT]->(e:EffectNode)";
         }
 
         if(predecessor instanceof APINode){
-            stmt = "MATCH (a:APINode {id:$aId})-[:NEXT]->(e:EffectNode)";
+            stmt = "MATCH (a:APINode:NavNode {id:$aId})-[:NEXT]->(e:EffectNode)";
         }
 
         if(predecessor instanceof ApplicationLocationChangeNode){
-            stmt = "MATCH (a:ApplicationLocationChangeNode {id:$aId})-[:NEXT]->(e:EffectNode)";
+            stmt = "MATCH (a:ApplicationLocationChangeNode:NavNode {id:$aId})-[:NEXT]->(e:EffectNode)";
         }
 
         if(predecessor instanceof LocationNode){
-            stmt = "MATCH (a:LocationNode {id:$aId})-[:NEXT]->(e:EffectNode)";
+            stmt = "MATCH (a:LocationNode:NavNode {id:$aId})-[:NEXT]->(e:EffectNode)";
         }
 
         if(successor instanceof ClickNode){
-            stmt += "-[:NEXT]->(b:ClickNode {id:$bId}) RETURN e;";
+            stmt += "-[:NEXT]->(b:ClickNode:NavNode {id:$bId}) RETURN e;";
         }
 
         if(successor instanceof RadioButtonNode){
-            stmt += "-[:NEXT]->(b:RadioButtonNode {id:$bId}) RETURN e;";
+            stmt += "-[:NEXT]->(b:RadioButtonNode:NavNode {id:$bId}) RETURN e;";
         }
 
         if(successor instanceof CheckboxNode){
-            stmt+="-[:NEXT]->(b:CheckboxNode {id:$bId}) RETURN e;";
+            stmt+="-[:NEXT]->(b:CheckboxNode:NavNode {id:$bId}) RETURN e;";
         }
 
         if(successor instanceof DataEntryNode){
-            stmt+="-[:NEXT]->(b:DataEntryNode {id:$bId}) RETURN e;";
+            stmt+="-[:NEXT]->(b:DataEntryNode:NavNode {id:$bId}) RETURN e;";
         }
 
         if(successor instanceof APINode){
-            stmt += "-[:NEXT]->(b:APINode {id:$bId}) RETURN e;";
+            stmt += "-[:NEXT]->(b:APINode:NavNode {id:$bId}) RETURN e;";
         }
 
         if(successor instanceof LocationNode){
-            stmt += "-[:NEXT]->(b:LocationNode {id:$bId}) RETURN e;";
+            stmt += "-[:NEXT]->(b:LocationNode:NavNode {id:$bId}) RETURN e;";
         }
 
         if(successor instanceof ApplicationLocationChangeNode){
-            stmt +="-[:NEXT]->(b:ApplicationLocationChangeNode {id:$bId}) RETURN e;";
+            stmt +="-[:NEXT]->(b:ApplicationLocationChangeNode:NavNode {id:$bId}) RETURN e;";
         }
 
         Query query = new Query(stmt, parameters("aId", predecessor.getId().toString(), "bId", successor.getId().toString()));
@@ -1045,31 +1047,31 @@ public class Neo4JUtils {
     private EffectNode getEffectNodeBySuccessor(NavNode successor){
         var stmt = "";
         if(successor instanceof ClickNode){
-            stmt = "MATCH (e:EffectNode)-[:NEXT]->(n:ClickNode {id:$id}) RETURN e;";
+            stmt = "MATCH (e:EffectNode)-[:NEXT]->(n:ClickNode:NavNode {id:$id}) RETURN e;";
         }
 
         if (successor instanceof RadioButtonNode){
-            stmt = "MATCH (e:EffectNode)-[:NEXT]->(n:RadioButtonNode {id:$id}) RETURN e;";
+            stmt = "MATCH (e:EffectNode)-[:NEXT]->(n:RadioButtonNode:NavNode {id:$id}) RETURN e;";
         }
 
         if(successor instanceof CheckboxNode){
-            stmt = "MATCH (e:EffectNode)-[:NEXT]->(n:CheckboxNode {id:$id}) RETURN e;";
+            stmt = "MATCH (e:EffectNode)-[:NEXT]->(n:CheckboxNode:NavNode {id:$id}) RETURN e;";
         }
 
         if(successor instanceof DataEntryNode){
-            stmt = "MATCH (e:EffectNode)-[:NEXT]->(n:DataEntryNode {id:$id}) RETURN e;";
+            stmt = "MATCH (e:EffectNode)-[:NEXT]->(n:DataEntryNode:NavNode {id:$id}) RETURN e;";
         }
 
         if(successor instanceof APINode){
-            stmt = "MATCH (e:EffectNode)-[:NEXT]->(n:APINode {id:$id}) RETURN e;";
+            stmt = "MATCH (e:EffectNode)-[:NEXT]->(n:APINode:NavNode {id:$id}) RETURN e;";
         }
 
         if(successor instanceof ApplicationLocationChangeNode){
-            stmt = "MATCH (e:EffectNode)-[:NEXT]->(n:ApplicationLocationChangeNode {id:$id}) RETURN e;";
+            stmt = "MATCH (e:EffectNode)-[:NEXT]->(n:ApplicationLocationChangeNode:NavNode {id:$id}) RETURN e;";
         }
 
         if(successor instanceof LocationNode){
-            stmt = "MATCH (e:EffectNode)-[:NEXT]->(n:LocationNode {id:$id}) RETURN e;";
+            stmt = "MATCH (e:EffectNode)-[:NEXT]->(n:LocationNode:NavNode {id:$id}) RETURN e;";
         }
 
         Query query = new Query(stmt, parameters("id", successor.getId().toString()));
@@ -1083,31 +1085,31 @@ public class Neo4JUtils {
 
         var stmt = "";
         if(predecessor instanceof ClickNode){
-            stmt = "MATCH (n:ClickNode {id:$id})-[:NEXT]->(e:EffectNode) RETURN e;";
+            stmt = "MATCH (n:ClickNode:NavNode {id:$id})-[:NEXT]->(e:EffectNode) RETURN e;";
         }
 
         if(predecessor instanceof RadioButtonNode){
-            stmt = "MATCH (n:RadioButtonNode {id:$id})-[:NEXT]->(e:EffectNode) RETURN e;";
+            stmt = "MATCH (n:RadioButtonNode:NavNode {id:$id})-[:NEXT]->(e:EffectNode) RETURN e;";
         }
 
         if(predecessor instanceof CheckboxNode){
-            stmt = "MATCH (n:CheckboxNode {id:$id})-[:NEXT]->(e:EffectNode) RETURN e;";
+            stmt = "MATCH (n:CheckboxNode:NavNode {id:$id})-[:NEXT]->(e:EffectNode) RETURN e;";
         }
 
         if(predecessor instanceof DataEntryNode){
-            stmt = "MATCH (n:DataEntryNode {id:$id})-[:NEXT]->(e:EffectNode) RETURN e;";
+            stmt = "MATCH (n:DataEntryNode:NavNode {id:$id})-[:NEXT]->(e:EffectNode) RETURN e;";
         }
 
         if(predecessor instanceof APINode){
-            stmt = "MATCH (n:APINode {id:$id})-[:NEXT]->(e:EffectNode) RETURN e;";
+            stmt = "MATCH (n:APINode:NavNode {id:$id})-[:NEXT]->(e:EffectNode) RETURN e;";
         }
 
         if(predecessor instanceof ApplicationLocationChangeNode){
-            stmt = "MATCH (n:ApplicationLocationChangeNode {id:$id})-[:NEXT]->(e:EffectNode) RETURN e;";
+            stmt = "MATCH (n:ApplicationLocationChangeNode:NavNode {id:$id})-[:NEXT]->(e:EffectNode) RETURN e;";
         }
 
         if(predecessor instanceof LocationNode){
-            stmt = "MATCH (n:LocationNode {id:$id})-[:NEXT]->(e:EffectNode) RETURN e;";
+            stmt = "MATCH (n:LocationNode:NavNode {id:$id})-[:NEXT]->(e:EffectNode) RETURN e;";
         }
 
         Query query = new Query(stmt, parameters("id", predecessor.getId().toString()));
@@ -1118,8 +1120,17 @@ public class Neo4JUtils {
 
     }
 
+    /**
+     * Creates a {@link NavModelBatch} for ingesting many traces at once.
+     * @param batchSize the number of events to accumulate before writing them to the database in a single transaction.
+     * @return
+     */
+    public NavModelBatch batch(int batchSize){
+        return new NavModelBatch(driver, databaseName, batchSize);
+    }
+
     public void bind(NavNode a, NavNode b){
-        var stmt = "MATCH (a {id:$aId}), (b {id:$bId}) MERGE (a)-[:NEXT]->(b);";
+        var stmt = "MATCH (a:NavNode {id:$aId}), (b:NavNode {id:$bId}) MERGE (a)-[:NEXT]->(b);";
         var query = new Query(stmt, parameters("aId", a.getId().toString(), "bId", b.getId().toString()));
         try(var session = driver.session(SessionConfig.forDatabase(databaseName))){
 
@@ -1521,7 +1532,7 @@ public class Neo4JUtils {
 
     public String getAssociatedParameterId(String nodeId){
         String sQuery = """
-                match (m)-[:PARAM]->(n) WHERE (n:InputParameter OR n:SchemaParameter) AND m.id = $id RETURN n.id; 
+                match (m:NavNode {id:$id})-[:PARAM]->(n) WHERE (n:InputParameter OR n:SchemaParameter) RETURN n.id;
                 """;
         Query query = new Query(sQuery, parameters("id", nodeId));
 
@@ -1538,7 +1549,12 @@ public class Neo4JUtils {
     public Set<String> getParameterAssociatedNodes(String parameterNodeId){
 
         String sQuery = """
-                match (n)<-[:PARAM]-(m) WHERE (n:InputParameter OR n:SchemaParameter) AND n.id = $id RETURN m.id;
+                CALL {
+                    MATCH (n:InputParameter {id:$id}) RETURN n
+                    UNION
+                    MATCH (n:SchemaParameter {id:$id}) RETURN n
+                }
+                MATCH (n)<-[:PARAM]-(m) RETURN m.id;
                 """;
 
         Query query = new Query(sQuery, parameters("id", parameterNodeId));
@@ -1674,7 +1690,7 @@ public class Neo4JUtils {
         Query createParameterNodeQuery = new Query(createParameterNodeStmt, parameters("name", schema.getName(), "props", props));
 
         var createRelationshipStmt = """
-                MATCH (sourceNode {id:$sourceNodeId}), (parameterNode:SchemaParameter {id:$parameterNodeId}) 
+                MATCH (sourceNode:NavNode {id:$sourceNodeId}), (parameterNode:SchemaParameter {id:$parameterNodeId}) 
                 CREATE (sourceNode)-[:PARAM]->(parameterNode);
             """;
 
@@ -1722,7 +1738,7 @@ public class Neo4JUtils {
         Query createParameterNodeQuery = new Query(createParameterNodeStmt, parameters("xpath", parameter.getString("xpath"), "props", props));
 
         var createRelantionshipStmt = """
-                MATCH (sourceNode {id:$sourceNodeId}), (parameterNode:InputParameter {id:$parameterNodeId})
+                MATCH (sourceNode:NavNode {id:$sourceNodeId}), (parameterNode:InputParameter {id:$parameterNodeId})
                 CREATE (sourceNode)-[:PARAM]->(parameterNode);
                 """;
 
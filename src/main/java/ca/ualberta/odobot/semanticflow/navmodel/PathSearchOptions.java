@@ -0,0 +1,117 @@
+package ca.ualberta.odobot.semanticflow.navmodel;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.Objects;
+
+/**
+ * Limits applied when constructing nav paths, see {@link NavPathsConstructor}.
+ *
+ * By default every path is enumerated breadth first, shortest first, whatever its length. Callers can bound the
+ * enumeration with maxPaths and maxDepth. When kShortestPaths is set, only the k shortest simple paths are computed
+ * instead (Yen's algorithm), which avoids enumerating every path through the model.
+ */
+public class PathSearchOptions {
+
+    public static final int DEFAULT_MAX_PATHS = Integer.MAX_VALUE;
+
+    //0 means no limit
+    private int maxDepth = 0;
+
+    //0 means no limit
+    private int maxPaths = DEFAULT_MAX_PATHS;
+
+    //0 means enumerate paths rather than computing the k shortest.
+    private int kShortestPaths = 0;
+
+    public static PathSearchOptions fromJson(JsonObject json){
+        PathSearchOptions result = new PathSearchOptions();
+        if(json == null){
+            return result;
+        }
+
+        result.setMaxDepth(json.getInteger("maxDepth", result.getMaxDepth()));
+        result.setMaxPaths(json.getInteger("maxPaths", result.getMaxPaths()));
+        result.setKShortestPaths(json.getInteger("kShortestPaths", result.getKShortestPaths()));
+        return result;
+    }
+
+    public JsonObject toJson(){
+        return new JsonObject()
+                .put("maxDepth", maxDepth)
+                .put("maxPaths", maxPaths)
+                .put("kShortestPaths", kShortestPaths);
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public PathSearchOptions setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    public int getMaxPaths() {
+        return maxPaths;
+    }
+
+    public PathSearchOptions setMaxPaths(int maxPaths) {
+        this.maxPaths = maxPaths;
+        return this;
+    }
+
+    public int getKShortestPaths() {
+        return kShortestPaths;
+    }
+
+    public PathSearchOptions setKShortestPaths(int kShortestPaths) {
+        this.kShortestPaths = kShortestPaths;
+        return this;
+    }
+
+    public boolean isKShortest(){
+        return kShortestPaths > 0;
+    }
+
+    /**
+     * @param depth length of a path.
+     * @return true if paths of this length may still be extended.
+     */
+    public boolean canExpand(int depth){
+        return maxDepth <= 0 || depth < maxDepth;
+    }
+
+    /**
+     * @param found number of paths found so far.
+     * @return true if the maximum number of paths has been found.
+     */
+    public boolean isFull(int found){
+        return maxPaths > 0 && found >= maxPaths;
+    }
+
+    public PathSearchOptions copy(){
+        return new PathSearchOptions()
+                .setMaxDepth(maxDepth)
+                .setMaxPaths(maxPaths)
+                .setKShortestPaths(kShortestPaths);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PathSearchOptions that = (PathSearchOptions) o;
+        return maxDepth == that.maxDepth && maxPaths == that.maxPaths && kShortestPaths == that.kShortestPaths;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(maxDepth, maxPaths, kShortestPaths);
+    }
+
+    @Override
+    public String toString() {
+        return toJson().encode();
+    }
+}
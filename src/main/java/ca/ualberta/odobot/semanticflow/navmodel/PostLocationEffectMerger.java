@@ -85,7 +85,7 @@ public class PostLocationEffectMerger {
 
 
                         //Create the merged node
-                        Node mergedEffectNode = tx.createNode(Label.label("EffectNode"), Label.label("CollapsedEffectNode"));
+                        Node mergedEffectNode = tx.createNode(Label.label("EffectNode"), Label.label("CollapsedEffectNode"), Label.label(GraphDB.NAV_NODE_LABEL));
                         mergedEffectNode.setProperty("id", UUID.randomUUID().toString());
                         mergedEffectNode.setProperty("instances", instances.toArray(new String [0]));
 
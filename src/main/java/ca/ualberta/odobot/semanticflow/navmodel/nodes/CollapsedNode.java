@@ -1,6 +1,7 @@
 package ca.ualberta.odobot.semanticflow.navmodel.nodes;
 
 import ca.ualberta.odobot.semanticflow.navmodel.BaseLabel;
+import ca.ualberta.odobot.semanticflow.navmodel.GraphDB;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Transaction;
@@ -51,7 +52,7 @@ public abstract class CollapsedNode {
 
     public Node createNode(Transaction tx){
 
-        Node result = tx.createNode(Label.label(baseLabel));
+        Node result = tx.createNode(Label.label(baseLabel), Label.label(GraphDB.NAV_NODE_LABEL));
         result.setProperty("id", id.toString());
         result.setProperty("instances", instances.toArray(new String[1]));
 
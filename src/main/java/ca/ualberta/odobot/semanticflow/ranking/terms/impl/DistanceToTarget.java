@@ -37,7 +37,7 @@ public class DistanceToTarget implements TermRankingStrategy<AbstractArtifact> {
     private static final Pattern numbers = Pattern.compile("[0-9]+");
     private static final Pattern logicalTextRegion = Pattern.compile("(?<=[>])([a-zA-Z0-9?!;.,\\\"\\\"\\(\\)\\s]+)(?=[<])");
 
-    private static final DijkstraCache cache = new DijkstraCache();
+    private static final ElementDistanceCache cache = new ElementDistanceCache();
 
     private BiFunction<Element,String, Elements> matchingFunction;
 
@@ -120,7 +120,7 @@ public class DistanceToTarget implements TermRankingStrategy<AbstractArtifact> {
         cache.printStats();
         Element targetElement = artifact.getTargetElement();
         Document dom = artifact.getDomSnapshot();
-        String domString = dom.toString();
+        ElementDistanceCache.DistanceCache distances = cache.forDocument(dom);
 
         Element body = dom.body();
 
@@ -162,24 +162,24 @@ public class DistanceToTarget implements TermRankingStrategy<AbstractArtifact> {
                 return switch (multiElementOptions){
                     case MIN -> new RankedTerm(term,
                                     elements.stream()
-                                            .mapToInt(match->cachedOrComputedDistance(domString, dom, targetElement, match))
+                                            .mapToInt(match->distances.distance(targetElement, match))
                                             .min().getAsInt()
                                 );
                     case MAX -> new RankedTerm(term,
                                     elements.stream()
-                                            .mapToInt(match->cachedOrComputedDistance(domString, dom, targetElement, match))
+                                            .mapToInt(match->distances.distance(targetElement, match))
                                             .max().getAsInt()
                                 );
                     case MEAN -> new RankedTerm(term,
                                     elements.stream()
-                                            .mapToInt(match->cachedOrComputedDistance(domString, dom, targetElement, match))
+                                            .mapToInt(match->distances.distance(targetElement, match))
                                             .average().getAsDouble()
                             );
                 };
             }
 
             if(elements.size() == 1){
-                return new RankedTerm(term, cachedOrComputedDistance(domString, dom, targetElement, elements.first()));
+                return new RankedTerm(term, distances.distance(targetElement, elements.first()));
             }
 
             log.warn("About to return a null ranked term, this happens when we cannot find elements containing " +
@@ -209,90 +209,14 @@ public class DistanceToTarget implements TermRankingStrategy<AbstractArtifact> {
         return result.stream().map(value->value.term()).collect(Collectors.toList());
     }
 
-    private static Integer cachedOrComputedDistance(String domString, Document document, Element source, Element target){
-        Optional<Integer> cachedDistance = cache.getDistance(domString, source, target);
-        if(cachedDistance.isEmpty()){
-            return dijkstra(domString, document, source, target);
-        }else{
-            return cachedDistance.get();
-        }
-    }
-
     /**
-     * https://en.wikipedia.org/wiki/Dijkstra's_algorithm
-     * @param document
+     * @param document the document the elements belong to.
      * @param src
      * @param tgt
+     * @return the number of parent/child edges between the two elements.
      */
-    public static Integer dijkstra(String domString, Document document, Element src, Element tgt){
-
-        /**
-         * Initialize Dijkstra
-         */
-        Elements vertices = document.getAllElements();
-        Map<Element, Integer> dist = new HashMap<>();
-        Map<Element, Element> prev = new HashMap<>();
-        vertices.forEach(v->{
-            dist.put(v, Integer.MAX_VALUE-1);
-            prev.put(v, null);
-        });
-        dist.put(src, 0);
-
-        PriorityQueue<Element> q = new PriorityQueue<>(vertices.size(), new Comparator<Element>() {
-            @Override
-            public int compare(Element o1, Element o2) {
-                int dist1 = dist.get(o1);
-                int dist2 = dist.get(o2);
-                return dist1 - dist2;
-            }
-        });
-
-        vertices.forEach(q::add);
-
-        while (!q.isEmpty()){
-            Element u = q.poll();
-
-            if(u.equals(tgt)){
-                //Cache all non-infinite distances from this source element
-                dist.entrySet().stream()
-                        .filter(entry->entry.getValue() < Integer.MAX_VALUE - 1)
-                        .forEach(entry->{
-                            cache.cacheDistance(domString, src, entry.getKey(), entry.getValue());
-                            //Shortest distances are commutative in non-directed graphs, so add target to source values as well
-                            cache.cacheDistance(domString, entry.getKey(), src, entry.getValue());
-                        });
-
-                return dist.get(u);
-            }
-
-            neighbours(u).forEach(v->{
-                int alt = dist.get(u) + 1; //All edges have same weight 1.
-                if(alt < dist.get(v)){
-                    dist.put(v, alt);
-                    prev.put(v, u);
-                    /** Have to remove and re-add v because {@link PriorityQueue} only updates order
-                     *  on insertion.
-                     *  https://stackoverflow.com/questions/1871253/updating-java-priorityqueue-when-its-elements-change-priority
-                     */
-                    q.remove(v);
-                    q.add(v);
-                }
-            });
-
-        }
-
-        log.warn("Dijkstra's failed, you should probably panic...");
-        return null;
-
-    }
-
-    private static Elements neighbours(Element e){
-        Elements result = new Elements();
-        if(e.hasParent()){
-            result.add(e.parent());
-        }
-        result.addAll(e.children());
-        return result;
+    public static Integer distance(Document document, Element src, Element tgt){
+        return cache.distance(document, src, tgt);
     }
 
     /**
@@ -307,7 +231,7 @@ public class DistanceToTarget implements TermRankingStrategy<AbstractArtifact> {
      * @param n the minimum number of text regions before returning.
      * @return a list of logical text regions whose size is greater than n.
      */
-    private static List<String> getTopNLogicalTextRegions(Element targetElement, int n){
+    static List<String> getTopNLogicalTextRegions(Element targetElement, int n){
 
         Element curr = targetElement;
         List<String> termsInElement = new ArrayList<>();
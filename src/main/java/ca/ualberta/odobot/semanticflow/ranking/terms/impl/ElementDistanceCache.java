@@ -0,0 +1,192 @@
+package ca.ualberta.odobot.semanticflow.ranking.terms.impl;
+
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches distances between elements of DOM snapshots, such as the distance of every element to an event's target
+ * element.
+ *
+ * Distances are grouped by document instance. For each document, the distances from an element to every other element
+ * are computed in a single breadth first search (see {@link ElementIndex}) and kept as an array, so ranking many
+ * elements against the same target element costs one traversal of the DOM.
+ *
+ * The cache is bounded both in number of documents and in (estimated) bytes, the least recently used documents are
+ * evicted first.
+ */
+public class ElementDistanceCache {
+    private static final Logger log = LoggerFactory.getLogger(ElementDistanceCache.class);
+
+    public static final int DEFAULT_MAX_DOCUMENTS = 20;
+
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+    private final int maxDocuments;
+    private final long maxBytes;
+
+    //Access ordered, so iteration starts from the least recently used document. Documents are compared by identity.
+    private final LinkedHashMap<Document, DistanceCache> caches = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong bytes = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ElementDistanceCache(){
+        this(DEFAULT_MAX_DOCUMENTS, DEFAULT_MAX_BYTES);
+    }
+
+    public ElementDistanceCache(int maxDocuments, long maxBytes){
+        this.maxDocuments = maxDocuments;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * The distances cached for a single document.
+     */
+    public class DistanceCache{
+
+        private final ElementIndex index;
+
+        //Distances from an element to every element, by element number.
+        private final Map<Integer, int[]> distancesBySource = new ConcurrentHashMap<>();
+
+        //Estimated bytes held by this cache.
+        private final AtomicLong size = new AtomicLong();
+
+        //Set once this cache has been evicted, distances cached afterwards would never be read.
+        private volatile boolean evicted = false;
+
+        private DistanceCache(Document dom){
+            this.index = new ElementIndex(dom);
+        }
+
+        /**
+         * @param source
+         * @param target
+         * @return the number of parent/child edges between the source and target elements.
+         */
+        public int distance(Element source, Element target){
+            int src = index.indexOf(source);
+            int tgt = index.indexOf(target);
+            if(src == -1 || tgt == -1){
+                throw new IllegalArgumentException("Cannot compute distance between elements that do not belong to the document.");
+            }
+
+            int [] distances = distancesBySource.get(src);
+            if(distances != null){
+                hits.increment();
+                return distances[tgt];
+            }
+
+            //Shortest distances are commutative in non-directed graphs, so distances from the target work as well.
+            distances = distancesBySource.get(tgt);
+            if(distances != null){
+                hits.increment();
+                return distances[src];
+            }
+
+            misses.increment();
+            distances = index.distancesFrom(src);
+            if(reserve(4L * distances.length + 16)){
+                distancesBySource.put(src, distances);
+            }
+            return distances[tgt];
+        }
+
+        /**
+         * Accounts for bytes about to be cached.
+         * @return false if they should not be cached.
+         */
+        private boolean reserve(long amount){
+            if(evicted){
+                return false;
+            }
+
+            if(bytes.get() + amount > maxBytes && !trim(this, amount)){
+                //This document alone fills the cache, stop growing it.
+                return false;
+            }
+
+            size.addAndGet(amount);
+            bytes.addAndGet(amount);
+            return true;
+        }
+
+        private long clear(){
+            evicted = true;
+            distancesBySource.clear();
+            return size.getAndSet(0);
+        }
+
+    }
+
+    /**
+     * @param dom
+     * @return the distance cache for the document, created if necessary.
+     */
+    public DistanceCache forDocument(Document dom){
+        synchronized (caches){
+            DistanceCache result = caches.get(dom);
+            if(result == null){
+                result = new DistanceCache(dom);
+                caches.put(dom, result);
+                trim(result, 0);
+                result.reserve(result.index.estimatedBytes());
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Evicts least recently used documents until the cache is within its bounds, never evicting the given document.
+     * @param keep the document being used.
+     * @param amount the number of bytes about to be cached.
+     * @return true if the cache is within its bounds.
+     */
+    private boolean trim(DistanceCache keep, long amount){
+        synchronized (caches){
+            Iterator<DistanceCache> it = caches.values().iterator();
+            while (it.hasNext() && (caches.size() > maxDocuments || bytes.get() + amount > maxBytes)){
+                DistanceCache cache = it.next();
+                if(cache == keep){
+                    continue;
+                }
+                it.remove();
+                bytes.addAndGet(-cache.clear());
+                evictions.increment();
+                log.debug("Evicted distances for document {}", System.identityHashCode(cache.index.document()));
+            }
+            return caches.size() <= maxDocuments && bytes.get() + amount <= maxBytes;
+        }
+    }
+
+    public void printStats(){
+        long hits = this.hits.sum();
+        long misses = this.misses.sum();
+        log.info("ElementDistanceCache hits: {} misses: {} hit rate: {} documents: {} bytes: {} evictions: {}",
+                hits, misses, hits + misses == 0 ? 0.0 : (double)hits/(double)(hits + misses), caches.size(), bytes.get(), evictions.sum());
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int distance(Document dom, Element source, Element target){
+        return forDocument(dom).distance(source, target);
+    }
+
+}
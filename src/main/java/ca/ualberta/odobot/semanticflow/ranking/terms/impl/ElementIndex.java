@@ -0,0 +1,152 @@
+package ca.ualberta.odobot.semanticflow.ranking.terms.impl;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+
+import java.util.Arrays;
+
+/**
+ * Numbers the elements of a document in document order and stores the element tree as arrays, so that distances
+ * between elements can be computed with a breadth first search over primitive arrays.
+ *
+ * Elements are looked up by identity through an open addressing hash table. See {@link ElementDistanceCache}.
+ */
+class ElementIndex {
+
+    private final Document document;
+
+    private final Element [] elements;
+
+    //Children of element i are children[childOffsets[i]] to children[childOffsets[i+1]-1].
+    private final int [] parents;
+    private final int [] childOffsets;
+    private final int [] children;
+
+    //Identity hash table from element to its number, slots hold number + 1 so that 0 means empty.
+    private final Element [] tableKeys;
+    private final int [] tableValues;
+    private final int mask;
+
+    ElementIndex(Document document){
+        this.document = document;
+
+        Elements all = document.getAllElements();
+        int size = all.size();
+        elements = all.toArray(new Element[0]);
+
+        int capacity = Integer.highestOneBit(Math.max(size, 1) * 2) << 1;
+        tableKeys = new Element[capacity];
+        tableValues = new int[capacity];
+        mask = capacity - 1;
+
+        for(int i = 0; i < size; i++){
+            put(elements[i], i);
+        }
+
+        parents = new int[size];
+        childOffsets = new int[size + 1];
+        for(int i = 0; i < size; i++){
+            Element parent = elements[i].parent();
+            parents[i] = parent == null ? -1 : indexOf(parent);
+            if(parents[i] != -1){
+                childOffsets[parents[i] + 1]++;
+            }
+        }
+
+        for(int i = 0; i < size; i++){
+            childOffsets[i + 1] += childOffsets[i];
+        }
+
+        //Elements are in document order, so filling in order keeps each element's children in order.
+        children = new int[childOffsets[size]];
+        int [] next = Arrays.copyOf(childOffsets, size);
+        for(int i = 0; i < size; i++){
+            if(parents[i] != -1){
+                children[next[parents[i]]++] = i;
+            }
+        }
+    }
+
+    private static int hash(Element element){
+        int h = System.identityHashCode(element);
+        return h ^ (h >>> 16);
+    }
+
+    private void put(Element element, int index){
+        int slot = hash(element) & mask;
+        while (tableKeys[slot] != null){
+            slot = (slot + 1) & mask;
+        }
+        tableKeys[slot] = element;
+        tableValues[slot] = index + 1;
+    }
+
+    /**
+     * @param element
+     * @return the number of the element, or -1 if it does not belong to this index's document.
+     */
+    int indexOf(Element element){
+        int slot = hash(element) & mask;
+        Element key;
+        while ((key = tableKeys[slot]) != null){
+            if(key == element){
+                return tableValues[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    Document document(){
+        return document;
+    }
+
+    int size(){
+        return elements.length;
+    }
+
+    /**
+     * Breadth first search over the element tree, every edge between a parent and a child has a length of 1.
+     * @param source the number of the element to compute distances from.
+     * @return the distance from the source to every element, by element number.
+     */
+    int [] distancesFrom(int source){
+        int [] distances = new int[elements.length];
+        Arrays.fill(distances, -1);
+
+        int [] queue = new int[elements.length];
+        int head = 0, tail = 0;
+        queue[tail++] = source;
+        distances[source] = 0;
+
+        while (head < tail){
+            int current = queue[head++];
+            int distance = distances[current] + 1;
+
+            int parent = parents[current];
+            if(parent != -1 && distances[parent] == -1){
+                distances[parent] = distance;
+                queue[tail++] = parent;
+            }
+
+            for(int i = childOffsets[current]; i < childOffsets[current + 1]; i++){
+                int child = children[i];
+                if(distances[child] == -1){
+                    distances[child] = distance;
+                    queue[tail++] = child;
+                }
+            }
+        }
+
+        return distances;
+    }
+
+    /**
+     * @return a rough estimate of the memory used by this index, in bytes.
+     */
+    long estimatedBytes(){
+        //elements, parents, child offsets, children, and the two table arrays.
+        return (long)elements.length * (8 + 4 + 4 + 4) + (long)tableKeys.length * (8 + 4);
+    }
+}
@@ -2,6 +2,7 @@ package ca.ualberta.odobot.snippets;
 
 
 import ca.ualberta.odobot.common.HttpServiceVerticle;
+import ca.ualberta.odobot.domsequencing.XPathResolver;
 import ca.ualberta.odobot.elasticsearch.ElasticsearchService;
 import ca.ualberta.odobot.logpreprocessor.LogPreprocessor;
 import ca.ualberta.odobot.semanticflow.navmodel.DynamicXPath;
@@ -236,45 +237,77 @@ public class Extractor extends HttpServiceVerticle {
      * @return a list of snippets.
      */
     public static Future<List<String>> getSnippets(DynamicXPath xPath, JsonObject entity){
+        return getSnippets(List.of(xPath), entity);
+    }
+
+    /**
+     * Apply several dynamic xpaths to a timeline entity containing a DOMSnapshot to extract snippets.
+     *
+     * The entity's DOMSnapshot is parsed once, and each distinct prefix among the dynamic xpaths is evaluated once. The
+     * snippets found are saved to SQLite in a single batch.
+     *
+     * @param xPaths the dynamic xpaths to use when extracting snippets
+     * @param entity the JSON object representation of a raw trace event from which to extract snippets.
+     * @return a list of snippets, in the order of the given dynamic xpaths.
+     */
+    public static Future<List<String>> getSnippets(Collection<DynamicXPath> xPaths, JsonObject entity){
 
         if(!entity.containsKey("eventDetails_domSnapshot")){
             log.error("Entity does not contain DOMSnapshot, cannot extract snippets");
             return Future.succeededFuture(List.of());
         }
 
-        String baseURI = null;
-        //Check the eventDetails_element field for a baseURI
-        if(entity.containsKey("eventDetails_element")){
-            JsonObject elementDetails = new JsonObject(entity.getString("eventDetails_element"));
-
-            if(elementDetails.containsKey("baseURI")){
-                baseURI = elementDetails.getString("baseURI");
-            }
-        }
-        //If not, check the eventDetails_nodes field.
-        if(entity.containsKey("eventDetails_nodes")){
-            JsonArray nodes = new JsonArray(entity.getString("eventDetails_nodes"));
-            JsonObject nodeInfo = nodes.getJsonObject(0);
-            if(nodeInfo.containsKey("baseURI")){
-                baseURI = nodeInfo.getString("baseURI");
-            }
-        }
-
-        List<String> snippets = new ArrayList<>();
+        String baseURI = getBaseURI(entity);
 
         JsonObject _DOMSnapshotJson = new JsonObject(entity.getString("eventDetails_domSnapshot"));
         String htmlString = _DOMSnapshotJson.getString("outerHTML");
 
         Document document = Jsoup.parse(htmlString);
 
-        log.info("Attempting to extract snippet with dynamic tag:\n{}", xPath.toJson().encodePrettily());
+        //Group the dynamic xpaths by prefix, so that each prefix is only evaluated once.
+        Map<String, List<DynamicXPath>> byPrefix = new LinkedHashMap<>();
+        xPaths.forEach(xPath->byPrefix.computeIfAbsent(xPath.getPrefix(), prefix->new ArrayList<>()).add(xPath));
+
+        //Resolve all the prefixes in one pass over the document.
+        Map<String, Elements> parentElementsByPrefix = XPathResolver.selectAll(document, byPrefix.keySet());
 
-        Elements parentElements = document.selectXpath(xPath.getPrefix()); //This should yield the parent element.
-        log.info("Found {} parent elements matching dynamic xpath prefix.", parentElements.size());
+        Map<DynamicXPath, List<String>> snippetsByXPath = new HashMap<>();
 
-        List<Future> sqliteSaveFutures = new ArrayList<>();
+        //Snippets to save, in the format expected by SqliteService#saveSnippets
+        JsonArray rows = new JsonArray();
 
-        final String _baseURI = baseURI;
+        byPrefix.forEach((prefix, group)->{
+
+            Elements parentElements = parentElementsByPrefix.get(prefix); //This should yield the parent elements.
+            log.info("Found {} parent elements matching dynamic xpath prefix {} shared by {} dynamic xpaths.", parentElements.size(), prefix, group.size());
+
+            for(DynamicXPath xPath: group){
+                log.debug("Attempting to extract snippet with dynamic tag:\n{}", xPath.toJson().encodePrettily());
+                snippetsByXPath.put(xPath, extractSnippets(xPath, parentElements, rows));
+            }
+        });
+
+        List<String> snippets = new ArrayList<>();
+        xPaths.forEach(xPath->snippets.addAll(snippetsByXPath.get(xPath)));
+
+        if(rows.isEmpty()){
+            return Future.succeededFuture(snippets);
+        }
+
+        return sqliteService.saveSnippets(htmlString, baseURI, rows).compose(done->Future.succeededFuture(snippets));
+    }
+
+    /**
+     * Extracts the snippets matching a dynamic xpath from the elements matching its prefix.
+     *
+     * @param xPath the dynamic xpath to use when extracting snippets
+     * @param parentElements the elements matching the prefix of the dynamic xpath.
+     * @param rows the array to which the snippets to save are added.
+     * @return the extracted snippets.
+     */
+    private static List<String> extractSnippets(DynamicXPath xPath, Elements parentElements, JsonArray rows){
+
+        List<String> snippets = new ArrayList<>();
 
         parentElements.forEach(element -> {
 
@@ -297,19 +330,15 @@ public class Extractor extends HttpServiceVerticle {
                         *   </tbody>
                         *  </table>
                         *
+                        * The table is cloned, as the document is shared by all the dynamic xpaths being evaluated.
                          */
-                        child = mergeTableWithSnippet(getContainingTable(child), child);
+                        child = mergeTableWithSnippet(getContainingTable(child).clone(), child);
                     }
 
                     //TODO: I should probably remove these extra attributes from all elements in OdoX.
                     var _childHTML = child.outerHtml().replaceAll("_odo_ishidden=\"false\"", "").replaceAll("_odo_ishidden=\"true\"", "");
                     snippets.add(_childHTML);
-
-                    if(_baseURI != null){
-                        sqliteSaveFutures.add(sqliteService.saveSnippet(_childHTML, xPath.toString(), "child", htmlString, _baseURI));
-                    }else{
-                        sqliteSaveFutures.add(sqliteService.saveSnippetNoURI(_childHTML, xPath.toString(), "child", htmlString));
-                    }
+                    rows.add(snippetRow(_childHTML, xPath, "child"));
 
                     childSnippetCount++;
                 }
@@ -317,18 +346,44 @@ public class Extractor extends HttpServiceVerticle {
             //Save the parent element if we found multiple children matching the dynamic xpath.
             if(childSnippetCount > 1){
                 snippets.add(element.outerHtml());
-                if(_baseURI != null){
-                    sqliteSaveFutures.add(sqliteService.saveSnippet(element.outerHtml(), xPath.toString(), "parent", htmlString, _baseURI));
-                }else{
-                    sqliteSaveFutures.add(sqliteService.saveSnippetNoURI(element.outerHtml(), xPath.toString(), "parent", htmlString));
-                }
-
+                rows.add(snippetRow(element.outerHtml(), xPath, "parent"));
             }
 
         });
 
+        return snippets;
+    }
 
-        return CompositeFuture.all(sqliteSaveFutures).compose(done->Future.succeededFuture(snippets));
+    private static JsonObject snippetRow(String snippet, DynamicXPath xPath, String type){
+        return new JsonObject()
+                .put("snippet", snippet)
+                .put("dynamicXpath", xPath.toString())
+                .put("type", type);
+    }
+
+    /**
+     * @param entity the JSON object representation of a raw trace event
+     * @return the baseURI of the element or node the event refers to, or null if there is none.
+     */
+    private static String getBaseURI(JsonObject entity){
+        String baseURI = null;
+        //Check the eventDetails_element field for a baseURI
+        if(entity.containsKey("eventDetails_element")){
+            JsonObject elementDetails = new JsonObject(entity.getString("eventDetails_element"));
+
+            if(elementDetails.containsKey("baseURI")){
+                baseURI = elementDetails.getString("baseURI");
+            }
+        }
+        //If not, check the eventDetails_nodes field.
+        if(entity.containsKey("eventDetails_nodes")){
+            JsonArray nodes = new JsonArray(entity.getString("eventDetails_nodes"));
+            JsonObject nodeInfo = nodes.getJsonObject(0);
+            if(nodeInfo.containsKey("baseURI")){
+                baseURI = nodeInfo.getString("baseURI");
+            }
+        }
+        return baseURI;
     }
 
     private static Element mergeTableWithSnippet(Element table, Element snippet){
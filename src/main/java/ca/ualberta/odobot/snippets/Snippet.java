@@ -22,6 +22,8 @@ public class Snippet {
 
     private String baseURI; //This one is optional, but should exist for input changes and button clicks.
 
+    private String sourceHTML; //The page the snippet was extracted from, only set when retrieved along with the snippet.
+
     public String getDynamicXpath() {
         return dynamicXpath;
     }
@@ -52,6 +54,9 @@ public class Snippet {
         if(json.containsKey("baseURI")){
             result.setBaseURI(json.getString("baseURI"));
         }
+        if(json.containsKey("sourceHTML")){
+            result.setSourceHTML(json.getString("sourceHTML"));
+        }
         return result;
     }
 
@@ -65,6 +70,9 @@ public class Snippet {
         if(data.containsKey("baseURI")){
             setBaseURI(data.getString("baseURI"));
         }
+        if(data.containsKey("sourceHTML")){
+            setSourceHTML(data.getString("sourceHTML"));
+        }
     }
 
     public UUID getId() {
@@ -103,6 +111,15 @@ public class Snippet {
         return this;
     }
 
+    public String getSourceHTML() {
+        return sourceHTML;
+    }
+
+    public Snippet setSourceHTML(String sourceHTML) {
+        this.sourceHTML = sourceHTML;
+        return this;
+    }
+
     public JsonObject toJson(){
         JsonObject result = new JsonObject();
         result.put("id", getId().toString())
@@ -115,6 +132,10 @@ public class Snippet {
             result.put("baseURI", baseURI);
         }
 
+        if(getSourceHTML() != null){
+            result.put("sourceHTML", sourceHTML);
+        }
+
         return result;
     }
 }
@@ -4,7 +4,6 @@ import ca.ualberta.odobot.semanticflow.navmodel.DynamicXPath;
 import ca.ualberta.odobot.snippets.Extractor;
 import ca.ualberta.odobot.snippets.SnippetExtractorService;
 import ca.ualberta.odobot.sqlite.SqliteService;
-import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
@@ -41,12 +40,7 @@ public class SnippetExtractorServiceImpl implements SnippetExtractorService {
     @Override
     public Future<Void> saveSnippets(JsonObject timelineEntityData) {
 
-        List<Future> snippetFutures = new ArrayList<>();
-
-        for(DynamicXPath xpath: xpaths){
-            snippetFutures.add(Extractor.getSnippets(xpath, timelineEntityData));
-        }
-
-        return CompositeFuture.all(snippetFutures).compose(snippets->Future.succeededFuture());
+        //Parse the entity's DOM once and evaluate all the dynamic xpaths against it.
+        return Extractor.getSnippets(xpaths, timelineEntityData).mapEmpty();
     }
 }
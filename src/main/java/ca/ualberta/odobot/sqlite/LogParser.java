@@ -2,108 +2,190 @@ package ca.ualberta.odobot.sqlite;
 
 import ca.ualberta.odobot.sqlite.impl.DbLogEntry;
 import io.vertx.core.Future;
+import io.vertx.core.Vertx;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.FileNotFoundException;
+import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.function.Consumer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+/**
+ * Parses the audit records out of a Postgres CSV log (as produced by pgaudit) and hands them to a consumer in batches.
+ *
+ * Parsing happens on a worker thread, one batch at a time; the next batch is parsed while the previous one is being
+ * written, but no further than that, so memory use stays bounded regardless of the size of the log.
+ */
 public class LogParser {
 
     private static final Logger log = LoggerFactory.getLogger(LogParser.class);
-    public static final DateTimeFormatter timestampFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd kk:mm:ss.SSS zzz");
+    public static final DateTimeFormatter timestampFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS zzz");
+    private static final DateTimeFormatter zoneFormat = DateTimeFormatter.ofPattern("zzz");
     private static final Pattern statementPattern = Pattern.compile("(?<=\")[\\S\\s]*(?=\")");
-    Function<DbLogEntry, Future> logEntryConsumer;
+
+    //Zone names appearing in timestamps, eg: 'UTC' or 'MDT', resolved once.
+    private static final Map<String, ZoneId> zones = new ConcurrentHashMap<>();
+
+    public static final int DEFAULT_BATCH_SIZE = 2000;
+
+    private final Vertx vertx;
+    private final Function<List<DbLogEntry>, Future<Void>> batchConsumer;
+    private final int batchSize;
 
     public int parseCount = 0;
 
-    public LogParser(Function<DbLogEntry, Future> onLogEntry){
-        logEntryConsumer = onLogEntry;
+    /**
+     * @param vertx
+     * @param onBatch called with each batch of parsed log entries, the next batch is only handed over once the
+     *                returned future completes.
+     */
+    public LogParser(Vertx vertx, Function<List<DbLogEntry>, Future<Void>> onBatch){
+        this(vertx, onBatch, DEFAULT_BATCH_SIZE);
+    }
+
+    public LogParser(Vertx vertx, Function<List<DbLogEntry>, Future<Void>> onBatch, int batchSize){
+        this.vertx = vertx;
+        this.batchConsumer = onBatch;
+        this.batchSize = batchSize;
     }
 
     public Future<Void> parseDatabaseLogFile(String path){
-        Future insertFuture = null;
-        try{
-            Reader in = new FileReader(path);
-            Iterable<CSVRecord> records = CSVFormat.DEFAULT.parse(in);
+        return vertx.executeBlocking(()->{
+            long start = System.currentTimeMillis();
 
+            try(Reader in = new BufferedReader(new FileReader(path))){
+                Iterable<CSVRecord> records = CSVFormat.DEFAULT.parse(in);
 
+                List<DbLogEntry> batch = new ArrayList<>(batchSize);
+                Future<Void> previous = Future.succeededFuture();
 
-            for(CSVRecord record: records){
+                for(CSVRecord record: records){
+                    DbLogEntry logEntry = parseRecord(record);
+                    if(logEntry == null){
+                        continue;
+                    }
 
-                String message = record.get(13);
+                    batch.add(logEntry);
+                    parseCount++;
 
-                if(!message.startsWith("AUDIT:")){
-                    //If the message for this log entry isn't an audit log, we don't care about it
-                    continue;
+                    if(batch.size() == batchSize){
+                        await(previous);
+                        previous = batchConsumer.apply(batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
                 }
 
-                //Need these two to make the primary key
-                String sessionId = record.get(5);
-                String sessionLineNumber = record.get(6);
-
-                String key = sessionId + "-" + sessionLineNumber;
-                ZonedDateTime timestamp = ZonedDateTime.parse(record.get(0), timestampFormat);
-
-                //Now let's parse the message line according to:
-                //https://github.com/pgaudit/pgaudit/blob/master/README.md
-
-                //Strip 'AUDIT:'
-                message = message.substring(6);
-
-                String [] parts = message.split(",");
-                String type = parts[3];
-                String command = parts[4];
-                String objectType = parts[5];
-                String objectName = parts[6];
-                String parameters = parts[parts.length - 2];
-
-                log.debug("Extracting statement from: {}", message);
-                Matcher matcher = statementPattern.matcher(message);
-                matcher.find();
-                String statement = matcher.group(0);
-
-
-                DbLogEntry logEntry = new DbLogEntry(
-                        key,
-                        timestamp,
-                        timestamp.toInstant().toEpochMilli(),
-                        type,
-                        command,
-                        objectType,
-                        objectName,
-                        statement,
-                        parameters
-                );
-
-                if(insertFuture == null){
-                    insertFuture = logEntryConsumer.apply(logEntry);
-                }else{
-                    insertFuture.compose(done->logEntryConsumer.apply(logEntry));
+                await(previous);
+                if(!batch.isEmpty()){
+                    await(batchConsumer.apply(batch));
                 }
-
-                parseCount++;
             }
 
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException(e);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+            log.info("Ingested {} database audit log entries in {}ms ({} rows/sec)", parseCount, elapsed, (parseCount * 1000L) / elapsed);
+
+            return null;
+        });
+    }
+
+    /**
+     * @return the audit log entry for the record, or null if the record isn't an audit log.
+     */
+    private DbLogEntry parseRecord(CSVRecord record){
+        String message = record.get(13);
+
+        if(!message.startsWith("AUDIT:")){
+            //If the message for this log entry isn't an audit log, we don't care about it
+            return null;
         }
 
-        return insertFuture == null?Future.failedFuture("insert future was null!"): insertFuture;
+        //Need these two to make the primary key
+        String sessionId = record.get(5);
+        String sessionLineNumber = record.get(6);
+
+        String key = sessionId + "-" + sessionLineNumber;
+        ZonedDateTime timestamp = parseTimestamp(record.get(0));
+
+        //Now let's parse the message line according to:
+        //https://github.com/pgaudit/pgaudit/blob/master/README.md
+
+        //Strip 'AUDIT:'
+        message = message.substring(6);
+
+        String [] parts = message.split(",");
+        String type = parts[3];
+        String command = parts[4];
+        String objectType = parts[5];
+        String objectName = parts[6];
+        String parameters = parts[parts.length - 2];
+
+        log.debug("Extracting statement from: {}", message);
+        Matcher matcher = statementPattern.matcher(message);
+        matcher.find();
+        String statement = matcher.group(0);
+
+        return new DbLogEntry(
+                key,
+                timestamp,
+                timestamp.toInstant().toEpochMilli(),
+                type,
+                command,
+                objectType,
+                objectName,
+                statement,
+                parameters
+        );
     }
 
+    /**
+     * Parses a timestamp of the form 'yyyy-MM-dd HH:mm:ss.SSS zzz', as written by Postgres and {@link #timestampFormat}.
+     *
+     * Timestamps stored before the switch to {@link #timestampFormat} wrote the midnight hour as '24', those are
+     * accepted and read as hour 0 of the same day.
+     *
+     * @param timestamp
+     * @return the parsed timestamp
+     */
+    public static ZonedDateTime parseTimestamp(String timestamp){
+        if(timestamp.length() < 25 || timestamp.charAt(4) != '-' || timestamp.charAt(10) != ' ' || timestamp.charAt(19) != '.' || timestamp.charAt(23) != ' '){
+            return ZonedDateTime.parse(timestamp, timestampFormat);
+        }
+
+        try{
+            int hour = Integer.parseInt(timestamp, 11, 13, 10);
+            LocalDateTime local = LocalDateTime.of(
+                    Integer.parseInt(timestamp, 0, 4, 10),
+                    Integer.parseInt(timestamp, 5, 7, 10),
+                    Integer.parseInt(timestamp, 8, 10, 10),
+                    hour == 24 ? 0 : hour,
+                    Integer.parseInt(timestamp, 14, 16, 10),
+                    Integer.parseInt(timestamp, 17, 19, 10),
+                    Integer.parseInt(timestamp, 20, 23, 10) * 1000000
+            );
+
+            ZoneId zone = zones.computeIfAbsent(timestamp.substring(24), name->zoneFormat.parse(name, ZoneId::from));
+            return local.atZone(zone);
+        }catch (RuntimeException e){
+            return ZonedDateTime.parse(timestamp, timestampFormat);
+        }
+    }
 
+    private static void await(Future<Void> future) throws Exception{
+        future.toCompletionStage().toCompletableFuture().get();
+    }
 
 }
@@ -80,6 +80,16 @@ public interface SqliteService {
 
     Future<Void> saveSnippet(String snippet, String xpathId, String type, String sourceHTML, String baseURI);
 
+    /**
+     * Saves the snippets extracted from a single page in one batch.
+     *
+     * @param sourceHTML the HTML of the page the snippets were extracted from.
+     * @param baseURI the baseURI of the page, may be null.
+     * @param snippets json objects with 'snippet', 'dynamicXpath' and 'type' fields.
+     * @return
+     */
+    Future<Void> saveSnippets(String sourceHTML, String baseURI, JsonArray snippets);
+
     Future<Snippet> getSnippetById(String id);
 
     /**
@@ -98,7 +108,23 @@ public interface SqliteService {
 
     Future<Void> insertLogEntry(JsonObject json);
 
+    /**
+     * Inserts many audit log entries in a single transaction. Entries whose key already exists are skipped.
+     *
+     * @param entries audit log entries in {@link ca.ualberta.odobot.sqlite.impl.DbLogEntry#toJson()} form.
+     */
+    Future<Void> insertLogEntries(JsonArray entries);
+
     Future<JsonArray> selectLogs(long timestampMilli, long range);
 
+    /**
+     * Batch version of {@link #selectLogs(long, long)}, resolves the audit logs around many timestamps at once.
+     *
+     * @param timestampsMilli the timestamps around which to select audit logs.
+     * @param range the number of milliseconds before and after each timestamp from which to select audit logs.
+     * @return an array holding, for each timestamp in order, the array of audit logs around it.
+     */
+    Future<JsonArray> selectLogsForTimestamps(List<Long> timestampsMilli, long range);
+
 
 }
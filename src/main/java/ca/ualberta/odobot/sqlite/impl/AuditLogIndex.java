@@ -0,0 +1,88 @@
+package ca.ualberta.odobot.sqlite.impl;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An in-memory, time indexed view over database audit log entries. Entries are kept sorted by millisecond timestamp
+ * so that the entries within a time range can be found with two binary searches.
+ */
+public class AuditLogIndex {
+
+    private final long [] timestamps;
+    private final DbLogEntry [] entries;
+
+    /**
+     * @param entries the entries to index, entries with equal timestamps keep their relative order.
+     */
+    public AuditLogIndex(List<DbLogEntry> entries){
+        this.entries = entries.toArray(new DbLogEntry[0]);
+        //Stable sort, so ties stay in insertion order.
+        Arrays.sort(this.entries, Comparator.comparingLong(DbLogEntry::timestampMilli));
+
+        this.timestamps = new long[this.entries.length];
+        for(int i = 0; i < this.entries.length; i++){
+            this.timestamps[i] = this.entries[i].timestampMilli();
+        }
+    }
+
+    /**
+     * @param from exclusive lower bound, in milliseconds.
+     * @param to exclusive upper bound, in milliseconds.
+     * @return the entries with a timestamp strictly between from and to, in timestamp order.
+     */
+    public List<DbLogEntry> select(long from, long to){
+        if(to <= from){
+            return List.of();
+        }
+        int start = firstAfter(from);
+        int end = firstAtOrAfter(to);
+        return start >= end ? List.of() : Arrays.asList(entries).subList(start, end);
+    }
+
+    /**
+     * @param timestampMilli
+     * @param range
+     * @return the entries within range milliseconds of the timestamp, bounds excluded.
+     */
+    public List<DbLogEntry> around(long timestampMilli, long range){
+        return select(timestampMilli - range, timestampMilli + range);
+    }
+
+    public int size(){
+        return entries.length;
+    }
+
+    /**
+     * @return the index of the first entry with a timestamp greater than the given one.
+     */
+    private int firstAfter(long timestamp){
+        int low = 0, high = timestamps.length;
+        while (low < high){
+            int mid = (low + high) >>> 1;
+            if(timestamps[mid] <= timestamp){
+                low = mid + 1;
+            }else{
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the index of the first entry with a timestamp greater than or equal to the given one.
+     */
+    private int firstAtOrAfter(long timestamp){
+        int low = 0, high = timestamps.length;
+        while (low < high){
+            int mid = (low + high) >>> 1;
+            if(timestamps[mid] < timestamp){
+                low = mid + 1;
+            }else{
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -22,7 +22,7 @@ public record DbLogEntry(
 
         DbLogEntry result = new DbLogEntry(
                 row.getString("key_value"),
-                ZonedDateTime.parse(row.getString("timestamp"), LogParser.timestampFormat),
+                LogParser.parseTimestamp(row.getString("timestamp")),
                 row.getLong("timestamp_milli"),
                 row.getString("type"),
                 row.getString("command"),
@@ -40,7 +40,7 @@ public record DbLogEntry(
 
         DbLogEntry result = new DbLogEntry(
                 json.getString("key"),
-                ZonedDateTime.parse(json.getString("timestamp"), LogParser.timestampFormat),
+                LogParser.parseTimestamp(json.getString("timestamp")),
                 json.getLong("timestampMilli"),
                 json.getString("type"),
                 json.getString("command"),
@@ -0,0 +1,99 @@
+package ca.ualberta.odobot.sqlite.impl;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.sqlclient.Tuple;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A page's HTML as stored in the html_blobs table. Pages are stored once, keyed by a SHA-256 hash of their content,
+ * and referenced by hash from the rows that need them (eg: snippets). Content above a small threshold is gzipped.
+ *
+ * @param hash hex encoded SHA-256 hash of the HTML
+ * @param encoding {@link #GZIP} or {@link #IDENTITY}
+ * @param content the (possibly compressed) UTF-8 bytes of the HTML
+ * @param size the size of the uncompressed HTML in bytes
+ */
+record HtmlBlob(String hash, String encoding, byte[] content, int size) {
+
+    static final String GZIP = "gzip";
+    static final String IDENTITY = "identity";
+
+    //Not worth compressing below this many bytes.
+    private static final int COMPRESSION_THRESHOLD = 1024;
+
+    static HtmlBlob of(String html){
+        byte [] bytes = html.getBytes(StandardCharsets.UTF_8);
+        String hash = hash(bytes);
+
+        if(bytes.length < COMPRESSION_THRESHOLD){
+            return new HtmlBlob(hash, IDENTITY, bytes, bytes.length);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try(GZIPOutputStream gzip = new GZIPOutputStream(out)){
+            gzip.write(bytes);
+        }catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+        return new HtmlBlob(hash, GZIP, out.toByteArray(), bytes.length);
+    }
+
+    static String hash(String html){
+        return hash(html.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String hash(byte [] bytes){
+        try{
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        }catch (NoSuchAlgorithmException e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the HTML stored with the given encoding.
+     */
+    static String decode(String encoding, byte [] content){
+        if(IDENTITY.equals(encoding)){
+            return new String(content, StandardCharsets.UTF_8);
+        }
+
+        if(!GZIP.equals(encoding)){
+            throw new IllegalArgumentException("Unknown html blob encoding: " + encoding);
+        }
+
+        try(GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(content))){
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        }catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the parameters for {@link SqliteServiceImpl}'s html blob insert statement.
+     */
+    Tuple toTuple(){
+        //Bound as a byte array, the sqlite driver does not support the JDBC Blobs the client creates for Buffers.
+        return Tuple.of(hash, encoding, content, size);
+    }
+
+    /**
+     * @return the content of a blob column, as returned by the sqlite driver.
+     */
+    static byte [] content(Object value){
+        if(value instanceof Buffer buffer){
+            return buffer.getBytes();
+        }
+        return (byte[]) value;
+    }
+}
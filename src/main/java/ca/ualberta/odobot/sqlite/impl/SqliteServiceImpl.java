@@ -15,6 +15,7 @@ import io.vertx.core.json.JsonObject;
 import io.vertx.jdbcclient.JDBCPool;
 import io.vertx.sqlclient.Row;
 import io.vertx.sqlclient.RowSet;
+import io.vertx.sqlclient.SqlConnection;
 import io.vertx.sqlclient.Tuple;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,10 +32,14 @@ public class SqliteServiceImpl implements SqliteService {
     private Vertx vertx;
     JDBCPool pool;
 
+    //Completes once the snippet and html blob tables exist and have been migrated, snippet queries wait on it.
+    private Future<Void> snippetTables;
+
     public SqliteServiceImpl(Vertx vertx){
         this.vertx = vertx;
         JsonObject config = new JsonObject()
-                .put("url", SQLITE_CONNECTION_STRING)
+                //WAL lets readers proceed during bulk writes, eg: audit log ingestion.
+                .put("url", SQLITE_CONNECTION_STRING + "?journal_mode=WAL")
                 .put("max_pool_size", 16);
 
         pool = JDBCPool.pool(vertx, config);
@@ -43,7 +48,7 @@ public class SqliteServiceImpl implements SqliteService {
         createTrainingDatasetTable();
         createTrainingMaterialsTable();
         createStateSampleTable();
-        createSnippetTable();
+        snippetTables = createSnippetTables();
         createDynamicXPathTable();
         createDynamicXpathProgressTable();
         createSemanticObjectTable();
@@ -163,6 +168,54 @@ public class SqliteServiceImpl implements SqliteService {
         return promise.future();
     }
 
+    /**
+     * Timestamps whose audit log windows are less than this many milliseconds apart are loaded with a single query.
+     */
+    private static final long MAX_AUDIT_LOG_WINDOW_GAP = 1000;
+
+    @Override
+    public Future<JsonArray> selectLogsForTimestamps(List<Long> timestampsMilli, long range){
+
+        if(timestampsMilli.isEmpty()){
+            return Future.succeededFuture(new JsonArray());
+        }
+
+        //Merge the windows around the timestamps into as few time windows as possible.
+        long [] sorted = timestampsMilli.stream().mapToLong(Long::longValue).sorted().toArray();
+        List<long[]> windows = new ArrayList<>();
+        long [] current = new long[]{sorted[0] - range, sorted[0] + range};
+        for(int i = 1; i < sorted.length; i++){
+            if(sorted[i] - range - current[1] <= MAX_AUDIT_LOG_WINDOW_GAP){
+                current[1] = sorted[i] + range;
+            }else{
+                windows.add(current);
+                current = new long[]{sorted[i] - range, sorted[i] + range};
+            }
+        }
+        windows.add(current);
+
+        List<Future<RowSet<Row>>> queries = windows.stream()
+                .map(window->pool.preparedQuery("""
+                    SELECT * FROM logs WHERE timestamp_milli > ? AND timestamp_milli < ? ORDER BY timestamp_milli, rowid;
+                """).execute(Tuple.of(window[0], window[1])))
+                .collect(Collectors.toList());
+
+        return Future.all(queries).map(done->{
+            List<DbLogEntry> entries = new ArrayList<>();
+            queries.forEach(query->query.result().forEach(row->entries.add(DbLogEntry.fromRow(row))));
+
+            AuditLogIndex index = new AuditLogIndex(entries);
+
+            JsonArray results = new JsonArray();
+            timestampsMilli.forEach(timestamp->results.add(index.around(timestamp, range).stream()
+                    .map(DbLogEntry::toJson)
+                    .collect(JsonArray::new, JsonArray::add, JsonArray::addAll)));
+
+            log.info("returning db logs for {} timestamps and range {}, loaded {} logs in {} time windows", timestampsMilli.size(), range, index.size(), windows.size());
+            return results;
+        }).onFailure(err->log.error(err.getMessage(), err));
+    }
+
     public Future<Void> insertTask(CanvasTask task){
         String sql = """
                 INSERT INTO tasks (id, parameterized_text, plain_text, local_path, plain_prompt, parameterized_prompt)
@@ -235,13 +288,37 @@ public class SqliteServiceImpl implements SqliteService {
     }
 
 
+    public Future<Void> insertLogEntries(JsonArray entries){
+        List<Tuple> batch = entries.stream()
+                .map(o->(JsonObject)o)
+                .map(DbLogEntry::fromJson)
+                .map(SqliteServiceImpl::logEntryParams)
+                .collect(Collectors.toList());
+
+        if(batch.isEmpty()){
+            return Future.succeededFuture();
+        }
+
+        return pool.withTransaction(connection->connection.preparedQuery("""
+                    INSERT OR IGNORE INTO logs (key_value, timestamp, timestamp_milli, type, command, object_type, object_name, statement, parameter) VALUES
+                    (?,?,?,?,?,?,?,?,?);
+                """).executeBatch(batch))
+                .<Void>mapEmpty()
+                .onFailure(err->log.error(err.getMessage(), err));
+    }
+
     private Future<Void> insertLogEntry(DbLogEntry entry){
         String sql = """
             INSERT INTO logs (key_value, timestamp, timestamp_milli, type, command, object_type, object_name, statement, parameter) VALUES 
             (?,?,?,?,?,?,?,?,?);
         """;
 
-        Tuple params = Tuple.of(
+        Promise<Void> promise = Promise.promise();
+        return executeParameterizedQuery(promise, sql, logEntryParams(entry), ignoreUniqueConstraintViolationErrorHandler(promise));
+    }
+
+    private static Tuple logEntryParams(DbLogEntry entry){
+        return Tuple.of(
                 entry.key(),
                 entry.timestamp().format(LogParser.timestampFormat),
                 entry.timestampMilli(),
@@ -252,9 +329,6 @@ public class SqliteServiceImpl implements SqliteService {
                 entry.statement(),
                 entry.parameter()
         );
-
-        Promise<Void> promise = Promise.promise();
-        return executeParameterizedQuery(promise, sql, params, ignoreUniqueConstraintViolationErrorHandler(promise));
     }
 
     public Future<Void> saveDataEntryAnnotation(JsonObject info){
@@ -504,6 +578,10 @@ public class SqliteServiceImpl implements SqliteService {
     }
 
     public Future<List<String>> getUniqueDynamicXpathsFromSnippets(){
+        return snippetTables.compose(ready->uniqueDynamicXpathsFromSnippets());
+    }
+
+    private Future<List<String>> uniqueDynamicXpathsFromSnippets(){
         Promise<List<String>> promise = Promise.promise();
         pool.preparedQuery("""
             SELECT DISTINCT dynamic_xpath from snippets;
@@ -676,6 +754,10 @@ public class SqliteServiceImpl implements SqliteService {
 
     @Override
     public Future<List<Snippet>> getSnippets(){
+        return snippetTables.compose(ready->allSnippets());
+    }
+
+    private Future<List<Snippet>> allSnippets(){
         Promise<List<Snippet>> promise = Promise.promise();
 
         pool.preparedQuery("""
@@ -698,47 +780,44 @@ public class SqliteServiceImpl implements SqliteService {
     }
 
     public Future<List<Snippet>> getSnippetsByDynamicXpath(String dynamicXpath){
-        Promise<List<Snippet>> promise = Promise.promise();
-
-        pool.preparedQuery("""
-            SELECT id, snippet, dynamic_xpath, snippet_type, base_uri FROM snippets WHERE dynamic_xpath = ?;
-        """).execute(Tuple.of(dynamicXpath))
-                .onSuccess(results->{
-
-                    List<Snippet> snippets = new ArrayList<>();
-                    Iterator<Row> it = results.iterator();
-                    while (it.hasNext()){
-                        snippets.add(Snippet.fromRow(it.next()));
-                    }
-
-                    promise.complete(snippets);
-
-                })
-                .onFailure(promise::fail);
-
-        return promise.future();
+        return snippetTables.compose(ready->pool.preparedQuery(SELECT_SNIPPETS_WITH_SOURCE_HTML + """
+            WHERE s.dynamic_xpath = ?;
+        """).execute(Tuple.of(dynamicXpath)))
+                .map(this::toSnippetsWithSourceHTML);
     }
 
     public Future<List<Snippet>> sampleSnippetsForDynamicXpath(int numSamples, String dynamicXpath){
-        Promise<List<Snippet>> promise = Promise.promise();
-
-        pool.preparedQuery("""
-            SELECT id, snippet, dynamic_xpath, snippet_type, base_uri FROM snippets WHERE dynamic_xpath = ? limit ?;
-        """).execute(Tuple.of(dynamicXpath, numSamples))
-                .onSuccess(results->{
-
-                    List<Snippet> snippets = new ArrayList<>();
-                    Iterator<Row> it = results.iterator();
-                    while (it.hasNext()){
-                        snippets.add(Snippet.fromRow(it.next()));
-                    }
-
-                    promise.complete(snippets);
+        return snippetTables.compose(ready->pool.preparedQuery(SELECT_SNIPPETS_WITH_SOURCE_HTML + """
+            WHERE s.dynamic_xpath = ? limit ?;
+        """).execute(Tuple.of(dynamicXpath, numSamples)))
+                .map(this::toSnippetsWithSourceHTML);
+    }
 
-                })
-                .onFailure(promise::fail);
+    /**
+     * Selects snippets along with the html blob holding their source HTML, see {@link #toSnippetsWithSourceHTML(RowSet)}.
+     */
+    private static final String SELECT_SNIPPETS_WITH_SOURCE_HTML = """
+            SELECT s.id, s.snippet, s.dynamic_xpath, s.snippet_type, s.base_uri, s.source_html_hash, b.encoding, b.content
+            FROM snippets s LEFT JOIN html_blobs b ON b.hash = s.source_html_hash
+            """;
 
-        return promise.future();
+    /**
+     * Maps rows selected with {@link #SELECT_SNIPPETS_WITH_SOURCE_HTML} to snippets, decoding each distinct source
+     * HTML once.
+     */
+    private List<Snippet> toSnippetsWithSourceHTML(RowSet<Row> rows){
+        Map<String, String> sourceHTMLByHash = new HashMap<>();
+        List<Snippet> snippets = new ArrayList<>();
+        for(Row row: rows){
+            Snippet snippet = Snippet.fromRow(row);
+            String hash = row.getString("source_html_hash");
+            if(hash != null && row.getString("encoding") != null){
+                snippet.setSourceHTML(sourceHTMLByHash.computeIfAbsent(hash,
+                        h->HtmlBlob.decode(row.getString("encoding"), HtmlBlob.content(row.getValue("content")))));
+            }
+            snippets.add(snippet);
+        }
+        return snippets;
     }
 
     @Override
@@ -765,71 +844,80 @@ public class SqliteServiceImpl implements SqliteService {
 
     @Override
     public Future<Void> saveSnippetNoURI(String snippet, String xpathId, String type, String sourceHTML){
-        String sql = """
-            INSERT INTO snippets (
-                id,
-                snippet, 
-                dynamic_xpath,
-                snippet_type,
-                source_html
-            ) VALUES (?,?,?,?,?)
-        """;
+        return saveSnippet(snippet, xpathId, type, sourceHTML, null);
+    }
 
-        Tuple params = Tuple.of(
-                UUID.randomUUID().toString(),
-                snippet,
-                xpathId,
-                type,
-                sourceHTML
-        );
+    @Override
+    public Future<Void> saveSnippet(String snippet, String xpathId, String type, String sourceHTML, String baseURI){
+        return saveSnippets(sourceHTML, baseURI, new JsonArray().add(new JsonObject()
+                .put("snippet", snippet)
+                .put("dynamicXpath", xpathId)
+                .put("type", type)
+        ));
+    }
+
+    @Override
+    public Future<Void> saveSnippets(String sourceHTML, String baseURI, JsonArray snippets){
+        if(snippets.isEmpty()){
+            return Future.succeededFuture();
+        }
 
         Promise<Void> promise = Promise.promise();
 
-        return executeParameterizedQuery(promise, sql, params, ignoreUniqueConstraintViolationErrorHandler(promise));
+        //Hashing and compressing a page can take a few milliseconds, keep it off the event loop.
+        snippetTables.compose(ready->vertx.executeBlocking(()->HtmlBlob.of(sourceHTML)))
+                .compose(blob->{
+                    List<Tuple> batch = snippets.stream()
+                            .map(o->(JsonObject)o)
+                            .map(snippet->Tuple.of(
+                                    UUID.randomUUID().toString(),
+                                    snippet.getString("snippet"),
+                                    snippet.getString("dynamicXpath"),
+                                    snippet.getString("type"),
+                                    blob.hash(),
+                                    baseURI
+                            )).collect(Collectors.toList());
+
+                    //Store the page, unless it already is, and the snippets in one transaction.
+                    //Duplicate snippets are skipped, like the unique constraint violations previously ignored on insert.
+                    return pool.withTransaction(connection->connection.preparedQuery(INSERT_HTML_BLOB).execute(blob.toTuple())
+                            .compose(done->connection.preparedQuery(INSERT_SNIPPET.formatted("snippets")).executeBatch(batch)));
+                })
+                .onSuccess(done->promise.complete())
+                .onFailure(genericErrorHandler(promise));
+
+        return promise.future();
     }
 
-    @Override
-    public Future<Void> saveSnippet(String snippet, String xpathId, String type, String sourceHTML, String baseURI){
-        String sql = """
-            INSERT INTO snippets (
+    private static final String INSERT_HTML_BLOB = """
+            INSERT OR IGNORE INTO html_blobs (hash, encoding, content, size) VALUES (?,?,?,?)
+            """;
+
+    private static final String INSERT_SNIPPET = """
+            INSERT OR IGNORE INTO %s (
                 id,
                 snippet, 
                 dynamic_xpath,
                 snippet_type,
-                source_html,
+                source_html_hash,
                 base_uri
             ) VALUES (?,?,?,?,?,?)
-        """;
-
-        Tuple params = Tuple.of(
-                UUID.randomUUID().toString(),
-                snippet,
-                xpathId,
-                type,
-                sourceHTML,
-                baseURI
-        );
-
-        Promise<Void> promise = Promise.promise();
-
-        return executeParameterizedQuery(promise, sql, params, ignoreUniqueConstraintViolationErrorHandler(promise));
-    }
+            """;
 
     @Override
     public Future<Snippet> getSnippetById(String id) {
 
         Promise<Snippet> promise = Promise.promise();
 
-        pool.preparedQuery("""
-            SELECT * FROM snippets WHERE id = ?;
+        snippetTables.compose(ready->pool.preparedQuery(SELECT_SNIPPETS_WITH_SOURCE_HTML + """
+            WHERE s.id = ?;
         """).execute(
                 Tuple.of(id)
-        ).onSuccess(result->{
+        )).onSuccess(result->{
 
-            if(result.iterator().hasNext()){
-                Snippet snippet = Snippet.fromRow(result.iterator().next());
-
-                promise.complete(snippet);
+            List<Snippet> snippets = toSnippetsWithSourceHTML(result);
+            if(!snippets.isEmpty()){
+                promise.complete(snippets.get(0));
             }else {
                 promise.fail("Could not find snippet with id: " + id);
             }
@@ -1003,6 +1091,7 @@ public class SqliteServiceImpl implements SqliteService {
     }
 
     private Future<Void> createLogTable(){
+        //Audit logs are looked up by time range, see selectLogs.
         return createTable("""
             CREATE TABLE IF NOT EXISTS logs (
                 key_value text PRIMARY KEY,
@@ -1015,7 +1104,9 @@ public class SqliteServiceImpl implements SqliteService {
                 statement TEXT NOT NULL,
                 parameter TEXT NOT NULL
             )
-        """);
+        """).compose(done->createTable("""
+            CREATE INDEX IF NOT EXISTS logs_timestamp_milli ON logs(timestamp_milli)
+        """));
     }
 
     private Future<Void> createDynamicXPathTable(){
@@ -1055,18 +1146,126 @@ public class SqliteServiceImpl implements SqliteService {
                 """);
     }
 
-    private Future<Void> createSnippetTable(){
-        return createTable("""
-            CREATE TABLE IF NOT EXISTS snippets(
+    /**
+     * Snippets reference the page they were extracted from by the hash of its HTML, pages are stored once in the
+     * html_blobs table. See {@link HtmlBlob}.
+     */
+    private static final String CREATE_SNIPPET_TABLE = """
+            CREATE TABLE IF NOT EXISTS %s(
                 id text primary key,
                 snippet text not null,
                 dynamic_xpath text not null, 
                 snippet_type text not null,
-                source_html text not null,
+                source_html_hash text not null,
                 base_uri text,
-                UNIQUE(snippet, dynamic_xpath, source_html)
+                UNIQUE(snippet, dynamic_xpath, source_html_hash)
             )
-        """);
+            """;
+
+    private Future<Void> createSnippetTables(){
+        return createTable("""
+            CREATE TABLE IF NOT EXISTS html_blobs(
+                hash text primary key,
+                encoding text not null,
+                content blob not null,
+                size integer not null
+            )
+        """)
+                .compose(done->createTable(CREATE_SNIPPET_TABLE.formatted("snippets")))
+                .compose(done->migrateSnippetTable());
+    }
+
+    /**
+     * Databases created before source HTML was content addressed store the full page in a source_html column of every
+     * snippet row. Moves those pages to the html_blobs table and rebuilds the snippets table to reference them.
+     */
+    private Future<Void> migrateSnippetTable(){
+        return pool.query("PRAGMA table_info(snippets)").execute()
+                .compose(columns->{
+                    boolean legacy = false;
+                    for(Row column: columns){
+                        legacy |= "source_html".equals(column.getString("name"));
+                    }
+
+                    if(!legacy){
+                        return Future.succeededFuture();
+                    }
+
+                    log.info("Migrating snippets table to content addressed source HTML storage.");
+                    long start = System.currentTimeMillis();
+
+                    return pool.withTransaction(connection->
+                                connection.query(CREATE_SNIPPET_TABLE.formatted("snippets_migrated")).execute()
+                                .compose(done->migrateSnippetRows(connection, 0L, 0, new HashSet<>()))
+                                .compose(migrated->connection.query("DROP TABLE snippets").execute()
+                                        .compose(done->connection.query("ALTER TABLE snippets_migrated RENAME TO snippets").execute())
+                                        .map(migrated))
+                            )
+                            .compose(migrated->{
+                                log.info("Migrated {} snippets in {}ms, reclaiming space.", migrated, System.currentTimeMillis() - start);
+                                return pool.query("VACUUM").execute();
+                            })
+                            .<Void>mapEmpty()
+                            .onFailure(err->log.error("Failed to migrate snippets table: " + err.getMessage(), err));
+                });
+    }
+
+    private static final int SNIPPET_MIGRATION_CHUNK_SIZE = 200;
+
+    /**
+     * A chunk of legacy snippet rows ready to be inserted: the html blobs not stored yet, the snippets, and the rowid of
+     * the last row in the chunk.
+     */
+    private record MigrationChunk(List<Tuple> blobs, List<Tuple> snippets, long lastRowId){}
+
+    /**
+     * Copies legacy snippet rows into the snippets_migrated table in chunks, storing their source HTML as html blobs.
+     *
+     * @param lastRowId the rowid of the last snippet migrated.
+     * @param migrated the number of snippets migrated so far.
+     * @param storedHashes hashes of the pages stored so far, so each page is only compressed once.
+     * @return the total number of snippets migrated.
+     */
+    private Future<Integer> migrateSnippetRows(SqlConnection connection, long lastRowId, int migrated, Set<String> storedHashes){
+        return connection.preparedQuery("""
+                SELECT rowid AS row_id, id, snippet, dynamic_xpath, snippet_type, source_html, base_uri
+                FROM snippets WHERE rowid > ? ORDER BY rowid LIMIT ?;
+                """).execute(Tuple.of(lastRowId, SNIPPET_MIGRATION_CHUNK_SIZE))
+                .compose(rows->{
+                    if(rows.size() == 0){
+                        return Future.succeededFuture(migrated);
+                    }
+
+                    //Hashing and compressing pages can take a few milliseconds each, keep it off the event loop.
+                    return vertx.executeBlocking(()->{
+                                List<Tuple> blobs = new ArrayList<>();
+                                List<Tuple> snippets = new ArrayList<>();
+                                long last = lastRowId;
+                                for(Row row: rows){
+                                    String sourceHTML = row.getString("source_html");
+                                    String hash = HtmlBlob.hash(sourceHTML);
+                                    if(storedHashes.add(hash)){
+                                        blobs.add(HtmlBlob.of(sourceHTML).toTuple());
+                                    }
+                                    snippets.add(Tuple.of(
+                                            row.getString("id"),
+                                            row.getString("snippet"),
+                                            row.getString("dynamic_xpath"),
+                                            row.getString("snippet_type"),
+                                            hash,
+                                            row.getString("base_uri")
+                                    ));
+                                    last = row.getLong("row_id");
+                                }
+                                return new MigrationChunk(blobs, snippets, last);
+                            })
+                            .compose(chunk->{
+                                Future<?> blobsSaved = chunk.blobs().isEmpty() ? Future.succeededFuture() : connection.preparedQuery(INSERT_HTML_BLOB).executeBatch(chunk.blobs());
+                                return blobsSaved
+                                        .compose(done->connection.preparedQuery(INSERT_SNIPPET.formatted("snippets_migrated")).executeBatch(chunk.snippets()))
+                                        .compose(done->migrateSnippetRows(connection, chunk.lastRowId(), migrated + rows.size(), storedHashes));
+                            });
+                });
     }
 
     private Future<Void> createDynamicXpathProgressTable(){
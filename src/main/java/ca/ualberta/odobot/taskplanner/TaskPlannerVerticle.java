@@ -4,6 +4,7 @@ import ca.ualberta.odobot.common.HttpServiceVerticle;
 import ca.ualberta.odobot.logpreprocessor.LogPreprocessor;
 import ca.ualberta.odobot.semanticflow.navmodel.NavPath;
 import ca.ualberta.odobot.semanticflow.navmodel.NavPathsConstructor;
+import ca.ualberta.odobot.semanticflow.navmodel.PathSearchOptions;
 import ca.ualberta.odobot.semanticflow.navmodel.Neo4JUtils;
 import ca.ualberta.odobot.snippet2xml.SemanticSchema;
 import ca.ualberta.odobot.sqlite.SqliteService;
@@ -149,10 +150,10 @@ public class TaskPlannerVerticle extends HttpServiceVerticle {
 
         Transaction tx = LogPreprocessor.graphDB.db.beginTx();
 
-        NavPathsConstructor constructor = new NavPathsConstructor(null, sqliteService);
+        NavPathsConstructor constructor = new NavPathsConstructor(LogPreprocessor.graphDB, sqliteService);
 
 
-        List<NavPath> result = constructor.construct(tx, startingNodeId, objectParameters, inputParameters, apiCalls);
+        List<NavPath> result = constructor.construct(tx, startingNodeId, objectParameters, inputParameters, apiCalls, PathSearchOptions.fromJson(body.getJsonObject("pathSearch")));
 
         log.info("Found {} paths", result.size());
         NavPath.printNavPaths(result, 20);
@@ -1,5 +1,6 @@
 package ca.ualberta.odobot.taskplanner;
 
+import ca.ualberta.odobot.semanticflow.navmodel.PathSearchOptions;
 import org.neo4j.graphdb.*;
 import org.neo4j.graphdb.traversal.Evaluation;
 import org.neo4j.graphdb.traversal.Evaluator;
@@ -26,8 +27,15 @@ public class TaskPlanningEvaluatorForSingleTargets implements Evaluator {
 
     private Set<String> objectParameters;
 
+    private PathSearchOptions options;
+
     public TaskPlanningEvaluatorForSingleTargets(Set<String> inputParameters, Set<String> objectParameters, Set<String> apiCalls){
+        this(inputParameters, objectParameters, apiCalls, new PathSearchOptions());
+    }
+
+    public TaskPlanningEvaluatorForSingleTargets(Set<String> inputParameters, Set<String> objectParameters, Set<String> apiCalls, PathSearchOptions options){
         this.inputParameters = inputParameters;
+        this.options = options;
         this.apiCalls = apiCalls;
         this.objectParameters = objectParameters;
 
@@ -117,7 +125,7 @@ public class TaskPlanningEvaluatorForSingleTargets implements Evaluator {
         //We're looking for the least number of API calls while still reaching the target API call.
         _paths.sort(Comparator.comparing(p->numAPICallsInPath((Path)p)));
 
-        if(this.numPathsToTarget > 10){
+        if(this.numPathsToTarget > 10 || options.isFull(this.numPathsToTarget) || !options.canExpand(path.length())){
             return Evaluation.EXCLUDE_AND_PRUNE;
         }
 
@@ -0,0 +1,114 @@
+package ca.ualberta.odobot.tpg;
+
+import ca.ualberta.odobot.tpg.learners.Learner;
+import ca.ualberta.odobot.tpg.util.LongDoubleMap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Memoizes learner bids for the exemplar currently being processed, across every root team evaluated on it.
+ *
+ * Learners are shared between many teams, so within a generation the same learner is asked to bid on the same
+ * exemplar once for every team (and team reference) that holds it. With a BidMemo each learner's bid program runs
+ * at most once per exemplar and every other request for that bid is served from the memo. Bid programs run on
+ * registers held by the memo, zeroed when the memo is created, so a learner's bid does not depend on which team
+ * asked first, on how many threads are evaluating teams, or on earlier evaluations.
+ *
+ * A BidMemo may be shared between threads evaluating different teams on the same exemplar. Moving on to the next
+ * exemplar with {@link #nextExemplar(double[])} must not overlap with any evaluation.
+ */
+public class BidMemo {
+
+    // Bids are spread over several maps so that threads asking for different learners rarely contend
+    private static final int STRIPES = 64;
+
+    // Register banks for the bid program of every learner that has bid, keyed by learner ID
+    private final Map<Long, double[]> registers = new ConcurrentHashMap<>();
+
+    // Bids made by learners for the current exemplar, keyed by learner ID
+    private final LongDoubleMap[] stripes = new LongDoubleMap[STRIPES];
+
+    // The exemplar the memo currently holds bids for
+    private volatile double[] currentExemplar = null;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public BidMemo()
+    {
+        for( int i=0; i < STRIPES; i++ )
+            stripes[i] = new LongDoubleMap();
+    }
+
+    // Start processing a new exemplar, discarding bids memoized for the previous one
+    public void nextExemplar( double[] inputFeatures )
+    {
+        for( LongDoubleMap stripe : stripes )
+            synchronized( stripe )
+            {
+                stripe.clear();
+            }
+
+        currentExemplar = inputFeatures;
+    }
+
+    // Return the learner's bid on the current exemplar, running its bid program if it has not bid on it yet.
+    // Bids are only valid for the exemplar they were made for, so asking for a bid on a different input array
+    // moves the memo on to that exemplar.
+    public double bid( Learner learner, double[] inputFeatures )
+    {
+        if( inputFeatures != currentExemplar )
+            nextExemplar(inputFeatures);
+
+        LongDoubleMap stripe = stripes[(int)(learner.getID() & (STRIPES - 1))];
+
+        double bid = memoized(stripe, learner.getID());
+        if( !Double.isNaN(bid) )
+        {
+            hits.increment();
+            return bid;
+        }
+
+        // Only one thread runs a learner's bid program at a time, the others wait for its result
+        synchronized( learner )
+        {
+            bid = memoized(stripe, learner.getID());
+            if( !Double.isNaN(bid) )
+            {
+                hits.increment();
+                return bid;
+            }
+
+            misses.increment();
+            bid = learner.bid(inputFeatures, registers.computeIfAbsent(learner.getID(), id->new double[learner.bidProgram.getRegisterCount()]));
+
+            synchronized( stripe )
+            {
+                stripe.put(learner.getID(), bid);
+            }
+        }
+
+        return bid;
+    }
+
+    private double memoized( LongDoubleMap stripe, long learnerID )
+    {
+        synchronized( stripe )
+        {
+            return stripe.get(learnerID);
+        }
+    }
+
+    public long getHits()
+    {
+        return hits.sum();
+    }
+
+    public long getMisses()
+    {
+        return misses.sum();
+    }
+
+}
@@ -0,0 +1,59 @@
+package ca.ualberta.odobot.tpg;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Holds the general purpose registers used by {@link Program}s while a single root team is evaluated.
+ *
+ * Programs normally keep their registers on the {@link Program} object itself. Since learners (and therefore
+ * programs) are shared between many teams, that register state leaks from one team's evaluation into the next,
+ * which makes fitness depend on the order in which teams are evaluated. An ExecutionContext gives every
+ * evaluation its own zeroed register banks for action programs, so that root teams can be evaluated concurrently
+ * and still produce the same results for a given seed regardless of the number of threads used.
+ *
+ * Learner bids go through a {@link BidMemo}, which is shared by the contexts of all root teams evaluated in a
+ * generation, so that each learner bids at most once per exemplar.
+ *
+ * An ExecutionContext is thread-confined, it must not be shared between threads.
+ */
+public class ExecutionContext {
+
+    // Register banks for every program that has run within this context
+    private final Map<Program, double[]> registers = new IdentityHashMap<>();
+
+    // Learner bids for the current exemplar
+    private final BidMemo bidMemo;
+
+    // Create a context with a bid memo of its own
+    public ExecutionContext()
+    {
+        this(new BidMemo());
+    }
+
+    // Create a context sharing the given bid memo with the contexts of other teams
+    public ExecutionContext( BidMemo bidMemo )
+    {
+        this.bidMemo = bidMemo;
+    }
+
+    public BidMemo getBidMemo()
+    {
+        return bidMemo;
+    }
+
+    // Retrieve the registers for a program, allocating a zeroed register bank the first time a program is seen
+    public double[] registersFor(Program program)
+    {
+        double[] result = registers.get(program);
+
+        if(result == null)
+        {
+            result = new double[program.getRegisterCount()];
+            registers.put(program, result);
+        }
+
+        return result;
+    }
+
+}
@@ -19,6 +19,14 @@ public class Program {
 
     public int maxProgSize = 0;
 
+    // Number of ints used to describe a single compiled instruction: mode, operation, destination, source
+    private static final int COMPILED_STRIDE = 4;
+
+    // The program decoded into a flat array of [mode, operation, destination, source] ints, one group per
+    // instruction. This is what run() interprets; the Instruction bitsets are only kept for mutation and
+    // serialization. Rebuilt whenever the program changes, and lazily for programs loaded from disk.
+    private transient volatile int[] compiled = null;
+
     public Program(int registerCount, int maxProgSize, boolean canWrite)
     {
         this.registerCount = registerCount;
@@ -29,6 +37,8 @@ public class Program {
 
         //initialize the registers for this program.
         registers = new double[registerCount];
+
+        compile();
     }
 
     //use this for making a copy of another program.
@@ -42,6 +52,8 @@ public class Program {
         this.registerCount = other.getRegisterCount();
         this.maxProgSize = other.getMaxProgSize();
         registers = new double[registerCount];
+
+        compile();
     }
 
     public Program()
@@ -92,36 +104,46 @@ public class Program {
     // Run the program on the given input feature set and return a pre-bid output
     public double[] run( double[] inputFeatures )
     {
-        int mode;
-        int operation;
+        return run(inputFeatures, registers);
+    }
 
+    // Run the program on the given input feature set using the registers held by the given execution context,
+    // or the program's own registers if the context is null
+    public double[] run( double[] inputFeatures, ExecutionContext context )
+    {
+        return run(inputFeatures, context == null ? registers : context.registersFor(this));
+    }
+
+    // Run the program on the given input feature set, reading and writing the provided registers
+    public double[] run( double[] inputFeatures, double[] registers )
+    {
+        int[] code = compiled;
+        if( code == null )
+            code = compile();
+
+        int operation;
         int destinationRegister;
         double sourceValue;
 
-        // For every instruction in this program:
-        for( Instruction instruction : program )
+        // For every compiled instruction in this program:
+        for( int pc = 0; pc < code.length; pc += COMPILED_STRIDE )
         {
-            // Retrieve the mode register
-            mode = (int)(instruction.getModeRegister().getLongValue() % Instruction.MODE_COUNT);
-
-            // Retrieve the operation register
-            operation = (int)(instruction.getOperationRegister().getLongValue() % Instruction.OPERATION_COUNT);
-
-            // Retrieve the destination register
-            destinationRegister = (int) instruction.getDestinationRegister().getLongValue() % registerCount;
+            operation = code[pc + 1];
+            destinationRegister = code[pc + 2];
 
             // Mode0 lets an instruction decide between using the input feature set or the general purpose registers
-            if(mode == Instruction.mode0_VALUE)
+            if( code[pc] == Instruction.mode0_VALUE )
             {
-                sourceValue = registers[ (int) instruction.getSourceRegister().getLongValue() % registerCount ];
+                // Source registers for mode0 are already reduced modulo the register count
+                sourceValue = registers[ code[pc + 3] ];
             }
-            else if(mode == Instruction.mode1_VALUE)
+            else if( code[pc] == Instruction.mode1_VALUE )
             {
-                sourceValue = inputFeatures[ (int) (instruction.getSourceRegister().getLongValue() % inputFeatures.length) ];
+                sourceValue = inputFeatures[ code[pc + 3] % inputFeatures.length ];
             }
             else
             {
-                sourceValue = TPGAlgorithm.memory.read( (int) (instruction.getSourceRegister().getLongValue()) );
+                sourceValue = TPGAlgorithm.memory.read( code[pc + 3] );
             }
 
             // Perform the appropriate operation
@@ -133,12 +155,6 @@ public class Program {
                 registers[destinationRegister] *= 2;
             else if( operation == Instruction.DIV_VALUE )
                 registers[destinationRegister] /= 2;
-                //			else if( operation == Instruction.COS_VALUE )
-                //				registers[destinationRegister] = Math.cos( sourceValue );
-                //			else if( operation == Instruction.LOG_VALUE )
-                //				registers[destinationRegister] = Math.log( Math.abs(sourceValue) );
-                //			else if( operation == Instruction.EXP_VALUE )
-                //				registers[destinationRegister] = Math.exp( sourceValue );
             else if( operation == Instruction.COND_VALUE )
             {
                 if( registers[destinationRegister] < sourceValue )
@@ -163,6 +179,33 @@ public class Program {
         return registers;
     }
 
+    // Decode every instruction of this program once into the flat form interpreted by run().
+    // Must be called whenever the instruction list changes; mutateProgram() does this itself.
+    public int[] compile()
+    {
+        int[] code = new int[program.size() * COMPILED_STRIDE];
+
+        for( int i = 0; i < program.size(); i++ )
+        {
+            Instruction instruction = program.get(i);
+            int offset = i * COMPILED_STRIDE;
+
+            int mode = (int)(instruction.getModeRegister().getLongValue() % Instruction.MODE_COUNT);
+            int source = (int) instruction.getSourceRegister().getLongValue();
+
+            code[offset] = mode;
+            code[offset + 1] = (int)(instruction.getOperationRegister().getLongValue() % Instruction.OPERATION_COUNT);
+            code[offset + 2] = (int) instruction.getDestinationRegister().getLongValue() % registerCount;
+
+            // Register sources can be resolved now; input sources depend on the length of the feature vector
+            // and memory sources are resolved by the memory model, so those keep the raw source value.
+            code[offset + 3] = mode == Instruction.mode0_VALUE ? source % registerCount : source;
+        }
+
+        compiled = code;
+        return code;
+    }
+
     // Perform various mutation operations to this program
     public boolean mutateProgram( double programDelete, double programAdd, double programSwap, double programMutate, int maxProgramSize, boolean canWrite)
     {
@@ -242,6 +285,10 @@ public class Program {
             changed = true;
         }
 
+        // The decoded form no longer matches the instructions, so rebuild it
+        if( changed )
+            compile();
+
         // If this Learner's program was mutated, return true
         return changed;
     }
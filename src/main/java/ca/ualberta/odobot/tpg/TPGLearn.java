@@ -310,6 +310,20 @@ public class TPGLearn
         return new double [numberofActionRegisters];
     }
 
+    // Given a specific Team and an input feature set, produce an action using the registers of the given
+    // execution context. This does not touch the Team queue, so it is safe to call concurrently for
+    // different Teams as long as each thread uses its own execution context.
+    public double[] participate( Team team, double[] inputFeatures, ExecutionContext context )
+    {
+        return team.getAction(new HashSet<Team>(), inputFeatures, context);
+    }
+
+    // Return a copy of the Teams remaining in the Team queue, in the order they will be rewarded
+    public List<Team> queuedTeams()
+    {
+        return new ArrayList<Team>(teamQueue);
+    }
+
     public boolean incrementFitnessDetail(String detail, double value)
     {
         // If there's no Team to reward, we don't bother
@@ -5,6 +5,7 @@ import ca.ualberta.odobot.elasticsearch.ElasticsearchService;
 import ca.ualberta.odobot.sqlite.SqliteService;
 import ca.ualberta.odobot.sqlite.impl.TrainingExemplar;
 import ca.ualberta.odobot.tpg.service.TPGService;
+import ca.ualberta.odobot.tpg.util.ColumnarDataset;
 import io.reactivex.rxjava3.core.Completable;
 
 
@@ -25,6 +26,8 @@ import io.vertx.serviceproxy.ServiceProxyBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -50,6 +53,9 @@ public class TPGVerticle extends AbstractVerticle {
 
     private DOMSequencingService domSequencingService;
 
+    //Columnar dataset files are only read from and written to this directory.
+    private Path datasetDirectory;
+
     HttpServer server;
     Router mainRouter;
 
@@ -65,7 +71,7 @@ public class TPGVerticle extends AbstractVerticle {
             elasticsearchService = elasticsearchServiceProxyBuilder.build(ElasticsearchService.class);
 
             //Initalize TPGService
-            tpgService = TPGService.create(elasticsearchService);
+            tpgService = TPGService.create(vertx.getDelegate(), elasticsearchService);
             new ServiceBinder(vertx.getDelegate())
                     .setAddress(TPG_SERVICE_ADDRESS)
                     .register(TPGService.class, tpgService);
@@ -79,6 +85,9 @@ public class TPGVerticle extends AbstractVerticle {
                     .setAddress(DOMSEQUENCING_SERVICE_ADDRESS);
             domSequencingService = domSequencingServiceProxyBuilder.build(DOMSequencingService.class);
 
+            datasetDirectory = Path.of(config().getString("datasetDirectory", "./tpg/datasets")).toAbsolutePath().normalize();
+            log.info("Columnar dataset directory: {}", datasetDirectory);
+
             //Set up http server
             HttpServerOptions options = new HttpServerOptions()
                     .setHost(HOST)
@@ -90,10 +99,13 @@ public class TPGVerticle extends AbstractVerticle {
             mainRouter = Router.router(vertx);
             api = Router.router(vertx);
 
-            api.route(HttpMethod.POST,"/train").handler(this::loadDataset);
+            api.route(HttpMethod.POST,"/train").handler(this::loadTrainingDataset);
             api.route(HttpMethod.POST, "/train").handler(this::trainHandler);
             api.route(HttpMethod.POST, "/identify").handler(this::loadDataset);
             api.route(HttpMethod.POST, "/identify").handler(this::identifyHandler);
+            api.route(HttpMethod.POST, "/export").handler(this::exportPathHandler);
+            api.route(HttpMethod.POST, "/export").handler(this::loadDataset);
+            api.route(HttpMethod.POST, "/export").handler(this::exportHandler);
             api.route(HttpMethod.POST, "/dehash").handler(this::dehashHandler);
 
             mainRouter.route().handler(LoggerHandler.create());
@@ -201,8 +213,95 @@ public class TPGVerticle extends AbstractVerticle {
         });
     }
 
-    private void trainHandler(RoutingContext rc){
+    /**
+     * Training tasks configured with a 'datasetFile' read their exemplars from a columnar dataset
+     * file (see {@link #exportHandler(RoutingContext)}), so there is no need to fetch the dataset from the database.
+     * @param rc
+     */
+    private void loadTrainingDataset(RoutingContext rc){
         JsonObject trainingTaskConfig = rc.body().asJsonObject();
+        if(trainingTaskConfig != null && trainingTaskConfig.containsKey("datasetFile")){
+            Path datasetFile = resolveDatasetFile(trainingTaskConfig.getString("datasetFile"));
+            if(datasetFile == null){
+                rc.response().setStatusCode(400).end("datasetFile must be within the dataset directory: " + datasetDirectory);
+                return;
+            }
+
+            trainingTaskConfig.put("datasetFile", datasetFile.toString());
+            rc.put("trainingTaskConfig", trainingTaskConfig);
+            rc.put("datasetJson", new JsonArray());
+            rc.next();
+            return;
+        }
+
+        loadDataset(rc);
+    }
+
+    /**
+     * Resolves the file a dataset should be exported to before the dataset is fetched. The optional 'path'
+     * parameter is resolved against the dataset directory, and requests for files outside of it are rejected.
+     * @param rc
+     */
+    private void exportPathHandler(RoutingContext rc){
+        String datasetName = rc.request().getParam("dataset");
+        Path datasetFile = resolveDatasetFile(rc.request().getParam("path", datasetName + ".odods"));
+        if(datasetFile == null){
+            rc.response().setStatusCode(400).end("path must be within the dataset directory: " + datasetDirectory);
+            return;
+        }
+
+        rc.put("datasetFile", datasetFile);
+        rc.next();
+    }
+
+    /**
+     * @param path a path relative to the dataset directory, or an absolute path within it.
+     * @return the normalized absolute path, or null if it does not point at a file within the dataset directory.
+     */
+    private Path resolveDatasetFile(String path){
+        if(path == null){
+            return null;
+        }
+
+        Path resolved;
+        try{
+            resolved = datasetDirectory.resolve(path).normalize();
+        }catch (InvalidPathException e){
+            return null;
+        }
+
+        return resolved.startsWith(datasetDirectory) && !resolved.equals(datasetDirectory)? resolved: null;
+    }
+
+    /**
+     * Writes a dataset into a columnar dataset file that can later be used for training by specifying
+     * its path as 'datasetFile' in the training task config.
+     * @param rc
+     */
+    private void exportHandler(RoutingContext rc){
+        String datasetName = rc.request().getParam("dataset");
+        Path path = rc.get("datasetFile");
+        List<TrainingExemplar> dataset = rc.get("dataset");
+
+        vertx.getDelegate().executeBlocking(()->{
+            ColumnarDataset.write(dataset, path);
+            return path.toString();
+        }).onSuccess(datasetFile->{
+            rc.response().setStatusCode(200).putHeader("Content-Type", "application/json").end(
+                    new JsonObject()
+                            .put("dataset", datasetName)
+                            .put("datasetFile", datasetFile)
+                            .put("size", dataset.size())
+                            .encodePrettily()
+            );
+        }).onFailure(err->{
+            log.error(err.getMessage(), err);
+            rc.response().setStatusCode(500).end(err.getMessage());
+        });
+    }
+
+    private void trainHandler(RoutingContext rc){
+        JsonObject trainingTaskConfig = rc.get("trainingTaskConfig", rc.body().asJsonObject());
         tpgService.train(trainingTaskConfig, rc.get("datasetJson"))
                 .onSuccess(done->{
                     log.info("Training complete!");
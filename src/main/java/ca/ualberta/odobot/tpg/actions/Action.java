@@ -7,6 +7,7 @@ import java.util.HashSet;
 import java.util.List;
 
 
+import ca.ualberta.odobot.tpg.ExecutionContext;
 import ca.ualberta.odobot.tpg.Program;
 import ca.ualberta.odobot.tpg.learners.Learner;
 import ca.ualberta.odobot.tpg.teams.Team;
@@ -84,21 +85,23 @@ public class Action<T extends ActionType>
 
     // Retrieve an action from this object
     public double[] getAction( HashSet<Team> visited, double[] inputFeatures )
+    {
+        return getAction(visited, inputFeatures, (ExecutionContext) null);
+    }
+
+    // Retrieve an action from this object, running any programs against the registers of the given execution context,
+    // or against their own registers if the context is null
+    public double[] getAction( HashSet<Team> visited, double[] inputFeatures, ExecutionContext context )
     {
         // If we are not storing an atomic action, then this action holds a Team.
         // Use the provided feature set to generate an action and return it.
-        //instead of this thing we are going to run an action program! yay!
-        //if this action is a team pointer:
         if (team != null)
         {
-            return team.getAction(visited, inputFeatures);
+            return team.getAction(visited, inputFeatures, context);
         }
-
-        //else we're going to run the action program
         else
         {
-            return action.process(inputFeatures);
-
+            return action.process(inputFeatures, context);
         }
     }
 
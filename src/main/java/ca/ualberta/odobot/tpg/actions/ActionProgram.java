@@ -3,6 +3,7 @@ package ca.ualberta.odobot.tpg.actions;
 
 import java.util.Arrays;
 
+import ca.ualberta.odobot.tpg.ExecutionContext;
 import ca.ualberta.odobot.tpg.Program;
 
 public class ActionProgram extends ActionType{
@@ -34,6 +35,11 @@ public class ActionProgram extends ActionType{
         return output;
     }
 
+    @Override
+    public double[] process(double[] inputFeatures, ExecutionContext context) {
+        return actionProgram.run(inputFeatures, context);
+    }
+
     @Override
     public ActionProgram copy() {
         return new ActionProgram(new Program(this.actionProgram));
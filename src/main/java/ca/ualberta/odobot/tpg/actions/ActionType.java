@@ -1,8 +1,16 @@
 package ca.ualberta.odobot.tpg.actions;
 
+import ca.ualberta.odobot.tpg.ExecutionContext;
+
 public abstract class ActionType {
 
     public abstract double[] process(double[] inputs);
+
+    // Action types that hold state between calls should override this to keep that state in the context
+    public double[] process(double[] inputs, ExecutionContext context)
+    {
+        return process(inputs);
+    }
     public abstract <T> T copy();
     public abstract boolean mutate(Long newLabel, double programDelete, double programAdd, double programSwap, double programMutate, int maxProgramSize, boolean canWrite);
     public abstract boolean equals(ActionType other);
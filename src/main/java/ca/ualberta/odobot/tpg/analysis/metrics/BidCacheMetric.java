@@ -0,0 +1,37 @@
+package ca.ualberta.odobot.tpg.analysis.metrics;
+
+import io.vertx.codegen.annotations.DataObject;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Learner bid memoization statistics for a generation. See {@link ca.ualberta.odobot.tpg.BidMemo}.
+ */
+@DataObject
+public class BidCacheMetric implements MetricComponent{
+
+    private static final String JSON_PREFIX = "bid_cache_";
+
+    public long hits;
+
+    public long misses;
+
+    public BidCacheMetric(){}
+
+    public BidCacheMetric(JsonObject data){
+        this.hits = data.getLong(JSON_PREFIX + "hits");
+        this.misses = data.getLong(JSON_PREFIX + "misses");
+    }
+
+    public double hitRate(){
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double)hits/(double)total;
+    }
+
+    public JsonObject toJson(){
+        return new JsonObject()
+                .put(JSON_PREFIX + "hits", hits)
+                .put(JSON_PREFIX + "misses", misses)
+                .put(JSON_PREFIX + "hitRate", hitRate());
+    }
+
+}
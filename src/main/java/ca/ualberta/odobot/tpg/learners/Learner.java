@@ -7,6 +7,7 @@ import ca.ualberta.odobot.tpg.actions.Action;
 import ca.ualberta.odobot.tpg.actions.ActionProgram;
 import ca.ualberta.odobot.tpg.actions.ActionType;
 import ca.ualberta.odobot.tpg.actions.ActionLabel;
+import ca.ualberta.odobot.tpg.ExecutionContext;
 import ca.ualberta.odobot.tpg.Program;
 
 
@@ -118,6 +119,23 @@ public class Learner
         return 1 / ( 1 + Math.exp( -run( inputFeatures )[0] ) );
     }
 
+    // Calculate a bid from the feature set through the bid memo of the given execution context, or directly
+    // if the context is null.
+    // If this Learner already bid on the same input, that bid is reused rather than running the bid program again.
+    public double bid( double[] inputFeatures, ExecutionContext context )
+    {
+        if( context == null )
+            return bid( inputFeatures );
+
+        return context.getBidMemo().bid( this, inputFeatures );
+    }
+
+    // Calculate a bid from the feature set, running the bid program on the given registers rather than its own
+    public double bid( double[] inputFeatures, double[] registers )
+    {
+        return 1 / ( 1 + Math.exp( -bidProgram.run( inputFeatures, registers )[0] ) );
+    }
+
     // Run the program on the given input feature set and return a pre-bid output
     protected double[] run( double[] inputFeatures )
     {
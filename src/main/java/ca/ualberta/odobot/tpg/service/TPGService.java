@@ -15,7 +15,7 @@ import java.util.Map;
 @ProxyGen
 public interface TPGService {
 
-    static TPGService create(ElasticsearchService elasticsearchService){ return new TPGServiceImpl(elasticsearchService); }
+    static TPGService create(Vertx vertx, ElasticsearchService elasticsearchService){ return new TPGServiceImpl(vertx, elasticsearchService); }
 
     static TPGService createProxy(Vertx vertx, String address){
         return new TPGServiceVertxEBProxy(vertx,address);
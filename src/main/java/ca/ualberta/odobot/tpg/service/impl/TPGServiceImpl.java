@@ -8,9 +8,12 @@ import ca.ualberta.odobot.tpg.analysis.TeamExecutionTrace;
 import ca.ualberta.odobot.tpg.learners.Learner;
 import ca.ualberta.odobot.tpg.service.TPGService;
 import ca.ualberta.odobot.tpg.teams.Team;
+import ca.ualberta.odobot.tpg.util.ColumnarDataset;
 import ca.ualberta.odobot.tpg.util.SaveLoad;
+import ca.ualberta.odobot.tpg.util.TrainingColumns;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import org.apache.commons.collections.list.AbstractLinkedList;
@@ -18,6 +21,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -29,7 +33,10 @@ public class TPGServiceImpl implements TPGService {
 
     private ElasticsearchService elasticsearchService;
 
-    public TPGServiceImpl(ElasticsearchService elasticsearchService){
+    private Vertx vertx;
+
+    public TPGServiceImpl(Vertx vertx, ElasticsearchService elasticsearchService){
+        this.vertx = vertx;
         this.elasticsearchService = elasticsearchService;
         this.saveLoad = new SaveLoad();
 
@@ -37,15 +44,33 @@ public class TPGServiceImpl implements TPGService {
 
     @Override
     public Future<JsonObject> train(JsonObject config, JsonArray data) {
-        Promise<TPGAlgorithm> promise = Promise.promise();
+        if(config.containsKey("datasetFile")){
+            //Train from a columnar dataset file produced by the /export endpoint instead of the JSON payload.
+            //Training reads the file's columns directly, so it stays open until training is done.
+            return vertx.executeBlocking(()->ColumnarDataset.open(Path.of(config.getString("datasetFile"))))
+                    .onFailure(err->log.error(err.getMessage(), err))
+                    .compose(columnarDataset->{
+                        log.info("Opened {} with {} exemplars", config.getString("datasetFile"), columnarDataset.size());
+                        return train(config, columnarDataset).onComplete(done->{
+                            try{
+                                columnarDataset.close();
+                            }catch (IOException ioe){
+                                log.error(ioe.getMessage(), ioe);
+                            }
+                        });
+                    });
+        }
+
         List<TrainingExemplar> dataset = data.stream().map(o->TrainingExemplar.fromJson((JsonObject)o)).collect(Collectors.toList());
+        return train(config, TrainingColumns.of(dataset));
+    }
 
+    private Future<JsonObject> train(JsonObject config, TrainingColumns dataset){
+        Promise<TPGAlgorithm> promise = Promise.promise();
 
         //Need to capture this before getTestData() as that method will remove test exemplars from the original dataset.
         int originalDatasetSize = dataset.size();
 
-        Collections.shuffle(dataset);
-
         //Balance & Split dataset
         //NOTE: The exemplars in the test dataset will be removed from the training dataset, and by reference also the dataset.
         //Hence why originalDatasetSize is captured beforehand for metrics.
@@ -0,0 +1,206 @@
+package ca.ualberta.odobot.tpg.service.impl;
+
+import ca.ualberta.odobot.tpg.BidMemo;
+import ca.ualberta.odobot.tpg.ExecutionContext;
+import ca.ualberta.odobot.tpg.TPGLearn;
+import ca.ualberta.odobot.tpg.analysis.metrics.BidCacheMetric;
+import ca.ualberta.odobot.tpg.analysis.metrics.LabelClassificationMetric;
+import ca.ualberta.odobot.tpg.analysis.metrics.MetricContext;
+import ca.ualberta.odobot.tpg.teams.Team;
+import ca.ualberta.odobot.tpg.util.TrainingColumns;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Scores root teams over the training rows of a dataset for {@link TrainingTaskImpl}.
+ *
+ * Teams are evaluated one exemplar at a time: every team classifies an exemplar before any team moves on to the
+ * next one, so that all teams share a single {@link BidMemo} and each learner bids at most once per exemplar. Teams
+ * classify an exemplar on the calling thread, or concurrently on a worker pool when one is given. Both modes run the
+ * same evaluation for every team, and each team keeps its own {@link ExecutionContext}, so the results do not depend
+ * on the mode or the number of threads.
+ */
+public class TeamEvaluator {
+
+    /**
+     * The result of scoring a single root team over the training exemplars.
+     */
+    public record TeamEvaluation(Team team, double reward, Map<Integer, LabelClassificationMetric> labelClassificationMap){}
+
+    /**
+     * The evaluation state of a single root team, carried from one exemplar to the next.
+     */
+    private static class TeamState{
+        final Team team;
+        final ExecutionContext context;
+        final Map<Integer,LabelClassificationMetric> labelClassificationMap = new HashMap<>();
+        int correct = 0;
+
+        TeamState(Team team, BidMemo bidMemo){
+            this.team = team;
+            this.context = new ExecutionContext(bidMemo);
+        }
+    }
+
+    private final TrainingColumns dataset;
+
+    //The rows of the dataset to score teams over.
+    private final List<Integer> trainingRows;
+
+    private final long [] pathActions;
+
+    private final int numberOfActionRegisters;
+
+    private final boolean focusOnOneLabel;
+
+    private final int focusLabel;
+
+    //Only used, and must only be set, when focusing on one label.
+    private final Integer samplesPerLabel;
+
+    //Null when evaluating sequentially.
+    private final ExecutorService pool;
+
+    //The number of tasks teams are split into for every exemplar when evaluating on the pool.
+    private final int parallelism;
+
+    /**
+     * @param dataset
+     * @param trainingRows the rows of the dataset to score teams over.
+     * @param pathActions the labels that action register 0 is mapped onto.
+     * @param numberOfActionRegisters
+     * @param focusOnOneLabel if true, only correct classifications of the focus label count.
+     * @param focusLabel
+     * @param samplesPerLabel the number of training samples per label, used to compute rewards when focusing on one label.
+     * @param pool the pool to evaluate teams on, or null to evaluate them on the calling thread.
+     * @param parallelism the number of threads in the pool.
+     */
+    public TeamEvaluator(TrainingColumns dataset, List<Integer> trainingRows, long [] pathActions, int numberOfActionRegisters, boolean focusOnOneLabel, int focusLabel, Integer samplesPerLabel, ExecutorService pool, int parallelism){
+        this.dataset = dataset;
+        this.trainingRows = trainingRows;
+        this.pathActions = pathActions;
+        this.numberOfActionRegisters = numberOfActionRegisters;
+        this.focusOnOneLabel = focusOnOneLabel;
+        this.focusLabel = focusLabel;
+        this.samplesPerLabel = samplesPerLabel;
+        this.pool = pool;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * @param tpg the TPGLearn instance the teams belong to
+     * @param teams the root teams to score
+     * @param bidCacheMetric bid memo statistics for the evaluation are added to this metric.
+     * @return team evaluations in the same order as the input teams
+     */
+    public List<TeamEvaluation> evaluate(TPGLearn tpg, List<Team> teams, BidCacheMetric bidCacheMetric) throws InterruptedException, ExecutionException {
+
+        BidMemo bidMemo = new BidMemo();
+        List<TeamState> states = teams.stream().map(team->new TeamState(team, bidMemo)).collect(Collectors.toList());
+
+        //Contiguous slices of the teams, one per task, when evaluating on the pool.
+        int sliceSize = (states.size() + parallelism - 1) / parallelism;
+        List<List<TeamState>> slices = new ArrayList<>();
+        for(int i = 0; i < states.size(); i += sliceSize){
+            slices.add(states.subList(i, Math.min(states.size(), i + sliceSize)));
+        }
+
+        //Feature vectors of columnar datasets are copied into this buffer, one row at a time.
+        double [] buffer = null;
+
+        for(int row: trainingRows){
+
+            double [] featureVector = buffer = dataset.featureVector(row, buffer);
+            int label = dataset.label(row, 0);
+
+            bidMemo.nextExemplar(featureVector);
+
+            if(pool == null){
+                states.forEach(state->classify(tpg, state, row, featureVector, label));
+                continue;
+            }
+
+            List<Callable<Void>> tasks = slices.stream()
+                    .map(slice->(Callable<Void>)()->{
+                        slice.forEach(state->classify(tpg, state, row, featureVector, label));
+                        return null;
+                    })
+                    .collect(Collectors.toList());
+
+            //Wait for every team to classify this exemplar before the memo moves on to the next one.
+            for(Future<Void> future: pool.invokeAll(tasks)){
+                future.get();
+            }
+        }
+
+        bidCacheMetric.hits += bidMemo.getHits();
+        bidCacheMetric.misses += bidMemo.getMisses();
+
+        return states.stream().map(this::result).collect(Collectors.toList());
+    }
+
+    /**
+     * Has a single root team classify an exemplar. Safe to call concurrently for different teams, as all action
+     * program registers live in the team's own {@link ExecutionContext}.
+     */
+    private void classify(TPGLearn tpg, TeamState state, int row, double [] featureVector, int label){
+
+        double [] registerArray = tpg.participate(state.team, featureVector, state.context);
+
+        double [] action = Arrays.copyOf(registerArray, numberOfActionRegisters);
+
+        long predictedLabel = pathActions[(int)Math.floor(Math.abs(action[0]))%pathActions.length];
+
+        /** Tabulate the number of times a particular label is correctly classified
+         * We store this statistic in a {@link LabelClassificationMetric } object.
+         * The hashmap {@link labelClassificationMap } contains LabelClassificationMetrics for each label.
+         * So we fetch the appropriate object for the current training exemplar, and call its corresponding
+         * {@link LabelClassificationMetric#addCorrect()} or {@link LabelClassificationMetric#addIncorrect()} method.
+         *
+         * Then we update the hashmap.
+         * */
+        LabelClassificationMetric labelClassificationMetric = state.labelClassificationMap.get(label);
+        if(labelClassificationMetric == null){
+            labelClassificationMetric = new LabelClassificationMetric(dataset.path(row), label);
+        }
+
+        boolean isCorrect = focusOnOneLabel? isCorrect(predictedLabel, label, focusLabel): isCorrect(predictedLabel, label);
+
+        if(isCorrect){
+            state.correct+=1;
+            labelClassificationMetric.addCorrect();
+        }else{
+            labelClassificationMetric.addIncorrect();
+        }
+        labelClassificationMetric.context = MetricContext.TRAINING;
+        labelClassificationMetric.teamId = Optional.of(state.team.ID);
+        state.labelClassificationMap.put(label, labelClassificationMetric);
+    }
+
+    private TeamEvaluation result(TeamState state){
+
+        //Compute reward to give to the team
+        double reward;
+        if(focusOnOneLabel){
+            reward = ((double)state.correct/(double)samplesPerLabel)*100.0;
+        }else{
+            reward = ((double)state.correct/(double)trainingRows.size())*100.0;
+        }
+
+        return new TeamEvaluation(state.team, reward, state.labelClassificationMap);
+    }
+
+    static boolean isCorrect(long predictedLabel, int label, int focusLabel){
+        return predictedLabel == label && label == focusLabel;
+    }
+
+    static boolean isCorrect(long predictedLabel, int label){
+        return predictedLabel == label;
+    }
+
+}
@@ -7,14 +7,18 @@ import ca.ualberta.odobot.tpg.TPGLearn;
 import ca.ualberta.odobot.tpg.analysis.metrics.*;
 import ca.ualberta.odobot.tpg.teams.Team;
 import ca.ualberta.odobot.tpg.util.SaveLoad;
+import ca.ualberta.odobot.tpg.util.TrainingColumns;
 import io.vertx.core.Promise;
 import io.vertx.core.json.JsonObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
 
 public class TrainingTaskImpl implements Runnable {
 
@@ -25,12 +29,13 @@ public class TrainingTaskImpl implements Runnable {
 
     private static final String ES_INDEX_LABEL_CLASSIFICATION = "tpg-service-label-classifications";
     JsonObject config;
-    List<TrainingExemplar> dataset;
+    TrainingColumns dataset;
 
     ElasticsearchService elasticsearchService;
 
-    List<TrainingExemplar> trainingData = new ArrayList<>();
-    List<TrainingExemplar> testData = new ArrayList<>();
+    //Rows of the dataset used for training and testing.
+    List<Integer> trainingData = new ArrayList<>();
+    List<Integer> testData = new ArrayList<>();
     Promise<TPGAlgorithm> taskPromise;
 
 
@@ -44,8 +49,12 @@ public class TrainingTaskImpl implements Runnable {
 
     SaveLoad saveLoad;
 
+    /**
+     * When parallel evaluation is enabled, root teams are scored concurrently on this pool by the {@link TeamEvaluator}.
+     */
+    ExecutorService evaluationPool;
 
-    public TrainingTaskImpl(Promise<TPGAlgorithm> promise, JsonObject config, ElasticsearchService elasticsearchService, List<TrainingExemplar> trainingDataset){
+    public TrainingTaskImpl(Promise<TPGAlgorithm> promise, JsonObject config, ElasticsearchService elasticsearchService, TrainingColumns trainingDataset){
         this.taskPromise = promise;
         this.dataset = trainingDataset;
         this.config = config;
@@ -54,12 +63,14 @@ public class TrainingTaskImpl implements Runnable {
 
         int originalDatasetSize = trainingDataset.size();
 
-        Collections.shuffle(this.dataset);
+        List<Integer> rows = IntStream.range(0, trainingDataset.size()).boxed().collect(Collectors.toList());
+
+        Collections.shuffle(rows);
         //this.dataset = balanceDataset(this.dataset, config.getInteger("samplesPerLabel"));
-        int balancedDatasetSize = this.dataset.size();
-        this.testData = getProportionalTestData(dataset, (int)(config.getDouble("testSetSize") * dataset.size()));
+        int balancedDatasetSize = rows.size();
+        this.testData = getProportionalTestData(rows, (int)(config.getDouble("testSetSize") * rows.size()));
         //this.testData = getTestData(this.dataset, config.getInteger("testSamplesPerLabel"));
-        this.trainingData = this.dataset;
+        this.trainingData = rows;
 
         log.info("Original dataset size: {} trainingData size: {} testData size: {}", originalDatasetSize, trainingData.size(), testData.size());
 
@@ -85,24 +96,24 @@ public class TrainingTaskImpl implements Runnable {
 
     }
 
-    private List<TrainingExemplar> getProportionalTestData(List<TrainingExemplar> dataset, int testSetSize){
-        log.info("Computing proportional test data, target testSetSize: {} datasetSize: {}", testSetSize, dataset.size());
-        List<TrainingExemplar> testDataset = new ArrayList<>();
+    private List<Integer> getProportionalTestData(List<Integer> rows, int testSetSize){
+        log.info("Computing proportional test data, target testSetSize: {} datasetSize: {}", testSetSize, rows.size());
+        List<Integer> testDataset = new ArrayList<>();
 
-        Map<Integer, Double> proportionalDistribution = computeProportionalDistribution(dataset);
+        Map<Integer, Double> proportionalDistribution = computeProportionalDistribution(rows);
         Map<Integer, Integer> instanceMap = computeTargetDistribution(proportionalDistribution, testSetSize);
 
-        Collections.shuffle(dataset);//TODO - this sort of thing should probably be done first. So as to single responsibility principle...
+        Collections.shuffle(rows);//TODO - this sort of thing should probably be done first. So as to single responsibility principle...
 
         Map<Integer, Integer> testDistribution = new LinkedHashMap<>();
-        Iterator<TrainingExemplar> it = dataset.iterator();
+        Iterator<Integer> it = rows.iterator();
 
         while (it.hasNext()) {
-            TrainingExemplar exemplar = it.next();
-            int label = exemplar.labels()[0];
+            int row = it.next();
+            int label = dataset.label(row, 0);
             int count = testDistribution.getOrDefault(label, 0);
             if (count < instanceMap.get(label)) {
-                testDataset.add(exemplar);
+                testDataset.add(row);
                 it.remove();
                 testDistribution.put(label, count + 1);
             }
@@ -133,9 +144,9 @@ public class TrainingTaskImpl implements Runnable {
         return result;
     }
 
-    private Map<Integer, Double> computeProportionalDistribution(List<TrainingExemplar> exemplars){
-        double datasetSize = exemplars.size();
-        Map<Integer, Integer> distribution = computeDistribution(exemplars);
+    private Map<Integer, Double> computeProportionalDistribution(List<Integer> rows){
+        double datasetSize = rows.size();
+        Map<Integer, Integer> distribution = computeDistribution(rows);
         Map<Integer, Double> result = new LinkedHashMap<>();
 
         distribution.forEach((label, frequency)->{
@@ -145,11 +156,11 @@ public class TrainingTaskImpl implements Runnable {
         return result;
     }
 
-    private Map<Integer, Integer> computeDistribution(List<TrainingExemplar> exemplars){
+    private Map<Integer, Integer> computeDistribution(List<Integer> rows){
         Map<Integer, Integer> distribution = new LinkedHashMap<>();
-        exemplars.forEach(exemplar->{
-            int count = distribution.getOrDefault(exemplar.labels()[0], 0);
-            distribution.put(exemplar.labels()[0], count+1);
+        rows.forEach(row->{
+            int count = distribution.getOrDefault(dataset.label(row, 0), 0);
+            distribution.put(dataset.label(row, 0), count+1);
         });
         return distribution;
     }
@@ -260,6 +271,16 @@ public class TrainingTaskImpl implements Runnable {
         boolean focusOnOneLabel = config.getBoolean("focusOnOneLabel", false);
         int focusLabel = config.getInteger("focusLabel", -1);
 
+        boolean parallelEvaluation = config.getBoolean("parallelEvaluation", false);
+        int evaluationThreads = config.getInteger("evaluationThreads", Runtime.getRuntime().availableProcessors());
+        if(parallelEvaluation){
+            evaluationPool = Executors.newFixedThreadPool(evaluationThreads);
+            log.info("Evaluating root teams in parallel using {} threads", evaluationThreads);
+        }
+
+        TeamEvaluator teamEvaluator = new TeamEvaluator(dataset, trainingData, pathActions, Integer.parseInt(config.getString("numberofActionRegisters")),
+                focusOnOneLabel, focusLabel, datasetMetric.numberOfSamplesPerLabelInTrainingDataset, evaluationPool, evaluationThreads);
+
 
         /*
          *  Set some dummy actions, these won't actually be used unless config.getString("numberofActionRegisters") is "-1".
@@ -296,73 +317,19 @@ public class TrainingTaskImpl implements Runnable {
             runtimeParameters.generation = Optional.of((long)i);
             runtimeParameters.numLearners = tpg.learners.size();
 
-            //Let every team classify
-            while (tpg.remainingTeams() > 0){
-
-                //Initialize data structure to track label-specific classification performance
-                Map<Integer,LabelClassificationMetric> labelClassificationMap = new HashMap<>();
-
-                //reset reward to 0 for each team that classifies
-                double reward = 0.0;
-                int correct = 0;
-                //Go through the training exemplars
-                Iterator<TrainingExemplar> it = trainingData.iterator();
-                while (it.hasNext()){
-
-                    TrainingExemplar exemplar = it.next();
-
-                    double [] registerArray = tpg.participate(exemplar.featureVector());
-
-                    double [] action = Arrays.copyOf(registerArray, Integer.parseInt(config.getString("numberofActionRegisters")) );
-
-                    long [] predictedLabel = new long [1];
-                    predictedLabel[0] = pathActions[(int)Math.floor(Math.abs(action[0]))%pathActions.length];
-
-                    /** Tabulate the number of times a particular label is correctly classified
-                     * We store this statistic in a {@link LabelClassificationMetric } object.
-                     * The hashmap {@link labelClassificationMap } contains LabelClassificationMetrics for each label.
-                     * So we fetch the appropriate object for the current training exemplar, and call its corresponding
-                     * {@link LabelClassificationMetric#addCorrect()} or {@link LabelClassificationMetric#addIncorrect()} method.
-                     *
-                     * Then we update the hashmap.
-                     * */
-                    LabelClassificationMetric labelClassificationMetric = labelClassificationMap.getOrDefault(exemplar.labels()[0], new LabelClassificationMetric(exemplar.extras().getString("path"), exemplar.labels()[0]));
-
-                    boolean isCorrect = false;
-                    if(focusOnOneLabel){
-                        isCorrect = isCorrect(predictedLabel[0], exemplar, focusLabel);
-                    }else{
-                        isCorrect = isCorrect(predictedLabel[0], exemplar);
-                    }
-
-                    if(isCorrect){
-                        correct+=1;
-                        labelClassificationMetric.addCorrect();
-                    }else{
-                        labelClassificationMetric.addIncorrect();
-                    }
-                    labelClassificationMetric.context = MetricContext.TRAINING;
-                    labelClassificationMetric.teamId = Optional.of(tpg.getCurrTeamID());
-                    labelClassificationMap.put(exemplar.labels()[0], labelClassificationMetric);
-
-                    //NOTE: this reward is overwritten by classification % later.
-                    reward += score(predictedLabel, exemplar);
-                }
-
-                //Compute reward to give to the current team
-//                reward = ((double)correct/(double)trainingData.size())*100.0;
+            //Learner bid memoization statistics.
+            BidCacheMetric bidCacheMetric = new BidCacheMetric();
 
-                if(focusOnOneLabel){
-                    reward = ((double)correct/(double)datasetMetric.numberOfSamplesPerLabelInTrainingDataset)*100.0;
-                }else{
-                    reward = ((double)correct/(double)trainingData.size())*100.0;
-                }
+            //Let every team classify, concurrently if parallel evaluation is enabled.
+            List<TeamEvaluator.TeamEvaluation> evaluations = teamEvaluator.evaluate(tpg, tpg.queuedTeams(), bidCacheMetric);
 
-                generationScoreSummary.put(Long.toString(tpg.getCurrTeamID()), reward);
-                tpg.reward(config.getString("trainingTaskName"), reward);
+            //Rewards are handed out in queue order, so the team at the head of the queue is always the one being rewarded.
+            for(TeamEvaluator.TeamEvaluation evaluation: evaluations){
+                generationScoreSummary.put(Long.toString(evaluation.team().ID), evaluation.reward());
+                tpg.reward(config.getString("trainingTaskName"), evaluation.reward());
 
                 //Send label classification metrics to elasticsearch.
-                List<JsonObject> labelClassificationData = labelClassificationMap.entrySet()
+                List<JsonObject> labelClassificationData = evaluation.labelClassificationMap().entrySet()
                         .stream()
                         .map(entry->new MetricBuilder()
                                 .addComponent(runMetric)
@@ -374,11 +341,12 @@ public class TrainingTaskImpl implements Runnable {
                         ).collect(Collectors.toList());
 
                 elasticsearchService.saveIntoIndex(labelClassificationData, ES_INDEX_LABEL_CLASSIFICATION)
-                        .onSuccess(done->log.info("Saved label classification data for team: {}", tpg.getCurrTeamID()))
+                        .onSuccess(done->log.info("Saved label classification data for team: {}", evaluation.team().ID))
                         .onFailure(err->log.error(err.getMessage(), err));
-
             }
 
+            log.info("Bid cache hits: {} misses: {} hit rate: {}", bidCacheMetric.hits, bidCacheMetric.misses, bidCacheMetric.hitRate());
+
 
             tpg.rootTeams.forEach(rootTeam->generationScoreSummary.put(Long.toString(rootTeam.ID), rootTeam.getOutcomeByKey(config.getString("trainingTaskName"))));
 
@@ -404,7 +372,7 @@ public class TrainingTaskImpl implements Runnable {
             fitnessMetric.maximum = Optional.of(generationMax);
             fitnessMetric.type = MetricContext.TRAINING;
 
-            JsonObject genData = new MetricBuilder().addComponent(runMetric).addComponent(datasetMetric).addComponent(runtimeParameters).addComponent(parametersMetric).addComponent(fitnessMetric).build();
+            JsonObject genData = new MetricBuilder().addComponent(runMetric).addComponent(datasetMetric).addComponent(runtimeParameters).addComponent(parametersMetric).addComponent(fitnessMetric).addComponent(bidCacheMetric).build();
             elasticsearchService.saveIntoIndex(List.of(genData), ES_INDEX_TRAINING_FITNESS)
                     .onSuccess(done->log.info("Generation training results saved in elasticsearch!"))
                     .onFailure(err->log.error(err.getMessage(), err));
@@ -435,6 +403,10 @@ public class TrainingTaskImpl implements Runnable {
 
         }
 
+        if(evaluationPool != null){
+            evaluationPool.shutdown();
+        }
+
         //Testing
         List<Team> rootTeams = tpgAlgorithm.getTPGLearn().getRootTeams();
 
@@ -452,12 +424,15 @@ public class TrainingTaskImpl implements Runnable {
             Map<Integer, LabelClassificationMetric> labelClassificationMap = new HashMap<>();
 
 
-            Iterator<TrainingExemplar> testDataIterator = testData.iterator();
+            Iterator<Integer> testDataIterator = testData.iterator();
             double reward = 0.0;
             int correct = 0;
+            double[] featureVector = null;
             while (testDataIterator.hasNext()) {
-                TrainingExemplar currExemplar = testDataIterator.next();
-                double[] registerArray = currTeam.getAction(new HashSet<>(), currExemplar.featureVector());
+                int currRow = testDataIterator.next();
+                int currLabel = dataset.label(currRow, 0);
+                featureVector = dataset.featureVector(currRow, featureVector);
+                double[] registerArray = currTeam.getAction(new HashSet<>(), featureVector);
 
                 double[] action = Arrays.copyOf(registerArray, Integer.parseInt(config.getString("numberofActionRegisters")));
 
@@ -472,13 +447,13 @@ public class TrainingTaskImpl implements Runnable {
                  *
                  * Then we update the hashmap.
                  * */
-                LabelClassificationMetric labelClassificationMetric = labelClassificationMap.getOrDefault(currExemplar.labels()[0], new LabelClassificationMetric(currExemplar.extras().getString("path"), currExemplar.labels()[0]));
+                LabelClassificationMetric labelClassificationMetric = labelClassificationMap.getOrDefault(currLabel, new LabelClassificationMetric(dataset.path(currRow), currLabel));
                 boolean isCorrect = false;
 
                 if(focusOnOneLabel){
-                    isCorrect = isCorrect(predictedLabel[0], currExemplar, focusLabel);
+                    isCorrect = TeamEvaluator.isCorrect(predictedLabel[0], currLabel, focusLabel);
                 }else{
-                    isCorrect = isCorrect(predictedLabel[0], currExemplar);
+                    isCorrect = TeamEvaluator.isCorrect(predictedLabel[0], currLabel);
                 }
 
                 if (isCorrect) {
@@ -489,10 +464,7 @@ public class TrainingTaskImpl implements Runnable {
                 }
                 labelClassificationMetric.context = MetricContext.TEST;
                 labelClassificationMetric.teamId = Optional.of(currTeam.ID);
-                labelClassificationMap.put(currExemplar.labels()[0], labelClassificationMetric);
-
-                //NOTE: gets overriden by % classification later.
-                reward += score(predictedLabel, currExemplar);
+                labelClassificationMap.put(currLabel, labelClassificationMetric);
 
             }
 
@@ -566,45 +538,13 @@ public class TrainingTaskImpl implements Runnable {
 
         }catch (Exception e){
             log.error(e.getMessage(), e);
+        }finally {
+            if(evaluationPool != null){
+                evaluationPool.shutdownNow();
+            }
         }
     }
 
-    private boolean isCorrect(long predictedLabel, TrainingExemplar exemplar, int focusLabel){
-        long [] correctLabel = Arrays.stream(exemplar.labels()).mapToLong(i->(long)i).toArray();
-
-
-
-        if (predictedLabel == correctLabel[0] && correctLabel[0] == (long)focusLabel){
-            return true;
-        }
-
-
-
-        return false;
-    }
-
-    private boolean isCorrect(long predictedLabel, TrainingExemplar exemplar){
-        long [] correctLabel = Arrays.stream(exemplar.labels()).mapToLong(i->(long)i).toArray();
-
-        return predictedLabel == correctLabel[0];
-    }
-
-    private double score(long [] predictedLabel, TrainingExemplar exemplar){
-        long [] correctLabel = Arrays.stream(exemplar.labels()).mapToLong(i->(long)i).toArray();
-
-        double score = 0.0;
-
-
-        if(predictedLabel[0] == correctLabel[0]){
-            score += 1.0;
-        }else{
-            score -= 1.0;
-        }
-
-
-        return score;
-    }
-
     /**
      * Generate an array of possible actions along a specific dimension of exemplar labels.
      *
@@ -615,10 +555,14 @@ public class TrainingTaskImpl implements Runnable {
      * @return
      */
     public static long [] generateActions(List<TrainingExemplar> dataset, int dimension){
+        return generateActions(TrainingColumns.of(dataset), dimension);
+    }
+
+    public static long [] generateActions(TrainingColumns dataset, int dimension){
 
         //Compile a set of unique labels for this dataset.
-        return dataset.stream()
-                .mapToLong(exemplar->exemplar.labels()[dimension])
+        return IntStream.range(0, dataset.size())
+                .mapToLong(row->dataset.label(row, dimension))
                 .distinct()
                 .toArray();
 
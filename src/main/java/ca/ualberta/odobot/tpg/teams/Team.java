@@ -9,6 +9,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import ca.ualberta.odobot.tpg.ExecutionContext;
 import ca.ualberta.odobot.tpg.actions.Action;
 import ca.ualberta.odobot.tpg.learners.Learner;
 import ca.ualberta.odobot.tpg.util.OpenDouble;
@@ -203,6 +204,14 @@ public class Team implements Comparable<Team>
 
     // Provide this Team with an input state set and return an action
     public double[] getAction( HashSet<Team> visited, double[] state )
+    {
+        return getAction(visited, state, (ExecutionContext) null);
+    }
+
+    // Provide this Team with an input state set and return an action, using the registers held by the given
+    // execution context rather than the registers stored on each Learner's program. With a null context the
+    // programs' own registers are used.
+    public double[] getAction( HashSet<Team> visited, double[] state, ExecutionContext context )
     {
         Learner bestLearner = null;
         double maxBid = 0;
@@ -225,7 +234,7 @@ public class Team implements Comparable<Team>
                 continue;
 
             // Otherwise we can get the Learner's bid
-            maxBid = learners.get(i).bid( state );
+            maxBid = learners.get(i).bid( state, context );
 
             // We've found our starting Learner, so break
             break;
@@ -239,7 +248,7 @@ public class Team implements Comparable<Team>
                 continue;
 
             // Otherwise get the bid from this Learner
-            nextBid = learners.get(i).bid( state );
+            nextBid = learners.get(i).bid( state, context );
 
             // If this bid is higher than the previous highest bid, store it and the Learner
             if( nextBid > maxBid )
@@ -255,7 +264,8 @@ public class Team implements Comparable<Team>
 
 
         // Return the action of the best Learner
-        return bestLearner.getActionObject().getAction(visited,state);
+        Action<?> action = bestLearner.getActionObject();
+        return action.getAction(visited, state, context);
     }
 
     public double[] getAction( HashSet<Team> visited, List<Learner> visitedLearners, double[] state )
@@ -0,0 +1,391 @@
+package ca.ualberta.odobot.tpg.util;
+
+import ca.ualberta.odobot.sqlite.impl.TrainingExemplar;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * @author Alexandru Ianta
+ *
+ * A compact, binary, column oriented store for TPG training datasets.
+ *
+ * The training_dataset table keeps feature vectors and labels as JSON text (with every number encoded as a string)
+ * next to the full DOM HTML of every exemplar. Loading a dataset from there means parsing all of that text and
+ * keeping the HTML on the heap for the whole training run. This format instead stores:
+ *
+ * <pre>
+ *  header          magic, version, row count, feature vector length, label count, section offsets
+ *  features        rows x featureVectorLength doubles
+ *  labels          rows x labelCount ints
+ *  ids             rows x 2 longs (most/least significant bits of the exemplar UUID)
+ *  side offsets    rows + 1 longs, the start of each row's side data relative to the side data section
+ *  side data       per row: source, dataset name, human feature vector, extras, DOM HTML as length prefixed UTF-8
+ * </pre>
+ *
+ * The dense sections are memory mapped, so feature vectors can be read straight out of the page cache. Side data
+ * (most importantly the DOM HTML) is only read from disk when asked for. Training reads the dataset through
+ * {@link TrainingColumns}, so exemplars are never materialized on the heap.
+ *
+ * Instances are safe to share between threads.
+ */
+public class ColumnarDataset implements TrainingColumns, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ColumnarDataset.class);
+
+    private static final byte [] MAGIC = "ODOTPGDS".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+
+    // Length prefix used for null side data strings
+    private static final int NULL_STRING = -1;
+
+    private final FileChannel channel;
+
+    private final int rows;
+    private final int featureVectorLength;
+    private final int labelCount;
+
+    // The feature matrix can easily exceed 2GB, the limit of a single mapping, so it is mapped in row aligned chunks.
+    private final MappedByteBuffer [] featureChunks;
+    private final int rowsPerFeatureChunk;
+
+    private final MappedByteBuffer labels;
+    private final MappedByteBuffer ids;
+    private final MappedByteBuffer sideOffsets;
+    private final long sideDataOffset;
+
+    // The path of every row, read from the extras side data the first time a path is asked for.
+    private volatile String [] paths;
+
+    private ColumnarDataset(FileChannel channel) throws IOException {
+        this.channel = channel;
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        header.flip();
+
+        byte [] magic = new byte[MAGIC.length];
+        header.get(magic);
+        if(!java.util.Arrays.equals(magic, MAGIC)){
+            throw new IOException("Not a columnar TPG dataset file.");
+        }
+
+        int version = header.getInt();
+        if(version != VERSION){
+            throw new IOException("Unsupported columnar dataset version: " + version);
+        }
+
+        rows = header.getInt();
+        featureVectorLength = header.getInt();
+        labelCount = header.getInt();
+        long featuresOffset = header.getLong();
+        long labelsOffset = header.getLong();
+        long idsOffset = header.getLong();
+        long sideOffsetsOffset = header.getLong();
+        sideDataOffset = header.getLong();
+
+        long rowBytes = (long)featureVectorLength * Double.BYTES;
+        rowsPerFeatureChunk = rowBytes == 0 ? Math.max(rows, 1) : (int)Math.max(1, Math.min(rows, Integer.MAX_VALUE / rowBytes));
+        int chunks = rows == 0 ? 0 : (rows + rowsPerFeatureChunk - 1) / rowsPerFeatureChunk;
+        featureChunks = new MappedByteBuffer[chunks];
+        for(int i = 0; i < chunks; i++){
+            int firstRow = i * rowsPerFeatureChunk;
+            int chunkRows = Math.min(rowsPerFeatureChunk, rows - firstRow);
+            featureChunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, featuresOffset + firstRow * rowBytes, chunkRows * rowBytes);
+        }
+
+        labels = channel.map(FileChannel.MapMode.READ_ONLY, labelsOffset, (long)rows * labelCount * Integer.BYTES);
+        ids = channel.map(FileChannel.MapMode.READ_ONLY, idsOffset, (long)rows * 2 * Long.BYTES);
+        sideOffsets = channel.map(FileChannel.MapMode.READ_ONLY, sideOffsetsOffset, (long)(rows + 1) * Long.BYTES);
+    }
+
+    /**
+     * Memory maps a dataset previously produced by {@link #write(List, Path)}.
+     */
+    public static ColumnarDataset open(Path path) throws IOException {
+        return new ColumnarDataset(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    @Override
+    public int size(){
+        return rows;
+    }
+
+    public int featureVectorLength(){
+        return featureVectorLength;
+    }
+
+    /**
+     * @return a read-only view of the feature vector of the given row, backed directly by the mapped file.
+     */
+    public DoubleBuffer featureVector(int row){
+        checkRow(row);
+        ByteBuffer chunk = featureChunks[row / rowsPerFeatureChunk].duplicate();
+        int start = (row % rowsPerFeatureChunk) * featureVectorLength * Double.BYTES;
+        chunk.position(start).limit(start + featureVectorLength * Double.BYTES);
+        return chunk.slice().asDoubleBuffer();
+    }
+
+    /**
+     * Copies the feature vector of the given row into destination, allocating a new array only if destination
+     * is null or of the wrong length.
+     * @return the array holding the feature vector.
+     */
+    @Override
+    public double [] featureVector(int row, double [] destination){
+        if(destination == null || destination.length != featureVectorLength){
+            destination = new double[featureVectorLength];
+        }
+        featureVector(row).get(destination);
+        return destination;
+    }
+
+    public int [] labels(int row){
+        checkRow(row);
+        int [] result = new int[labelCount];
+        int start = row * labelCount * Integer.BYTES;
+        for(int i = 0; i < labelCount; i++){
+            result[i] = labels.getInt(start + i * Integer.BYTES);
+        }
+        return result;
+    }
+
+    @Override
+    public int label(int row, int dimension){
+        checkRow(row);
+        if(dimension < 0 || dimension >= labelCount){
+            throw new IndexOutOfBoundsException("Label " + dimension + " out of bounds for dataset with " + labelCount + " labels");
+        }
+        return labels.getInt((row * labelCount + dimension) * Integer.BYTES);
+    }
+
+    @Override
+    public String path(int row){
+        checkRow(row);
+        String [] result = paths;
+        if(result == null){
+            result = loadPaths();
+        }
+        return result[row];
+    }
+
+    /**
+     * Reads the path out of the extras of every row. Most rows share a handful of paths, so equal paths are
+     * stored once.
+     */
+    private synchronized String [] loadPaths(){
+        if(paths != null){
+            return paths;
+        }
+
+        String [] result = new String[rows];
+        Map<String, String> distinct = new HashMap<>();
+        try{
+            for(int row = 0; row < rows; row++){
+                String extras = sideData(row, 4)[3];
+                String path = extras == null ? null : new JsonObject(extras).getString("path");
+                result[row] = path == null ? null : distinct.computeIfAbsent(path, key->key);
+            }
+        }catch (IOException ioe){
+            throw new UncheckedIOException(ioe);
+        }
+
+        paths = result;
+        return result;
+    }
+
+    public UUID id(int row){
+        checkRow(row);
+        int start = row * 2 * Long.BYTES;
+        return new UUID(ids.getLong(start), ids.getLong(start + Long.BYTES));
+    }
+
+    public JsonObject extras(int row) throws IOException {
+        String extras = sideData(row)[3];
+        return extras == null ? null : new JsonObject(extras);
+    }
+
+    public String domHTML(int row) throws IOException {
+        return sideData(row)[4];
+    }
+
+    /**
+     * Fully reconstructs the training exemplar at the given row, including its DOM HTML.
+     */
+    public TrainingExemplar exemplar(int row) throws IOException {
+        String [] side = sideData(row);
+        return new TrainingExemplar(
+                id(row),
+                side[0],
+                featureVector(row, null),
+                labels(row),
+                side[1],
+                side[2] == null ? null : new JsonArray(side[2]),
+                side[3] == null ? null : new JsonObject(side[3]),
+                side[4]
+        );
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private String [] sideData(int row) throws IOException {
+        return sideData(row, 5);
+    }
+
+    /**
+     * Reads the first fieldCount side data strings of a row.
+     */
+    private String [] sideData(int row, int fieldCount) throws IOException {
+        checkRow(row);
+        long start = sideOffsets.getLong(row * Long.BYTES);
+        long end = sideOffsets.getLong((row + 1) * Long.BYTES);
+
+        ByteBuffer buffer = ByteBuffer.allocate((int)(end - start));
+        long position = sideDataOffset + start;
+        while (buffer.hasRemaining()){
+            int read = channel.read(buffer, position + buffer.position());
+            if(read < 0){
+                throw new EOFException("Unexpected end of side data for row " + row);
+            }
+        }
+        buffer.flip();
+
+        String [] result = new String[5];
+        for(int i = 0; i < fieldCount; i++){
+            int length = buffer.getInt();
+            if(length == NULL_STRING){
+                continue;
+            }
+            byte [] bytes = new byte[length];
+            buffer.get(bytes);
+            result[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return result;
+    }
+
+    private void checkRow(int row){
+        if(row < 0 || row >= rows){
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for dataset of size " + rows);
+        }
+    }
+
+    /**
+     * Writes training exemplars into a columnar dataset file. All exemplars must have feature vectors of the same
+     * length and the same number of labels, which is the case for datasets produced by log preprocessing as feature
+     * vectors are padded.
+     */
+    public static void write(List<TrainingExemplar> exemplars, Path path) throws IOException {
+
+        int rows = exemplars.size();
+        int featureVectorLength = rows == 0 ? 0 : exemplars.get(0).featureVector().length;
+        int labelCount = rows == 0 ? 0 : exemplars.get(0).labels().length;
+
+        for(TrainingExemplar exemplar: exemplars){
+            if(exemplar.featureVector().length != featureVectorLength || exemplar.labels().length != labelCount){
+                throw new IllegalArgumentException("Exemplar " + exemplar.id() + " does not have the same feature vector length or number of labels as the rest of the dataset.");
+            }
+        }
+
+        long featuresOffset = HEADER_SIZE;
+        long labelsOffset = featuresOffset + (long)rows * featureVectorLength * Double.BYTES;
+        long idsOffset = labelsOffset + (long)rows * labelCount * Integer.BYTES;
+        long sideOffsetsOffset = idsOffset + (long)rows * 2 * Long.BYTES;
+        long sideDataOffset = sideOffsetsOffset + (long)(rows + 1) * Long.BYTES;
+
+        if(path.getParent() != null){
+            Files.createDirectories(path.getParent());
+        }
+
+        long [] sideOffsets = new long[rows + 1];
+
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))){
+            out.write(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(rows);
+            out.writeInt(featureVectorLength);
+            out.writeInt(labelCount);
+            out.writeLong(featuresOffset);
+            out.writeLong(labelsOffset);
+            out.writeLong(idsOffset);
+            out.writeLong(sideOffsetsOffset);
+            out.writeLong(sideDataOffset);
+
+            for(TrainingExemplar exemplar: exemplars){
+                for(double value: exemplar.featureVector()){
+                    out.writeDouble(value);
+                }
+            }
+
+            for(TrainingExemplar exemplar: exemplars){
+                for(int label: exemplar.labels()){
+                    out.writeInt(label);
+                }
+            }
+
+            for(TrainingExemplar exemplar: exemplars){
+                out.writeLong(exemplar.id().getMostSignificantBits());
+                out.writeLong(exemplar.id().getLeastSignificantBits());
+            }
+
+            //Side offsets are only known once side data is written, reserve space for them and fill them in afterwards.
+            for(int i = 0; i <= rows; i++){
+                out.writeLong(0L);
+            }
+
+            long position = 0;
+            for(int row = 0; row < rows; row++){
+                TrainingExemplar exemplar = exemplars.get(row);
+                sideOffsets[row] = position;
+                position += writeString(out, exemplar.source());
+                position += writeString(out, exemplar.datasetName());
+                position += writeString(out, exemplar.humanFeatureVector() == null ? null : exemplar.humanFeatureVector().encode());
+                position += writeString(out, exemplar.extras() == null ? null : exemplar.extras().encode());
+                position += writeString(out, exemplar.domHTML());
+            }
+            sideOffsets[rows] = position;
+        }
+
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)){
+            ByteBuffer buffer = ByteBuffer.allocate(sideOffsets.length * Long.BYTES);
+            buffer.asLongBuffer().put(sideOffsets);
+            channel.write(buffer, sideOffsetsOffset);
+        }
+
+        log.info("Wrote {} exemplars ({} features, {} labels) to {}", rows, featureVectorLength, labelCount, path);
+    }
+
+    /**
+     * @return the number of bytes written.
+     */
+    private static int writeString(DataOutputStream out, String value) throws IOException {
+        if(value == null){
+            out.writeInt(NULL_STRING);
+            return Integer.BYTES;
+        }
+
+        byte [] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        return Integer.BYTES + bytes.length;
+    }
+
+}
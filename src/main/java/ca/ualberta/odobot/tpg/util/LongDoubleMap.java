@@ -0,0 +1,124 @@
+package ca.ualberta.odobot.tpg.util;
+
+import java.util.Arrays;
+
+/**
+ * A small open-addressing map from primitive long keys to primitive double values.
+ *
+ * Intended for hot paths that are cleared and refilled very often (ex: once per training exemplar), so
+ * {@link #clear()} is O(1): every slot carries the generation it was written in, and bumping the generation
+ * invalidates all existing entries without touching the arrays.
+ *
+ * Not thread safe.
+ */
+public class LongDoubleMap
+{
+    private static final double MAX_LOAD = 0.5;
+
+    private long[] keys;
+    private double[] values;
+    private int[] generations;
+
+    // Slots whose generation differs from this one are empty
+    private int generation = 1;
+
+    private int size = 0;
+    private int mask;
+
+    public LongDoubleMap()
+    {
+        this(64);
+    }
+
+    public LongDoubleMap( int expectedSize )
+    {
+        int capacity = Integer.highestOneBit(Math.max(4, (int)(expectedSize / MAX_LOAD)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    // Return the value stored for key, or NaN if there is no entry for key
+    public double get( long key )
+    {
+        int slot = slotOf(key);
+        while( generations[slot] == generation )
+        {
+            if( keys[slot] == key )
+                return values[slot];
+
+            slot = (slot + 1) & mask;
+        }
+
+        return Double.NaN;
+    }
+
+    // Store value for key, replacing any existing value
+    public void put( long key, double value )
+    {
+        int slot = slotOf(key);
+        while( generations[slot] == generation )
+        {
+            if( keys[slot] == key )
+            {
+                values[slot] = value;
+                return;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        generations[slot] = generation;
+
+        if( ++size > keys.length * MAX_LOAD )
+            grow();
+    }
+
+    // Remove every entry from the map
+    public void clear()
+    {
+        size = 0;
+
+        // On the (very) unlikely event the generation counter wraps, wipe the slots for real.
+        if( ++generation == Integer.MAX_VALUE )
+        {
+            Arrays.fill(generations, 0);
+            generation = 1;
+        }
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    private int slotOf( long key )
+    {
+        // Fibonacci hashing spreads sequential ids (which is what learner ids are) across the table
+        return (int)((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    private void allocate( int capacity )
+    {
+        keys = new long[capacity];
+        values = new double[capacity];
+        generations = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private void grow()
+    {
+        long[] oldKeys = keys;
+        double[] oldValues = values;
+        int[] oldGenerations = generations;
+        int oldGeneration = generation;
+
+        allocate(oldKeys.length * 2);
+        size = 0;
+        generation = 1;
+
+        for( int i = 0; i < oldKeys.length; i++ )
+            if( oldGenerations[i] == oldGeneration )
+                put(oldKeys[i], oldValues[i]);
+    }
+}
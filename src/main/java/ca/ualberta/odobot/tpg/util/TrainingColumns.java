@@ -0,0 +1,57 @@
+package ca.ualberta.odobot.tpg.util;
+
+import ca.ualberta.odobot.sqlite.impl.TrainingExemplar;
+
+import java.util.List;
+
+/**
+ * Row addressed access to the parts of a training dataset that TPG training looks at: the feature vector, labels
+ * and path of every exemplar.
+ *
+ * {@link ColumnarDataset} reads these straight out of its memory mapped columns, {@link #of(List)} adapts
+ * exemplars that are already on the heap.
+ */
+public interface TrainingColumns {
+
+    int size();
+
+    /**
+     * @param row
+     * @param destination an array the feature vector may be copied into, may be null.
+     * @return the feature vector of the row. Implementations holding feature vectors on the heap return them
+     * directly rather than copying them into destination, so callers must not modify the returned array.
+     */
+    double [] featureVector(int row, double [] destination);
+
+    int label(int row, int dimension);
+
+    /**
+     * @return the path of the exemplar at the given row, the human readable name of its label.
+     */
+    String path(int row);
+
+    static TrainingColumns of(List<TrainingExemplar> exemplars){
+        return new TrainingColumns() {
+            @Override
+            public int size() {
+                return exemplars.size();
+            }
+
+            @Override
+            public double[] featureVector(int row, double[] destination) {
+                return exemplars.get(row).featureVector();
+            }
+
+            @Override
+            public int label(int row, int dimension) {
+                return exemplars.get(row).labels()[dimension];
+            }
+
+            @Override
+            public String path(int row) {
+                return exemplars.get(row).extras().getString("path");
+            }
+        };
+    }
+
+}
@@ -2,6 +2,7 @@ package ca.ualberta.odobot.web;
 
 import ca.ualberta.odobot.elasticsearch.ElasticsearchService;
 import ca.ualberta.odobot.sqlite.LogParser;
+import ca.ualberta.odobot.sqlite.impl.DbLogEntry;
 import ca.ualberta.odobot.sqlite.SqliteService;
 import io.reactivex.rxjava3.core.Completable;
 import io.vertx.core.Future;
@@ -414,7 +415,9 @@ public class OdoSightSupport extends AbstractVerticle {
             String dayString = f.format(new Date());
 
             String logPath = DATABASE_LOG_NAME_PREFIX + dayString + DATABASE_LOG_NAME_SUFFIX;
-            LogParser logParser = new LogParser(logEntry->sqliteService.insertLogEntry(logEntry.toJson()));
+            LogParser logParser = new LogParser(vertx.getDelegate(), batch->sqliteService.insertLogEntries(batch.stream()
+                    .map(DbLogEntry::toJson)
+                    .collect(JsonArray::new, JsonArray::add, JsonArray::addAll)));
             logParser.parseDatabaseLogFile(logPath)
                     .onSuccess(done->log.info("Parsed {} database audit log entries", logParser.parseCount))
                     .onFailure(err->log.error(err.getMessage(), err));
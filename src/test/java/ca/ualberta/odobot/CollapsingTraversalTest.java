@@ -0,0 +1,85 @@
+package ca.ualberta.odobot;
+
+import ca.ualberta.odobot.semanticflow.navmodel.Collapse;
+import ca.ualberta.odobot.semanticflow.navmodel.CollapsingTraversal;
+import ca.ualberta.odobot.semanticflow.navmodel.GraphDB;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+public class CollapsingTraversalTest {
+
+    /**
+     * The fixture holds two components:
+     *
+     * a -> b1 -> e -> f
+     * a -> b2 -> e
+     *
+     * where b1 and b2 are click nodes that should be collapsed into one, and b1 also has a PARAM relationship, and
+     *
+     * x => y -> z
+     *
+     * where x has two parallel NEXT edges to y. The parallel edges have nothing between them to collapse. Applying
+     * that collapse would add a third parallel edge, which would be found again on every pass, so the pass would
+     * never end.
+     */
+    @Test
+    void collapsePass(@TempDir Path directory) throws Exception {
+
+        GraphDB graphDB = new GraphDB(directory.toString(), "neo4j");
+        try{
+            graphDB.db.executeTransactionally("""
+                    CREATE (a:ClickNode:NavNode {id:'a', instances:['1','2']}),
+                           (b1:ClickNode:NavNode {id:'b1', instances:['1'], xpath:'/html/body/button[1]', text:'Save'}),
+                           (b2:ClickNode:NavNode {id:'b2', instances:['2'], xpath:'/html/body/button[2]', text:'Save'}),
+                           (e:EffectNode:NavNode {id:'e', instances:['1','2']}),
+                           (f:ClickNode:NavNode {id:'f', instances:['1','2']}),
+                           (a)-[:NEXT]->(b1)-[:NEXT]->(e), (a)-[:NEXT]->(b2)-[:NEXT]->(e), (e)-[:NEXT]->(f),
+                           (b1)-[:PARAM]->(:SchemaParameter {id:'p'}),
+                           (x:ClickNode:NavNode {id:'x', instances:['3']}),
+                           (y:EffectNode:NavNode {id:'y', instances:['3']}),
+                           (z:ClickNode:NavNode {id:'z', instances:['3']}),
+                           (x)-[:NEXT]->(y), (x)-[:NEXT]->(y), (y)-[:NEXT]->(z)
+                    """);
+
+            CollapsingTraversal traversal = new CollapsingTraversal(graphDB);
+            List<Collapse> collapses = assertTimeoutPreemptively(Duration.ofMinutes(2), traversal::doCollapsePass);
+
+            assertEquals(1, collapses.size());
+
+            //b1 and b2 were replaced by a single collapsed click node between a and e.
+            Map<String, Object> collapsed = graphDB.db.executeTransactionally("""
+                    MATCH (a {id:'a'})-[:NEXT]->(c:CollapsedClickNode)-[:NEXT]->(e {id:'e'})
+                    RETURN count(c) AS count, c.xpaths AS xpaths, c.instances AS instances
+                    """, Map.of(), result->result.next());
+            assertEquals(1L, collapsed.get("count"));
+            assertEquals(2, ((String[])collapsed.get("xpaths")).length);
+            assertEquals(2, ((String[])collapsed.get("instances")).length);
+
+            assertEquals(0L, count(graphDB, "MATCH (n) WHERE n.id IN ['b1','b2'] RETURN count(n) AS count"));
+            assertEquals(1L, count(graphDB, "MATCH (:NavNode {id:'a'})-[r:NEXT]->() RETURN count(r) AS count"));
+
+            //The parallel edges were left alone.
+            assertEquals(2L, count(graphDB, "MATCH ({id:'x'})-[r:NEXT]->({id:'y'}) RETURN count(r) AS count"));
+            assertEquals(1L, count(graphDB, "MATCH ({id:'y'})-[r:NEXT]->({id:'z'}) RETURN count(r) AS count"));
+
+            //Nothing left to collapse.
+            assertEquals(0, traversal.doCollapsePass().size());
+
+        }finally {
+            graphDB.shutdown();
+        }
+    }
+
+    private static long count(GraphDB graphDB, String query){
+        return graphDB.db.executeTransactionally(query, Map.of(), result->(long)result.next().get("count"));
+    }
+
+}
@@ -0,0 +1,80 @@
+package ca.ualberta.odobot;
+
+import ca.ualberta.odobot.sqlite.impl.TrainingExemplar;
+import ca.ualberta.odobot.tpg.TPGAlgorithm;
+import ca.ualberta.odobot.tpg.TPGLearn;
+import ca.ualberta.odobot.tpg.analysis.metrics.BidCacheMetric;
+import ca.ualberta.odobot.tpg.service.impl.TeamEvaluator;
+import ca.ualberta.odobot.tpg.service.impl.TrainingTaskImpl;
+import ca.ualberta.odobot.tpg.util.ColumnarDataset;
+import ca.ualberta.odobot.tpg.util.TrainingColumns;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ColumnarDatasetTest {
+
+    @Test
+    void columnsMatchExemplars(@TempDir Path directory) throws Exception {
+
+        List<TrainingExemplar> exemplars = ParallelEvaluationTest.exemplars(new Random(7), 25, 6, 4);
+        Path file = directory.resolve("dataset.odods");
+        ColumnarDataset.write(exemplars, file);
+
+        try(ColumnarDataset dataset = ColumnarDataset.open(file)){
+            assertEquals(exemplars.size(), dataset.size());
+
+            double [] buffer = null;
+            for(int row = 0; row < exemplars.size(); row++){
+                TrainingExemplar exemplar = exemplars.get(row);
+                buffer = dataset.featureVector(row, buffer);
+
+                assertArrayEquals(exemplar.featureVector(), buffer);
+                for(int dimension = 0; dimension < exemplar.labels().length; dimension++){
+                    assertEquals(exemplar.labels()[dimension], dataset.label(row, dimension));
+                }
+                assertEquals(exemplar.extras().getString("path"), dataset.path(row));
+                assertEquals(exemplar.id(), dataset.id(row));
+            }
+        }
+    }
+
+    @Test
+    void evaluationFromColumnsMatchesExemplars(@TempDir Path directory) throws Exception {
+
+        List<TrainingExemplar> exemplars = ParallelEvaluationTest.exemplars(new Random(ParallelEvaluationTest.SEED), 40, 8, 5);
+        Path file = directory.resolve("dataset.odods");
+        ColumnarDataset.write(exemplars, file);
+
+        TPGAlgorithm.RNG = new Random(ParallelEvaluationTest.SEED);
+        TPGLearn tpg = new TPGLearn(ParallelEvaluationTest.arguments());
+        tpg.setActions(new long [] {0L, 1L, 2L, 3L, 4L, 5L});
+        tpg.initialize();
+
+        List<Integer> rows = IntStream.range(0, exemplars.size()).boxed().collect(Collectors.toList());
+        long [] pathActions = TrainingTaskImpl.generateActions(exemplars, 0);
+
+        try(ColumnarDataset dataset = ColumnarDataset.open(file)){
+            assertArrayEquals(pathActions, TrainingTaskImpl.generateActions(dataset, 0));
+
+            List<TeamEvaluator.TeamEvaluation> fromExemplars = new TeamEvaluator(TrainingColumns.of(exemplars), rows, pathActions, ParallelEvaluationTest.NUMBER_OF_ACTION_REGISTERS, false, -1, null, null, 1)
+                    .evaluate(tpg, tpg.queuedTeams(), new BidCacheMetric());
+            List<TeamEvaluator.TeamEvaluation> fromColumns = new TeamEvaluator(dataset, rows, pathActions, ParallelEvaluationTest.NUMBER_OF_ACTION_REGISTERS, false, -1, null, null, 1)
+                    .evaluate(tpg, tpg.queuedTeams(), new BidCacheMetric());
+
+            for(int i = 0; i < fromExemplars.size(); i++){
+                assertEquals(fromExemplars.get(i).reward(), fromColumns.get(i).reward());
+                assertEquals(fromExemplars.get(i).labelClassificationMap().keySet(), fromColumns.get(i).labelClassificationMap().keySet());
+            }
+        }
+    }
+
+}
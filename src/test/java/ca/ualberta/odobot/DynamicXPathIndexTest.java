@@ -0,0 +1,191 @@
+package ca.ualberta.odobot;
+
+import ca.ualberta.odobot.semanticflow.navmodel.DynamicXPath;
+import ca.ualberta.odobot.semanticflow.navmodel.DynamicXPathIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks {@link DynamicXPathIndex} against a linear scan calling {@link DynamicXPath#matches(String)} on every
+ * dynamic xpath, which is how xpaths were localized before the index. The index deliberately differs from that scan in
+ * two ways, pinned down by {@link #prefixEndsOnSegmentBoundary()} and {@link #longestPrefixWins()}.
+ */
+public class DynamicXPathIndexTest {
+
+    private static final String [] CONTAINERS = {"div", "ul", "section", "table", "form"};
+    private static final String [] TAGS = {"li", "tr", "div", "span"};
+    private static final String [] SUFFIXES = {"/a", "/button", "/span[1]/a", "/td[2]/input", "/label"};
+
+    private record Entry(DynamicXPath dynamicXPath, UUID nodeId){}
+
+    @Test
+    void indexMatchesLinearScan(){
+
+        Random random = new Random(11);
+
+        List<Entry> entries = new ArrayList<>();
+        DynamicXPathIndex index = new DynamicXPathIndex();
+
+        //Prefixes are drawn from a small pool so that many dynamic xpaths share prefixes, or are prefixes of each other.
+        //Some end on a segment without a position, eg: '/div', which a plain startsWith also finds in '/div[2]'.
+        List<String> prefixes = new ArrayList<>();
+        for(int i = 0; i < 60; i++){
+            String parent = prefixes.isEmpty() || random.nextInt(3) == 0 ? "/html/body" : prefixes.get(random.nextInt(prefixes.size()));
+            String segment = random.nextInt(5) == 0 ? CONTAINERS[random.nextInt(CONTAINERS.length)] : segment(random, CONTAINERS);
+            prefixes.add(parent + "/" + segment);
+        }
+
+        for(int i = 0; i < 400; i++){
+            List<String> suffixes = new ArrayList<>();
+            int count = 1 + random.nextInt(2);
+            for(int s = 0; s < count; s++){
+                suffixes.add(SUFFIXES[random.nextInt(SUFFIXES.length)]);
+            }
+
+            DynamicXPath dynamicXPath = new DynamicXPath()
+                    .setKnownSuffixes(suffixes)
+                    .setSuffixPattern(DynamicXPath.toSuffixPattern(suffixes));
+            dynamicXPath.setPrefix(prefixes.get(random.nextInt(prefixes.size())));
+            dynamicXPath.setDynamicTag(TAGS[random.nextInt(TAGS.length)]);
+
+            if(entries.stream().anyMatch(entry->entry.dynamicXPath().equals(dynamicXPath))){
+                continue;
+            }
+
+            Entry entry = new Entry(dynamicXPath, UUID.randomUUID());
+            entries.add(entry);
+            index.put(entry.dynamicXPath(), entry.nodeId());
+        }
+
+        int matched = 0;
+        int offBoundary = 0;
+        for(int i = 0; i < 5000; i++){
+            String xpath = sample(random, prefixes);
+
+            Optional<UUID> actual = index.find(xpath);
+            if(check(entries, xpath, actual)){
+                offBoundary++;
+            }
+            if(actual.isPresent()){
+                matched++;
+            }
+        }
+
+        //Make sure the samples exercised both outcomes, and xpaths only matched by a prefix ending mid segment.
+        assertTrue(matched > 500, "matched " + matched);
+        assertTrue(matched < 4500, "matched " + matched);
+        assertTrue(offBoundary > 0, "offBoundary " + offBoundary);
+
+        //Removing entries keeps the index in line with the scan.
+        List<Entry> removed = new ArrayList<>(entries);
+        Collections.shuffle(removed, random);
+        removed = removed.subList(0, removed.size() / 2);
+        removed.forEach(entry->assertTrue(index.remove(entry.dynamicXPath(), entry.nodeId())));
+        entries.removeAll(removed);
+        assertEquals(entries.size(), index.size());
+
+        for(int i = 0; i < 2000; i++){
+            String xpath = sample(random, prefixes);
+            check(entries, xpath, index.find(xpath));
+        }
+    }
+
+    /**
+     * Before the index, a prefix only had to be the start of the xpath, so '/html/body/div' matched xpaths under
+     * '/html/body/div[2]'. The index only matches prefixes ending on a segment boundary.
+     */
+    @Test
+    void prefixEndsOnSegmentBoundary(){
+        DynamicXPath dynamicXPath = dynamicXPath("/html/body/div", "li", "/a");
+        UUID nodeId = UUID.randomUUID();
+
+        DynamicXPathIndex index = new DynamicXPathIndex();
+        index.put(dynamicXPath, nodeId);
+
+        String midSegment = "/html/body/div[2]/li[1]/a";
+        assertTrue(dynamicXPath.matches(midSegment));
+        assertEquals(Optional.empty(), index.find(midSegment));
+
+        assertEquals(Optional.of(nodeId), index.find("/html/body/div/li[1]/a"));
+    }
+
+    /**
+     * Before the index, any matching dynamic xpath could be returned. The index returns the one with the longest prefix.
+     */
+    @Test
+    void longestPrefixWins(){
+        DynamicXPath outer = dynamicXPath("/html/body/div[1]", "div", "/section/a");
+        DynamicXPath inner = dynamicXPath("/html/body/div[1]/div[3]", "section", "/a");
+        UUID outerId = UUID.randomUUID();
+        UUID innerId = UUID.randomUUID();
+
+        DynamicXPathIndex index = new DynamicXPathIndex();
+        index.put(outer, outerId);
+        index.put(inner, innerId);
+
+        String xpath = "/html/body/div[1]/div[3]/section/a";
+        assertTrue(outer.matches(xpath));
+        assertTrue(inner.matches(xpath));
+        assertEquals(Optional.of(innerId), index.find(xpath));
+
+        index.remove(inner, innerId);
+        assertEquals(Optional.of(outerId), index.find(xpath));
+    }
+
+    /**
+     * Checks a lookup against a linear scan of the dynamic xpaths matching the xpath, allowing for the differences
+     * pinned down by {@link #prefixEndsOnSegmentBoundary()} and {@link #longestPrefixWins()}.
+     *
+     * @return true if the scan found matches that the index rightly ignored because their prefix ends mid segment.
+     */
+    private static boolean check(List<Entry> entries, String xpath, Optional<UUID> actual){
+        List<Entry> matching = entries.stream()
+                .filter(entry->entry.dynamicXPath().matches(xpath))
+                .collect(Collectors.toList());
+
+        List<Entry> onBoundary = matching.stream()
+                .filter(entry->xpath.startsWith(entry.dynamicXPath().getPrefix() + "/"))
+                .collect(Collectors.toList());
+
+        if(onBoundary.isEmpty()){
+            assertEquals(Optional.empty(), actual, xpath);
+            return !matching.isEmpty();
+        }
+
+        assertTrue(actual.isPresent(), xpath);
+        int longest = onBoundary.stream().mapToInt(entry->entry.dynamicXPath().getPrefix().length()).max().getAsInt();
+        assertTrue(onBoundary.stream().anyMatch(entry->entry.nodeId().equals(actual.get()) && entry.dynamicXPath().getPrefix().length() == longest), xpath);
+        return false;
+    }
+
+    private static DynamicXPath dynamicXPath(String prefix, String tag, String suffix){
+        DynamicXPath dynamicXPath = new DynamicXPath()
+                .setKnownSuffixes(List.of(suffix))
+                .setSuffixPattern(DynamicXPath.toSuffixPattern(List.of(suffix)));
+        dynamicXPath.setPrefix(prefix);
+        dynamicXPath.setDynamicTag(tag);
+        return dynamicXPath;
+    }
+
+    private static String sample(Random random, List<String> prefixes){
+        StringBuilder sb = new StringBuilder(prefixes.get(random.nextInt(prefixes.size())));
+        if(sb.charAt(sb.length() - 1) != ']' && random.nextBoolean()){
+            sb.append("[").append(1 + random.nextInt(3)).append("]");
+        }
+        sb.append("/").append(segment(random, TAGS));
+        if(random.nextInt(4) > 0){
+            sb.append(SUFFIXES[random.nextInt(SUFFIXES.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static String segment(Random random, String [] tags){
+        return tags[random.nextInt(tags.length)] + "[" + (1 + random.nextInt(3)) + "]";
+    }
+
+}
@@ -0,0 +1,127 @@
+package ca.ualberta.odobot;
+
+import ca.ualberta.odobot.guidance.execution.ExecutionParameter;
+import ca.ualberta.odobot.guidance.execution.SchemaParameter;
+import ca.ualberta.odobot.logpreprocessor.LogPreprocessor;
+import ca.ualberta.odobot.semanticflow.navmodel.GraphDB;
+import ca.ualberta.odobot.semanticflow.navmodel.NavPath;
+import ca.ualberta.odobot.semanticflow.navmodel.NavPathsConstructor;
+import ca.ualberta.odobot.semanticflow.navmodel.Neo4JUtils;
+import ca.ualberta.odobot.semanticflow.navmodel.PathSearchOptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.neo4j.graphdb.Transaction;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Path construction on a model with more than a thousand paths between two nodes, most of which go through a node
+ * bound to a parameter the request did not ask for.
+ */
+public class NavPathLimitTest {
+
+    //Number of diamonds chained on the branch through the unwanted parameter, each doubles the number of paths.
+    private static final int DIAMONDS = 11;
+
+    //Length of the branch through the expected parameter, longer than the other branch so its path is found last.
+    private static final int CHAIN_LENGTH = 40;
+
+    private final UUID src = UUID.randomUUID();
+    private final UUID tgt = UUID.randomUUID();
+    private final UUID expectedParameter = UUID.randomUUID();
+    private final UUID otherParameter = UUID.randomUUID();
+
+    @Test
+    void pathsAreFilteredBeforeTheyAreCounted(@TempDir Path directory) throws Exception {
+
+        GraphDB graphDB = new GraphDB(directory.toString(), "neo4j");
+        try{
+            buildModel(graphDB);
+
+            LogPreprocessor.neo4j = new Neo4JUtils("bolt://localhost:7687", "neo4j", "neo4j");
+            NavPathsConstructor pathsConstructor = new NavPathsConstructor(graphDB, null);
+
+            List<ExecutionParameter> parameters = List.of(new SchemaParameter().setNodeId(expectedParameter));
+
+            try(Transaction tx = graphDB.db.beginTx()){
+
+                //Paths are no longer capped unless the caller asks for it.
+                List<NavPath> all = pathsConstructor.construct(tx, src, tgt);
+                assertEquals((1 << DIAMONDS) + 1, all.size());
+
+                List<NavPath> capped = pathsConstructor.construct(tx, src, tgt, new PathSearchOptions().setMaxPaths(1000));
+                assertEquals(1000, capped.size());
+
+                //Every path through the other parameter is shorter than the one through the expected parameter, so
+                //that one is only found if the others are left out before counting towards the limit.
+                for(int maxPaths: new int[]{1, 1000, PathSearchOptions.DEFAULT_MAX_PATHS}){
+                    List<NavPath> paths = pathsConstructor.construct(tx, src, tgt, parameters, new PathSearchOptions().setMaxPaths(maxPaths));
+                    assertEquals(1, paths.size(), "maxPaths " + maxPaths);
+                    assertEquals(CHAIN_LENGTH + 2, paths.get(0).getPath().length(), "maxPaths " + maxPaths);
+                }
+            }
+
+        }finally {
+            LogPreprocessor.neo4j = null;
+            graphDB.shutdown();
+        }
+    }
+
+    /**
+     * src -> a node bound to the other parameter -> a chain of diamonds -> tgt
+     * src -> a node bound to the expected parameter -> a chain of nodes -> tgt
+     */
+    private void buildModel(GraphDB graphDB){
+
+        String otherNode = UUID.randomUUID().toString();
+        String expectedNode = UUID.randomUUID().toString();
+
+        graphDB.db.executeTransactionally("""
+                CREATE (s:ClickNode:NavNode {id:$src}), (t:ClickNode:NavNode {id:$tgt}),
+                       (o:ClickNode:NavNode {id:$otherNode})-[:PARAM]->(:SchemaParameter {id:$otherParameter}),
+                       (e:ClickNode:NavNode {id:$expectedNode})-[:PARAM]->(:SchemaParameter {id:$expectedParameter}),
+                       (s)-[:NEXT]->(o), (s)-[:NEXT]->(e)
+                """, Map.of(
+                        "src", src.toString(),
+                        "tgt", tgt.toString(),
+                        "otherNode", otherNode,
+                        "expectedNode", expectedNode,
+                        "otherParameter", otherParameter.toString(),
+                        "expectedParameter", expectedParameter.toString()
+        ));
+
+        String last = otherNode;
+        for(int i = 0; i < DIAMONDS; i++){
+            String join = UUID.randomUUID().toString();
+            for(int side = 0; side < 2; side++){
+                String middle = UUID.randomUUID().toString();
+                next(graphDB, last, middle);
+                next(graphDB, middle, join);
+            }
+            last = join;
+        }
+        next(graphDB, last, tgt.toString());
+
+        last = expectedNode;
+        for(int i = 0; i < CHAIN_LENGTH; i++){
+            String node = UUID.randomUUID().toString();
+            next(graphDB, last, node);
+            last = node;
+        }
+        next(graphDB, last, tgt.toString());
+    }
+
+    private static void next(GraphDB graphDB, String from, String to){
+        graphDB.db.executeTransactionally("""
+                MERGE (a:ClickNode:NavNode {id:$from})
+                MERGE (b:ClickNode:NavNode {id:$to})
+                CREATE (a)-[:NEXT]->(b)
+                """, Map.of("from", from, "to", to));
+    }
+
+}
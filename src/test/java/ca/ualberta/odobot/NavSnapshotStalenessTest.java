@@ -0,0 +1,65 @@
+package ca.ualberta.odobot;
+
+import ca.ualberta.odobot.logpreprocessor.LogPreprocessor;
+import ca.ualberta.odobot.semanticflow.navmodel.GraphDB;
+import ca.ualberta.odobot.semanticflow.navmodel.NavGraphSnapshot;
+import ca.ualberta.odobot.semanticflow.navmodel.NavPathsConstructor;
+import ca.ualberta.odobot.semanticflow.navmodel.Neo4JUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.neo4j.driver.AuthTokens;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.GraphDatabase;
+import org.neo4j.driver.Session;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Writes to the nav model made over bolt (ex: through {@link Neo4JUtils}) never go through {@link NavPathsConstructor},
+ * so the snapshot it builds paths from must still notice them.
+ */
+public class NavSnapshotStalenessTest {
+
+    private static final String BOLT_URI = "bolt://localhost:7687";
+
+    @Test
+    void boltWriteMakesSnapshotStale(@TempDir Path directory) throws Exception {
+
+        GraphDB graphDB = new GraphDB(directory.toString(), "neo4j");
+        try(Driver driver = GraphDatabase.driver(BOLT_URI, AuthTokens.none())){
+
+            graphDB.db.executeTransactionally("CREATE (:ClickNode:NavNode {id:'a'})-[:NEXT]->(:ClickNode:NavNode {id:'b'}), (:ClickNode:NavNode {id:'c'})");
+
+            LogPreprocessor.neo4j = new Neo4JUtils(BOLT_URI, "neo4j", "neo4j");
+            NavPathsConstructor pathsConstructor = new NavPathsConstructor(graphDB, null);
+
+            NavGraphSnapshot before = pathsConstructor.getSnapshot();
+            assertEquals(3, before.size());
+            assertEquals(1, before.edgeCount());
+            assertSame(before, pathsConstructor.getSnapshot());
+
+            long version = graphDB.getModelVersion();
+
+            try(Session session = driver.session()){
+                session.run("MATCH (b:NavNode {id:$from}), (c:NavNode {id:$to}) CREATE (b)-[:NEXT]->(c)", Map.of("from", "b", "to", "c")).consume();
+            }
+
+            assertTrue(graphDB.getModelVersion() > version);
+
+            NavGraphSnapshot after = pathsConstructor.getSnapshot();
+            assertNotSame(before, after);
+            assertEquals(2, after.edgeCount());
+
+        }finally {
+            LogPreprocessor.neo4j = null;
+            graphDB.shutdown();
+        }
+    }
+
+}
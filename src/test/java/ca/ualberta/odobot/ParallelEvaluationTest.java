@@ -0,0 +1,120 @@
+package ca.ualberta.odobot;
+
+import ca.ualberta.odobot.sqlite.impl.TrainingExemplar;
+import ca.ualberta.odobot.tpg.TPGAlgorithm;
+import ca.ualberta.odobot.tpg.TPGLearn;
+import ca.ualberta.odobot.tpg.analysis.metrics.BidCacheMetric;
+import ca.ualberta.odobot.tpg.service.impl.TeamEvaluator;
+import ca.ualberta.odobot.tpg.service.impl.TrainingTaskImpl;
+import ca.ualberta.odobot.tpg.util.TrainingColumns;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParallelEvaluationTest {
+
+    static final int SEED = 42;
+
+    static final int NUMBER_OF_ACTION_REGISTERS = 4;
+
+    @Test
+    void parallelAndSequentialFitnessAreEqual() throws Exception {
+
+        TrainingColumns trainingData = TrainingColumns.of(exemplars(new Random(SEED), 60, 8, 5));
+        List<Integer> rows = IntStream.range(0, trainingData.size()).boxed().collect(Collectors.toList());
+        long [] pathActions = TrainingTaskImpl.generateActions(trainingData, 0);
+
+        TPGAlgorithm.RNG = new Random(SEED);
+        TPGLearn tpg = new TPGLearn(arguments());
+        tpg.setActions(new long [] {0L, 1L, 2L, 3L, 4L, 5L});
+        tpg.initialize();
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try{
+            TeamEvaluator sequential = new TeamEvaluator(trainingData, rows, pathActions, NUMBER_OF_ACTION_REGISTERS, false, -1, null, null, 1);
+            TeamEvaluator parallel = new TeamEvaluator(trainingData, rows, pathActions, NUMBER_OF_ACTION_REGISTERS, false, -1, null, pool, 4);
+
+            long memoHits = 0;
+
+            //Evolve a few generations so that later populations share learners and contain team actions.
+            for(int generation = 0; generation < 3; generation++){
+                BidCacheMetric sequentialBids = new BidCacheMetric();
+                BidCacheMetric parallelBids = new BidCacheMetric();
+
+                List<Double> sequentialRewards = rewards(sequential.evaluate(tpg, tpg.queuedTeams(), sequentialBids));
+                List<Double> parallelRewards = rewards(parallel.evaluate(tpg, tpg.queuedTeams(), parallelBids));
+
+                assertEquals(sequentialRewards, parallelRewards, "generation " + generation);
+
+                //Every learner bids at most once per exemplar, whichever team asks first.
+                assertEquals(sequentialBids.hits, parallelBids.hits, "generation " + generation);
+                assertEquals(sequentialBids.misses, parallelBids.misses, "generation " + generation);
+                assertTrue(sequentialBids.misses <= (long)tpg.learners.size() * trainingData.size());
+                memoHits += sequentialBids.hits;
+
+                sequentialRewards.forEach(reward->tpg.reward("test", reward));
+                tpg.selection();
+                tpg.generateNewTeams(2);
+                tpg.nextEpoch();
+            }
+
+            //Offspring share learners with their parents, so some bids must have been served from the memo.
+            assertTrue(memoHits > 0);
+
+        }finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static List<Double> rewards(List<TeamEvaluator.TeamEvaluation> evaluations){
+        return evaluations.stream().map(TeamEvaluator.TeamEvaluation::reward).collect(Collectors.toList());
+    }
+
+    static List<TrainingExemplar> exemplars(Random random, int count, int features, int labels){
+        List<TrainingExemplar> result = new ArrayList<>();
+        for(int i = 0; i < count; i++){
+            double [] featureVector = new double[features];
+            for(int f = 0; f < features; f++){
+                featureVector[f] = random.nextInt(3);
+            }
+            int label = random.nextInt(labels);
+            result.add(new TrainingExemplar(UUID.randomUUID(), "test", featureVector, new int[]{label, 0, 0}, "test",
+                    new JsonArray(), new JsonObject().put("path", "/path/" + label), null));
+        }
+        return result;
+    }
+
+    static Map<String, String> arguments(){
+        Map<String, String> arguments = new HashMap<>();
+        arguments.put("teamPopSize", "20");
+        arguments.put("teamGap", "0.5");
+        arguments.put("probLearnerDelete", "0.7");
+        arguments.put("probLearnerAdd", "0.7");
+        arguments.put("probMutateAction", "0.2");
+        arguments.put("probActionIsTeam", "0.5");
+        arguments.put("maximumTeamSize", "5");
+        arguments.put("maximumProgramSize", "16");
+        arguments.put("probProgramDelete", "0.5");
+        arguments.put("probProgramAdd", "0.5");
+        arguments.put("probProgramSwap", "1.0");
+        arguments.put("probProgramMutate", "1.0");
+        arguments.put("maximumActionProgramSize", "16");
+        arguments.put("probActionProgramDelete", "0.5");
+        arguments.put("probActionProgramAdd", "0.5");
+        arguments.put("probActionProgramSwap", "1.0");
+        arguments.put("probActionProgramMutate", "1.0");
+        arguments.put("numberofActionRegisters", Integer.toString(NUMBER_OF_ACTION_REGISTERS));
+        arguments.put("seed", Integer.toString(SEED));
+        return arguments;
+    }
+
+}
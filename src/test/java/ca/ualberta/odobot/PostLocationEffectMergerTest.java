@@ -0,0 +1,64 @@
+package ca.ualberta.odobot;
+
+import ca.ualberta.odobot.semanticflow.navmodel.GraphDB;
+import ca.ualberta.odobot.semanticflow.navmodel.NavGraphSnapshot;
+import ca.ualberta.odobot.semanticflow.navmodel.PathSearchOptions;
+import ca.ualberta.odobot.semanticflow.navmodel.PostLocationEffectMerger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class PostLocationEffectMergerTest {
+
+    /**
+     * c -> l -> e1 -> d
+     *      l -> e2 -> d
+     *
+     * where l is a location node, e1 and e2 are merged into a single effect node, which must be part of the nav model
+     * like any other node.
+     */
+    @Test
+    void mergedEffectNodeIsANavNode(@TempDir Path directory) throws Exception {
+
+        String location = UUID.randomUUID().toString();
+
+        GraphDB graphDB = new GraphDB(directory.toString(), "neo4j");
+        try{
+            graphDB.db.executeTransactionally("""
+                    CREATE (c:ClickNode:NavNode {id:'c', instances:['1','2']}),
+                           (l:LocationNode:NavNode {id:$location, path:'/courses', instances:['1','2']}),
+                           (e1:EffectNode:NavNode {id:'e1', instances:['1']}),
+                           (e2:EffectNode:NavNode {id:'e2', instances:['2']}),
+                           (d:ClickNode:NavNode {id:'d', instances:['1','2']}),
+                           (c)-[:NEXT]->(l), (l)-[:NEXT]->(e1)-[:NEXT]->(d), (l)-[:NEXT]->(e2)-[:NEXT]->(d)
+                    """, Map.of("location", location));
+
+            new PostLocationEffectMerger(graphDB).doPass();
+
+            String mergedId = graphDB.db.executeTransactionally(
+                    "MATCH ({id:$location})-[:NEXT]->(m:CollapsedEffectNode)-[:NEXT]->({id:'d'}) RETURN m.id AS id",
+                    Map.of("location", location), result->(String)result.next().get("id"));
+
+            NavGraphSnapshot snapshot = NavGraphSnapshot.build(graphDB.db);
+            assertNotEquals(-1, snapshot.indexOf(mergedId));
+            assertEquals(4, snapshot.size());
+            assertEquals(3, snapshot.edgeCount());
+
+            //Paths through the merged node are found.
+            List<NavGraphSnapshot.Walk> paths = snapshot.paths(snapshot.indexOf("c"), snapshot.indexOf("d"), new PathSearchOptions());
+            assertEquals(1, paths.size());
+            assertEquals(List.of("c", location, mergedId, "d"), snapshot.ids(paths.get(0)));
+
+        }finally {
+            graphDB.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+package ca.ualberta.odobot;
+
+import ca.ualberta.odobot.semanticflow.extraction.terms.AnnotationService;
+import ca.ualberta.odobot.semanticflow.extraction.terms.SourceFunctions;
+import ca.ualberta.odobot.semanticflow.extraction.terms.annotators.EnglishWordAnnotator;
+import ca.ualberta.odobot.semanticflow.extraction.terms.impl.BasicStanfordNLPStrategy;
+import ca.ualberta.odobot.semanticflow.model.AbstractArtifact;
+import ca.ualberta.odobot.semanticflow.model.ClickEvent;
+import edu.stanford.nlp.ling.CoreLabel;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks that the batch {@link BasicStanfordNLPStrategy#extractTerms(List, Function)}, used when preparing extractors,
+ * gives the same terms as calling {@link BasicStanfordNLPStrategy#extractTerms(AbstractArtifact, Function)} on each
+ * entity.
+ */
+public class TermBatchExtractionTest {
+
+    private static final String HTML = """
+            <html><head><title>Assignments</title></head><body>
+            <div id="assignment_overrides"><button id="save_quiz_button">Save and publish</button></div>
+            <button id="add-student-override">Add students to this override</button>
+            <button id="cancel_button">Cancel</button>
+            <button id="cancel_button_2">Cancel</button>
+            <button id="">   </button>
+            <a id="grades_2023">Grades for 2023, submitted quizzes and re-submitted assignments</a>
+            <span id="modules">Modules modules MODULES</span>
+            </body></html>
+            """;
+
+    private static final String [] XPATHS = {
+            "/html/body/div/button",
+            "/html/body/button[1]",
+            "/html/body/button[2]",
+            "/html/body/button[3]",
+            "/html/body/button[4]",
+            "/html/body/a",
+            "/html/body/span"
+    };
+
+    private static List<ClickEvent> clickEvents;
+
+    @BeforeAll
+    static void setup(){
+        Document document = Jsoup.parse(HTML);
+
+        clickEvents = new ArrayList<>();
+        for(String xpath: XPATHS){
+            ClickEvent clickEvent = new ClickEvent();
+            clickEvent.setDomSnapshot(document);
+            clickEvent.setXpath(xpath);
+            clickEvents.add(clickEvent);
+        }
+    }
+
+    @Test
+    void batchMatchesPerEntity(){
+        //The englishWords annotator needs a local WordNet install.
+        assumeTrue(new File(AnnotationService.WORDNET_HOME, "dict").isDirectory(), "WordNet not found at " + AnnotationService.WORDNET_HOME);
+
+        for(boolean allowDuplicates: new boolean[]{true, false}){
+            BasicStanfordNLPStrategy strategy = new BasicStanfordNLPStrategy();
+            strategy.allowDuplicates(allowDuplicates);
+
+            for(SourceFunctions source: List.of(SourceFunctions.TARGET_ELEMENT_TEXT, SourceFunctions.TARGET_ELEMENT_ID)){
+                //Start from an empty cache each time so that both calls actually annotate the texts.
+                AnnotationService.splitHyphenated().getCache().clear();
+                List<List<CoreLabel>> batch = strategy.extractTerms(clickEvents, source.getFunction());
+
+                AnnotationService.splitHyphenated().getCache().clear();
+                assertEquals(clickEvents.size(), batch.size());
+                for(int i = 0; i < clickEvents.size(); i++){
+                    List<CoreLabel> single = strategy.extractTerms(clickEvents.get(i), source.getFunction());
+                    assertEquals(render(single), render(batch.get(i)), source + " " + XPATHS[i] + " allowDuplicates " + allowDuplicates);
+                }
+            }
+        }
+    }
+
+    private static List<String> render(List<CoreLabel> terms){
+        return terms.stream()
+                .map(term->term.word() + "/" + term.tag() + "/" + term.lemma() + "/" + term.get(EnglishWordAnnotator.class))
+                .collect(Collectors.toList());
+    }
+
+}
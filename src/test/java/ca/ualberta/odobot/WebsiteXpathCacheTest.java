@@ -0,0 +1,190 @@
+package ca.ualberta.odobot;
+
+import ca.ualberta.odobot.domsequencing.XPathResolver;
+import ca.ualberta.odobot.mind2web.WebsiteXpathCache;
+import ca.ualberta.odobot.semanticflow.navmodel.DynamicXPath;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WebsiteXpathCacheTest {
+
+    private final Map<String, AtomicInteger> xpathLoads = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> dynamicXpathLoads = new ConcurrentHashMap<>();
+
+    private List<String> loadXpaths(String website){
+        int load = xpathLoads.computeIfAbsent(website, key->new AtomicInteger()).incrementAndGet();
+        return List.of("/html/body/div[" + load + "]/a", "/html/body/" + website);
+    }
+
+    private Future<JsonArray> loadDynamicXpaths(String website){
+        dynamicXpathLoads.computeIfAbsent(website, key->new AtomicInteger()).incrementAndGet();
+        return Future.succeededFuture(new JsonArray().add(new JsonObject()
+                .put("prefix", "/html/body/" + website)
+                .put("dynamicTag", "li")
+                .put("suffixPattern", "(\\/a)")
+        ));
+    }
+
+    @Test
+    void xpathsAreCachedUntilInvalidated(){
+        WebsiteXpathCache cache = new WebsiteXpathCache(this::loadXpaths, this::loadDynamicXpaths);
+
+        XPathResolver.CompiledXPaths a = cache.getXpaths("a");
+        assertEquals(List.of("/html/body/div[1]/a", "/html/body/a"), a.getXpaths());
+        assertSame(a, cache.getXpaths("a"));
+        assertEquals(List.of("/html/body/div[1]/a", "/html/body/b"), cache.getXpaths("b").getXpaths());
+
+        //Invalidating a website only reloads that website.
+        cache.invalidate("a");
+        assertEquals(List.of("/html/body/div[2]/a", "/html/body/a"), cache.getXpaths("a").getXpaths());
+        assertEquals(1, cache.getXpaths("b").getXpaths().stream().filter(xpath->xpath.contains("div[1]")).count());
+        assertEquals(2, xpathLoads.get("a").get());
+        assertEquals(1, xpathLoads.get("b").get());
+
+        //An unknown website drops everything.
+        cache.invalidate(null);
+        cache.getXpaths("a");
+        cache.getXpaths("b");
+        assertEquals(3, xpathLoads.get("a").get());
+        assertEquals(2, xpathLoads.get("b").get());
+
+        cache.invalidateAll();
+        cache.getXpaths("b");
+        assertEquals(3, xpathLoads.get("b").get());
+    }
+
+    @Test
+    void failedXpathLoadsAreNotCached(){
+        AtomicInteger attempts = new AtomicInteger();
+        WebsiteXpathCache cache = new WebsiteXpathCache(website->{
+            if(attempts.incrementAndGet() == 1){
+                throw new IllegalStateException("neo4j unavailable");
+            }
+            return List.of("/html/body");
+        }, this::loadDynamicXpaths);
+
+        assertThrows(IllegalStateException.class, ()->cache.getXpaths("a"));
+        assertEquals(List.of("/html/body"), cache.getXpaths("a").getXpaths());
+        cache.getXpaths("a");
+        assertEquals(2, attempts.get());
+    }
+
+    /**
+     * The loader runs outside of the cache's map, so a load may itself use the cache, even for a website that lands in
+     * the same bin of the map. Inside ConcurrentHashMap.computeIfAbsent this fails with a 'Recursive update'.
+     */
+    @Test
+    void loadsRunOutsideTheMap(){
+        String other = sameBin("a");
+
+        WebsiteXpathCache[] cache = new WebsiteXpathCache[1];
+        cache[0] = new WebsiteXpathCache(website->{
+            if(website.equals("a")){
+                List<String> result = new ArrayList<>(cache[0].getXpaths(other).getXpaths());
+                result.add("/html/body/a");
+                return result;
+            }
+            return loadXpaths(website);
+        }, this::loadDynamicXpaths);
+
+        List<String> xpaths = assertTimeoutPreemptively(Duration.ofSeconds(10), ()->cache[0].getXpaths("a").getXpaths());
+        assertEquals(List.of("/html/body/div[1]/a", "/html/body/" + other, "/html/body/a"), xpaths);
+    }
+
+    /**
+     * @return a website whose key falls in the same bin as the given one in a ConcurrentHashMap with the default 16 bins.
+     */
+    private static String sameBin(String website){
+        for(int i = 0; ; i++){
+            String candidate = "website" + i;
+            if(bin(candidate) == bin(website)){
+                return candidate;
+            }
+        }
+    }
+
+    private static int bin(String key){
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & 15;
+    }
+
+    @Test
+    void concurrentRequestsShareOneLoad() throws Exception {
+        int threads = 8;
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        WebsiteXpathCache cache = new WebsiteXpathCache(website->{
+            loading.countDown();
+            try{
+                release.await();
+            }catch (InterruptedException e){
+                throw new RuntimeException(e);
+            }
+            return loadXpaths(website);
+        }, this::loadDynamicXpaths);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try{
+            List<java.util.concurrent.Future<XPathResolver.CompiledXPaths>> results = new ArrayList<>();
+            for(int i = 0; i < threads; i++){
+                results.add(executor.submit(()->cache.getXpaths("a")));
+            }
+
+            assertTrue(loading.await(10, TimeUnit.SECONDS));
+            release.countDown();
+
+            XPathResolver.CompiledXPaths first = results.get(0).get(10, TimeUnit.SECONDS);
+            for(java.util.concurrent.Future<XPathResolver.CompiledXPaths> result: results){
+                assertSame(first, result.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, xpathLoads.get("a").get());
+        }finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void dynamicXpathsAreCachedUntilInvalidated(){
+        AtomicInteger attempts = new AtomicInteger();
+        WebsiteXpathCache cache = new WebsiteXpathCache(this::loadXpaths, website->{
+            if(attempts.incrementAndGet() == 1){
+                return Future.failedFuture("sqlite unavailable");
+            }
+            return loadDynamicXpaths(website);
+        });
+
+        //Failed loads are not cached.
+        assertTrue(cache.getDynamicXpaths("a").failed());
+
+        List<DynamicXPath> dynamicXpaths = cache.getDynamicXpaths("a").result();
+        assertEquals(1, dynamicXpaths.size());
+        assertEquals("/html/body/a", dynamicXpaths.get(0).getPrefix());
+        assertSame(dynamicXpaths, cache.getDynamicXpaths("a").result());
+        assertEquals(1, dynamicXpathLoads.get("a").get());
+
+        cache.invalidate("a");
+        assertNotSame(dynamicXpaths, cache.getDynamicXpaths("a").result());
+        assertEquals(2, dynamicXpathLoads.get("a").get());
+
+        cache.invalidateAll();
+        cache.getDynamicXpaths("a");
+        assertEquals(3, dynamicXpathLoads.get("a").get());
+    }
+
+}
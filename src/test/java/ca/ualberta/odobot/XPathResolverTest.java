@@ -0,0 +1,101 @@
+package ca.ualberta.odobot;
+
+import ca.ualberta.odobot.domsequencing.XPath;
+import ca.ualberta.odobot.domsequencing.XPathResolver;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class XPathResolverTest {
+
+    private static final String html = """
+            <html>
+                <head><title>Resolver</title></head>
+                <body>
+                    <div>
+                        <ul>
+                            <li><span>one</span></li>
+                            <li><span>two</span><span>three</span></li>
+                            <li>four</li>
+                        </ul>
+                    </div>
+                    <p>between</p>
+                    <div>
+                        <ul>
+                            <li><a href="#">five</a></li>
+                        </ul>
+                        <ul></ul>
+                    </div>
+                    <form><input type="text"><input type="submit"></form>
+                </body>
+            </html>
+            """;
+
+    private static final List<String> xpaths = List.of(
+            "/html/body",
+            "/html/body/div",
+            "/html/body/div[2]/ul[1]/li/a",
+            "/html/body/div/ul/li",
+            "/html/body/div[1]/ul/li[2]/span",
+            "/html/body/div[1]/ul/li[2]/span[2]",
+            "/html/body/div[3]",
+            "/html/body/form/input[2]",
+            "/html/body/table/tr",
+            "//li[span]",
+            "/html/body/div[1]/ul/li[last()]"
+    );
+
+    @Test
+    void matchesSelectXpath(){
+        Document document = Jsoup.parse(html);
+
+        for(String xpath: xpaths){
+            assertEquals(document.selectXpath(xpath), XPathResolver.select(document, xpath), xpath);
+        }
+    }
+
+    @Test
+    void resolvesGeneratedXpaths(){
+        Document document = Jsoup.parse(html);
+
+        List<String> generated = new ArrayList<>();
+        for(Element element: document.getAllElements()){
+            if(element == document){
+                continue;
+            }
+            String xpath = XPath.getXPath(element);
+            generated.add(xpath);
+
+            Elements resolved = XPathResolver.select(document, xpath);
+            assertEquals(1, resolved.size(), xpath);
+            assertSame(element, resolved.get(0), xpath);
+        }
+
+        Map<String, Elements> batch = XPathResolver.selectAll(document, generated);
+        for(String xpath: generated){
+            assertEquals(document.selectXpath(xpath), batch.get(xpath), xpath);
+        }
+    }
+
+    @Test
+    void selectAllMatchesSelect(){
+        Document document = Jsoup.parse(html);
+
+        Map<String, Elements> batch = XPathResolver.selectAll(document, xpaths);
+
+        assertEquals(xpaths, new ArrayList<>(batch.keySet()));
+        for(String xpath: xpaths){
+            assertEquals(document.selectXpath(xpath), batch.get(xpath), xpath);
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+package ca.ualberta.odobot;
+
+import ca.ualberta.odobot.domsequencing.XPath;
+import ca.ualberta.odobot.domsequencing.XPathVisitor;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class XPathVisitorTest {
+
+    private static final String [] TAGS = {"div", "span", "p", "a", "ul", "li", "my-widget", "section", "table", "tr", "td", "b"};
+
+    private static final String HTML = """
+            <html><head><title>Courses</title></head><body>
+            <div id="nav"><ul><li><a>Home</a></li><li><a>Courses</a><ul><li>One</li><li>Two</li></ul></li><li><a>Grades</a></li></ul></div>
+            <div id="main">
+              <h1>Courses</h1>
+              <table><tr><td><span>a</span><span>b</span></td><td><b>c</b></td></tr><tr><td>d</td></tr></table>
+              <form><div><label>Name</label><input/><input/></div><div><button>Save</button></div><p>help</p></form>
+              <div><div><div><span>deep</span></div><span>x</span><div><span>y</span></div></div></div>
+            </div>
+            <div id="footer"><p>only child</p></div>
+            </body></html>
+            """;
+
+    @Test
+    void visitorMatchesGetXPath(){
+        Document document = Jsoup.parse(HTML);
+        assertMatches(document);
+
+        //Traversals starting below the root.
+        assertMatches(document.getElementById("main"));
+        assertMatches(document.selectFirst("form"));
+    }
+
+    @Test
+    void visitorMatchesGetXPathOnGeneratedDocuments(){
+        Random random = new Random(42);
+        for(int round = 0; round < 20; round++){
+            StringBuilder sb = new StringBuilder("<html><head><title>x</title></head><body>");
+            generate(sb, random, 0);
+            sb.append("</body></html>");
+
+            Document document = Jsoup.parse(sb.toString());
+            assertMatches(document);
+            if(document.body().childrenSize() > 0){
+                assertMatches(document.body().child(0));
+            }
+        }
+    }
+
+    private static void assertMatches(Element root){
+        List<Element> elements = new ArrayList<>();
+        List<String> xpaths = new ArrayList<>();
+        root.traverse(new XPathVisitor() {
+            @Override
+            protected void head(Element element, String xpath) {
+                elements.add(element);
+                xpaths.add(xpath);
+            }
+        });
+
+        assertEquals(root.getAllElements(), elements);
+        for(int i = 0; i < elements.size(); i++){
+            Element element = elements.get(i);
+            if(element instanceof Document){
+                assertNull(xpaths.get(i));
+                continue;
+            }
+            assertEquals(XPath.getXPath(element), xpaths.get(i));
+        }
+    }
+
+    private static void generate(StringBuilder sb, Random random, int depth){
+        int children = depth > 6 ? 0 : random.nextInt(6);
+        for(int i = 0; i < children; i++){
+            String tag = TAGS[random.nextInt(TAGS.length)];
+            sb.append("<").append(tag).append(">text");
+            generate(sb, random, depth + 1);
+            sb.append("</").append(tag).append(">");
+        }
+    }
+
+}